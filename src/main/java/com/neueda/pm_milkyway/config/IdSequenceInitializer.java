@@ -0,0 +1,111 @@
+package com.neueda.pm_milkyway.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Moves every id sequence past the ids already in its table.
+ *
+ * Tables created before the entities switched to sequence ids were filled by
+ * AUTO_INCREMENT, and {@code ddl-auto=update} creates the missing sequences
+ * (on MySQL, {@code *_seq} tables) starting at 1, so the first inserts would
+ * reuse existing keys. This runs while the context starts, after Hibernate has
+ * updated the schema and before requests, schedules or startup listeners can
+ * insert. A sequence is only ever moved forward, so it is safe to run on every
+ * start and alongside other instances.
+ */
+@Component
+public class IdSequenceInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    // Hibernate's value column for sequences emulated with a table
+    private static final String VALUE_COLUMN = "next_val";
+
+    /** One sequence and the table whose ids it hands out. */
+    record IdSequence(String sequence, boolean physical, String table, String idColumn, int firstIdOffset) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+    private final List<IdSequence> sequences;
+
+    @Autowired
+    public IdSequenceInitializer(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, entityManagerFactory.unwrap(SessionFactoryImplementor.class));
+    }
+
+    private IdSequenceInitializer(JdbcTemplate jdbcTemplate, SessionFactoryImplementor sessionFactory) {
+        this(jdbcTemplate, sessionFactory.getJdbcServices().getDialect(), idSequences(sessionFactory));
+    }
+
+    IdSequenceInitializer(JdbcTemplate jdbcTemplate, Dialect dialect, List<IdSequence> sequences) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = dialect;
+        this.sequences = sequences;
+    }
+
+    private static List<IdSequence> idSequences(SessionFactoryImplementor sessionFactory) {
+        List<IdSequence> sequences = new ArrayList<>();
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.getGenerator() instanceof SequenceStyleGenerator generator
+                    && persister instanceof AbstractEntityPersister entity) {
+                DatabaseStructure structure = generator.getDatabaseStructure();
+                // The pooled optimizer reads the top of a block, pooled-lo (the configured one) the bottom
+                int offset = generator.getOptimizer() instanceof PooledOptimizer ? structure.getIncrementSize() - 1 : 0;
+                sequences.add(new IdSequence(structure.getPhysicalName().render(), structure.isPhysicalSequence(),
+                        entity.getIdentifierTableName(), entity.getIdentifierColumnNames()[0], offset));
+            }
+        });
+        return sequences;
+    }
+
+    @PostConstruct
+    public void seedSequences() {
+        for (IdSequence sequence : sequences) {
+            long maxId = jdbcTemplate.queryForObject(
+                    "select coalesce(max(" + sequence.idColumn() + "), 0) from " + sequence.table(), Long.class);
+            if (seed(sequence, maxId + 1 + sequence.firstIdOffset()))
+                log.info("Moved {} past the existing ids in {} (max id {})", sequence.sequence(), sequence.table(),
+                        maxId);
+        }
+    }
+
+    /** Makes the next value of the sequence at least {@code next}; true if it had to be moved. */
+    boolean seed(IdSequence sequence, long next) {
+        if (!sequence.physical()) {
+            int moved = jdbcTemplate.update("update " + sequence.sequence() + " set " + VALUE_COLUMN
+                    + " = ? where " + VALUE_COLUMN + " < ?", next, next);
+            if (moved == 0 && jdbcTemplate.queryForObject("select count(*) from " + sequence.sequence(),
+                    Long.class) == 0) {
+                jdbcTemplate.update("insert into " + sequence.sequence() + " (" + VALUE_COLUMN + ") values (?)", next);
+                return true;
+            }
+            return moved > 0;
+        }
+        // An empty table cannot collide; skip the probe, which uses up one block of ids
+        if (next - sequence.firstIdOffset() <= 1)
+            return false;
+        long current = jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(sequence.sequence()), Long.class);
+        if (current >= next)
+            return false;
+        jdbcTemplate.execute("alter sequence " + sequence.sequence() + " restart with " + next);
+        return true;
+    }
+}
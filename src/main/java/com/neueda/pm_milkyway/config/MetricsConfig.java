@@ -0,0 +1,30 @@
+package com.neueda.pm_milkyway.config;
+
+import java.util.function.Predicate;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Meters exposed on {@code /actuator/prometheus}.
+ *
+ * Every public method of a class annotated {@code @Timed("service.calls")}
+ * is timed with {@code class}, {@code method} and {@code exception} tags.
+ * Boot adds {@code spring.data.repository.invocations} for repository
+ * calls. The market data client ({@code market.data.requests}), the caches
+ * and {@code TradeExecutionService} register their own meters.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    // Binding a service's cache meters at startup is not a service call
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        Predicate<ProceedingJoinPoint> skip = joinPoint -> "bindTo".equals(joinPoint.getSignature().getName());
+        return new TimedAspect(registry, skip);
+    }
+}
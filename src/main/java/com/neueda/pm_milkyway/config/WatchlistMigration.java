@@ -0,0 +1,148 @@
+package com.neueda.pm_milkyway.config;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Normalizes a watchlist created before the unique index on
+ * {@code watchlist.stock}.
+ *
+ * Such tables may hold the same symbol several times, in different case or
+ * with stray spaces, and {@code ddl-auto=update} cannot add
+ * {@code idx_watchlist_stock} while they do. This runs before Hibernate
+ * updates the schema: it keeps the oldest row of each symbol, stores every
+ * symbol trimmed and upper-cased, and leaves the index to Hibernate. A table
+ * that already has the index, or no table at all, is left alone.
+ *
+ * The first entity keyed the table by {@code stock} and had no {@code id}
+ * column, which {@code ddl-auto=update} cannot add as a new primary key. For
+ * that layout one row per symbol is kept, the column is added, rows are
+ * numbered in symbol order and the key moves to {@code id}.
+ */
+@Component
+@DependsOnDatabaseInitialization
+public class WatchlistMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(WatchlistMigration.class);
+
+    static final String TABLE = "watchlist";
+    static final String UNIQUE_INDEX = "idx_watchlist_stock";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public WatchlistMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** How the existing table is laid out, as far as the migration cares. */
+    private enum Layout {
+        ABSENT, INDEXED, KEYED_BY_ID, KEYED_BY_STOCK
+    }
+
+    @PostConstruct
+    public void migrate() {
+        Layout layout = layout();
+        if (layout == Layout.ABSENT || layout == Layout.INDEXED)
+            return;
+        // The inner selects are wrapped so MySQL allows them to read the table being deleted from
+        int removed = layout == Layout.KEYED_BY_ID
+                ? jdbcTemplate.update("delete from watchlist where id not in (select keep_id from "
+                        + "(select min(id) as keep_id from watchlist group by upper(trim(stock))) keep)")
+                : jdbcTemplate.update("delete from watchlist where stock not in (select keep_stock from "
+                        + "(select min(stock) as keep_stock from watchlist group by upper(trim(stock))) keep)");
+        // Not filtered on stock <> upper(stock): under a case-insensitive collation that is never true
+        int kept = jdbcTemplate.update("update watchlist set stock = upper(trim(stock))");
+        if (layout == Layout.KEYED_BY_STOCK)
+            moveKeyToId();
+        log.info("Watchlist normalized before adding {}: kept {} symbol(s), removed {} repeat(s)", UNIQUE_INDEX,
+                kept, removed);
+    }
+
+    // Added with a default because H2 will not key a nullable column and MySQL has no portable SET NOT NULL
+    private void moveKeyToId() {
+        jdbcTemplate.execute("alter table watchlist add column id int default 0 not null");
+        List<String> symbols = jdbcTemplate.queryForList("select stock from watchlist order by stock", String.class);
+        List<Object[]> ids = new ArrayList<>(symbols.size());
+        for (int i = 0; i < symbols.size(); i++)
+            ids.add(new Object[] { i + 1, symbols.get(i) });
+        jdbcTemplate.batchUpdate("update watchlist set id = ? where stock = ?", ids);
+        jdbcTemplate.execute("alter table watchlist drop primary key");
+        jdbcTemplate.execute("alter table watchlist add primary key (id)");
+        jdbcTemplate.execute("alter table watchlist alter column id drop default");
+        log.info("Watchlist keyed by id instead of stock");
+    }
+
+    private Layout layout() {
+        return jdbcTemplate.execute((ConnectionCallback<Layout>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String catalog = connection.getCatalog();
+            String schema = connection.getSchema();
+            String table = tableName(metaData, catalog, schema);
+            if (table == null)
+                return Layout.ABSENT;
+            if (hasUniqueIndex(metaData, catalog, schema, table))
+                return Layout.INDEXED;
+            return hasIdColumn(metaData, catalog, schema, table) ? Layout.KEYED_BY_ID : Layout.KEYED_BY_STOCK;
+        });
+    }
+
+    // Identifier case depends on the database, so look the table up as it is stored
+    private static String tableName(DatabaseMetaData metaData, String catalog, String schema) throws SQLException {
+        try (ResultSet tables = metaData.getTables(catalog, schema, "%", new String[] { "TABLE" })) {
+            while (tables.next()) {
+                String name = tables.getString("TABLE_NAME");
+                if (TABLE.equalsIgnoreCase(name))
+                    return name;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasUniqueIndex(DatabaseMetaData metaData, String catalog, String schema, String table)
+            throws SQLException {
+        try (ResultSet indexes = metaData.getIndexInfo(catalog, schema, table, true, false)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null && name.toLowerCase(Locale.ROOT).startsWith(UNIQUE_INDEX))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasIdColumn(DatabaseMetaData metaData, String catalog, String schema, String table)
+            throws SQLException {
+        try (ResultSet columns = metaData.getColumns(catalog, schema, table, "%")) {
+            while (columns.next()) {
+                if ("id".equalsIgnoreCase(columns.getString("COLUMN_NAME")))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /** Makes the entity manager factory, and so Hibernate's schema update, wait for the migration. */
+    @Component
+    static class EntityManagerFactoryDependsOnWatchlistMigration extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOnWatchlistMigration() {
+            super(WatchlistMigration.class);
+        }
+    }
+}
@@ -6,28 +6,31 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.ModelAndView;
 
-import com.neueda.pm_milkyway.entity.HoldingsEntity;
-import com.neueda.pm_milkyway.service.HoldingsService;
-import com.neueda.pm_milkyway.service.TransactionsService;
+import com.neueda.pm_milkyway.dto.HoldingView;
+import com.neueda.pm_milkyway.dto.TransactionFilter;
+import com.neueda.pm_milkyway.dto.TransactionPage;
+import com.neueda.pm_milkyway.service.PortfolioReadModel;
+import com.neueda.pm_milkyway.service.TransactionHistoryService;
 import com.neueda.pm_milkyway.service.WatchlistService;
 
 @RestController
 public class MainController {
 
-    private final TransactionsService transactionsService;
     private final WatchlistService watchlistService;
-    private final HoldingsService holdingService;
+    private final PortfolioReadModel portfolioReadModel;
+    private final TransactionHistoryService transactionHistoryService;
 
-    public MainController(TransactionsService transactionsService, WatchlistService watchlistService, HoldingsService holdingService) {
-        this.transactionsService = transactionsService;
+    public MainController(WatchlistService watchlistService, PortfolioReadModel portfolioReadModel,
+            TransactionHistoryService transactionHistoryService) {
         this.watchlistService = watchlistService;
-        this.holdingService = holdingService;
+        this.portfolioReadModel = portfolioReadModel;
+        this.transactionHistoryService = transactionHistoryService;
     }
 
     @GetMapping("/")
     public ModelAndView getDashboard() {
         ModelAndView mav = new ModelAndView("Dashboard");
-        List<HoldingsEntity> holdings = holdingService.getAllHoldings();
+        List<HoldingView> holdings = portfolioReadModel.snapshot().holdings();
         mav.addObject("holdings", holdings);
         return mav;
     }
@@ -42,7 +45,7 @@ public class MainController {
     @GetMapping("/performance")
     public ModelAndView getPerformance() {
         ModelAndView mav = new ModelAndView("Performance");
-        List<HoldingsEntity> holdings = holdingService.getAllHoldings();
+        List<HoldingView> holdings = portfolioReadModel.snapshot().holdings();
         List<String> watchlist = watchlistService.getWatchlistItems();
         mav.addObject("holdings", holdings);
         mav.addObject("watchlist", watchlist);
@@ -52,7 +55,9 @@ public class MainController {
     @GetMapping("/transaction-history")
     public ModelAndView getTransactionHistory() {
         ModelAndView mav = new ModelAndView("TransactionHistory");
-        mav.addObject("transactions", transactionsService.getAllTransactions());
+        TransactionPage page = transactionHistoryService.getPage(new TransactionFilter(), null, null);
+        mav.addObject("transactions", page.getItems());
+        mav.addObject("nextCursor", page.getNextCursor());
         return mav;
     }
 }
\ No newline at end of file
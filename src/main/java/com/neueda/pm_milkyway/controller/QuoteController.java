@@ -0,0 +1,132 @@
+package com.neueda.pm_milkyway.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.neueda.pm_milkyway.dto.QuoteCacheStats;
+import com.neueda.pm_milkyway.service.CompanyDataService;
+import com.neueda.pm_milkyway.service.MarketLookupService;
+import com.neueda.pm_milkyway.service.PriceHistoryService;
+import com.neueda.pm_milkyway.service.PriceStreamService;
+import com.neueda.pm_milkyway.service.TickerSearchService;
+
+@RestController
+@RequestMapping("/api")
+public class QuoteController {
+
+    private final MarketLookupService marketLookupService;
+    private final PriceStreamService priceStreamService;
+    private final PriceHistoryService priceHistoryService;
+    private final TickerSearchService tickerSearchService;
+    private final CompanyDataService companyDataService;
+
+    public QuoteController(MarketLookupService marketLookupService, PriceStreamService priceStreamService,
+            PriceHistoryService priceHistoryService, TickerSearchService tickerSearchService,
+            CompanyDataService companyDataService) {
+        this.marketLookupService = marketLookupService;
+        this.priceStreamService = priceStreamService;
+        this.priceHistoryService = priceHistoryService;
+        this.tickerSearchService = tickerSearchService;
+        this.companyDataService = companyDataService;
+    }
+
+    @GetMapping("/quote/{symbol}")
+    public ResponseEntity<?> getQuote(@PathVariable String symbol) {
+        try {
+            return ResponseEntity.ok(marketLookupService.getQuote(symbol));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (RuntimeException e) {
+            // Upstream failure rather than a bad request
+            return ResponseEntity.status(502).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/quotes")
+    public ResponseEntity<?> getQuotes(@RequestParam("symbols") List<String> symbols) {
+        try {
+            return ResponseEntity.ok(marketLookupService.getQuotes(symbols));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/quotes/cache-stats")
+    public ResponseEntity<QuoteCacheStats> getCacheStats() {
+        return ResponseEntity.ok(marketLookupService.getStats());
+    }
+
+    @GetMapping("/history/{symbol}")
+    public ResponseEntity<?> getHistory(@PathVariable String symbol,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(priceHistoryService.getHistory(symbol, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(502).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchTickers(@RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(tickerSearchService.search(query, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(502).body(e.getMessage());
+        }
+    }
+
+    // Company data is answered asynchronously; no request thread waits on the proxy
+    @GetMapping("/info/{symbol}")
+    public CompletableFuture<ResponseEntity<?>> getProfile(@PathVariable String symbol) {
+        return upstream(companyDataService.getProfile(symbol));
+    }
+
+    @GetMapping("/fundamentals/{symbol}")
+    public CompletableFuture<ResponseEntity<?>> getFundamentals(@PathVariable String symbol) {
+        return upstream(companyDataService.getFundamentals(symbol));
+    }
+
+    @GetMapping("/news/{symbol}")
+    public CompletableFuture<ResponseEntity<?>> getNews(@PathVariable String symbol) {
+        return upstream(companyDataService.getNews(symbol));
+    }
+
+    @GetMapping(path = "/stream/prices", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPrices(@RequestParam("symbols") List<String> symbols) {
+        return priceStreamService.subscribe(symbols);
+    }
+
+    private static CompletableFuture<ResponseEntity<?>> upstream(CompletableFuture<JsonNode> call) {
+        return call.<ResponseEntity<?>>thenApply(ResponseEntity::ok).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            return ResponseEntity.status(502).contentType(MediaType.TEXT_PLAIN).body(cause.getMessage());
+        });
+    }
+
+    // The stream and company data endpoints do not return a plain ResponseEntity<?>, so their
+    // validation errors land here
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(400).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+}
@@ -1,37 +1,89 @@
 package com.neueda.pm_milkyway.controller;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.neueda.pm_milkyway.entity.HoldingsEntity;
-import com.neueda.pm_milkyway.service.HoldingsService;
+import com.neueda.pm_milkyway.dto.LedgerReplayReport;
+import com.neueda.pm_milkyway.dto.PerformanceMetrics;
+import com.neueda.pm_milkyway.dto.TradeOrder;
+import com.neueda.pm_milkyway.dto.TransactionFilter;
+import com.neueda.pm_milkyway.service.DashboardService;
+import com.neueda.pm_milkyway.service.DataVersions;
+import com.neueda.pm_milkyway.service.LedgerReplayService;
+import com.neueda.pm_milkyway.service.NavSnapshotService;
+import com.neueda.pm_milkyway.service.PerformanceService;
+import com.neueda.pm_milkyway.service.PortfolioReadModel;
+import com.neueda.pm_milkyway.service.TradeExecutionService;
+import com.neueda.pm_milkyway.service.TransactionExportService;
+import com.neueda.pm_milkyway.service.TransactionHistoryService;
 import com.neueda.pm_milkyway.service.TransactionsService;
 import com.neueda.pm_milkyway.service.WatchlistService;
 
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 @RequestMapping("/api")
 public class StockActionController {
 
+    // The encodings of WebConfig's converters, JSON first as when the client accepts anything
+    private static final List<MediaType> ENCODINGS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+            MediaType.parseMediaType("application/x-jackson-smile"));
+
     @Autowired
     private WatchlistService watchlistService;
     @Autowired
     private TransactionsService transactionsService;
     @Autowired
-    private HoldingsService holdingsService;
+    private TradeExecutionService tradeExecutionService;
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+    @Autowired
+    private TransactionExportService transactionExportService;
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private PerformanceService performanceService;
+    @Autowired
+    private NavSnapshotService navSnapshotService;
+    @Autowired
+    private LedgerReplayService ledgerReplayService;
+    @Autowired
+    private PortfolioReadModel portfolioReadModel;
+    @Autowired
+    private DataVersions dataVersions;
+    @Autowired
+    private ContentNegotiationManager contentNegotiationManager;
 
+    // Conditional GETs: the tag is taken before the data is read, and a matching If-None-Match
+    // returns 304 (set by checkNotModified) without reading anything
     @GetMapping("/purse-value")
-    public Double getPurse() {
-        return transactionsService.getPurseValue();
+    public ResponseEntity<Double> getPurse(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        MediaType encoding = negotiate(request);
+        String etag = representationTag(dataVersions.ledgerETag(), encoding);
+        if (request.checkNotModified(etag))
+            return null;
+        return revalidated(etag, encoding).body(portfolioReadModel.snapshot().purse().doubleValue());
     }
 
     @PostMapping("/purse/add")
@@ -59,7 +111,7 @@ public class StockActionController {
             @RequestParam("quantity") int quantity,
             @RequestParam("price") double price) {
         try {
-            transactionsService.executePurchase(symbol, quantity, price);
+            tradeExecutionService.buy(symbol, quantity, price);
             return ResponseEntity.ok("Purchase successful");
         } catch (Exception e) {
             return ResponseEntity.status(400).body(e.getMessage());
@@ -71,24 +123,63 @@ public class StockActionController {
             @RequestParam("quantity") int quantity,
             @RequestParam("price") double price) {
         try {
-            transactionsService.executeSale(symbol, quantity, price);
+            tradeExecutionService.sell(symbol, quantity, price);
             return ResponseEntity.ok("Sale successful");
         } catch (Exception e) {
             return ResponseEntity.status(400).body(e.getMessage());
         }
     }
 
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<?> batchTrade(@RequestBody List<TradeOrder> orders) {
+        try {
+            return ResponseEntity.ok(tradeExecutionService.batch(orders));
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
     @PostMapping("/watchlist/add/{symbol}")
-    public ResponseEntity<Void> addToWatchlist(@org.springframework.web.bind.annotation.PathVariable String symbol) {
-        watchlistService.addToWatchList(symbol);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<?> addToWatchlist(@org.springframework.web.bind.annotation.PathVariable String symbol) {
+        try {
+            watchlistService.addToWatchList(symbol);
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
     }
 
     @DeleteMapping("/watchlist/remove/{symbol}")
-    public ResponseEntity<Void> removeFromWatchlist(
+    public ResponseEntity<?> removeFromWatchlist(
             @org.springframework.web.bind.annotation.PathVariable String symbol) {
-        watchlistService.removeFromWatchlist(symbol);
-        return ResponseEntity.ok().build();
+        try {
+            watchlistService.removeFromWatchlist(symbol);
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    /** Adds a JSON array of symbols in one statement and returns the resulting watchlist. */
+    @PostMapping("/watchlist/add")
+    public ResponseEntity<?> addAllToWatchlist(@RequestBody List<String> symbols) {
+        try {
+            watchlistService.addAll(symbols);
+            return ResponseEntity.ok(watchlistService.getWatchlistItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    /** Removes a JSON array of symbols in one statement and returns the resulting watchlist. */
+    @PostMapping("/watchlist/remove")
+    public ResponseEntity<?> removeAllFromWatchlist(@RequestBody List<String> symbols) {
+        try {
+            watchlistService.removeAll(symbols);
+            return ResponseEntity.ok(watchlistService.getWatchlistItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
     }
 
     @PostMapping("/holdings/adjust")
@@ -96,7 +187,7 @@ public class StockActionController {
             @RequestParam("action") String action,
             @RequestParam("price") double price) {
         try {
-            transactionsService.handleAdjustment(symbol, action, price);
+            tradeExecutionService.adjust(symbol, action, price);
             return ResponseEntity.ok("Success");
         } catch (Exception e) {
             return ResponseEntity.status(400).body(e.getMessage());
@@ -104,23 +195,120 @@ public class StockActionController {
     }
 
     @GetMapping("/dashboard/stats")
-    public ResponseEntity<Map<String, Object>> getDashboardData() {
-        List<HoldingsEntity> holdings = holdingsService.getAllHoldings();
-        double purseValue = transactionsService.getPurseValue(); // Get current balance from DB
+    public ResponseEntity<Map<String, Object>> getDashboardData(NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        MediaType encoding = negotiate(request);
+        String etag = representationTag(dataVersions.ledgerETag(), encoding);
+        if (request.checkNotModified(etag))
+            return null;
+        // Prebuilt by the read model for each published change; no database access
+        return revalidated(etag, encoding).body(portfolioReadModel.snapshot().stats());
+    }
+
+    @GetMapping("/portfolio/valuation")
+    public ResponseEntity<Map<String, Object>> getPortfolioValuation() {
+        return ResponseEntity.ok(dashboardService.getValuation());
+    }
+
+    @GetMapping("/portfolio/performance")
+    public ResponseEntity<PerformanceMetrics> getPortfolioPerformance() {
+        return ResponseEntity.ok(performanceService.getMetrics());
+    }
+
+    @GetMapping("/portfolio/nav")
+    public ResponseEntity<?> getPortfolioNav(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(navSnapshotService.getSeries(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/ledger/verify")
+    public ResponseEntity<LedgerReplayReport> verifyLedger() {
+        return ResponseEntity.ok(ledgerReplayService.verify());
+    }
+
+    @PostMapping("/ledger/rebuild")
+    public ResponseEntity<LedgerReplayReport> rebuildFromLedger() {
+        return ResponseEntity.ok(ledgerReplayService.rebuild());
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("holdings", holdings);
-        response.put("purse", purseValue);
-        return ResponseEntity.ok(response);
+    @PostMapping("/ledger/checkpoint")
+    public ResponseEntity<LedgerReplayReport> checkpointLedger() {
+        return ResponseEntity.ok(ledgerReplayService.checkpoint());
     }
 
     @GetMapping("/transactions")
-    public ResponseEntity<List<com.neueda.pm_milkyway.entity.TransactionEntity>> getTransactions() {
-        return ResponseEntity.ok(transactionsService.getAllTransactions());
+    public ResponseEntity<?> getTransactions(TransactionFilter filter,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit, NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        MediaType encoding = negotiate(request);
+        String etag = representationTag(dataVersions.ledgerETag(), encoding);
+        if (request.checkNotModified(etag))
+            return null;
+        try {
+            return revalidated(etag, encoding).body(transactionHistoryService.getPage(filter, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(TransactionFilter filter,
+            @RequestParam(value = "format", defaultValue = "csv") String format) {
+        TransactionExportService.Format exportFormat;
+        try {
+            exportFormat = TransactionExportService.Format.from(format);
+        } catch (IllegalArgumentException e) {
+            byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.status(400).contentType(MediaType.TEXT_PLAIN).body(out -> out.write(message));
+        }
+        String filename = "transactions." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(out -> transactionExportService.export(filter, exportFormat, out));
     }
 
     @GetMapping("/watchlist")
-    public ResponseEntity<List<String>> getWatchlist() {
-        return ResponseEntity.ok(watchlistService.getWatchlistItems());
+    public ResponseEntity<List<String>> getWatchlist(NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        MediaType encoding = negotiate(request);
+        String etag = representationTag(dataVersions.watchlistETag(), encoding);
+        if (request.checkNotModified(etag))
+            return null;
+        return revalidated(etag, encoding).body(watchlistService.getWatchlistItems());
+    }
+
+    /**
+     * Picks the encoding before any data is read, so the tag can name it and a
+     * 304 can be answered. Vary is set here so 304s carry it too.
+     */
+    private MediaType negotiate(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        request.getNativeResponse(HttpServletResponse.class).addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // Sorted by quality and specificity, as Spring's own negotiation reads them
+        for (MediaType accepted : contentNegotiationManager.resolveMediaTypes(request)) {
+            for (MediaType encoding : ENCODINGS) {
+                if (accepted.isCompatibleWith(encoding))
+                    return encoding;
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(ENCODINGS);
+    }
+
+    // A strong tag must differ per representation, or a JSON tag would validate a cached CBOR body
+    private static String representationTag(String etag, MediaType encoding) {
+        return etag.substring(0, etag.length() - 1) + "-" + encoding.getSubtype() + "\"";
+    }
+
+    // Browsers may keep the body but must ask again before reusing it. The preset content type keeps
+    // the converter on the encoding the tag names.
+    private static ResponseEntity.BodyBuilder revalidated(String etag, MediaType encoding) {
+        return ResponseEntity.ok().eTag(etag).contentType(encoding).cacheControl(CacheControl.noCache());
     }
 }
\ No newline at end of file
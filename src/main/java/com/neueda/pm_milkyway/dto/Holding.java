@@ -0,0 +1,14 @@
+package com.neueda.pm_milkyway.dto;
+
+/**
+ * What valuation and the pages need from a holding, whether it was loaded
+ * from the database or served by the in-memory portfolio read model.
+ */
+public interface Holding {
+
+    String getStock();
+
+    Integer getQuantity();
+
+    Money getTotal_invested();
+}
@@ -0,0 +1,9 @@
+package com.neueda.pm_milkyway.dto;
+
+/**
+ * A symbol whose stored holding differs from the one folded from the ledger.
+ * The actual values are null when there is no stored holding.
+ */
+public record HoldingDiscrepancy(String symbol, int expectedQuantity, Integer actualQuantity,
+        Money expectedInvested, Money actualInvested) {
+}
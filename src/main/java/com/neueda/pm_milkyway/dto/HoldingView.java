@@ -0,0 +1,57 @@
+package com.neueda.pm_milkyway.dto;
+
+import java.util.Objects;
+
+/**
+ * Immutable holding published by the portfolio read model. Serializes with
+ * the same {@code stock}, {@code quantity} and {@code total_invested} fields
+ * as the entity. Values are boxed once, when the snapshot is built, so
+ * reading them allocates nothing.
+ */
+public final class HoldingView implements Holding {
+
+    private final String stock;
+    private final Integer quantity;
+    private final Money totalInvested;
+
+    public HoldingView(String stock, int quantity, Money totalInvested) {
+        this.stock = stock;
+        this.quantity = quantity;
+        this.totalInvested = totalInvested;
+    }
+
+    @Override
+    public String getStock() {
+        return stock;
+    }
+
+    @Override
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public Money getTotal_invested() {
+        return totalInvested;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof HoldingView other))
+            return false;
+        return stock.equals(other.stock) && quantity.equals(other.quantity)
+                && totalInvested.equals(other.totalInvested);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(stock, quantity, totalInvested);
+    }
+
+    @Override
+    public String toString() {
+        return "HoldingView{stock=" + stock + ", quantity=" + quantity + ", totalInvested=" + totalInvested + "}";
+    }
+}
@@ -0,0 +1,12 @@
+package com.neueda.pm_milkyway.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The columns of one ledger row that analytics and snapshots need, read as a
+ * projection so replaying a long ledger does not fill the persistence context.
+ */
+public record LedgerEntry(Integer id, LocalDate date, String type, String symbol, Integer quantity,
+        BigDecimal price, Money transactionValue, Money purseValue) {
+}
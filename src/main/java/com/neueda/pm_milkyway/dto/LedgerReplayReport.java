@@ -0,0 +1,129 @@
+package com.neueda.pm_milkyway.dto;
+
+import java.util.List;
+
+/**
+ * Result of folding the ledger into holdings and purse. In verify mode the
+ * discrepancies describe the stored state as found; in rebuild mode they are
+ * what was corrected.
+ */
+public class LedgerReplayReport {
+
+    private String mode;
+    private Integer checkpointThroughId;
+    private Integer throughTransactionId;
+    private long rowsReplayed;
+    private int symbols;
+    private long elapsedMillis;
+    private Money expectedPurse;
+    private Money actualPurse;
+    private List<HoldingDiscrepancy> discrepancies;
+    private List<String> unreplayableSymbols;
+    private boolean consistent;
+    private boolean repaired;
+    private boolean checkpointWritten;
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public Integer getCheckpointThroughId() {
+        return checkpointThroughId;
+    }
+
+    public void setCheckpointThroughId(Integer checkpointThroughId) {
+        this.checkpointThroughId = checkpointThroughId;
+    }
+
+    public Integer getThroughTransactionId() {
+        return throughTransactionId;
+    }
+
+    public void setThroughTransactionId(Integer throughTransactionId) {
+        this.throughTransactionId = throughTransactionId;
+    }
+
+    public long getRowsReplayed() {
+        return rowsReplayed;
+    }
+
+    public void setRowsReplayed(long rowsReplayed) {
+        this.rowsReplayed = rowsReplayed;
+    }
+
+    public int getSymbols() {
+        return symbols;
+    }
+
+    public void setSymbols(int symbols) {
+        this.symbols = symbols;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Money getExpectedPurse() {
+        return expectedPurse;
+    }
+
+    public void setExpectedPurse(Money expectedPurse) {
+        this.expectedPurse = expectedPurse;
+    }
+
+    public Money getActualPurse() {
+        return actualPurse;
+    }
+
+    public void setActualPurse(Money actualPurse) {
+        this.actualPurse = actualPurse;
+    }
+
+    public List<HoldingDiscrepancy> getDiscrepancies() {
+        return discrepancies;
+    }
+
+    public void setDiscrepancies(List<HoldingDiscrepancy> discrepancies) {
+        this.discrepancies = discrepancies;
+    }
+
+    public List<String> getUnreplayableSymbols() {
+        return unreplayableSymbols;
+    }
+
+    public void setUnreplayableSymbols(List<String> unreplayableSymbols) {
+        this.unreplayableSymbols = unreplayableSymbols;
+    }
+
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    public void setConsistent(boolean consistent) {
+        this.consistent = consistent;
+    }
+
+    public boolean isRepaired() {
+        return repaired;
+    }
+
+    public void setRepaired(boolean repaired) {
+        this.repaired = repaired;
+    }
+
+    public boolean isCheckpointWritten() {
+        return checkpointWritten;
+    }
+
+    public void setCheckpointWritten(boolean checkpointWritten) {
+        this.checkpointWritten = checkpointWritten;
+    }
+}
@@ -0,0 +1,173 @@
+package com.neueda.pm_milkyway.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * An amount of cash as a whole number of cents, matching the
+ * {@code decimal(15,2)} columns it is stored in.
+ *
+ * Sums of cents are exact, so balances and cost basis cannot pick up
+ * floating-point dust. The static methods do the arithmetic on raw
+ * {@code long} cents and allocate nothing; services keep running totals in
+ * cents and wrap them in a {@code Money} only when they hand them to an
+ * entity or a response. Instances are immutable, compare by value and
+ * serialize as a plain JSON number. Extending {@link Number} lets templates
+ * format them like the {@code Double} amounts they replace.
+ */
+public final class Money extends Number implements Comparable<Money> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Digits after the decimal point. */
+    public static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0);
+
+    private static final long CENTS_PER_UNIT = 100;
+    // Largest amount whose cents are still exact in a double
+    private static final double MAX_EXACT = (double) (1L << 53) / CENTS_PER_UNIT;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /** The amount rounded half up to the cent. */
+    public static Money of(double amount) {
+        return ofCents(toCents(amount));
+    }
+
+    /** The amount rounded half up to the cent; {@code null} stays {@code null}. */
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        if (amount == null)
+            return null;
+        return ofCents(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /** Cents of a {@code double} amount, rounded half up. */
+    public static long toCents(double amount) {
+        if (Double.isNaN(amount) || Math.abs(amount) > MAX_EXACT)
+            throw new ArithmeticException("Amount out of range: " + amount);
+        // Rounded on the magnitude so that halves go away from zero for either sign
+        long cents = Math.round(Math.abs(amount) * CENTS_PER_UNIT);
+        return amount < 0 ? -cents : cents;
+    }
+
+    /** Cents of {@code quantity} units at {@code price}, rounded half up. */
+    public static long costCents(int quantity, double price) {
+        return toCents(quantity * price);
+    }
+
+    /**
+     * The share of {@code cents} that {@code part} out of {@code whole}
+     * units carry, rounded half up. Taking every unit returns {@code cents}
+     * exactly, so closing a position leaves nothing behind.
+     */
+    public static long proportionCents(long cents, long part, long whole) {
+        if (whole <= 0)
+            throw new ArithmeticException("Whole must be positive: " + whole);
+        if (part == whole)
+            return cents;
+        long product;
+        try {
+            product = Math.multiplyExact(cents, part);
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(part))
+                    .divide(BigDecimal.valueOf(whole), 0, RoundingMode.HALF_UP).longValueExact();
+        }
+        return divideHalfUp(product, whole);
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor)
+            quotient += Long.signum(dividend);
+        return quotient;
+    }
+
+    /** Cents as a {@code double} amount, for valuation maths. */
+    public static double toDouble(long cents) {
+        return (double) cents / CENTS_PER_UNIT;
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long factor) {
+        return ofCents(Math.multiplyExact(cents, factor));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public double doubleValue() {
+        return toDouble(cents);
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    @Override
+    public long longValue() {
+        return cents / CENTS_PER_UNIT;
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Money other && cents == other.cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /** Plain decimal with two places, e.g. {@code -12.30}. */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
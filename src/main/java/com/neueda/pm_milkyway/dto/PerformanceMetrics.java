@@ -0,0 +1,112 @@
+package com.neueda.pm_milkyway.dto;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Portfolio performance as of one day. Returns are percentages; either may
+ * be null when the ledger does not define it yet (e.g. no trades, or all
+ * cash flows on a single day for the money-weighted return).
+ */
+public class PerformanceMetrics {
+
+    private LocalDate asOf;
+    private LocalDate since;
+    private long tradesProcessed;
+    private double marketValue;
+    private double costBasis;
+    private double realizedProfitLoss;
+    private double unrealizedProfitLoss;
+    private double totalProfitLoss;
+    private Double timeWeightedReturn;
+    private Double moneyWeightedReturn;
+    private Map<String, String> priceErrors;
+
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDate asOf) {
+        this.asOf = asOf;
+    }
+
+    public LocalDate getSince() {
+        return since;
+    }
+
+    public void setSince(LocalDate since) {
+        this.since = since;
+    }
+
+    public long getTradesProcessed() {
+        return tradesProcessed;
+    }
+
+    public void setTradesProcessed(long tradesProcessed) {
+        this.tradesProcessed = tradesProcessed;
+    }
+
+    public double getMarketValue() {
+        return marketValue;
+    }
+
+    public void setMarketValue(double marketValue) {
+        this.marketValue = marketValue;
+    }
+
+    public double getCostBasis() {
+        return costBasis;
+    }
+
+    public void setCostBasis(double costBasis) {
+        this.costBasis = costBasis;
+    }
+
+    public double getRealizedProfitLoss() {
+        return realizedProfitLoss;
+    }
+
+    public void setRealizedProfitLoss(double realizedProfitLoss) {
+        this.realizedProfitLoss = realizedProfitLoss;
+    }
+
+    public double getUnrealizedProfitLoss() {
+        return unrealizedProfitLoss;
+    }
+
+    public void setUnrealizedProfitLoss(double unrealizedProfitLoss) {
+        this.unrealizedProfitLoss = unrealizedProfitLoss;
+    }
+
+    public double getTotalProfitLoss() {
+        return totalProfitLoss;
+    }
+
+    public void setTotalProfitLoss(double totalProfitLoss) {
+        this.totalProfitLoss = totalProfitLoss;
+    }
+
+    public Double getTimeWeightedReturn() {
+        return timeWeightedReturn;
+    }
+
+    public void setTimeWeightedReturn(Double timeWeightedReturn) {
+        this.timeWeightedReturn = timeWeightedReturn;
+    }
+
+    public Double getMoneyWeightedReturn() {
+        return moneyWeightedReturn;
+    }
+
+    public void setMoneyWeightedReturn(Double moneyWeightedReturn) {
+        this.moneyWeightedReturn = moneyWeightedReturn;
+    }
+
+    public Map<String, String> getPriceErrors() {
+        return priceErrors;
+    }
+
+    public void setPriceErrors(Map<String, String> priceErrors) {
+        this.priceErrors = priceErrors;
+    }
+}
@@ -0,0 +1,60 @@
+package com.neueda.pm_milkyway.dto;
+
+/**
+ * One holding valued at the current price. Price-dependent fields are null
+ * when no price was available for the symbol.
+ */
+public class PositionValuation {
+
+    private final String symbol;
+    private final int quantity;
+    private final double totalInvested;
+    private final Double price;
+    private final Double marketValue;
+    private final Double profitLoss;
+    private final Double changePercent;
+
+    public PositionValuation(String symbol, int quantity, double totalInvested, Double price) {
+        this.symbol = symbol;
+        this.quantity = quantity;
+        this.totalInvested = totalInvested;
+        this.price = price;
+        if (price == null) {
+            this.marketValue = null;
+            this.profitLoss = null;
+            this.changePercent = null;
+        } else {
+            this.marketValue = quantity * price;
+            this.profitLoss = marketValue - totalInvested;
+            this.changePercent = totalInvested == 0 ? 0 : (profitLoss / totalInvested) * 100;
+        }
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getTotalInvested() {
+        return totalInvested;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public Double getMarketValue() {
+        return marketValue;
+    }
+
+    public Double getProfitLoss() {
+        return profitLoss;
+    }
+
+    public Double getChangePercent() {
+        return changePercent;
+    }
+}
@@ -0,0 +1,33 @@
+package com.neueda.pm_milkyway.dto;
+
+import java.util.List;
+
+/**
+ * Daily closes for one symbol, in the same JSON shape the market data proxy
+ * returns from {@code /history/{symbol}}: ISO dates in {@code labels} and the
+ * matching closes in {@code prices}.
+ */
+public class PriceHistory {
+
+    private final String symbol;
+    private final List<String> labels;
+    private final double[] prices;
+
+    public PriceHistory(String symbol, List<String> labels, double[] prices) {
+        this.symbol = symbol;
+        this.labels = labels;
+        this.prices = prices;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public double[] getPrices() {
+        return prices;
+    }
+}
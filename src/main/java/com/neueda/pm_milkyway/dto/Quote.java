@@ -0,0 +1,89 @@
+package com.neueda.pm_milkyway.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Latest price for one symbol, in the same JSON shape the market data proxy
+ * returns from {@code /quote/{symbol}} so the pages can read either.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Quote {
+
+    private String symbol;
+    private Double price;
+    private Double high;
+    private Double low;
+    @JsonProperty("prev_close")
+    private Double prevClose;
+    @JsonProperty("change_pct")
+    private Double changePct;
+    private String sentiment;
+    // Epoch millis when the backend fetched this quote from upstream
+    @JsonProperty("fetched_at")
+    private long fetchedAt;
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Double getHigh() {
+        return high;
+    }
+
+    public void setHigh(Double high) {
+        this.high = high;
+    }
+
+    public Double getLow() {
+        return low;
+    }
+
+    public void setLow(Double low) {
+        this.low = low;
+    }
+
+    public Double getPrevClose() {
+        return prevClose;
+    }
+
+    public void setPrevClose(Double prevClose) {
+        this.prevClose = prevClose;
+    }
+
+    public Double getChangePct() {
+        return changePct;
+    }
+
+    public void setChangePct(Double changePct) {
+        this.changePct = changePct;
+    }
+
+    public String getSentiment() {
+        return sentiment;
+    }
+
+    public void setSentiment(String sentiment) {
+        this.sentiment = sentiment;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(long fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+}
@@ -0,0 +1,30 @@
+package com.neueda.pm_milkyway.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of a multi-symbol quote lookup. Every requested symbol appears in
+ * exactly one of the two maps, in request order.
+ */
+public class QuoteBatch {
+
+    private final Map<String, Quote> quotes = new LinkedHashMap<>();
+    private final Map<String, String> errors = new LinkedHashMap<>();
+
+    public void addQuote(String symbol, Quote quote) {
+        quotes.put(symbol, quote);
+    }
+
+    public void addError(String symbol, String message) {
+        errors.put(symbol, message);
+    }
+
+    public Map<String, Quote> getQuotes() {
+        return quotes;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+}
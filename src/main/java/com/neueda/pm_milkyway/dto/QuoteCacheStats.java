@@ -0,0 +1,47 @@
+package com.neueda.pm_milkyway.dto;
+
+/**
+ * Point-in-time counters for the backend quote cache.
+ */
+public class QuoteCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final double hitRate;
+    private final long loadFailures;
+    private final long evictions;
+    private final long size;
+
+    public QuoteCacheStats(long hits, long misses, double hitRate, long loadFailures, long evictions, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hitRate;
+        this.loadFailures = loadFailures;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getLoadFailures() {
+        return loadFailures;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getSize() {
+        return size;
+    }
+}
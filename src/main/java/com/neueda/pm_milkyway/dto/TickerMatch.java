@@ -0,0 +1,8 @@
+package com.neueda.pm_milkyway.dto;
+
+/**
+ * A listed symbol and its company name, as served to the search typeahead.
+ * The name may be empty when the source did not provide one.
+ */
+public record TickerMatch(String symbol, String name) {
+}
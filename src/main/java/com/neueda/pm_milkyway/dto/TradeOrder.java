@@ -0,0 +1,54 @@
+package com.neueda.pm_milkyway.dto;
+
+/**
+ * One buy or sell order inside a batch request.
+ */
+public class TradeOrder {
+
+    private String symbol;
+    private String side;
+    private int quantity;
+    private double price;
+
+    public TradeOrder() {
+    }
+
+    public TradeOrder(String symbol, String side, int quantity, double price) {
+        this.symbol = symbol;
+        this.side = side;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    public void setSide(String side) {
+        this.side = side;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+}
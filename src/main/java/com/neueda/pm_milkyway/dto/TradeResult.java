@@ -0,0 +1,85 @@
+package com.neueda.pm_milkyway.dto;
+
+/**
+ * Outcome of one order in a batch, in the same position as the request.
+ */
+public class TradeResult {
+
+    public static final String FILLED = "FILLED";
+    public static final String REJECTED = "REJECTED";
+
+    private int index;
+    private String symbol;
+    private String side;
+    private String status;
+    private String message;
+    private Money purseValue;
+
+    public static TradeResult filled(int index, TradeOrder order, Money purseValue) {
+        TradeResult result = of(index, order, FILLED, "OK");
+        result.setPurseValue(purseValue);
+        return result;
+    }
+
+    public static TradeResult rejected(int index, TradeOrder order, String message) {
+        return of(index, order, REJECTED, message);
+    }
+
+    private static TradeResult of(int index, TradeOrder order, String status, String message) {
+        TradeResult result = new TradeResult();
+        result.setIndex(index);
+        result.setSymbol(order.getSymbol());
+        result.setSide(order.getSide());
+        result.setStatus(status);
+        result.setMessage(message);
+        return result;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    public void setSide(String side) {
+        this.side = side;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Money getPurseValue() {
+        return purseValue;
+    }
+
+    public void setPurseValue(Money purseValue) {
+        this.purseValue = purseValue;
+    }
+}
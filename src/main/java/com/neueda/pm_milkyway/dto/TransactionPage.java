@@ -0,0 +1,28 @@
+package com.neueda.pm_milkyway.dto;
+
+import java.util.List;
+
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+
+/**
+ * One page of transaction history, newest first. {@code nextCursor} is null
+ * on the last page.
+ */
+public class TransactionPage {
+
+    private final List<TransactionEntity> items;
+    private final String nextCursor;
+
+    public TransactionPage(List<TransactionEntity> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TransactionEntity> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
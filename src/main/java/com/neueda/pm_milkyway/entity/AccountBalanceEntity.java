@@ -0,0 +1,53 @@
+package com.neueda.pm_milkyway.entity;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import com.neueda.pm_milkyway.dto.Money;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+/**
+ * Single-row record holding the current purse balance. It is written in the
+ * same transaction as every ledger entry so reads never have to scan the
+ * transactions table.
+ */
+@Entity
+@Table(name = "account_balance")
+public class AccountBalanceEntity {
+
+    @Id
+    private Integer id;
+
+    private Money purseValue;
+
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Money getPurseValue() {
+        return purseValue;
+    }
+
+    public void setPurseValue(Money purseValue) {
+        this.purseValue = purseValue;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
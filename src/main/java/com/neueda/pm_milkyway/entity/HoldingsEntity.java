@@ -1,21 +1,33 @@
 package com.neueda.pm_milkyway.entity;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import com.neueda.pm_milkyway.dto.Holding;
+import com.neueda.pm_milkyway.dto.Money;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "holdings")
-public class HoldingsEntity {
+public class HoldingsEntity implements Holding {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "holdings_seq")
+    @SequenceGenerator(name = "holdings_seq", sequenceName = "holdings_seq", allocationSize = 50)
     private Integer id;
 
     private String stock;
     private Integer quantity;
-    private Double total_invested;
+    private Money total_invested;
+
+    @Version
+    @ColumnDefault("0")
+    private Long version;
     public Integer getId() {
         return id;
     }
@@ -34,10 +46,16 @@ public class HoldingsEntity {
     public void setQuantity(Integer quantity) {
         this.quantity = quantity;
     }
-    public Double getTotal_invested() {
+    public Money getTotal_invested() {
         return total_invested;
     }
-    public void setTotal_invested(Double total_invested) {
+    public void setTotal_invested(Money total_invested) {
         this.total_invested = total_invested;
-    }    
+    }
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
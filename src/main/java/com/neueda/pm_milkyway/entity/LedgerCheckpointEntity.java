@@ -0,0 +1,76 @@
+package com.neueda.pm_milkyway.entity;
+
+import java.time.LocalDateTime;
+
+import com.neueda.pm_milkyway.dto.Money;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * The purse folded from every active ledger row up to and including
+ * {@code throughTransactionId}. Together with its
+ * {@link LedgerCheckpointPositionEntity} rows it lets a replay start from
+ * here instead of the first transaction.
+ */
+@Entity
+@Table(name = "ledger_checkpoint")
+public class LedgerCheckpointEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_checkpoint_seq")
+    @SequenceGenerator(name = "ledger_checkpoint_seq", sequenceName = "ledger_checkpoint_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(unique = true, nullable = false)
+    private Integer throughTransactionId;
+
+    private Money purse;
+    private Long rowsFolded;
+    private LocalDateTime createdAt;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getThroughTransactionId() {
+        return throughTransactionId;
+    }
+
+    public void setThroughTransactionId(Integer throughTransactionId) {
+        this.throughTransactionId = throughTransactionId;
+    }
+
+    public Money getPurse() {
+        return purse;
+    }
+
+    public void setPurse(Money purse) {
+        this.purse = purse;
+    }
+
+    public Long getRowsFolded() {
+        return rowsFolded;
+    }
+
+    public void setRowsFolded(Long rowsFolded) {
+        this.rowsFolded = rowsFolded;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
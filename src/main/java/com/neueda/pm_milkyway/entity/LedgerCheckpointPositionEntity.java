@@ -0,0 +1,84 @@
+package com.neueda.pm_milkyway.entity;
+
+import com.neueda.pm_milkyway.dto.Money;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * One symbol's folded holding within a {@link LedgerCheckpointEntity}.
+ * {@code replayable} is false when the ledger has rows for the symbol without
+ * a quantity or price (rows written before those columns existed), in which
+ * case the quantity and amount invested are unknown.
+ */
+@Entity
+@Table(name = "ledger_checkpoint_position", indexes = {
+        @Index(name = "idx_ledger_checkpoint_position_checkpoint", columnList = "checkpointId")
+})
+public class LedgerCheckpointPositionEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_checkpoint_position_seq")
+    @SequenceGenerator(name = "ledger_checkpoint_position_seq", sequenceName = "ledger_checkpoint_position_seq",
+            allocationSize = 50)
+    private Integer id;
+
+    private Integer checkpointId;
+    private String symbol;
+    private Integer quantity;
+    private Money totalInvested;
+    private Boolean replayable;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getCheckpointId() {
+        return checkpointId;
+    }
+
+    public void setCheckpointId(Integer checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Money getTotalInvested() {
+        return totalInvested;
+    }
+
+    public void setTotalInvested(Money totalInvested) {
+        this.totalInvested = totalInvested;
+    }
+
+    public Boolean getReplayable() {
+        return replayable;
+    }
+
+    public void setReplayable(Boolean replayable) {
+        this.replayable = replayable;
+    }
+}
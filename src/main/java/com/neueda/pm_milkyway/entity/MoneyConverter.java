@@ -0,0 +1,26 @@
+package com.neueda.pm_milkyway.entity;
+
+import java.math.BigDecimal;
+
+import com.neueda.pm_milkyway.dto.Money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores {@link Money} in the {@code decimal(15,2)} amount columns. Applied
+ * to every {@code Money} attribute, so entities need no annotation.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return Money.of(amount);
+    }
+}
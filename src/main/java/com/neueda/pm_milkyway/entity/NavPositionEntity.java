@@ -0,0 +1,93 @@
+package com.neueda.pm_milkyway.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.neueda.pm_milkyway.dto.Money;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * One open holding within a {@link NavSnapshotEntity}, with the price it was
+ * marked at. The latest day's rows also seed the next day's snapshot.
+ */
+@Entity
+@Table(name = "nav_position", indexes = {
+        @Index(name = "idx_nav_position_date_symbol", columnList = "snapshotDate, symbol", unique = true)
+})
+public class NavPositionEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nav_position_seq")
+    @SequenceGenerator(name = "nav_position_seq", sequenceName = "nav_position_seq", allocationSize = 50)
+    private Integer id;
+
+    private LocalDate snapshotDate;
+    private String symbol;
+    private Integer quantity;
+    private Money costBasis;
+    private BigDecimal price;
+    private Money marketValue;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public LocalDate getSnapshotDate() {
+        return snapshotDate;
+    }
+
+    public void setSnapshotDate(LocalDate snapshotDate) {
+        this.snapshotDate = snapshotDate;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Money getCostBasis() {
+        return costBasis;
+    }
+
+    public void setCostBasis(Money costBasis) {
+        this.costBasis = costBasis;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Money getMarketValue() {
+        return marketValue;
+    }
+
+    public void setMarketValue(Money marketValue) {
+        this.marketValue = marketValue;
+    }
+}
@@ -0,0 +1,81 @@
+package com.neueda.pm_milkyway.entity;
+
+import java.time.LocalDate;
+
+import com.neueda.pm_milkyway.dto.Money;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * Portfolio value at the end of one day: purse plus holdings marked to market.
+ */
+@Entity
+@Table(name = "nav_snapshot")
+public class NavSnapshotEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nav_snapshot_seq")
+    @SequenceGenerator(name = "nav_snapshot_seq", sequenceName = "nav_snapshot_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(unique = true, nullable = false)
+    private LocalDate snapshotDate;
+    private Money purse;
+    private Money marketValue;
+    private Money costBasis;
+    private Money nav;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public LocalDate getSnapshotDate() {
+        return snapshotDate;
+    }
+
+    public void setSnapshotDate(LocalDate snapshotDate) {
+        this.snapshotDate = snapshotDate;
+    }
+
+    public Money getPurse() {
+        return purse;
+    }
+
+    public void setPurse(Money purse) {
+        this.purse = purse;
+    }
+
+    public Money getMarketValue() {
+        return marketValue;
+    }
+
+    public void setMarketValue(Money marketValue) {
+        this.marketValue = marketValue;
+    }
+
+    public Money getCostBasis() {
+        return costBasis;
+    }
+
+    public void setCostBasis(Money costBasis) {
+        this.costBasis = costBasis;
+    }
+
+    public Money getNav() {
+        return nav;
+    }
+
+    public void setNav(Money nav) {
+        this.nav = nav;
+    }
+}
@@ -3,24 +3,34 @@ package com.neueda.pm_milkyway.entity;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import com.neueda.pm_milkyway.dto.Money;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "transactions")
+// Indexes match the keyset order (date, id) used by transaction history, alone and after each equality filter
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_date_id", columnList = "date, id"),
+        @Index(name = "idx_transactions_symbol_date_id", columnList = "symbol, date, id"),
+        @Index(name = "idx_transactions_type_date_id", columnList = "type, date, id")
+})
 public class TransactionEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Integer id;
 
     private LocalDate date;
     private String type;
-    private BigDecimal transactionValue;
-    private BigDecimal purseValue;
+    private Money transactionValue;
+    private Money purseValue;
     private Boolean status;
 
     public Integer getId() {
@@ -48,19 +58,19 @@ public class TransactionEntity {
         this.type = type;
     }
 
-    public BigDecimal getTransactionValue() {
+    public Money getTransactionValue() {
         return transactionValue;
     }
 
-    public void setTransactionValue(BigDecimal transactionValue) {
+    public void setTransactionValue(Money transactionValue) {
         this.transactionValue = transactionValue;
     }
 
-    public BigDecimal getPurseValue() {
+    public Money getPurseValue() {
         return purseValue;
     }
 
-    public void setPurseValue(BigDecimal purseValue) {
+    public void setPurseValue(Money purseValue) {
         this.purseValue = purseValue;
     }
 
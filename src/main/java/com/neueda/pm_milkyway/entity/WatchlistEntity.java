@@ -1,18 +1,37 @@
 package com.neueda.pm_milkyway.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "watchlist")
+@Table(name = "watchlist", indexes = {
+        // Symbols are stored normalized (trimmed, upper case), so equality on this index is the lookup
+        @Index(name = "idx_watchlist_stock", columnList = "stock", unique = true)
+})
 public class WatchlistEntity {
 
     @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "watchlist_seq")
+    @SequenceGenerator(name = "watchlist_seq", sequenceName = "watchlist_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(nullable = false, length = 200)
     private String stock;
 
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
     public String getStock() {
         return stock;
     }
@@ -20,4 +39,4 @@ public class WatchlistEntity {
     public void setStock(String stock) {
         this.stock = stock;
     }
-}
\ No newline at end of file
+}
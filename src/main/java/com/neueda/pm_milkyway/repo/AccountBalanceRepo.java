@@ -0,0 +1,31 @@
+package com.neueda.pm_milkyway.repo;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.entity.AccountBalanceEntity;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface AccountBalanceRepo extends JpaRepository<AccountBalanceEntity, Integer> {
+
+    @Modifying
+    @Query("update AccountBalanceEntity b set b.purseValue = b.purseValue + :delta, b.version = b.version + 1 "
+            + "where b.id = :id and b.purseValue + :delta >= 0")
+    int applyDelta(@Param("id") Integer id, @Param("delta") Money delta);
+
+    @Query("select b.purseValue from AccountBalanceEntity b where b.id = :id")
+    Money findPurseValue(@Param("id") Integer id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from AccountBalanceEntity b where b.id = :id")
+    Optional<AccountBalanceEntity> findForUpdate(@Param("id") Integer id);
+}
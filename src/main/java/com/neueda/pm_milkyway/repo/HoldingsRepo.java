@@ -1,14 +1,29 @@
 package com.neueda.pm_milkyway.repo;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.neueda.pm_milkyway.entity.HoldingsEntity;
 
+import jakarta.persistence.LockModeType;
+
 
 @Repository
 public interface HoldingsRepo extends JpaRepository<HoldingsEntity, Integer> {
     List<HoldingsEntity> findByStock(String stock);
+
+    // Both lock in id order, as the lock order on TransactionsService requires
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select h from HoldingsEntity h where h.stock in :stocks order by h.id")
+    List<HoldingsEntity> findByStockIn(@Param("stocks") Collection<String> stocks);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select h from HoldingsEntity h order by h.id")
+    List<HoldingsEntity> findAllForUpdate();
 }
\ No newline at end of file
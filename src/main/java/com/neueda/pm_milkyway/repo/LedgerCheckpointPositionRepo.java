@@ -0,0 +1,21 @@
+package com.neueda.pm_milkyway.repo;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.neueda.pm_milkyway.entity.LedgerCheckpointPositionEntity;
+
+@Repository
+public interface LedgerCheckpointPositionRepo extends JpaRepository<LedgerCheckpointPositionEntity, Integer> {
+    List<LedgerCheckpointPositionEntity> findByCheckpointId(Integer checkpointId);
+
+    @Modifying
+    @Query("delete from LedgerCheckpointPositionEntity p where p.checkpointId in :checkpointIds")
+    int deleteByCheckpointIds(@Param("checkpointIds") Collection<Integer> checkpointIds);
+}
@@ -0,0 +1,16 @@
+package com.neueda.pm_milkyway.repo;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.neueda.pm_milkyway.entity.LedgerCheckpointEntity;
+
+@Repository
+public interface LedgerCheckpointRepo extends JpaRepository<LedgerCheckpointEntity, Integer> {
+    Optional<LedgerCheckpointEntity> findTopByOrderByThroughTransactionIdDesc();
+
+    List<LedgerCheckpointEntity> findByThroughTransactionIdLessThan(Integer throughTransactionId);
+}
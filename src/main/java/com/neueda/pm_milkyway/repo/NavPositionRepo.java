@@ -0,0 +1,14 @@
+package com.neueda.pm_milkyway.repo;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.neueda.pm_milkyway.entity.NavPositionEntity;
+
+@Repository
+public interface NavPositionRepo extends JpaRepository<NavPositionEntity, Integer> {
+    List<NavPositionEntity> findBySnapshotDate(LocalDate snapshotDate);
+}
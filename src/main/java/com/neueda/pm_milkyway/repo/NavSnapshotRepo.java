@@ -0,0 +1,17 @@
+package com.neueda.pm_milkyway.repo;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.neueda.pm_milkyway.entity.NavSnapshotEntity;
+
+@Repository
+public interface NavSnapshotRepo extends JpaRepository<NavSnapshotEntity, Integer> {
+    Optional<NavSnapshotEntity> findTopByOrderBySnapshotDateDesc();
+
+    List<NavSnapshotEntity> findBySnapshotDateBetweenOrderBySnapshotDate(LocalDate from, LocalDate to);
+}
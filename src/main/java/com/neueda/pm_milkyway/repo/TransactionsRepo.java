@@ -1,11 +1,34 @@
 package com.neueda.pm_milkyway.repo;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.neueda.pm_milkyway.dto.LedgerEntry;
 import com.neueda.pm_milkyway.entity.TransactionEntity;
 
 @Repository
-public interface TransactionsRepo extends JpaRepository<TransactionEntity, Integer> {
+public interface TransactionsRepo extends JpaRepository<TransactionEntity, Integer>,
+        JpaSpecificationExecutor<TransactionEntity>, TransactionsRepoCustom {
+    Optional<TransactionEntity> findTopByOrderByIdDesc();
+
+    // Keyset over the primary key; the Pageable only supplies the limit
+    @Query("select new com.neueda.pm_milkyway.dto.LedgerEntry(t.id, t.date, t.type, t.symbol, t.quantity, t.price, "
+            + "t.transactionValue, t.purseValue) from TransactionEntity t "
+            + "where t.id > :afterId and t.status = true and t.type in ('BUY', 'SELL') order by t.id")
+    List<LedgerEntry> findTradesAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select new com.neueda.pm_milkyway.dto.LedgerEntry(t.id, t.date, t.type, t.symbol, t.quantity, t.price, "
+            + "t.transactionValue, t.purseValue) from TransactionEntity t "
+            + "where t.date between :from and :to and t.status = true order by t.date, t.id")
+    List<LedgerEntry> findLedgerBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
 
-}
\ No newline at end of file
+    Optional<TransactionEntity> findFirstByStatusTrueOrderByDateAscIdAsc();
+}
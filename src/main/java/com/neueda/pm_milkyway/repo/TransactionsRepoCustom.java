@@ -0,0 +1,24 @@
+package com.neueda.pm_milkyway.repo;
+
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.neueda.pm_milkyway.dto.LedgerEntry;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+
+public interface TransactionsRepoCustom {
+
+    /**
+     * Streams matching rows through a forward-only cursor. Must be consumed
+     * inside a transaction and closed by the caller.
+     */
+    Stream<TransactionEntity> streamAll(Specification<TransactionEntity> spec, Sort sort);
+
+    /**
+     * Streams active ledger rows with ids after {@code afterId} in id order,
+     * as projections. Same cursor rules as {@link #streamAll}.
+     */
+    Stream<LedgerEntry> streamLedgerAfter(Integer afterId);
+}
@@ -0,0 +1,54 @@
+package com.neueda.pm_milkyway.repo;
+
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.neueda.pm_milkyway.dto.LedgerEntry;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+class TransactionsRepoCustomImpl implements TransactionsRepoCustom {
+
+    static final int STREAM_FETCH_SIZE = 500;
+    static final int REPLAY_FETCH_SIZE = 5000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<TransactionEntity> streamAll(Specification<TransactionEntity> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionEntity> query = cb.createQuery(TransactionEntity.class);
+        Root<TransactionEntity> root = query.from(TransactionEntity.class);
+        query.select(root).where(spec.toPredicate(root, query, cb)).orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        // Read-only rows skip dirty-checking snapshots, and detaching each row once handed
+        // out keeps the persistence context from growing with the result set
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    @Override
+    public Stream<LedgerEntry> streamLedgerAfter(Integer afterId) {
+        // Projections are never managed, so there is nothing to detach; a larger fetch size
+        // suits a full replay, which reads every row once
+        return entityManager.createQuery("select new com.neueda.pm_milkyway.dto.LedgerEntry(t.id, t.date, t.type, "
+                + "t.symbol, t.quantity, t.price, t.transactionValue, t.purseValue) from TransactionEntity t "
+                + "where t.id > :afterId and t.status = true order by t.id", LedgerEntry.class)
+                .setParameter("afterId", afterId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, REPLAY_FETCH_SIZE)
+                .getResultStream();
+    }
+}
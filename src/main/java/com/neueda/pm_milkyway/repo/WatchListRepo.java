@@ -1,15 +1,26 @@
 package com.neueda.pm_milkyway.repo;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.neueda.pm_milkyway.entity.WatchlistEntity;
 
 @Repository
-public interface WatchListRepo extends JpaRepository<WatchlistEntity, String> {
-    default void saveNewStock(String stock) {
-        WatchlistEntity entity = new WatchlistEntity();
-        entity.setStock(stock);
-        save(entity);
-    }
-}
\ No newline at end of file
+public interface WatchListRepo extends JpaRepository<WatchlistEntity, Integer> {
+
+    @Query("select w.stock from WatchlistEntity w order by w.id")
+    List<String> findAllStocks();
+
+    @Query("select w.stock from WatchlistEntity w where w.stock in :stocks")
+    List<String> findStocksIn(@Param("stocks") Collection<String> stocks);
+
+    @Modifying
+    @Query("delete from WatchlistEntity w where w.stock in :stocks")
+    int deleteByStockIn(@Param("stocks") Collection<String> stocks);
+}
@@ -0,0 +1,80 @@
+package com.neueda.pm_milkyway.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executors for tasks that block on I/O, in one of two modes.
+ *
+ * Platform mode runs tasks on daemon threads; virtual mode starts a virtual
+ * thread per task, so a blocked task holds no platform thread. Virtual
+ * threads need JDK 21; the project compiles for 17, so they are created
+ * reflectively, and on an older runtime virtual mode falls back to platform
+ * threads.
+ */
+public final class BlockingExecutors {
+
+    public enum Mode {
+        PLATFORM, VIRTUAL
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(BlockingExecutors.class);
+
+    private BlockingExecutors() {
+    }
+
+    /** Whether this JVM can start virtual threads. */
+    public static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * An executor named {@code name} that never queues: a virtual thread per
+     * task in virtual mode, otherwise a daemon thread per task, reused while
+     * it is idle for less than a minute. For tasks whose number is already
+     * bounded by the caller.
+     */
+    public static ExecutorService perTask(String name, Mode mode) {
+        if (mode == Mode.VIRTUAL) {
+            ExecutorService perTask = virtualThreadPerTaskExecutor(name + "-");
+            if (perTask != null)
+                return perTask;
+            log.warn("Virtual threads need Java 21 or later (running {}); {} uses platform threads",
+                    Runtime.version(), name);
+        }
+        return Executors.newCachedThreadPool(daemonThreads(name));
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory()), or null before Java 21
+    private static ExecutorService virtualThreadPerTaskExecutor(String prefix) {
+        if (!virtualThreadsSupported())
+            return null;
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method name = builderType.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, prefix, 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Could not create virtual threads: {}", e.toString());
+            return null;
+        }
+    }
+}
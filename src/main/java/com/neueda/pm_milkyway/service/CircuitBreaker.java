@@ -0,0 +1,75 @@
+package com.neueda.pm_milkyway.service;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Consecutive-failure circuit breaker for one kind of upstream call.
+ *
+ * After {@code failureThreshold} failures in a row the circuit opens and
+ * calls are refused for {@code openFor}. The first call after that is let
+ * through as a trial while the others keep being refused; its outcome
+ * closes the circuit or opens it for another {@code openFor}. A success at
+ * any time resets the failure count.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openFor;
+    private final Clock clock;
+
+    // Guarded by this; every section is a few field updates, nothing blocks inside
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAtMillis;
+
+    CircuitBreaker(int failureThreshold, Duration openFor, Clock clock) {
+        if (failureThreshold < 1)
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        this.failureThreshold = failureThreshold;
+        this.openFor = openFor;
+        this.clock = clock;
+    }
+
+    /** Whether a call may go ahead; its outcome must then be reported. */
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED)
+            return true;
+        // Half open: the trial call is still out
+        if (state == State.HALF_OPEN || clock.millis() - openedAtMillis < openFor.toMillis())
+            return false;
+        state = State.HALF_OPEN;
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    synchronized void onFailure() {
+        // Calls that were already out when the circuit opened do not extend it
+        if (state == State.OPEN)
+            return;
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtMillis = clock.millis();
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /** Milliseconds until an open circuit lets a trial call through; 0 otherwise. */
+    synchronized long retryAfterMillis() {
+        if (state != State.OPEN)
+            return 0;
+        return Math.max(0, openFor.toMillis() - (clock.millis() - openedAtMillis));
+    }
+}
@@ -0,0 +1,42 @@
+package com.neueda.pm_milkyway.service;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Company profile, fundamentals and news for the Market Lookup page, fetched
+ * through {@link MarketDataClient} on its company lane, so slow yfinance
+ * lookups there cannot hold up quotes or history. Results are asynchronous;
+ * the controller hands them to Spring MVC without holding a request thread.
+ */
+@Service
+public class CompanyDataService {
+
+    private final MarketDataClient marketDataClient;
+
+    public CompanyDataService(MarketDataClient marketDataClient) {
+        this.marketDataClient = marketDataClient;
+    }
+
+    public CompletableFuture<JsonNode> getProfile(String symbol) {
+        return marketDataClient.fetchProfileAsync(normalize(symbol));
+    }
+
+    public CompletableFuture<JsonNode> getFundamentals(String symbol) {
+        return marketDataClient.fetchFundamentalsAsync(normalize(symbol));
+    }
+
+    public CompletableFuture<JsonNode> getNews(String symbol) {
+        return marketDataClient.fetchNewsAsync(normalize(symbol));
+    }
+
+    private static String normalize(String symbol) {
+        if (symbol == null || symbol.isBlank())
+            throw new IllegalArgumentException("Symbol is required");
+        return symbol.trim().toUpperCase(Locale.ROOT);
+    }
+}
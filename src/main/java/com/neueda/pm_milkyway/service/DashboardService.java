@@ -1,5 +1,56 @@
 package com.neueda.pm_milkyway.service;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.neueda.pm_milkyway.dto.HoldingView;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.QuoteBatch;
+
+/**
+ * Server-side portfolio valuation: holdings joined with current prices so a
+ * page needs one request instead of one per holding. Holdings and purse come
+ * from the in-memory read model, so only the quotes can cost a round trip.
+ */
+@Service
 public class DashboardService {
 
+    private final PortfolioReadModel portfolioReadModel;
+    private final TransactionsService transactionsService;
+    private final MarketLookupService marketLookupService;
+
+    @Autowired
+    public DashboardService(PortfolioReadModel portfolioReadModel, TransactionsService transactionsService,
+            MarketLookupService marketLookupService) {
+        this.portfolioReadModel = portfolioReadModel;
+        this.transactionsService = transactionsService;
+        this.marketLookupService = marketLookupService;
+    }
+
+    public Map<String, Object> getValuation() {
+        PortfolioReadModel.Snapshot snapshot = portfolioReadModel.snapshot();
+        List<HoldingView> holdings = snapshot.holdings();
+        Map<String, Double> prices = new HashMap<>();
+        Map<String, String> priceErrors = Map.of();
+        if (!holdings.isEmpty()) {
+            QuoteBatch batch = marketLookupService.getQuotes(holdings.stream().map(HoldingView::getStock).toList());
+            for (HoldingView holding : holdings) {
+                // Quotes are keyed by the normalized symbol, stats by the symbol as stored on the holding
+                Quote quote = batch.getQuotes().get(holding.getStock().trim().toUpperCase(Locale.ROOT));
+                if (quote != null && quote.getPrice() != null)
+                    prices.put(holding.getStock(), quote.getPrice());
+            }
+            priceErrors = batch.getErrors();
+        }
+
+        Map<String, Object> valuation = transactionsService.getPortfolioStats(holdings, prices,
+                snapshot.purse().doubleValue());
+        valuation.put("priceErrors", priceErrors);
+        return valuation;
+    }
 }
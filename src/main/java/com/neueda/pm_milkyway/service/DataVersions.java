@@ -0,0 +1,75 @@
+package com.neueda.pm_milkyway.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Change counters behind the ETags of the read endpoints.
+ *
+ * The ledger version covers transactions, holdings and the purse; the
+ * watchlist version covers the watchlist. A version is bumped only once its
+ * change has committed and readers can see it, and endpoints take the tag
+ * before they read the data. A tag is therefore never paired with data older
+ * than it, so a client may get a full response it did not need, but never a
+ * stale 304. Counters restart with the process, so tags also carry the start
+ * time of this instance.
+ *
+ * The counters see only commits made through this instance. That guarantee
+ * holds with one application instance per database, as the ledger ordering
+ * in {@link LedgerReplayService} already requires; a trade committed by a
+ * second instance would not change the tags served here.
+ */
+@Component
+public class DataVersions {
+
+    private final String instance;
+    private final AtomicLong ledger = new AtomicLong();
+    private final AtomicLong watchlist = new AtomicLong();
+
+    @Autowired
+    public DataVersions() {
+        this(Long.toString(System.currentTimeMillis(), Character.MAX_RADIX));
+    }
+
+    DataVersions(String instance) {
+        this.instance = instance;
+    }
+
+    public long ledgerVersion() {
+        return ledger.get();
+    }
+
+    public long watchlistVersion() {
+        return watchlist.get();
+    }
+
+    /** Strong ETag, quoted, for responses built from the ledger, holdings or purse. */
+    public String ledgerETag() {
+        return tag("ledger", ledger.get());
+    }
+
+    /** Strong ETag, quoted, for responses built from the watchlist. */
+    public String watchlistETag() {
+        return tag("watchlist", watchlist.get());
+    }
+
+    /**
+     * Bumps the ledger version once the surrounding transaction commits
+     * (immediately when there is none), after any read model updates
+     * registered before it.
+     */
+    public void ledgerChanged() {
+        PortfolioReadModel.afterCommit(ledger::incrementAndGet);
+    }
+
+    /** Bumps the watchlist version; call once the change is visible to readers. */
+    public void watchlistChanged() {
+        watchlist.incrementAndGet();
+    }
+
+    private String tag(String resource, long version) {
+        return "\"" + resource + "-" + instance + "-" + version + "\"";
+    }
+}
@@ -8,7 +8,10 @@ import org.springframework.stereotype.Service;
 import com.neueda.pm_milkyway.entity.HoldingsEntity;
 import com.neueda.pm_milkyway.repo.HoldingsRepo;
 
+import io.micrometer.core.annotation.Timed;
+
 @Service
+@Timed("service.calls")
 public class HoldingsService {
 
     private final HoldingsRepo holdingsRepo;
@@ -0,0 +1,471 @@
+package com.neueda.pm_milkyway.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neueda.pm_milkyway.dto.HoldingDiscrepancy;
+import com.neueda.pm_milkyway.dto.LedgerEntry;
+import com.neueda.pm_milkyway.dto.LedgerReplayReport;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.entity.AccountBalanceEntity;
+import com.neueda.pm_milkyway.entity.HoldingsEntity;
+import com.neueda.pm_milkyway.entity.LedgerCheckpointEntity;
+import com.neueda.pm_milkyway.entity.LedgerCheckpointPositionEntity;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.AccountBalanceRepo;
+import com.neueda.pm_milkyway.repo.HoldingsRepo;
+import com.neueda.pm_milkyway.repo.LedgerCheckpointPositionRepo;
+import com.neueda.pm_milkyway.repo.LedgerCheckpointRepo;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Folds the transactions ledger, the source of truth, into the holdings and
+ * purse it implies, and reports or repairs where the stored copies (which
+ * trades edit in place) have drifted from it.
+ *
+ * A replay starts from the latest checkpoint and streams only the rows after
+ * it. Rows are split by symbol into compact columns as they are read, and
+ * each symbol's rows are then folded independently on a fork-join pool. The
+ * purse is the checkpoint purse plus the signed value of every row, which
+ * does not depend on order.
+ *
+ * The last step of every replay locks the holdings rows and then the
+ * account balance row, in the lock order described on
+ * {@link TransactionsService}. Trades persist their ledger row only while
+ * holding the balance lock, so under the lock the rows read are exactly
+ * those the committed holdings reflect, and no row with a lower id can still
+ * commit. That keeps verify free of false differences from in-flight trades
+ * and lets checkpoints be keyed by transaction id.
+ */
+@Service
+public class LedgerReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerReplayService.class);
+
+    public enum Mode {
+        VERIFY, REBUILD, CHECKPOINT
+    }
+
+    /** Symbols folded by one fork-join leaf task. */
+    static final int SYMBOLS_PER_TASK = 16;
+
+    private final TransactionsRepo transactionsRepo;
+    private final HoldingsRepo holdingsRepo;
+    private final AccountBalanceRepo accountBalanceRepo;
+    private final LedgerCheckpointRepo checkpointRepo;
+    private final LedgerCheckpointPositionRepo checkpointPositionRepo;
+    private final PortfolioReadModel portfolioReadModel;
+    private final DataVersions dataVersions;
+    private final TransactionOperations transactions;
+    private final ForkJoinPool pool;
+    private final long checkpointMinRows;
+    // One replay at a time; held across the whole replay, database reads included
+    private final ReentrantLock replayLock = new ReentrantLock();
+
+    @Autowired
+    public LedgerReplayService(TransactionsRepo transactionsRepo, HoldingsRepo holdingsRepo,
+            AccountBalanceRepo accountBalanceRepo, LedgerCheckpointRepo checkpointRepo,
+            LedgerCheckpointPositionRepo checkpointPositionRepo, PortfolioReadModel portfolioReadModel,
+            DataVersions dataVersions, PlatformTransactionManager transactionManager,
+            @Value("${ledger.replay.parallelism:0}") int parallelism,
+            @Value("${ledger.checkpoint.min-rows:10000}") long checkpointMinRows) {
+        this(transactionsRepo, holdingsRepo, accountBalanceRepo, checkpointRepo, checkpointPositionRepo,
+                portfolioReadModel, dataVersions, new TransactionTemplate(transactionManager),
+                new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()),
+                checkpointMinRows);
+    }
+
+    LedgerReplayService(TransactionsRepo transactionsRepo, HoldingsRepo holdingsRepo,
+            AccountBalanceRepo accountBalanceRepo, LedgerCheckpointRepo checkpointRepo,
+            LedgerCheckpointPositionRepo checkpointPositionRepo, PortfolioReadModel portfolioReadModel,
+            DataVersions dataVersions, TransactionOperations transactions, ForkJoinPool pool,
+            long checkpointMinRows) {
+        this.transactionsRepo = transactionsRepo;
+        this.holdingsRepo = holdingsRepo;
+        this.accountBalanceRepo = accountBalanceRepo;
+        this.checkpointRepo = checkpointRepo;
+        this.checkpointPositionRepo = checkpointPositionRepo;
+        this.portfolioReadModel = portfolioReadModel;
+        this.dataVersions = dataVersions;
+        this.transactions = transactions;
+        this.pool = pool;
+        this.checkpointMinRows = checkpointMinRows;
+    }
+
+    /** Compares the stored holdings and purse with the ledger without changing them. */
+    public LedgerReplayReport verify() {
+        return replay(Mode.VERIFY);
+    }
+
+    /** Overwrites holdings and purse that differ from the ledger. */
+    public LedgerReplayReport rebuild() {
+        return replay(Mode.REBUILD);
+    }
+
+    /** Verifies and records a checkpoint at the current end of the ledger. */
+    public LedgerReplayReport checkpoint() {
+        return replay(Mode.CHECKPOINT);
+    }
+
+    @Scheduled(cron = "${ledger.checkpoint.cron:0 0 * * * *}")
+    public void scheduledCheckpoint() {
+        try {
+            LedgerReplayReport report = checkpoint();
+            if (report.isCheckpointWritten())
+                log.info("Ledger checkpoint through transaction {} ({} new rows)", report.getThroughTransactionId(),
+                        report.getRowsReplayed());
+            if (!report.isConsistent())
+                log.warn("Holdings or purse differ from the ledger: {} holding(s), purse {} vs {}",
+                        report.getDiscrepancies().size(), report.getActualPurse(), report.getExpectedPurse());
+        } catch (RuntimeException e) {
+            log.warn("Ledger checkpoint failed, will retry at the next run: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private LedgerReplayReport replay(Mode mode) {
+        replayLock.lock();
+        try {
+            long started = System.nanoTime();
+            // The bulk of the ledger is read without holding the balance lock, so trades keep running
+            Fold fold = transactions.execute(status -> {
+                Fold seeded = seed();
+                readAfter(seeded);
+                return seeded;
+            });
+            return transactions.execute(status -> {
+                // Holdings first, then the balance row (the lock order on TransactionsService)
+                Map<String, List<HoldingsEntity>> stored = new HashMap<>();
+                for (HoldingsEntity holding : holdingsRepo.findAllForUpdate()) {
+                    stored.computeIfAbsent(holding.getStock(), key -> new ArrayList<>()).add(holding);
+                }
+                Optional<AccountBalanceEntity> balance = accountBalanceRepo.findForUpdate(TransactionsService.PURSE_ID);
+                readAfter(fold);
+                SymbolLog[] logs = fold.logs.values().toArray(new SymbolLog[0]);
+                pool.invoke(new FoldTask(logs, 0, logs.length));
+
+                Money actualPurse = balance.map(AccountBalanceEntity::getPurseValue)
+                        .or(() -> transactionsRepo.findTopByOrderByIdDesc().map(TransactionEntity::getPurseValue))
+                        .orElse(TransactionsService.STARTING_PURSE);
+
+                LedgerReplayReport report = new LedgerReplayReport();
+                report.setMode(mode.name());
+                report.setCheckpointThroughId(fold.checkpointThroughId);
+                report.setThroughTransactionId(fold.throughId);
+                report.setRowsReplayed(fold.rowsReplayed);
+                report.setSymbols(logs.length);
+                report.setExpectedPurse(fold.purse());
+                report.setActualPurse(actualPurse);
+                List<String> unreplayable = new ArrayList<>();
+                List<HoldingDiscrepancy> discrepancies = compare(fold, stored, unreplayable);
+                report.setDiscrepancies(discrepancies);
+                report.setUnreplayableSymbols(unreplayable);
+                boolean purseDiffers = !actualPurse.equals(report.getExpectedPurse());
+                report.setConsistent(discrepancies.isEmpty() && !purseDiffers);
+
+                if (mode == Mode.REBUILD && !report.isConsistent()) {
+                    repair(fold, stored, balance, discrepancies, purseDiffers);
+                    portfolioReadModel.reloadAfterCommit();
+                    dataVersions.ledgerChanged();
+                    report.setRepaired(true);
+                }
+                if (fold.rowsReplayed > 0 && (mode == Mode.CHECKPOINT || fold.rowsReplayed >= checkpointMinRows)) {
+                    writeCheckpoint(fold, logs);
+                    report.setCheckpointWritten(true);
+                }
+                report.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+                return report;
+            });
+        } finally {
+            replayLock.unlock();
+        }
+    }
+
+    private Fold seed() {
+        Fold fold = new Fold();
+        checkpointRepo.findTopByOrderByThroughTransactionIdDesc().ifPresent(
+                checkpoint -> fold.seed(checkpoint, checkpointPositionRepo.findByCheckpointId(checkpoint.getId())));
+        return fold;
+    }
+
+    private void readAfter(Fold fold) {
+        try (Stream<LedgerEntry> rows = transactionsRepo.streamLedgerAfter(fold.throughId)) {
+            rows.forEach(fold::append);
+        }
+    }
+
+    /** Differences in symbol order; symbols the ledger cannot account for are listed separately. */
+    private static List<HoldingDiscrepancy> compare(Fold fold, Map<String, List<HoldingsEntity>> stored,
+            List<String> unreplayable) {
+        TreeSet<String> symbols = new TreeSet<>(fold.logs.keySet());
+        symbols.addAll(stored.keySet());
+        List<HoldingDiscrepancy> discrepancies = new ArrayList<>();
+        for (String symbol : symbols) {
+            SymbolLog expected = fold.logs.get(symbol);
+            if (expected != null && !expected.replayable) {
+                unreplayable.add(symbol);
+                continue;
+            }
+            long expectedQuantity = expected == null ? 0 : expected.quantity;
+            long expectedInvested = expected == null ? 0 : expected.invested;
+            List<HoldingsEntity> rows = stored.getOrDefault(symbol, List.of());
+            int actualQuantity = 0;
+            long actualInvested = 0;
+            for (HoldingsEntity row : rows) {
+                actualQuantity += row.getQuantity() == null ? 0 : row.getQuantity();
+                actualInvested += row.getTotal_invested() == null ? 0 : row.getTotal_invested().cents();
+            }
+            // Trades read the first row for a symbol, so duplicates are drift even if they add up
+            if (rows.size() > 1 || actualQuantity != expectedQuantity || actualInvested != expectedInvested) {
+                discrepancies.add(new HoldingDiscrepancy(symbol, (int) expectedQuantity,
+                        rows.isEmpty() ? null : actualQuantity, Money.ofCents(expectedInvested),
+                        rows.isEmpty() ? null : Money.ofCents(actualInvested)));
+            }
+        }
+        return discrepancies;
+    }
+
+    private void repair(Fold fold, Map<String, List<HoldingsEntity>> stored, Optional<AccountBalanceEntity> balance,
+            List<HoldingDiscrepancy> discrepancies, boolean purseDiffers) {
+        List<HoldingsEntity> updated = new ArrayList<>();
+        List<HoldingsEntity> removed = new ArrayList<>();
+        for (HoldingDiscrepancy discrepancy : discrepancies) {
+            List<HoldingsEntity> rows = stored.getOrDefault(discrepancy.symbol(), List.of());
+            HoldingsEntity kept = null;
+            // Emptied holdings are deleted, as a sale that closes a position does
+            if (discrepancy.expectedQuantity() > 0) {
+                kept = rows.isEmpty() ? new HoldingsEntity() : rows.get(0);
+                kept.setStock(discrepancy.symbol());
+                kept.setQuantity(discrepancy.expectedQuantity());
+                kept.setTotal_invested(discrepancy.expectedInvested());
+                updated.add(kept);
+            }
+            for (HoldingsEntity row : rows) {
+                if (row != kept)
+                    removed.add(row);
+            }
+        }
+        holdingsRepo.saveAll(updated);
+        holdingsRepo.deleteAll(removed);
+
+        if (purseDiffers) {
+            AccountBalanceEntity corrected = balance.orElseGet(() -> {
+                AccountBalanceEntity created = new AccountBalanceEntity();
+                created.setId(TransactionsService.PURSE_ID);
+                return created;
+            });
+            corrected.setPurseValue(fold.purse());
+            accountBalanceRepo.save(corrected);
+        }
+        log.info("Rebuilt {} holding(s) from the ledger{}", discrepancies.size(),
+                purseDiffers ? " and reset the purse to " + fold.purse() : "");
+    }
+
+    /** Records the folded state and drops the checkpoints it supersedes. */
+    private void writeCheckpoint(Fold fold, SymbolLog[] logs) {
+        LedgerCheckpointEntity checkpoint = new LedgerCheckpointEntity();
+        checkpoint.setThroughTransactionId(fold.throughId);
+        checkpoint.setPurse(fold.purse());
+        checkpoint.setRowsFolded(fold.rowsFolded);
+        checkpoint.setCreatedAt(LocalDateTime.now());
+        checkpointRepo.save(checkpoint);
+
+        List<LedgerCheckpointPositionEntity> positions = new ArrayList<>();
+        for (SymbolLog symbolLog : logs) {
+            if (symbolLog.replayable && symbolLog.quantity == 0)
+                continue;
+            LedgerCheckpointPositionEntity position = new LedgerCheckpointPositionEntity();
+            position.setCheckpointId(checkpoint.getId());
+            position.setSymbol(symbolLog.symbol);
+            position.setQuantity((int) symbolLog.quantity);
+            position.setTotalInvested(Money.ofCents(symbolLog.invested));
+            position.setReplayable(symbolLog.replayable);
+            positions.add(position);
+        }
+        checkpointPositionRepo.saveAll(positions);
+
+        List<LedgerCheckpointEntity> superseded = checkpointRepo.findByThroughTransactionIdLessThan(fold.throughId);
+        if (!superseded.isEmpty()) {
+            checkpointPositionRepo.deleteByCheckpointIds(
+                    superseded.stream().map(LedgerCheckpointEntity::getId).toList());
+            checkpointRepo.deleteAllInBatch(superseded);
+        }
+    }
+
+    /** Running state of a replay: per-symbol logs, the purse and how far the ledger was read. */
+    private static final class Fold {
+        final Map<String, SymbolLog> logs = new HashMap<>();
+        Integer checkpointThroughId;
+        int throughId;
+        long rowsFolded;
+        long rowsReplayed;
+        private long purse;
+        private boolean purseKnown; // false until the opening balance is known
+
+        void seed(LedgerCheckpointEntity checkpoint, List<LedgerCheckpointPositionEntity> positions) {
+            checkpointThroughId = checkpoint.getThroughTransactionId();
+            throughId = checkpoint.getThroughTransactionId();
+            rowsFolded = checkpoint.getRowsFolded() == null ? 0 : checkpoint.getRowsFolded();
+            purseKnown = checkpoint.getPurse() != null;
+            purse = purseKnown ? checkpoint.getPurse().cents() : 0;
+            for (LedgerCheckpointPositionEntity position : positions) {
+                SymbolLog symbolLog = new SymbolLog(position.getSymbol());
+                symbolLog.replayable = !Boolean.FALSE.equals(position.getReplayable());
+                symbolLog.quantity = position.getQuantity() == null ? 0 : position.getQuantity();
+                symbolLog.invested = position.getTotalInvested() == null ? 0 : position.getTotalInvested().cents();
+                logs.put(symbolLog.symbol, symbolLog);
+            }
+        }
+
+        Money purse() {
+            return purseKnown ? Money.ofCents(purse) : TransactionsService.STARTING_PURSE;
+        }
+
+        void append(LedgerEntry row) {
+            throughId = row.id();
+            rowsFolded++;
+            rowsReplayed++;
+
+            String type = row.type() == null ? "" : row.type().trim().toUpperCase(Locale.ROOT);
+            int sign;
+            String side;
+            String typeSymbol = null;
+            if (type.equals("PURSE ADD")) {
+                sign = 1;
+                side = null;
+            } else if (type.equals("PURSE DEDUCT")) {
+                sign = -1;
+                side = null;
+            } else {
+                // Older rows carry the symbol in the type, e.g. "BUY AAPL"
+                int space = type.indexOf(' ');
+                side = space < 0 ? type : type.substring(0, space);
+                if (space >= 0)
+                    typeSymbol = row.type().trim().substring(space + 1).trim();
+                sign = side.equals("BUY") ? -1 : side.equals("SELL") ? 1 : 0;
+            }
+
+            // Trades book the rounded value, so that (not quantity times price) is what moved the purse
+            long value = row.transactionValue() != null ? row.transactionValue().cents()
+                    : row.quantity() != null && row.price() != null
+                            ? Money.costCents(row.quantity(), row.price().doubleValue())
+                            : 0;
+            long delta = sign * value;
+            if (!purseKnown) {
+                // The opening balance is whatever the first row's resulting purse implies
+                purse = row.purseValue() != null ? row.purseValue().cents() - delta
+                        : TransactionsService.STARTING_PURSE.cents();
+                purseKnown = true;
+            }
+            purse += delta;
+
+            if (side == null || sign == 0)
+                return;
+            String symbol = row.symbol() != null ? row.symbol() : typeSymbol;
+            if (symbol == null || symbol.isEmpty())
+                return;
+            SymbolLog symbolLog = logs.computeIfAbsent(symbol, SymbolLog::new);
+            if (row.quantity() == null || row.price() == null) {
+                symbolLog.replayable = false;
+                return;
+            }
+            symbolLog.add(sign < 0 ? row.quantity() : -row.quantity(), value);
+        }
+    }
+
+    /**
+     * One symbol's trades since the checkpoint as parallel columns (positive
+     * quantities are buys, values are in cents), and the holding they fold
+     * into, with its cost basis in cents.
+     */
+    private static final class SymbolLog {
+        final String symbol;
+        boolean replayable = true;
+        long quantity;
+        long invested;
+        private int size;
+        private int[] quantities = new int[8];
+        private long[] values = new long[8];
+
+        SymbolLog(String symbol) {
+            this.symbol = symbol;
+        }
+
+        void add(int signedQuantity, long value) {
+            if (size == quantities.length) {
+                quantities = Arrays.copyOf(quantities, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            quantities[size] = signedQuantity;
+            values[size] = value;
+            size++;
+        }
+
+        /** Applies the logged trades with the same average-cost arithmetic as live trades. */
+        void fold() {
+            for (int i = 0; i < size; i++) {
+                int traded = quantities[i];
+                if (traded > 0) {
+                    quantity += traded;
+                    invested += values[i];
+                } else if (quantity > 0) {
+                    long sold = Math.min(-traded, quantity);
+                    invested -= Money.proportionCents(invested, sold, quantity);
+                    quantity -= sold;
+                }
+            }
+            size = 0;
+        }
+    }
+
+    private static final class FoldTask extends RecursiveAction {
+        private final SymbolLog[] logs;
+        private final int from;
+        private final int to;
+
+        FoldTask(SymbolLog[] logs, int from, int to) {
+            this.logs = logs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SYMBOLS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    logs[i].fold();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FoldTask(logs, from, mid), new FoldTask(logs, mid, to));
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.neueda.pm_milkyway.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neueda.pm_milkyway.dto.PriceHistory;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.TickerMatch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Client for the Python market data proxy ({@code proxy.py}); the only way
+ * the backend reaches it.
+ *
+ * Calls go out through one non-blocking {@link HttpClient}, which keeps
+ * HTTP/1.1 connections to the proxy open and reuses them. Every call returns
+ * a future; the blocking methods wait on the same future, so callers on
+ * fetch pools get the same limits. Traffic is split into four lanes,
+ * quotes, ticker search, history, and company data (profile, fundamentals
+ * and news), so a slow yfinance call in one cannot starve the others, and a
+ * burst of typeahead searches cannot take the quote slots or trip the quote
+ * breaker that trades and the price stream depend on. Each lane has:
+ * <ul>
+ * <li>a deadline for the whole call, after which it fails and the request
+ * is cancelled;</li>
+ * <li>a bulkhead: at most {@code max-concurrent} requests in flight, and a
+ * call beyond that fails at once instead of queueing;</li>
+ * <li>a {@link CircuitBreaker} that stops calling after repeated transport
+ * errors, timeouts or 5xx answers, and lets a trial through later.</li>
+ * </ul>
+ * With {@code market-data.hedge-after} set, a call still unanswered after
+ * that delay sends a second identical request, if the bulkhead has room,
+ * and takes whichever answers first. All calls are idempotent GETs.
+ */
+@Component
+public class MarketDataClient {
+
+    /** Bulkhead lanes; each has its own deadline, concurrency limit and circuit breaker. */
+    public enum Traffic {
+        QUOTE, SEARCH, HISTORY, COMPANY;
+
+        private String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /** Deadline and concurrency limit of one lane. */
+    public record Limits(Duration deadline, int maxConcurrent) {
+    }
+
+    private final HttpClient httpClient;
+    private final URI baseUrl;
+    private final ObjectMapper objectMapper;
+    private final Duration hedgeAfter;
+    private final MeterRegistry meterRegistry;
+    private final Map<Traffic, Lane> lanes = new EnumMap<>(Traffic.class);
+
+    @Autowired
+    public MarketDataClient(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${market-data.base-url:http://localhost:3000}") String baseUrl,
+            @Value("${market-data.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${market-data.quote.deadline:3s}") Duration quoteDeadline,
+            @Value("${market-data.quote.max-concurrent:16}") int quoteConcurrency,
+            @Value("${market-data.search.deadline:3s}") Duration searchDeadline,
+            @Value("${market-data.search.max-concurrent:4}") int searchConcurrency,
+            @Value("${market-data.history.deadline:5s}") Duration historyDeadline,
+            @Value("${market-data.history.max-concurrent:4}") int historyConcurrency,
+            @Value("${market-data.company.deadline:8s}") Duration companyDeadline,
+            @Value("${market-data.company.max-concurrent:4}") int companyConcurrency,
+            @Value("${market-data.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${market-data.breaker.open-for:30s}") Duration openFor,
+            @Value("${market-data.hedge-after:0ms}") Duration hedgeAfter) {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build(),
+                URI.create(baseUrl), objectMapper,
+                Map.of(Traffic.QUOTE, new Limits(quoteDeadline, quoteConcurrency),
+                        Traffic.SEARCH, new Limits(searchDeadline, searchConcurrency),
+                        Traffic.HISTORY, new Limits(historyDeadline, historyConcurrency),
+                        Traffic.COMPANY, new Limits(companyDeadline, companyConcurrency)),
+                failureThreshold, openFor, hedgeAfter, meterRegistry, Clock.systemUTC());
+    }
+
+    MarketDataClient(HttpClient httpClient, URI baseUrl, ObjectMapper objectMapper, Map<Traffic, Limits> limits,
+            int failureThreshold, Duration openFor, Duration hedgeAfter, MeterRegistry meterRegistry, Clock clock) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.hedgeAfter = hedgeAfter;
+        this.meterRegistry = meterRegistry;
+        for (Traffic traffic : Traffic.values()) {
+            Limits lane = limits.get(traffic);
+            CircuitBreaker breaker = new CircuitBreaker(failureThreshold, openFor, clock);
+            lanes.put(traffic, new Lane(traffic, lane.deadline(), new Semaphore(lane.maxConcurrent()), breaker));
+            Gauge.builder("market.data.circuit.open", breaker, b -> b.state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                    .tag("traffic", traffic.tag())
+                    .register(meterRegistry);
+        }
+    }
+
+    public Quote fetchQuote(String symbol) {
+        return await(fetchQuoteAsync(symbol));
+    }
+
+    public CompletableFuture<Quote> fetchQuoteAsync(String symbol) {
+        return call(Traffic.QUOTE, "/quote/" + encode(symbol), "Quote unavailable for " + symbol, body -> {
+            Quote quote = objectMapper.readValue(body, Quote.class);
+            if (quote == null || quote.getPrice() == null)
+                throw new UnusableResponse("no price");
+            return quote;
+        });
+    }
+
+    /**
+     * The proxy's fixed 30-day window of daily closes. Days without a close
+     * are left out rather than reported as zero.
+     */
+    public PriceHistory fetchHistory(String symbol) {
+        return await(fetchHistoryAsync(symbol));
+    }
+
+    public CompletableFuture<PriceHistory> fetchHistoryAsync(String symbol) {
+        return call(Traffic.HISTORY, "/history/" + encode(symbol), "History unavailable for " + symbol, body -> {
+            HistoryPayload payload = objectMapper.readValue(body, HistoryPayload.class);
+            if (payload == null || payload.labels() == null || payload.prices() == null
+                    || payload.labels().size() != payload.prices().size())
+                throw new UnusableResponse("malformed history");
+
+            List<String> labels = new ArrayList<>(payload.labels().size());
+            double[] prices = new double[payload.prices().size()];
+            for (int i = 0; i < prices.length; i++) {
+                Double price = payload.prices().get(i);
+                if (price == null || price.isNaN())
+                    continue;
+                prices[labels.size()] = price;
+                labels.add(payload.labels().get(i));
+            }
+            return new PriceHistory(symbol, labels, Arrays.copyOf(prices, labels.size()));
+        });
+    }
+
+    /** Equities matching a symbol or company name query, in upstream's order. */
+    public List<TickerMatch> searchTickers(String query) {
+        return await(searchTickersAsync(query));
+    }
+
+    public CompletableFuture<List<TickerMatch>> searchTickersAsync(String query) {
+        return call(Traffic.SEARCH, "/search?q=" + encode(query), "Search unavailable for " + query, body -> {
+            TickerMatch[] matches = objectMapper.readValue(body, TickerMatch[].class);
+            if (matches == null)
+                return List.of();
+            List<TickerMatch> results = new ArrayList<>(matches.length);
+            for (TickerMatch match : matches) {
+                if (match != null && match.symbol() != null && !match.symbol().isBlank())
+                    results.add(match);
+            }
+            return results;
+        });
+    }
+
+    /** Company profile (name, industry, website, description, price), passed through as the proxy sends it. */
+    public CompletableFuture<JsonNode> fetchProfileAsync(String symbol) {
+        return call(Traffic.COMPANY, "/info/" + encode(symbol), "Profile unavailable for " + symbol,
+                objectMapper::readTree);
+    }
+
+    /** Valuation and profitability ratios, passed through as the proxy sends them. */
+    public CompletableFuture<JsonNode> fetchFundamentalsAsync(String symbol) {
+        return call(Traffic.COMPANY, "/fundamentals/" + encode(symbol), "Fundamentals unavailable for " + symbol,
+                objectMapper::readTree);
+    }
+
+    /** Recent headlines, passed through as the proxy sends them. */
+    public CompletableFuture<JsonNode> fetchNewsAsync(String symbol) {
+        return call(Traffic.COMPANY, "/news/" + encode(symbol), "News unavailable for " + symbol,
+                objectMapper::readTree);
+    }
+
+    CircuitBreaker.State circuitState(Traffic traffic) {
+        return lanes.get(traffic).breaker.state();
+    }
+
+    /**
+     * One call through a lane: bulkhead, then circuit breaker, then the
+     * request and its optional hedge. Failures surface as a RuntimeException
+     * whose message starts with {@code failure}.
+     */
+    private <T> CompletableFuture<T> call(Traffic traffic, String path, String failure, BodyReader<T> reader) {
+        Lane lane = lanes.get(traffic);
+        long start = System.nanoTime();
+        if (!lane.permits.tryAcquire())
+            return refused(lane, start, "rejected",
+                    failure + ": too many " + traffic.tag() + " requests in flight, please retry");
+        if (!lane.breaker.tryAcquire()) {
+            lane.permits.release();
+            return refused(lane, start, "circuit_open", failure + ": market data " + traffic.tag()
+                    + " calls paused after repeated failures, retry in "
+                    + TimeUnit.MILLISECONDS.toSeconds(lane.breaker.retryAfterMillis() + 999) + " s");
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(baseUrl.resolve(path))
+                .timeout(lane.deadline)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        List<CompletableFuture<?>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger(1);
+        send(lane, request, reader, result, attempts, running);
+        if (!hedgeAfter.isZero() && hedgeAfter.compareTo(lane.deadline) < 0) {
+            CompletableFuture.delayedExecutor(hedgeAfter.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+                if (result.isDone() || !lane.permits.tryAcquire())
+                    return;
+                running.incrementAndGet();
+                Counter.builder("market.data.hedges").tag("traffic", traffic.tag()).register(meterRegistry)
+                        .increment();
+                send(lane, request, reader, result, attempts, running);
+            });
+        }
+
+        return result.orTimeout(lane.deadline.toNanos(), TimeUnit.NANOSECONDS)
+                .handle((value, error) -> {
+                    // The winner is in; stop whatever is still on the wire
+                    attempts.forEach(attempt -> attempt.cancel(true));
+                    Throwable cause = unwrap(error);
+                    if (cause == null || cause instanceof UnusableResponse)
+                        lane.breaker.onSuccess();
+                    else
+                        lane.breaker.onFailure();
+                    record(lane, start, outcome(cause));
+                    if (cause == null)
+                        return value;
+                    throw new RuntimeException(failure + ": " + describe(cause, lane.deadline));
+                });
+    }
+
+    // Each attempt holds one bulkhead permit until its exchange ends or is cancelled
+    private <T> void send(Lane lane, HttpRequest request, BodyReader<T> reader, CompletableFuture<T> result,
+            List<CompletableFuture<?>> attempts, AtomicInteger running) {
+        CompletableFuture<HttpResponse<byte[]>> exchange;
+        try {
+            exchange = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            lane.permits.release();
+            if (running.decrementAndGet() == 0)
+                result.completeExceptionally(e);
+            return;
+        }
+        attempts.add(exchange);
+        exchange.whenComplete((response, error) -> lane.permits.release())
+                .thenApply(response -> read(response, reader))
+                .whenComplete((value, error) -> {
+                    if (error == null)
+                        result.complete(value);
+                    else if (running.decrementAndGet() == 0)
+                        result.completeExceptionally(unwrap(error));
+                });
+    }
+
+    private static <T> T read(HttpResponse<byte[]> response, BodyReader<T> reader) {
+        int status = response.statusCode();
+        if (status >= 500)
+            throw new UpstreamError("HTTP " + status);
+        if (status >= 300)
+            throw new UnusableResponse("HTTP " + status);
+        try {
+            return reader.read(response.body());
+        } catch (IOException e) {
+            throw new UnusableResponse("unreadable response: " + e.getMessage());
+        }
+    }
+
+    private <T> CompletableFuture<T> refused(Lane lane, long start, String outcome, String message) {
+        record(lane, start, outcome);
+        return CompletableFuture.failedFuture(new RuntimeException(message));
+    }
+
+    private void record(Lane lane, long start, String outcome) {
+        Timer.builder("market.data.requests")
+                .tags("traffic", lane.traffic.tag(), "outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(Throwable cause) {
+        if (cause == null)
+            return "success";
+        if (isTimeout(cause))
+            return "timeout";
+        return cause instanceof UnusableResponse ? "unusable" : "error";
+    }
+
+    private static String describe(Throwable cause, Duration deadline) {
+        if (isTimeout(cause))
+            return "timed out after " + deadline.toMillis() + " ms";
+        return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+    }
+
+    private static boolean isTimeout(Throwable cause) {
+        return cause instanceof TimeoutException || cause instanceof HttpTimeoutException;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null)
+            cause = cause.getCause();
+        return cause;
+    }
+
+    /** Waits for a call; its own deadline bounds the wait. */
+    private static <T> T await(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(byte[] body) throws IOException;
+    }
+
+    private record Lane(Traffic traffic, Duration deadline, Semaphore permits, CircuitBreaker breaker) {
+    }
+
+    /** Upstream answered, but not with data we can use; says nothing about its health. */
+    private static final class UnusableResponse extends RuntimeException {
+        UnusableResponse(String message) {
+            super(message);
+        }
+    }
+
+    /** Upstream answered with a server error. */
+    private static final class UpstreamError extends RuntimeException {
+        UpstreamError(String message) {
+            super(message);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record HistoryPayload(List<String> labels, List<Double> prices) {
+    }
+}
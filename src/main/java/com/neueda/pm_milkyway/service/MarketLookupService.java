@@ -1,5 +1,351 @@
 package com.neueda.pm_milkyway.service;
 
-public class MarketLookupService {
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.QuoteBatch;
+import com.neueda.pm_milkyway.dto.QuoteCacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Backend quote cache in front of the market data proxy.
+ *
+ * Entries expire {@code ttl} after they were fetched, so quotes restored from
+ * the snapshot keep their original age. When the cache is full, Caffeine's
+ * W-TinyLFU policy evicts by access frequency rather than recency, so a burst
+ * of one-off lookups does not push out the symbols every page asks for.
+ * Misses load through {@link MarketDataClient#fetchQuoteAsync}, so a fetch
+ * holds no thread while upstream answers, and concurrent misses for one
+ * symbol share a single call. Failed fetches are not cached.
+ *
+ * At most {@code maxFetches} fetches are in flight at once, matching the
+ * client's quote bulkhead so it never has to turn one away. Misses beyond
+ * that wait in arrival order and start as earlier ones finish; one still
+ * waiting after {@code deadline} fails without calling upstream. Batch
+ * lookups wait at most {@code deadline}; symbols still loading at that point
+ * are reported as errors but keep loading, so the next request finds them
+ * cached.
+ */
+@Service
+public class MarketLookupService implements MeterBinder {
+
+    static final int MAX_BATCH_SYMBOLS = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(MarketLookupService.class);
+
+    private final MarketDataClient marketDataClient;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Path snapshotPath;
+    private final Clock clock;
+    private final Duration deadline;
+    private final Semaphore fetchSlots;
+    private final Queue<WaitingFetch> waitingFetches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final AsyncLoadingCache<String, Quote> quotes;
+
+    @Autowired
+    public MarketLookupService(MarketDataClient marketDataClient, ObjectMapper objectMapper,
+            @Value("${market.quote-cache.ttl:30s}") Duration ttl,
+            @Value("${market.quote-cache.max-entries:1000}") long maxEntries,
+            @Value("${market.quote-cache.snapshot-path:}") String snapshotPath,
+            @Value("${market.quote-fetch.deadline:3s}") Duration deadline,
+            @Value("${market-data.quote.max-concurrent:16}") int maxFetches) {
+        this(marketDataClient, objectMapper, ttl, maxEntries, snapshotPath.isBlank() ? null : Path.of(snapshotPath),
+                deadline, maxFetches, Ticker.systemTicker(), Clock.systemUTC());
+    }
+
+    MarketLookupService(MarketDataClient marketDataClient, ObjectMapper objectMapper, Duration ttl, long maxEntries,
+            Path snapshotPath, Duration deadline, int maxFetches, Ticker ticker, Clock clock) {
+        this.marketDataClient = marketDataClient;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.snapshotPath = snapshotPath;
+        this.clock = clock;
+        this.deadline = deadline;
+        this.fetchSlots = new Semaphore(maxFetches);
+        this.quotes = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Quote>() {
+                    @Override
+                    public long expireAfterCreate(String key, Quote quote, long currentTime) {
+                        return remainingNanos(quote);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Quote quote, long currentTime, long currentDuration) {
+                        return remainingNanos(quote);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Quote quote, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync((key, executor) -> fetch(key));
+    }
+
+    /**
+     * Returns the cached quote, fetching it from upstream on a miss.
+     */
+    public Quote getQuote(String symbol) {
+        if (symbol == null || symbol.isBlank())
+            throw new IllegalArgumentException("Symbol is required");
+        try {
+            return quotes.get(normalize(symbol)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches a fresh quote regardless of what is cached and stores it, so
+     * pollers keep the cache warm for everyone else reading the symbol.
+     */
+    public Quote refreshQuote(String symbol) {
+        if (symbol == null || symbol.isBlank())
+            throw new IllegalArgumentException("Symbol is required");
+        try {
+            // Replaces the cached quote once the fetch succeeds; a failed one leaves it in place
+            return quotes.synchronous().refresh(normalize(symbol)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up several symbols at once. Misses are fetched concurrently, up
+     * to the in-flight limit; whatever has not arrived by the deadline, or failed, is reported per
+     * symbol in {@link QuoteBatch#getErrors()}.
+     */
+    public QuoteBatch getQuotes(Collection<String> symbols) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (symbols != null) {
+            for (String symbol : symbols) {
+                if (symbol != null && !symbol.isBlank())
+                    keys.add(normalize(symbol));
+            }
+        }
+        if (keys.isEmpty())
+            throw new IllegalArgumentException("At least one symbol is required");
+        if (keys.size() > MAX_BATCH_SYMBOLS)
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SYMBOLS + " symbols may be requested at once");
+
+        Map<String, CompletableFuture<Quote>> pending = new LinkedHashMap<>();
+        for (String key : keys) {
+            pending.put(key, quotes.get(key));
+        }
+        awaitUntil(CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0])),
+                System.nanoTime() + deadline.toNanos());
+
+        QuoteBatch batch = new QuoteBatch();
+        pending.forEach((key, future) -> {
+            if (!future.isDone()) {
+                batch.addError(key, "Timed out after " + deadline.toMillis() + " ms");
+            } else if (future.isCompletedExceptionally()) {
+                batch.addError(key, failureMessage(future));
+            } else {
+                batch.addQuote(key, future.join());
+            }
+        });
+        return batch;
+    }
+
+    /** Hit, miss, load and eviction meters of the quote cache, tagged {@code cache=quotes}. */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, quotes, "quotes");
+    }
+
+    public QuoteCacheStats getStats() {
+        CacheStats stats = quotes.synchronous().stats();
+        return new QuoteCacheStats(stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.loadFailureCount(), stats.evictionCount(), quotes.synchronous().estimatedSize());
+    }
+
+    /**
+     * Restores quotes saved by the previous run that are still within their TTL.
+     */
+    @PostConstruct
+    void loadSnapshot() {
+        if (snapshotPath == null || !Files.isRegularFile(snapshotPath))
+            return;
+        try {
+            List<Quote> saved = objectMapper.readValue(snapshotPath.toFile(), new TypeReference<List<Quote>>() {
+            });
+            for (Quote quote : saved) {
+                if (quote.getSymbol() != null && remainingNanos(quote) > 0) {
+                    quotes.put(quote.getSymbol(), CompletableFuture.completedFuture(quote));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable quote cache snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        saveSnapshot();
+    }
+
+    /**
+     * Writes completed entries to a temp file and moves it over the snapshot,
+     * so a crash mid-write never leaves a truncated file behind.
+     */
+    void saveSnapshot() {
+        if (snapshotPath == null)
+            return;
+        List<Quote> current = new ArrayList<>();
+        quotes.asMap().values().forEach(future -> {
+            if (future.isDone() && !future.isCompletedExceptionally())
+                current.add(future.join());
+        });
+        if (current.isEmpty())
+            return;
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "quote-cache", ".tmp");
+            objectMapper.writeValue(temp.toFile(), current);
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write quote cache snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    /** The cache loader: queues the fetch and returns a future settled once it has run. */
+    private CompletableFuture<Quote> fetch(String key) {
+        WaitingFetch waiting = new WaitingFetch(key, System.nanoTime() + deadline.toNanos(), new CompletableFuture<>());
+        waitingFetches.add(waiting);
+        drain();
+        return waiting.result();
+    }
+
+    /**
+     * Starts waiting fetches while slots are free. Only one thread drains at
+     * a time; a request arriving meanwhile makes it loop again, so a fetch
+     * that completes synchronously cannot recurse through here.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0)
+            return;
+        int missed = 1;
+        do {
+            while (!waitingFetches.isEmpty() && fetchSlots.tryAcquire()) {
+                WaitingFetch next = waitingFetches.poll();
+                if (next == null)
+                    fetchSlots.release();
+                else
+                    start(next);
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    // Runs with a slot held; the slot is returned when the upstream call settles
+    private void start(WaitingFetch waiting) {
+        if (System.nanoTime() - waiting.expiresAtNanos() > 0) {
+            fetchSlots.release();
+            waiting.result().completeExceptionally(new RuntimeException("Quote unavailable for " + waiting.key()
+                    + ": no free upstream slot within " + deadline.toMillis() + " ms, please retry"));
+            return;
+        }
+        CompletableFuture<Quote> call;
+        try {
+            call = marketDataClient.fetchQuoteAsync(waiting.key());
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((fetched, error) -> {
+            fetchSlots.release();
+            if (error != null) {
+                waiting.result().completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                fetched.setSymbol(waiting.key());
+                fetched.setFetchedAt(clock.millis());
+                waiting.result().complete(fetched);
+            }
+            drain();
+        });
+    }
+
+    private static void awaitUntil(CompletableFuture<?> all, long deadlineNanos) {
+        try {
+            all.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Individual outcomes are read from each future
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String failureMessage(CompletableFuture<Quote> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+        }
+    }
+
+    private static String normalize(String symbol) {
+        return symbol.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private long remainingNanos(Quote quote) {
+        long ageMillis = Math.max(0, clock.millis() - quote.getFetchedAt());
+        return Math.max(0, ttl.minusMillis(ageMillis).toNanos());
+    }
+
+    private record WaitingFetch(String key, long expiresAtNanos, CompletableFuture<Quote> result) {
+    }
 }
@@ -0,0 +1,358 @@
+package com.neueda.pm_milkyway.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neueda.pm_milkyway.dto.LedgerEntry;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.QuoteBatch;
+import com.neueda.pm_milkyway.entity.NavPositionEntity;
+import com.neueda.pm_milkyway.entity.NavSnapshotEntity;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.NavPositionRepo;
+import com.neueda.pm_milkyway.repo.NavSnapshotRepo;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+
+/**
+ * Materializes one end-of-day NAV snapshot per calendar day.
+ *
+ * A run starts from the latest snapshot (its purse and positions are the
+ * checkpoint) and replays only the ledger rows dated after it, so the daily
+ * job touches one day of transactions rather than the whole history. Gaps,
+ * e.g. after downtime or on first start, are filled the same way in chunks of
+ * {@value #CHUNK_DAYS} days, each read with one query and written in its own
+ * transaction with batched inserts.
+ *
+ * Only days that have ended are snapshotted, counted in
+ * {@code market.history.zone}, the zone ledger rows are dated in. A run never
+ * revisits a day it has written, so writing a day that could still get
+ * trades would leave those trades out of every later snapshot.
+ *
+ * Holdings are marked at the stored daily close for the day where one
+ * exists, otherwise at the latest trade or snapshot price; the day the
+ * scheduled job runs for is marked at the latest quote instead.
+ */
+@Service
+public class NavSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(NavSnapshotService.class);
+
+    static final int CHUNK_DAYS = 31;
+
+    private final NavSnapshotRepo navSnapshotRepo;
+    private final NavPositionRepo navPositionRepo;
+    private final TransactionsRepo transactionsRepo;
+    private final PriceHistoryService priceHistoryService;
+    private final PriceHistoryStore priceHistoryStore;
+    private final MarketLookupService marketLookupService;
+    private final TransactionOperations transactions;
+    private final Clock clock;
+    // One run at a time; a run queries and saves while holding it
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Autowired
+    public NavSnapshotService(NavSnapshotRepo navSnapshotRepo, NavPositionRepo navPositionRepo,
+            TransactionsRepo transactionsRepo, PriceHistoryService priceHistoryService,
+            PriceHistoryStore priceHistoryStore, MarketLookupService marketLookupService,
+            PlatformTransactionManager transactionManager,
+            @Value("${market.history.zone:America/New_York}") String zone) {
+        this(navSnapshotRepo, navPositionRepo, transactionsRepo, priceHistoryService, priceHistoryStore,
+                marketLookupService, new TransactionTemplate(transactionManager), Clock.system(ZoneId.of(zone)));
+    }
+
+    NavSnapshotService(NavSnapshotRepo navSnapshotRepo, NavPositionRepo navPositionRepo,
+            TransactionsRepo transactionsRepo, PriceHistoryService priceHistoryService,
+            PriceHistoryStore priceHistoryStore, MarketLookupService marketLookupService,
+            TransactionOperations transactions, Clock clock) {
+        this.navSnapshotRepo = navSnapshotRepo;
+        this.navPositionRepo = navPositionRepo;
+        this.transactionsRepo = transactionsRepo;
+        this.priceHistoryService = priceHistoryService;
+        this.priceHistoryStore = priceHistoryStore;
+        this.marketLookupService = marketLookupService;
+        this.transactions = transactions;
+        this.clock = clock;
+    }
+
+    /** Runs just after midnight and snapshots the day that has just ended. */
+    @Scheduled(cron = "${nav.snapshot.cron:0 5 0 * * *}", zone = "${market.history.zone:America/New_York}")
+    public void snapshotEndOfDay() {
+        int written = materializeThrough(LocalDate.now(clock).minusDays(1), true);
+        log.info("NAV snapshot job wrote {} day(s)", written);
+    }
+
+    /**
+     * Fills any days missed while the application was down. Today is still
+     * open, so it is left to the job that runs after it ends.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            int written = materializeThrough(LocalDate.now(clock).minusDays(1), false);
+            if (written > 0)
+                log.info("Backfilled {} NAV snapshot(s)", written);
+        } catch (RuntimeException e) {
+            log.warn("NAV snapshot backfill failed, will retry at the next run: {}", e.getMessage());
+        }
+    }
+
+    public List<NavSnapshotEntity> getSeries(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(clock);
+        LocalDate start = from != null ? from : end.minusYears(1);
+        if (start.isAfter(end))
+            throw new IllegalArgumentException("from must not be after to");
+        return navSnapshotRepo.findBySnapshotDateBetweenOrderBySnapshotDate(start, end);
+    }
+
+    /**
+     * Writes snapshots for every day after the latest one up to and including
+     * {@code through}, returning how many were written.
+     */
+    public int materializeThrough(LocalDate through, boolean quoteLastDay) {
+        runLock.lock();
+        try {
+            Replay replay = new Replay();
+            LocalDate start;
+            Optional<NavSnapshotEntity> last = navSnapshotRepo.findTopByOrderBySnapshotDateDesc();
+            if (last.isPresent()) {
+                start = last.get().getSnapshotDate().plusDays(1);
+                replay.seed(last.get(), navPositionRepo.findBySnapshotDate(last.get().getSnapshotDate()));
+            } else {
+                start = transactionsRepo.findFirstByStatusTrueOrderByDateAscIdAsc()
+                        .map(TransactionEntity::getDate)
+                        .filter(first -> first.isBefore(through))
+                        .orElse(through);
+            }
+            if (start.isAfter(through))
+                return 0;
+
+            Map<String, Double> lastDayQuotes = Map.of();
+            int written = 0;
+            for (LocalDate chunkStart = start; !chunkStart.isAfter(through); chunkStart = chunkStart.plusDays(CHUNK_DAYS)) {
+                LocalDate chunkEnd = chunkStart.plusDays(CHUNK_DAYS - 1);
+                if (chunkEnd.isAfter(through))
+                    chunkEnd = through;
+                List<LedgerEntry> rows = transactionsRepo.findLedgerBetween(chunkStart, chunkEnd);
+                if (quoteLastDay && chunkEnd.equals(through))
+                    lastDayQuotes = currentQuotes(replay, rows);
+                List<DaySnapshot> days = replay.run(chunkStart, chunkEnd, rows, start, through, lastDayQuotes);
+
+                transactions.executeWithoutResult(status -> {
+                    List<NavSnapshotEntity> snapshots = new ArrayList<>(days.size());
+                    List<NavPositionEntity> positions = new ArrayList<>();
+                    for (DaySnapshot day : days) {
+                        snapshots.add(day.snapshot);
+                        positions.addAll(day.positions);
+                    }
+                    navSnapshotRepo.saveAll(snapshots);
+                    navPositionRepo.saveAll(positions);
+                });
+                written += days.size();
+            }
+            return written;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /** Quotes for everything held before or traded during the last chunk. */
+    private Map<String, Double> currentQuotes(Replay replay, List<LedgerEntry> rows) {
+        Set<String> symbols = new HashSet<>(replay.heldSymbols());
+        for (LedgerEntry row : rows) {
+            if (row.symbol() != null)
+                symbols.add(normalize(row.symbol()));
+        }
+        Map<String, Double> prices = new HashMap<>();
+        List<String> list = new ArrayList<>(symbols);
+        for (int i = 0; i < list.size(); i += MarketLookupService.MAX_BATCH_SYMBOLS) {
+            QuoteBatch batch = marketLookupService.getQuotes(
+                    list.subList(i, Math.min(list.size(), i + MarketLookupService.MAX_BATCH_SYMBOLS)));
+            for (Map.Entry<String, Quote> entry : batch.getQuotes().entrySet()) {
+                if (entry.getValue().getPrice() != null)
+                    prices.put(entry.getKey(), entry.getValue().getPrice());
+            }
+        }
+        return prices;
+    }
+
+    private static String normalize(String symbol) {
+        return symbol.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private record DaySnapshot(NavSnapshotEntity snapshot, List<NavPositionEntity> positions) {
+    }
+
+    private static final class Holding {
+        long quantity;
+        long cost; // cents
+        double mark;
+        LocalDate markDate;
+    }
+
+    /**
+     * Running purse and holdings as the ledger is replayed day by day.
+     * Holdings iterate in symbol order so snapshots are written
+     * deterministically.
+     */
+    private final class Replay {
+        private final Map<String, Holding> holdings = new TreeMap<>();
+        private final Set<String> historyLoaded = new HashSet<>();
+        private long purse = TransactionsService.STARTING_PURSE.cents();
+
+        void seed(NavSnapshotEntity snapshot, List<NavPositionEntity> positions) {
+            purse = snapshot.getPurse().cents();
+            for (NavPositionEntity position : positions) {
+                Holding holding = new Holding();
+                holding.quantity = position.getQuantity();
+                holding.cost = position.getCostBasis().cents();
+                holding.mark = position.getPrice().doubleValue();
+                holding.markDate = snapshot.getSnapshotDate();
+                holdings.put(normalize(position.getSymbol()), holding);
+            }
+        }
+
+        List<String> heldSymbols() {
+            List<String> held = new ArrayList<>();
+            holdings.forEach((symbol, holding) -> {
+                if (holding.quantity > 0)
+                    held.add(symbol);
+            });
+            return held;
+        }
+
+        /** Snapshots for {@code [from, to]}; {@code quotes} price the run's last day only. */
+        List<DaySnapshot> run(LocalDate from, LocalDate to, List<LedgerEntry> rows, LocalDate runStart,
+                LocalDate runEnd, Map<String, Double> quotes) {
+            List<DaySnapshot> days = new ArrayList<>();
+            int next = 0;
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                while (next < rows.size() && !rows.get(next).date().isAfter(day)) {
+                    apply(rows.get(next++));
+                }
+                days.add(snapshot(day, day.equals(runEnd) ? quotes : Map.of(), runStart, runEnd));
+            }
+            return days;
+        }
+
+        private void apply(LedgerEntry row) {
+            if (row.purseValue() != null)
+                purse = row.purseValue().cents();
+            if (row.symbol() == null || row.quantity() == null || row.price() == null)
+                return;
+            String type = row.type() == null ? "" : row.type().toUpperCase(Locale.ROOT);
+            if (!type.equals("BUY") && !type.equals("SELL"))
+                return;
+
+            Holding holding = holdings.computeIfAbsent(normalize(row.symbol()), key -> new Holding());
+            double price = row.price().doubleValue();
+            if (type.equals("BUY")) {
+                holding.quantity += row.quantity();
+                holding.cost += row.transactionValue() != null ? row.transactionValue().cents()
+                        : Money.costCents(row.quantity(), price);
+            } else {
+                long quantity = Math.min(row.quantity(), holding.quantity);
+                if (quantity > 0) {
+                    holding.cost -= Money.proportionCents(holding.cost, quantity, holding.quantity);
+                    holding.quantity -= quantity;
+                }
+            }
+            holding.mark = price;
+            holding.markDate = row.date();
+        }
+
+        private DaySnapshot snapshot(LocalDate day, Map<String, Double> quotes, LocalDate runStart,
+                LocalDate runEnd) {
+            double marketValue = 0;
+            long costBasis = 0;
+            List<NavPositionEntity> positions = new ArrayList<>();
+            for (Map.Entry<String, Holding> entry : holdings.entrySet()) {
+                Holding holding = entry.getValue();
+                if (holding.quantity <= 0)
+                    continue;
+                double price = priceOn(entry.getKey(), holding, day, quotes, runStart, runEnd);
+                double value = holding.quantity * price;
+                marketValue += value;
+                costBasis += holding.cost;
+
+                NavPositionEntity position = new NavPositionEntity();
+                position.setSnapshotDate(day);
+                position.setSymbol(entry.getKey());
+                position.setQuantity((int) holding.quantity);
+                position.setCostBasis(Money.ofCents(holding.cost));
+                position.setPrice(BigDecimal.valueOf(price));
+                position.setMarketValue(Money.of(value));
+                positions.add(position);
+            }
+
+            NavSnapshotEntity snapshot = new NavSnapshotEntity();
+            snapshot.setSnapshotDate(day);
+            Money market = Money.of(marketValue);
+            snapshot.setPurse(Money.ofCents(purse));
+            snapshot.setMarketValue(market);
+            snapshot.setCostBasis(Money.ofCents(costBasis));
+            snapshot.setNav(Money.ofCents(purse + market.cents()));
+            return new DaySnapshot(snapshot, positions);
+        }
+
+        /**
+         * The day's quote if one was fetched, else the stored close for the
+         * day unless a later trade price is known, else the last mark.
+         */
+        private double priceOn(String symbol, Holding holding, LocalDate day, Map<String, Double> quotes,
+                LocalDate runStart, LocalDate runEnd) {
+            Double quote = quotes.get(symbol);
+            if (quote != null)
+                return quote;
+            PriceHistoryStore.Series series = historyFor(symbol, runStart, runEnd);
+            int index = series.lowerBound((int) day.toEpochDay() + 1) - 1;
+            if (index >= 0) {
+                LocalDate closeDate = LocalDate.ofEpochDay(series.day(index));
+                // A close on the same day as the last trade is later than the trade
+                if (holding.markDate == null || !closeDate.isBefore(holding.markDate))
+                    return series.close(index);
+            }
+            return holding.mark;
+        }
+
+        private PriceHistoryStore.Series historyFor(String symbol, LocalDate runStart, LocalDate runEnd) {
+            // Give the history store one chance per run to fetch the days this run needs
+            if (historyLoaded.add(symbol)) {
+                try {
+                    priceHistoryService.getHistory(symbol, runStart, runEnd);
+                } catch (RuntimeException e) {
+                    log.debug("No stored history for {} in NAV backfill: {}", symbol, e.getMessage());
+                }
+            }
+            try {
+                return priceHistoryStore.read(symbol);
+            } catch (IllegalArgumentException e) {
+                return PriceHistoryStore.Series.EMPTY;
+            }
+        }
+    }
+}
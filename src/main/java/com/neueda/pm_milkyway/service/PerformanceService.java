@@ -1,5 +1,383 @@
 package com.neueda.pm_milkyway.service;
 
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.neueda.pm_milkyway.dto.LedgerEntry;
+import com.neueda.pm_milkyway.dto.PerformanceMetrics;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.QuoteBatch;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+
+/**
+ * Portfolio analytics maintained incrementally from the trade ledger.
+ *
+ * Returns are measured on the invested sleeve: a BUY is money going into the
+ * portfolio and a SELL is money coming out, so idle purse cash does not
+ * dilute them. The service keeps a running projection of the ledger
+ * (positions with average cost, realized P&L, the time-weighted growth
+ * factor and per-day net cash flows) and folds in only trades with ids past
+ * the last one it saw, so a page view costs one indexed range query plus
+ * current quotes for the open positions. That relies on ledger ids
+ * committing in id order, as described on {@link TransactionsService}.
+ *
+ * The time-weighted return links a sub-period at every trade. Positions are
+ * marked at the last known price: a trade's own price, the stored daily
+ * close from {@link PriceHistoryStore} once a day has passed, and the
+ * current quote when metrics are read. The money-weighted return is the
+ * annualized XIRR of the per-day flows plus today's market value. Days
+ * are counted in {@code market.history.zone}, as the stored closes are.
+ */
+@Service
 public class PerformanceService {
 
+    private static final Logger log = LoggerFactory.getLogger(PerformanceService.class);
+
+    static final int LEDGER_CHUNK = 5000;
+
+    private final TransactionsRepo transactionsRepo;
+    private final PriceHistoryStore priceHistoryStore;
+    private final MarketLookupService marketLookupService;
+    private final Clock clock;
+
+    // Held while catching up on the ledger, so not a monitor (see PortfolioReadModel.writeLock)
+    private final ReentrantLock lock = new ReentrantLock();
+    // Ledger projection, guarded by lock
+    private final Map<String, Position> positions = new HashMap<>();
+    private final CashFlows flows = new CashFlows();
+    private int lastId;
+    private long tradesProcessed;
+    private LocalDate firstTradeDate;
+    private LocalDate currentDay;
+    private double value;
+    private double valueAfterLastFlow;
+    private double growth = 1.0;
+    private double realized;
+
+    @Autowired
+    public PerformanceService(TransactionsRepo transactionsRepo, PriceHistoryStore priceHistoryStore,
+            MarketLookupService marketLookupService,
+            @Value("${market.history.zone:America/New_York}") String zone) {
+        this(transactionsRepo, priceHistoryStore, marketLookupService, Clock.system(ZoneId.of(zone)));
+    }
+
+    PerformanceService(TransactionsRepo transactionsRepo, PriceHistoryStore priceHistoryStore,
+            MarketLookupService marketLookupService, Clock clock) {
+        this.transactionsRepo = transactionsRepo;
+        this.priceHistoryStore = priceHistoryStore;
+        this.marketLookupService = marketLookupService;
+        this.clock = clock;
+    }
+
+    /**
+     * Replays the existing ledger once at startup so the first page view
+     * does not pay for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        lock.lock();
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            log.warn("Could not preload performance analytics, will retry on first request: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public PerformanceMetrics getMetrics() {
+        List<String> held;
+        lock.lock();
+        try {
+            catchUp();
+            held = heldSymbols();
+        } finally {
+            lock.unlock();
+        }
+
+        // Quotes are fetched outside the lock so a slow upstream does not serialize page views
+        Map<String, Double> prices = new HashMap<>();
+        Map<String, String> priceErrors = new LinkedHashMap<>();
+        for (int i = 0; i < held.size(); i += MarketLookupService.MAX_BATCH_SYMBOLS) {
+            QuoteBatch batch = marketLookupService.getQuotes(
+                    held.subList(i, Math.min(held.size(), i + MarketLookupService.MAX_BATCH_SYMBOLS)));
+            for (Map.Entry<String, Quote> entry : batch.getQuotes().entrySet()) {
+                if (entry.getValue().getPrice() != null)
+                    prices.put(entry.getKey(), entry.getValue().getPrice());
+            }
+            priceErrors.putAll(batch.getErrors());
+        }
+
+        lock.lock();
+        try {
+            LocalDate today = LocalDate.now(clock);
+            int todayDay = (int) today.toEpochDay();
+            for (Map.Entry<String, Double> price : prices.entrySet()) {
+                Position position = positions.get(price.getKey());
+                if (position != null && position.quantity > 0)
+                    remark(position, price.getValue(), todayDay);
+            }
+            return snapshot(today, priceErrors);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Folds trades committed since the last call into the projection. */
+    private void catchUp() {
+        while (true) {
+            List<LedgerEntry> chunk = transactionsRepo.findTradesAfter(lastId, PageRequest.of(0, LEDGER_CHUNK));
+            for (LedgerEntry entry : chunk) {
+                apply(entry);
+                lastId = entry.id();
+            }
+            if (chunk.size() < LEDGER_CHUNK)
+                break;
+        }
+    }
+
+    private void apply(LedgerEntry entry) {
+        if (entry.symbol() == null || entry.quantity() == null || entry.price() == null || entry.date() == null)
+            return;
+        if (currentDay == null) {
+            firstTradeDate = entry.date();
+            currentDay = entry.date();
+        } else if (entry.date().isAfter(currentDay)) {
+            advanceTo(entry.date());
+        }
+
+        String symbol = entry.symbol().trim().toUpperCase(Locale.ROOT);
+        double price = entry.price().doubleValue();
+        int day = (int) currentDay.toEpochDay();
+        Position position = positions.computeIfAbsent(symbol, key -> new Position());
+
+        // Close the sub-period just before this trade, valued with the traded symbol at the trade price
+        remark(position, price, day);
+        if (valueAfterLastFlow > 0)
+            growth *= value / valueAfterLastFlow;
+
+        if ("BUY".equalsIgnoreCase(entry.type())) {
+            long quantity = entry.quantity();
+            position.quantity += quantity;
+            position.cost += quantity * price;
+            value += quantity * price;
+            flows.add(day, -quantity * price);
+        } else {
+            long quantity = Math.min(entry.quantity(), position.quantity);
+            if (quantity > 0) {
+                double averageCost = position.cost / position.quantity;
+                realized += quantity * (price - averageCost);
+                position.quantity -= quantity;
+                position.cost = position.quantity == 0 ? 0 : position.cost - quantity * averageCost;
+                value -= quantity * price;
+                flows.add(day, quantity * price);
+            }
+        }
+        valueAfterLastFlow = value;
+        tradesProcessed++;
+    }
+
+    /**
+     * Moves the projection to a later day, marking every open position at its
+     * stored close from the previous day where one exists. The total is
+     * recomputed exactly here so per-trade rounding cannot drift.
+     */
+    private void advanceTo(LocalDate day) {
+        int dayNumber = (int) day.toEpochDay();
+        double total = 0;
+        for (Map.Entry<String, Position> entry : positions.entrySet()) {
+            Position position = entry.getValue();
+            if (position.quantity == 0)
+                continue;
+            PriceHistoryStore.Series series = historyFor(entry.getKey());
+            int index = series.lowerBound(dayNumber) - 1;
+            if (index >= 0 && series.day(index) >= position.markDay) {
+                position.mark = series.close(index);
+                position.markDay = series.day(index);
+            }
+            total += position.quantity * position.mark;
+        }
+        value = total;
+        currentDay = day;
+    }
+
+    private void remark(Position position, double price, int day) {
+        value += position.quantity * (price - position.mark);
+        position.mark = price;
+        position.markDay = Math.max(position.markDay, day);
+    }
+
+    private PriceHistoryStore.Series historyFor(String symbol) {
+        try {
+            return priceHistoryStore.read(symbol);
+        } catch (IllegalArgumentException e) {
+            // Not a storable ticker, so there is no history to mark against
+            return PriceHistoryStore.Series.EMPTY;
+        }
+    }
+
+    private List<String> heldSymbols() {
+        List<String> held = new ArrayList<>();
+        for (Map.Entry<String, Position> entry : positions.entrySet()) {
+            if (entry.getValue().quantity > 0)
+                held.add(entry.getKey());
+        }
+        return held;
+    }
+
+    private PerformanceMetrics snapshot(LocalDate today, Map<String, String> priceErrors) {
+        double marketValue = 0;
+        double costBasis = 0;
+        for (Position position : positions.values()) {
+            if (position.quantity > 0) {
+                marketValue += position.quantity * position.mark;
+                costBasis += position.cost;
+            }
+        }
+
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.setAsOf(today);
+        metrics.setSince(firstTradeDate);
+        metrics.setTradesProcessed(tradesProcessed);
+        metrics.setMarketValue(marketValue);
+        metrics.setCostBasis(costBasis);
+        metrics.setRealizedProfitLoss(realized);
+        metrics.setUnrealizedProfitLoss(marketValue - costBasis);
+        metrics.setTotalProfitLoss(realized + marketValue - costBasis);
+        metrics.setPriceErrors(priceErrors);
+        if (tradesProcessed > 0) {
+            double linked = valueAfterLastFlow > 0 ? growth * marketValue / valueAfterLastFlow : growth;
+            metrics.setTimeWeightedReturn((linked - 1) * 100);
+            Double rate = flows.xirr((int) today.toEpochDay(), marketValue);
+            metrics.setMoneyWeightedReturn(rate == null ? null : rate * 100);
+        }
+        return metrics;
+    }
+
+    private static final class Position {
+        long quantity;
+        double cost;
+        double mark;
+        int markDay = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Net cash flow per day, in day order. Trades arrive in id order, which is
+     * date order, so a new flow either adds to the last day or appends.
+     */
+    static final class CashFlows {
+        private int[] days = new int[64];
+        private double[] amounts = new double[64];
+        private int size;
+
+        void add(int day, double amount) {
+            if (size > 0 && days[size - 1] >= day) {
+                amounts[size - 1] += amount;
+                return;
+            }
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            days[size] = day;
+            amounts[size++] = amount;
+        }
+
+        /**
+         * Annualized rate r solving sum(flow / (1 + r)^years) = 0 with the
+         * terminal value as a final inflow; null when the flows do not span
+         * at least a day or never change sign.
+         */
+        Double xirr(int terminalDay, double terminalValue) {
+            int n = size + (terminalValue > 0 ? 1 : 0);
+            if (n < 2)
+                return null;
+            double[] years = new double[n];
+            double[] cash = new double[n];
+            for (int i = 0; i < size; i++) {
+                years[i] = (days[i] - days[0]) / 365.0;
+                cash[i] = amounts[i];
+            }
+            if (terminalValue > 0) {
+                years[n - 1] = (terminalDay - days[0]) / 365.0;
+                cash[n - 1] = terminalValue;
+            }
+            if (years[n - 1] <= 0)
+                return null;
+
+            double scale = 0;
+            for (double c : cash) {
+                scale += Math.abs(c);
+            }
+            double tolerance = scale * 1e-10;
+
+            // Newton from a 10% guess, falling back to bisection if it leaves the domain or stalls
+            double rate = 0.1;
+            for (int iteration = 0; iteration < 50; iteration++) {
+                double f = 0;
+                double df = 0;
+                for (int i = 0; i < n; i++) {
+                    double discount = Math.pow(1 + rate, -years[i]);
+                    f += cash[i] * discount;
+                    df -= years[i] * cash[i] * discount / (1 + rate);
+                }
+                if (Math.abs(f) < tolerance)
+                    return rate;
+                if (df == 0)
+                    break;
+                double next = rate - f / df;
+                if (!Double.isFinite(next) || next <= -1)
+                    break;
+                rate = next;
+            }
+
+            double low = -0.9999;
+            double high = 1.0;
+            double fLow = npv(cash, years, n, low);
+            double fHigh = npv(cash, years, n, high);
+            while (Math.signum(fLow) == Math.signum(fHigh) && high < 1e6) {
+                high *= 4;
+                fHigh = npv(cash, years, n, high);
+            }
+            if (Math.signum(fLow) == Math.signum(fHigh))
+                return null;
+            for (int iteration = 0; iteration < 200 && high - low > 1e-12; iteration++) {
+                double mid = (low + high) / 2;
+                double fMid = npv(cash, years, n, mid);
+                if (Math.signum(fMid) == Math.signum(fLow)) {
+                    low = mid;
+                    fLow = fMid;
+                } else {
+                    high = mid;
+                }
+            }
+            return (low + high) / 2;
+        }
+
+        private static double npv(double[] cash, double[] years, int n, double rate) {
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                total += cash[i] * Math.pow(1 + rate, -years[i]);
+            }
+            return total;
+        }
+    }
 }
@@ -0,0 +1,316 @@
+package com.neueda.pm_milkyway.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.neueda.pm_milkyway.dto.HoldingView;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.entity.AccountBalanceEntity;
+import com.neueda.pm_milkyway.entity.HoldingsEntity;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.AccountBalanceRepo;
+import com.neueda.pm_milkyway.repo.HoldingsRepo;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+
+/**
+ * In-memory copy of the holdings and purse for the read-heavy pages, so
+ * they never query the database.
+ *
+ * Symbols are interned to dense int ids, and quantities and cost basis (in
+ * cents) are kept in primitive arrays indexed by id. Trades hand their resulting state
+ * to {@link #recordCommit} and it is applied after the database transaction
+ * commits. Each change publishes a new immutable {@link Snapshot} through a
+ * volatile field, so readers never lock and always see one consistent
+ * version. Snapshots also prebuild what the pages serve, so a read allocates
+ * nothing.
+ *
+ * Changes carry absolute values and the ledger id that produced them. A
+ * change older than the state already applied for that symbol (or the purse)
+ * is ignored, so callbacks that run out of commit order cannot roll the
+ * model back.
+ *
+ * Only commits made through this instance reach the model; it rereads the
+ * database only on first use and after a ledger repair. It therefore assumes
+ * one application instance per database, like {@link DataVersions}.
+ */
+@Service
+public class PortfolioReadModel {
+
+    private static final Logger log = LoggerFactory.getLogger(PortfolioReadModel.class);
+
+    private static final long UNORDERED = -1;
+
+    private final HoldingsRepo holdingsRepo;
+    private final AccountBalanceRepo accountBalanceRepo;
+    private final TransactionsRepo transactionsRepo;
+
+    // Writer state, guarded by writeLock. Loads hold it across database reads, so it is a lock rather than a
+    // monitor: a virtual thread blocked on I/O inside synchronized would pin its carrier thread
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private String[] symbols = new String[0];
+    private int[] quantities = new int[0];
+    private long[] invested = new long[0];
+    private long[] symbolLedgerIds = new long[0];
+    private long purse;
+    private long purseLedgerId;
+    private long version;
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public PortfolioReadModel(HoldingsRepo holdingsRepo, AccountBalanceRepo accountBalanceRepo,
+            TransactionsRepo transactionsRepo) {
+        this.holdingsRepo = holdingsRepo;
+        this.accountBalanceRepo = accountBalanceRepo;
+        this.transactionsRepo = transactionsRepo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.warn("Portfolio read model not loaded at startup, will load on first read: {}", e.getMessage());
+        }
+    }
+
+    /** The current snapshot, loading it from the database on first use. */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null)
+            return current;
+        writeLock.lock();
+        try {
+            if (snapshot == null)
+                load();
+            return snapshot;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Publishes a trade's resulting purse (in cents) and holdings once the surrounding
+     * transaction commits (immediately when there is none). Holdings with a
+     * quantity of zero are removed. Values are copied now, since the entities
+     * may change before the commit.
+     */
+    public void recordCommit(Integer ledgerId, long purseAfter, Collection<HoldingsEntity> holdings) {
+        int size = holdings.size();
+        String[] changedSymbols = new String[size];
+        int[] changedQuantities = new int[size];
+        long[] changedInvested = new long[size];
+        int i = 0;
+        for (HoldingsEntity holding : holdings) {
+            changedSymbols[i] = holding.getStock();
+            changedQuantities[i] = holding.getQuantity() == null ? 0 : holding.getQuantity();
+            changedInvested[i] = holding.getTotal_invested() == null ? 0 : holding.getTotal_invested().cents();
+            i++;
+        }
+        // Without a ledger id the change cannot be ordered, so it is applied as is
+        long id = ledgerId == null ? UNORDERED : ledgerId;
+        afterCommit(() -> apply(id, purseAfter, changedSymbols, changedQuantities, changedInvested));
+    }
+
+    /** Reloads everything from the database once the surrounding transaction commits. */
+    public void reloadAfterCommit() {
+        afterCommit(() -> {
+            writeLock.lock();
+            try {
+                load();
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Runs the action after the surrounding transaction commits, or now when
+     * there is none. Actions registered in one transaction run in order.
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void apply(long ledgerId, long purseAfter, String[] changedSymbols,
+            int[] changedQuantities, long[] changedInvested) {
+        writeLock.lock();
+        try {
+            applyLocked(ledgerId, purseAfter, changedSymbols, changedQuantities, changedInvested);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void applyLocked(long ledgerId, long purseAfter, String[] changedSymbols,
+            int[] changedQuantities, long[] changedInvested) {
+        if (snapshot == null) {
+            // Nothing published yet; the first read loads state that includes this change
+            return;
+        }
+        boolean changed = false;
+        if (ledgerId == UNORDERED || ledgerId > purseLedgerId) {
+            purse = purseAfter;
+            purseLedgerId = Math.max(purseLedgerId, ledgerId);
+            changed = true;
+        }
+        for (int i = 0; i < changedSymbols.length; i++) {
+            if (changedSymbols[i] == null)
+                continue;
+            int id = intern(changedSymbols[i]);
+            if (ledgerId != UNORDERED && ledgerId <= symbolLedgerIds[id])
+                continue;
+            quantities[id] = changedQuantities[i];
+            invested[id] = changedQuantities[i] == 0 ? 0 : changedInvested[i];
+            symbolLedgerIds[id] = Math.max(symbolLedgerIds[id], ledgerId);
+            changed = true;
+        }
+        if (changed)
+            publish();
+    }
+
+    private void load() {
+        // Changes up to the current last ledger row are already in the rows read below
+        long baseline = transactionsRepo.findTopByOrderByIdDesc().map(TransactionEntity::getId).orElse(0);
+        List<HoldingsEntity> rows = holdingsRepo.findAll();
+        long loadedPurse = accountBalanceRepo.findById(TransactionsService.PURSE_ID)
+                .map(AccountBalanceEntity::getPurseValue)
+                .or(() -> transactionsRepo.findTopByOrderByIdDesc().map(TransactionEntity::getPurseValue))
+                .orElse(TransactionsService.STARTING_PURSE)
+                .cents();
+
+        Arrays.fill(quantities, 0);
+        Arrays.fill(invested, 0);
+        Arrays.fill(symbolLedgerIds, baseline);
+        Set<String> seen = new HashSet<>();
+        for (HoldingsEntity row : rows) {
+            // Trades act on the first row for a symbol, so that is the one the model mirrors
+            if (row.getStock() == null || !seen.add(row.getStock()))
+                continue;
+            int id = intern(row.getStock());
+            quantities[id] = row.getQuantity() == null ? 0 : row.getQuantity();
+            invested[id] = row.getTotal_invested() == null ? 0 : row.getTotal_invested().cents();
+            symbolLedgerIds[id] = baseline;
+        }
+        purse = loadedPurse;
+        purseLedgerId = baseline;
+        publish();
+    }
+
+    private int intern(String symbol) {
+        Integer existing = symbolIds.get(symbol);
+        if (existing != null)
+            return existing;
+        int id = symbols.length;
+        symbols = Arrays.copyOf(symbols, id + 1);
+        quantities = Arrays.copyOf(quantities, id + 1);
+        invested = Arrays.copyOf(invested, id + 1);
+        symbolLedgerIds = Arrays.copyOf(symbolLedgerIds, id + 1);
+        symbols[id] = symbol;
+        symbolIds.put(symbol, id);
+        return id;
+    }
+
+    private void publish() {
+        version++;
+        snapshot = new Snapshot(version, purse, symbols, quantities.clone(), invested.clone());
+    }
+
+    /**
+     * One consistent version of the portfolio. Arrays are indexed by symbol
+     * id and never modified after construction; closed positions have a
+     * quantity of zero and are left out of {@link #holdings()}.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final Money purse;
+        private final String[] symbols;
+        private final int[] quantities;
+        private final long[] invested;
+        private final List<HoldingView> holdings;
+        private final Map<String, Object> stats;
+
+        Snapshot(long version, long purse, String[] symbols, int[] quantities, long[] invested) {
+            this.version = version;
+            this.purse = Money.ofCents(purse);
+            // The symbol array is only ever replaced, never written in place, once published
+            this.symbols = symbols;
+            this.quantities = quantities;
+            this.invested = invested;
+            List<HoldingView> open = new ArrayList<>();
+            for (int id = 0; id < quantities.length; id++) {
+                if (quantities[id] > 0)
+                    open.add(new HoldingView(symbols[id], quantities[id], Money.ofCents(invested[id])));
+            }
+            this.holdings = Collections.unmodifiableList(open);
+            Map<String, Object> body = new HashMap<>();
+            body.put("holdings", holdings);
+            body.put("purse", this.purse);
+            this.stats = Collections.unmodifiableMap(body);
+        }
+
+        /** Increases with every published change. */
+        public long version() {
+            return version;
+        }
+
+        public Money purse() {
+            return purse;
+        }
+
+        /** Number of interned symbols, including closed positions. */
+        public int symbolCount() {
+            return quantities.length;
+        }
+
+        public String symbol(int id) {
+            return symbols[id];
+        }
+
+        public int quantity(int id) {
+            return quantities[id];
+        }
+
+        /** Cost basis of a symbol in cents. */
+        public long totalInvestedCents(int id) {
+            return invested[id];
+        }
+
+        /** Open positions, in the order symbols were first seen. */
+        public List<HoldingView> holdings() {
+            return holdings;
+        }
+
+        /** The {@code /api/dashboard/stats} body: {@code holdings} and {@code purse}. */
+        public Map<String, Object> stats() {
+            return stats;
+        }
+    }
+}
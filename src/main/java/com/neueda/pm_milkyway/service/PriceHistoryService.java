@@ -0,0 +1,163 @@
+package com.neueda.pm_milkyway.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.neueda.pm_milkyway.dto.PriceHistory;
+
+/**
+ * Daily price history served from {@link PriceHistoryStore}.
+ *
+ * The store remembers which days upstream has already been asked for, so a
+ * range is only fetched when it reaches past that coverage, which in practice
+ * means the first chart view of a symbol each day. The proxy always answers
+ * with its last {@value #UPSTREAM_WINDOW_DAYS} days; those are merged into the
+ * stored series, with upstream winning on days already present so that a
+ * close stored mid-session is corrected the next day.
+ */
+@Service
+public class PriceHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryService.class);
+
+    static final int UPSTREAM_WINDOW_DAYS = 30;
+
+    private final MarketDataClient marketDataClient;
+    private final PriceHistoryStore store;
+    private final Clock clock;
+    private final Map<String, ReentrantLock> refreshLocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PriceHistoryService(MarketDataClient marketDataClient, PriceHistoryStore store,
+            @Value("${market.history.zone:America/New_York}") String zone) {
+        this(marketDataClient, store, Clock.system(ZoneId.of(zone)));
+    }
+
+    PriceHistoryService(MarketDataClient marketDataClient, PriceHistoryStore store, Clock clock) {
+        this.marketDataClient = marketDataClient;
+        this.store = store;
+        this.clock = clock;
+    }
+
+    /**
+     * Closes for {@code [from, to]}. Either bound may be null: {@code to}
+     * defaults to today and {@code from} to {@value #UPSTREAM_WINDOW_DAYS}
+     * days before {@code to}, matching the proxy's window.
+     */
+    public PriceHistory getHistory(String symbol, LocalDate from, LocalDate to) {
+        if (symbol == null || symbol.isBlank())
+            throw new IllegalArgumentException("Symbol is required");
+        String key = symbol.trim().toUpperCase(Locale.ROOT);
+        LocalDate today = LocalDate.now(clock);
+        LocalDate end = to != null ? to : today;
+        LocalDate start = from != null ? from : end.minusDays(UPSTREAM_WINDOW_DAYS);
+        if (start.isAfter(end))
+            throw new IllegalArgumentException("from must not be after to");
+
+        int fromDay = (int) start.toEpochDay();
+        int toDay = (int) end.toEpochDay();
+        int todayDay = (int) today.toEpochDay();
+        PriceHistoryStore.Series series = store.read(key);
+        if (needsFetch(series, fromDay, toDay, todayDay))
+            series = refresh(key, fromDay, toDay, todayDay);
+        return slice(key, series, fromDay, toDay);
+    }
+
+    private PriceHistoryStore.Series refresh(String key, int fromDay, int toDay, int todayDay) {
+        // One upstream call per symbol at a time; concurrent viewers wait for it and then read the store.
+        // Held across that call, hence a ReentrantLock: a virtual thread would pin its carrier in a monitor
+        ReentrantLock lock = refreshLocks.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            PriceHistoryStore.Series series = store.read(key);
+            if (!needsFetch(series, fromDay, toDay, todayDay))
+                return series;
+
+            PriceHistory fetched;
+            try {
+                fetched = marketDataClient.fetchHistory(key);
+            } catch (RuntimeException e) {
+                if (series.size() == 0)
+                    throw e;
+                log.warn("Serving stored history for {} after upstream failure: {}", key, e.getMessage());
+                return series;
+            }
+            return merge(key, series, fetched, todayDay);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether part of {@code [fromDay, toDay]} that upstream could still
+     * supply lies outside what has already been fetched.
+     */
+    private static boolean needsFetch(PriceHistoryStore.Series series, int fromDay, int toDay, int todayDay) {
+        int low = Math.max(fromDay, todayDay - UPSTREAM_WINDOW_DAYS);
+        int high = Math.min(toDay, todayDay);
+        if (low > high)
+            return false;
+        return low < series.coveredFrom() || high > series.coveredThrough();
+    }
+
+    private PriceHistoryStore.Series merge(String key, PriceHistoryStore.Series stored, PriceHistory fetched,
+            int todayDay) {
+        int fetchedCount = fetched.getLabels().size();
+        int[] fetchedDays = new int[fetchedCount];
+        for (int i = 0; i < fetchedCount; i++) {
+            try {
+                fetchedDays[i] = (int) LocalDate.parse(fetched.getLabels().get(i)).toEpochDay();
+            } catch (DateTimeParseException e) {
+                throw new RuntimeException("History unavailable for " + key + ": bad date " + fetched.getLabels().get(i));
+            }
+        }
+
+        // Both sides are in ascending day order; upstream wins when a day is in both
+        int[] days = new int[stored.size() + fetchedCount];
+        double[] closes = new double[days.length];
+        int count = 0;
+        int s = 0;
+        int f = 0;
+        while (s < stored.size() || f < fetchedCount) {
+            if (f == fetchedCount || (s < stored.size() && stored.day(s) < fetchedDays[f])) {
+                days[count] = stored.day(s);
+                closes[count++] = stored.close(s++);
+            } else {
+                if (s < stored.size() && stored.day(s) == fetchedDays[f])
+                    s++;
+                days[count] = fetchedDays[f];
+                closes[count++] = fetched.getPrices()[f++];
+            }
+        }
+
+        int coveredFrom = todayDay - UPSTREAM_WINDOW_DAYS;
+        // Coverage only extends backwards if the previous fetch overlaps or touches this one
+        if (stored.coveredThrough() >= coveredFrom - 1)
+            coveredFrom = Math.min(coveredFrom, stored.coveredFrom());
+        return store.write(key, days, closes, count, coveredFrom, todayDay);
+    }
+
+    private static PriceHistory slice(String key, PriceHistoryStore.Series series, int fromDay, int toDay) {
+        int fromIndex = series.lowerBound(fromDay);
+        int toIndex = Math.max(fromIndex, series.lowerBound(toDay + 1));
+        List<String> labels = new ArrayList<>(toIndex - fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) {
+            labels.add(LocalDate.ofEpochDay(series.day(i)).toString());
+        }
+        return new PriceHistory(key, labels, series.closes(fromIndex, toIndex));
+    }
+}
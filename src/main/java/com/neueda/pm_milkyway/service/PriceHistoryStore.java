@@ -0,0 +1,208 @@
+package com.neueda.pm_milkyway.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local daily-close store, one file per symbol, memory-mapped for reads.
+ *
+ * A file is a 16-byte header (magic, row count, and the first and last epoch
+ * day that upstream has already been asked for) followed by two columns: the
+ * epoch days as ints, ascending, then the closes as doubles, 8-byte aligned.
+ * Reads binary-search the mapped day column and copy only the requested slice
+ * of closes, so nothing is parsed or boxed. Writes build the whole file in a
+ * temp file and move it into place, so a reader never sees a half-written
+ * series; a series changes at most once per symbol per day, so rewriting its
+ * few hundred bytes is cheaper than managing appends.
+ */
+@Component
+public class PriceHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryStore.class);
+
+    private static final int MAGIC = 0x504d4831; // "PMH1"
+    private static final int HEADER_BYTES = 16;
+    private static final Pattern SAFE_SYMBOL = Pattern.compile("[A-Z0-9.^=_-]{1,20}");
+
+    private final Path directory;
+    private final Map<String, Series> mapped = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PriceHistoryStore(@Value("${market.history.directory:data/history}") String directory) {
+        this(Paths.get(directory));
+    }
+
+    PriceHistoryStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The stored series for a symbol, or an empty one when nothing has been
+     * stored yet (or the file is unreadable and will be rebuilt).
+     */
+    public Series read(String symbol) {
+        return mapped.computeIfAbsent(symbol, this::map);
+    }
+
+    /**
+     * Replaces the stored series for a symbol. {@code days} must be ascending
+     * and only the first {@code count} entries of both arrays are written.
+     */
+    public Series write(String symbol, int[] days, double[] closes, int count, int coveredFrom, int coveredThrough) {
+        Path file = fileFor(symbol);
+        int closesOffset = closesOffset(count);
+        ByteBuffer buffer = ByteBuffer.allocate(closesOffset + count * Double.BYTES);
+        buffer.putInt(MAGIC).putInt(count).putInt(coveredFrom).putInt(coveredThrough);
+        buffer.asIntBuffer().put(days, 0, count);
+        buffer.position(closesOffset);
+        buffer.asDoubleBuffer().put(closes, 0, count);
+        buffer.rewind();
+
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, symbol, ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write price history for " + symbol, e);
+        }
+
+        Series series = map(symbol);
+        mapped.put(symbol, series);
+        return series;
+    }
+
+    private Series map(String symbol) {
+        Path file = fileFor(symbol);
+        if (!Files.exists(file))
+            return Series.EMPTY;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES)
+                return discard(file, "truncated header");
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int count = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || count < 0 || size != closesOffset(count) + (long) count * Double.BYTES)
+                return discard(file, "unexpected layout");
+            IntBuffer days = buffer.slice(HEADER_BYTES, count * Integer.BYTES).asIntBuffer();
+            DoubleBuffer closes = buffer.slice(closesOffset(count), count * Double.BYTES).asDoubleBuffer();
+            return new Series(days, closes, count, buffer.getInt(8), buffer.getInt(12));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read price history for " + symbol, e);
+        }
+    }
+
+    private Series discard(Path file, String reason) {
+        log.warn("Ignoring unreadable price history {} ({}); it will be fetched again", file, reason);
+        return Series.EMPTY;
+    }
+
+    private Path fileFor(String symbol) {
+        // Symbols become file names, so keep them to ticker characters
+        if (!SAFE_SYMBOL.matcher(symbol).matches())
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        return directory.resolve(symbol + ".hist");
+    }
+
+    private static int closesOffset(int count) {
+        int end = HEADER_BYTES + count * Integer.BYTES;
+        return (end + Double.BYTES - 1) & -Double.BYTES;
+    }
+
+    /**
+     * Read-only view of one stored series. Absolute reads on the mapped
+     * buffers do not touch their position, so a view can be shared freely.
+     */
+    public static final class Series {
+
+        static final Series EMPTY = new Series(IntBuffer.allocate(0), DoubleBuffer.allocate(0), 0,
+                Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+        private final IntBuffer days;
+        private final DoubleBuffer closes;
+        private final int size;
+        private final int coveredFrom;
+        private final int coveredThrough;
+
+        Series(IntBuffer days, DoubleBuffer closes, int size, int coveredFrom, int coveredThrough) {
+            this.days = days;
+            this.closes = closes;
+            this.size = size;
+            this.coveredFrom = coveredFrom;
+            this.coveredThrough = coveredThrough;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int day(int index) {
+            return days.get(index);
+        }
+
+        public double close(int index) {
+            return closes.get(index);
+        }
+
+        /** First epoch day upstream has been asked for, or {@link Integer#MAX_VALUE} if never. */
+        public int coveredFrom() {
+            return coveredFrom;
+        }
+
+        /** Last epoch day upstream has been asked for, or {@link Integer#MIN_VALUE} if never. */
+        public int coveredThrough() {
+            return coveredThrough;
+        }
+
+        /** Index of the first row on or after {@code epochDay}; {@link #size()} if there is none. */
+        public int lowerBound(int epochDay) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (days.get(mid) < epochDay)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        /** Closes in {@code [fromIndex, toIndex)}, copied out of the mapping in one bulk get. */
+        public double[] closes(int fromIndex, int toIndex) {
+            double[] slice = new double[toIndex - fromIndex];
+            closes.get(fromIndex, slice);
+            return slice;
+        }
+    }
+}
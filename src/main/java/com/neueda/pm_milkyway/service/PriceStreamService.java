@@ -0,0 +1,331 @@
+package com.neueda.pm_milkyway.service;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.neueda.pm_milkyway.dto.Quote;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-Sent Events price stream.
+ *
+ * Subscriptions are multiplexed per symbol: the first subscriber to a symbol
+ * starts its poller and the last one to leave stops it, so upstream load
+ * depends on the number of distinct symbols, not on the number of open tabs.
+ * A poll writes into every subscriber's own bounded buffer, dropping the
+ * oldest tick when it is full, and a sender thread drains each buffer to its
+ * client. Writing to a client blocks on its socket, so drains do not share a
+ * fixed pool: each gets its own thread (a virtual one with
+ * {@code spring.threads.virtual.enabled}), and a stalled client holds only
+ * its own. The poller never waits on a client. A client whose write has been
+ * stuck for {@code market.stream.send-timeout} is dropped when its next tick
+ * arrives, and a client whose write fails is dropped at once. A dropped client
+ * gets no more ticks and its response is completed, from a sender thread so
+ * the poller still does not wait; its stuck thread is freed when the container
+ * gives up on the write.
+ */
+@Service
+public class PriceStreamService {
+
+    static final int MAX_SYMBOLS_PER_SUBSCRIPTION = 50;
+
+    private final MarketLookupService marketLookupService;
+    private final ScheduledExecutorService pollers;
+    private final Executor senders;
+    private final Duration pollInterval;
+    private final int bufferCapacity;
+    private final long emitterTimeoutMillis;
+    private final long sendTimeoutMillis;
+    private final Clock clock;
+    private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PriceStreamService(MarketLookupService marketLookupService,
+            @Value("${market.stream.poll-interval:5s}") Duration pollInterval,
+            @Value("${market.stream.buffer-capacity:16}") int bufferCapacity,
+            @Value("${market.stream.poller-threads:2}") int pollerThreads,
+            @Value("${market.stream.emitter-timeout:30m}") Duration emitterTimeout,
+            @Value("${market.stream.send-timeout:10s}") Duration sendTimeout,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(marketLookupService, Executors.newScheduledThreadPool(pollerThreads, daemonThreads("price-poll-")),
+                BlockingExecutors.perTask("price-send",
+                        virtualThreads ? BlockingExecutors.Mode.VIRTUAL : BlockingExecutors.Mode.PLATFORM),
+                pollInterval, bufferCapacity, emitterTimeout.toMillis(), sendTimeout, Clock.systemUTC());
+    }
+
+    /** A zero {@code sendTimeout} never drops a client for being slow. */
+    PriceStreamService(MarketLookupService marketLookupService, ScheduledExecutorService pollers, Executor senders,
+            Duration pollInterval, int bufferCapacity, long emitterTimeoutMillis, Duration sendTimeout, Clock clock) {
+        this.marketLookupService = marketLookupService;
+        this.pollers = pollers;
+        this.senders = senders;
+        this.pollInterval = pollInterval;
+        this.bufferCapacity = bufferCapacity;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Opens an SSE stream of {@code quote} events (and {@code quote-error}
+     * events when a poll fails) for the given symbols.
+     */
+    public SseEmitter subscribe(Collection<String> symbols) {
+        Set<String> keys = normalize(symbols);
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = register(keys, tick -> emitter.send(toEvent(tick)), emitter::complete);
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(e -> unregister(subscriber));
+        return emitter;
+    }
+
+    Subscriber register(Set<String> symbols, TickSink sink) {
+        return register(symbols, sink, () -> { });
+    }
+
+    /** {@code onDrop} runs once if the service drops the subscriber as stalled or gone. */
+    Subscriber register(Set<String> symbols, TickSink sink, Runnable onDrop) {
+        Subscriber subscriber = new Subscriber(symbols, sink, onDrop);
+        for (String symbol : symbols) {
+            Feed feed = feeds.compute(symbol, (key, existing) -> {
+                Feed target = existing == null ? startFeed(key) : existing;
+                target.subscribers.add(subscriber);
+                return target;
+            });
+            // Late joiners see the current price straight away instead of waiting for the next change
+            PriceTick last = feed.lastTick;
+            if (last != null)
+                subscriber.offer(last);
+        }
+        return subscriber;
+    }
+
+    void unregister(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true))
+            return;
+        for (String symbol : subscriber.symbols) {
+            feeds.computeIfPresent(symbol, (key, feed) -> {
+                feed.subscribers.remove(subscriber);
+                if (!feed.subscribers.isEmpty())
+                    return feed;
+                feed.poller.cancel(false);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * One poll of one symbol. Ticks are only published when the quote
+     * actually changed, so a symbol whose price is flat stays quiet.
+     */
+    void poll(String symbol) {
+        Feed feed = feeds.get(symbol);
+        if (feed != null)
+            poll(symbol, feed);
+    }
+
+    private void poll(String symbol, Feed feed) {
+        PriceTick tick;
+        try {
+            Quote quote = marketLookupService.refreshQuote(symbol);
+            PriceTick last = feed.lastTick;
+            if (last != null && last.quote() != null && Objects.equals(last.quote().getPrice(), quote.getPrice()))
+                return;
+            tick = new PriceTick(symbol, quote, null);
+            feed.lastTick = tick;
+        } catch (RuntimeException e) {
+            tick = new PriceTick(symbol, null, e.getMessage());
+        }
+        for (Subscriber subscriber : feed.subscribers) {
+            subscriber.offer(tick);
+        }
+    }
+
+    int activeFeeds() {
+        return feeds.size();
+    }
+
+    int subscriberCount(String symbol) {
+        Feed feed = feeds.get(symbol);
+        return feed == null ? 0 : feed.subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pollers.shutdownNow();
+        if (senders instanceof ExecutorService executorService)
+            executorService.shutdownNow();
+    }
+
+    // The poller is handed its feed: its first run can come before compute has stored the feed in the map
+    private Feed startFeed(String symbol) {
+        Feed feed = new Feed();
+        feed.poller = pollers.scheduleWithFixedDelay(() -> poll(symbol, feed), 0,
+                pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        return feed;
+    }
+
+    private static Set<String> normalize(Collection<String> symbols) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (symbols != null) {
+            for (String symbol : symbols) {
+                if (symbol != null && !symbol.isBlank())
+                    keys.add(symbol.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        if (keys.isEmpty())
+            throw new IllegalArgumentException("At least one symbol is required");
+        if (keys.size() > MAX_SYMBOLS_PER_SUBSCRIPTION)
+            throw new IllegalArgumentException(
+                    "At most " + MAX_SYMBOLS_PER_SUBSCRIPTION + " symbols may be streamed at once");
+        return keys;
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(PriceTick tick) {
+        if (tick.quote() != null)
+            return SseEmitter.event().name("quote").data(tick.quote());
+        return SseEmitter.event().name("quote-error")
+                .data(Map.of("symbol", tick.symbol(), "message", String.valueOf(tick.error())));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    record PriceTick(String symbol, Quote quote, String error) {
+    }
+
+    @FunctionalInterface
+    interface TickSink {
+        void send(PriceTick tick) throws IOException;
+    }
+
+    private static final class Feed {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        // Set inside the compute that creates the feed, before anything can unregister from it
+        volatile ScheduledFuture<?> poller;
+        volatile PriceTick lastTick;
+    }
+
+    final class Subscriber {
+        private static final long IDLE = -1;
+
+        final Set<String> symbols;
+        private final TickSink sink;
+        private final Runnable onDrop;
+        private final ArrayDeque<PriceTick> buffer = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+        // When the send in progress started, or IDLE
+        private volatile long sendStartedAt = IDLE;
+
+        Subscriber(Set<String> symbols, TickSink sink, Runnable onDrop) {
+            this.symbols = symbols;
+            this.sink = sink;
+            this.onDrop = onDrop;
+        }
+
+        void offer(PriceTick tick) {
+            if (closed.get())
+                return;
+            long started = sendStartedAt;
+            if (sendTimeoutMillis > 0 && started != IDLE && clock.millis() - started >= sendTimeoutMillis) {
+                // Stalled client: stop feeding it rather than keep a subscription alive for it
+                unregister(this);
+                synchronized (buffer) {
+                    buffer.clear();
+                }
+                // Completing may wait for the stuck write, so it must not run on the poller
+                try {
+                    senders.execute(onDrop);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; the container closes the response
+                }
+                return;
+            }
+            synchronized (buffer) {
+                if (buffer.size() == bufferCapacity) {
+                    buffer.pollFirst();
+                    dropped.incrementAndGet();
+                }
+                buffer.addLast(tick);
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        long dropped() {
+            return dropped.get();
+        }
+
+        boolean isClosed() {
+            return closed.get();
+        }
+
+        private void drain() {
+            while (true) {
+                PriceTick tick;
+                synchronized (buffer) {
+                    tick = closed.get() ? null : buffer.pollFirst();
+                    if (tick == null) {
+                        // Cleared under the lock so a concurrent offer either sees it set or schedules a new drain
+                        draining.set(false);
+                        return;
+                    }
+                }
+                try {
+                    sendStartedAt = clock.millis();
+                    sink.send(tick);
+                    sendStartedAt = IDLE;
+                } catch (IOException | RuntimeException e) {
+                    // The client went away; stop polling on its behalf
+                    unregister(this);
+                    synchronized (buffer) {
+                        buffer.clear();
+                        draining.set(false);
+                    }
+                    onDrop.run();
+                    return;
+                }
+            }
+        }
+    }
+}
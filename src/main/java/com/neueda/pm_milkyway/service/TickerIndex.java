@@ -0,0 +1,262 @@
+package com.neueda.pm_milkyway.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import com.neueda.pm_milkyway.dto.TickerMatch;
+
+/**
+ * Immutable prefix trie over ticker symbols and company names.
+ *
+ * Every entry is reachable by its symbol, its full name and each word of its
+ * name. The trie is flattened into parallel arrays: a node's outgoing edges
+ * are a slice of {@code edgeLabel}/{@code edgeTarget} sorted by character, so
+ * descending one character is a binary search. Each node also stores its best
+ * {@value #TOP_K} entries, ranked symbol hits before name hits and then by
+ * listing order, so a lookup walks the query's characters and copies a slice
+ * without visiting the subtree. Adding entries builds a new index.
+ */
+final class TickerIndex {
+
+    /** Results kept per node, and the most a lookup can return. */
+    static final int TOP_K = 20;
+
+    static final TickerIndex EMPTY = build(List.of());
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^A-Z0-9&]+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    // Symbol hits rank before name hits; within a kind, earlier entries rank first
+    private static final long SYMBOL_KEY = 0;
+    private static final long NAME_KEY = 1;
+
+    private final TickerMatch[] entries;
+    private final Set<String> symbols;
+    // Node n's edges are [firstEdge[n], firstEdge[n + 1]); node 0 is the root
+    private final int[] firstEdge;
+    private final char[] edgeLabel;
+    private final int[] edgeTarget;
+    // Entry whose symbol is exactly the path to the node, or -1
+    private final int[] exact;
+    // Node n's ranked entries are top[firstTop[n] .. firstTop[n + 1])
+    private final int[] firstTop;
+    private final int[] top;
+
+    private TickerIndex(TickerMatch[] entries, Set<String> symbols, int[] firstEdge, char[] edgeLabel,
+            int[] edgeTarget, int[] exact, int[] firstTop, int[] top) {
+        this.entries = entries;
+        this.symbols = symbols;
+        this.firstEdge = firstEdge;
+        this.edgeLabel = edgeLabel;
+        this.edgeTarget = edgeTarget;
+        this.exact = exact;
+        this.firstTop = firstTop;
+        this.top = top;
+    }
+
+    /**
+     * Indexes the entries in rank order. Symbols are upper-cased; an entry
+     * repeating an earlier symbol is dropped.
+     */
+    static TickerIndex build(Collection<TickerMatch> ranked) {
+        List<TickerMatch> kept = new ArrayList<>(ranked.size());
+        Set<String> symbols = new HashSet<>();
+        for (TickerMatch match : ranked) {
+            String symbol = normalizeSymbol(match.symbol());
+            if (symbol != null && symbols.add(symbol))
+                kept.add(new TickerMatch(symbol, match.name() == null ? "" : match.name().trim()));
+        }
+
+        BuildNode root = new BuildNode();
+        for (int id = 0; id < kept.size(); id++) {
+            TickerMatch match = kept.get(id);
+            BuildNode symbolNode = insert(root, match.symbol(), SYMBOL_KEY << 32 | id);
+            symbolNode.exact = id;
+            for (String key : nameKeys(match.name()))
+                insert(root, key, NAME_KEY << 32 | id);
+        }
+
+        // Number nodes breadth-first so every node's children are consecutive
+        List<BuildNode> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (int i = 0; i < nodes.size(); i++)
+            nodes.addAll(nodes.get(i).children.values());
+        for (int i = 0; i < nodes.size(); i++)
+            nodes.get(i).id = i;
+        // Children are numbered after their parent, so a reverse pass sees them first
+        for (int i = nodes.size() - 1; i >= 0; i--)
+            nodes.get(i).rank();
+
+        int nodeCount = nodes.size();
+        int[] firstEdge = new int[nodeCount + 1];
+        char[] edgeLabel = new char[Math.max(0, nodeCount - 1)];
+        int[] edgeTarget = new int[edgeLabel.length];
+        int[] exact = new int[nodeCount];
+        int[] firstTop = new int[nodeCount + 1];
+        int topCount = 0;
+        for (BuildNode node : nodes)
+            topCount += node.top.length;
+        int[] top = new int[topCount];
+        int edge = 0;
+        int slot = 0;
+        for (int n = 0; n < nodeCount; n++) {
+            BuildNode node = nodes.get(n);
+            firstEdge[n] = edge;
+            for (var child : node.children.entrySet()) {
+                edgeLabel[edge] = child.getKey();
+                edgeTarget[edge++] = child.getValue().id;
+            }
+            exact[n] = node.exact;
+            firstTop[n] = slot;
+            for (long score : node.top)
+                top[slot++] = (int) score;
+        }
+        firstEdge[nodeCount] = edge;
+        firstTop[nodeCount] = slot;
+        return new TickerIndex(kept.toArray(new TickerMatch[0]), symbols, firstEdge, edgeLabel, edgeTarget, exact,
+                firstTop, top);
+    }
+
+    /**
+     * Up to {@code limit} entries whose symbol, name or a name word starts
+     * with the query, an exact symbol match first. Case and repeated spaces
+     * in the query are ignored.
+     */
+    List<TickerMatch> search(String query, int limit) {
+        String key = normalizeQuery(query);
+        if (key.isEmpty() || limit <= 0)
+            return List.of();
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++)
+            node = child(node, key.charAt(i));
+        if (node < 0)
+            return List.of();
+
+        int max = Math.min(limit, TOP_K);
+        List<TickerMatch> results = new ArrayList<>(max);
+        int exactId = exact[node];
+        if (exactId >= 0)
+            results.add(entries[exactId]);
+        for (int i = firstTop[node]; i < firstTop[node + 1] && results.size() < max; i++) {
+            if (top[i] != exactId)
+                results.add(entries[top[i]]);
+        }
+        return results;
+    }
+
+    boolean contains(String symbol) {
+        return symbol != null && symbols.contains(symbol.trim().toUpperCase(Locale.ROOT));
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    /** Entries in rank order. */
+    List<TickerMatch> entries() {
+        return List.of(entries);
+    }
+
+    /** A new index with the symbols not yet present appended, ranked after the existing ones. */
+    TickerIndex withAdded(Collection<TickerMatch> added) {
+        List<TickerMatch> all = new ArrayList<>(entries.length + added.size());
+        all.addAll(Arrays.asList(entries));
+        all.addAll(added);
+        return build(all);
+    }
+
+    static String normalizeQuery(String query) {
+        if (query == null)
+            return "";
+        return SPACES.matcher(query.trim().toUpperCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    private int child(int node, char c) {
+        int low = firstEdge[node];
+        int high = firstEdge[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = edgeLabel[mid];
+            if (label < c)
+                low = mid + 1;
+            else if (label > c)
+                high = mid - 1;
+            else
+                return edgeTarget[mid];
+        }
+        return -1;
+    }
+
+    private static String normalizeSymbol(String symbol) {
+        if (symbol == null)
+            return null;
+        String normalized = symbol.trim().toUpperCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    // The full name, so multi-word queries match, plus each word of it
+    private static Set<String> nameKeys(String name) {
+        Set<String> keys = new LinkedHashSet<>();
+        String full = normalizeQuery(name);
+        if (full.isEmpty())
+            return keys;
+        keys.add(full);
+        for (String word : WORD_SEPARATOR.split(full)) {
+            if (word.length() > 1)
+                keys.add(word);
+        }
+        return keys;
+    }
+
+    private static BuildNode insert(BuildNode root, String key, long score) {
+        BuildNode node = root;
+        for (int i = 0; i < key.length(); i++)
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new BuildNode());
+        node.addScore(score);
+        return node;
+    }
+
+    /** Mutable node used only while building. */
+    private static final class BuildNode {
+        final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        long[] ending = new long[0];
+        long[] top;
+        int exact = -1;
+        int id;
+
+        void addScore(long score) {
+            ending = Arrays.copyOf(ending, ending.length + 1);
+            ending[ending.length - 1] = score;
+        }
+
+        /** Best entries of the keys ending here and of the children's lists, one score per entry. */
+        void rank() {
+            int candidates = ending.length;
+            for (BuildNode child : children.values())
+                candidates += child.top.length;
+            long[] scores = Arrays.copyOf(ending, candidates);
+            int at = ending.length;
+            for (BuildNode child : children.values()) {
+                System.arraycopy(child.top, 0, scores, at, child.top.length);
+                at += child.top.length;
+            }
+            Arrays.sort(scores);
+            long[] best = new long[Math.min(TOP_K, scores.length)];
+            int kept = 0;
+            Set<Integer> seen = new HashSet<>();
+            for (int i = 0; i < scores.length && kept < best.length; i++) {
+                if (seen.add((int) scores[i]))
+                    best[kept++] = scores[i];
+            }
+            top = Arrays.copyOf(best, kept);
+        }
+    }
+}
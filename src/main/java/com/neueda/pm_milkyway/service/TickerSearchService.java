@@ -0,0 +1,179 @@
+package com.neueda.pm_milkyway.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.neueda.pm_milkyway.dto.TickerMatch;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Symbol and company-name typeahead answered from a local {@link TickerIndex}.
+ *
+ * The index is built at startup from a listing file (one
+ * {@code SYMBOL<tab>Name} per line, most prominent first) plus the symbols
+ * learned from upstream in earlier runs. Only a query with no local match
+ * goes to the proxy's search. Its answer is cached for {@code upstreamTtl},
+ * empty answers included, so concurrent and repeated misses share one call.
+ * New symbols in the answer are added to the index and appended to the
+ * learned file. The index is immutable and replaced through a volatile field,
+ * so lookups take no lock.
+ */
+@Service
+public class TickerSearchService implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(TickerSearchService.class);
+
+    private final MarketDataClient marketDataClient;
+    private final Resource listing;
+    private final Path learnedPath;
+    private final Cache<String, List<TickerMatch>> upstreamResults;
+
+    private volatile TickerIndex index = TickerIndex.EMPTY;
+
+    @Autowired
+    public TickerSearchService(MarketDataClient marketDataClient,
+            @Value("${market.tickers.listing:classpath:tickers.tsv}") Resource listing,
+            @Value("${market.tickers.learned-path:}") String learnedPath,
+            @Value("${market.tickers.upstream-ttl:10m}") Duration upstreamTtl) {
+        this(marketDataClient, listing, learnedPath.isBlank() ? null : Path.of(learnedPath), upstreamTtl,
+                Ticker.systemTicker());
+    }
+
+    TickerSearchService(MarketDataClient marketDataClient, Resource listing, Path learnedPath, Duration upstreamTtl,
+            Ticker ticker) {
+        this.marketDataClient = marketDataClient;
+        this.listing = listing;
+        this.learnedPath = learnedPath;
+        this.upstreamResults = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(upstreamTtl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /** Meters of the upstream answer cache, tagged {@code cache=ticker-search}. */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, upstreamResults, "ticker-search");
+    }
+
+    /** Builds the index from the listing and the learned file, replacing the current one. */
+    @PostConstruct
+    public void loadIndex() {
+        List<TickerMatch> entries = new ArrayList<>();
+        if (listing != null && listing.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(listing.getInputStream(), StandardCharsets.UTF_8))) {
+                read(reader, entries);
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable ticker listing {}: {}", listing, e.getMessage());
+            }
+        }
+        if (learnedPath != null && Files.isRegularFile(learnedPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(learnedPath, StandardCharsets.UTF_8)) {
+                read(reader, entries);
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable learned tickers {}: {}", learnedPath, e.getMessage());
+            }
+        }
+        index = TickerIndex.build(entries);
+        log.info("Ticker index holds {} symbols", index.size());
+    }
+
+    /**
+     * Up to {@code limit} matches for a symbol or name prefix, from the local
+     * index, or from upstream when nothing local matches.
+     */
+    public List<TickerMatch> search(String query, int limit) {
+        String key = TickerIndex.normalizeQuery(query);
+        if (key.isEmpty())
+            throw new IllegalArgumentException("Query is required");
+        if (limit < 1 || limit > TickerIndex.TOP_K)
+            throw new IllegalArgumentException("limit must be between 1 and " + TickerIndex.TOP_K);
+
+        List<TickerMatch> local = index.search(key, limit);
+        if (!local.isEmpty())
+            return local;
+        // A failed call throws out of get and is not cached
+        List<TickerMatch> fetched = upstreamResults.get(key, this::fetchUpstream);
+        return fetched.size() > limit ? fetched.subList(0, limit) : fetched;
+    }
+
+    private List<TickerMatch> fetchUpstream(String query) {
+        List<TickerMatch> fetched = List.copyOf(marketDataClient.searchTickers(query));
+        learn(fetched);
+        return fetched;
+    }
+
+    /** Adds symbols the index does not know yet, ranked after the existing ones. */
+    synchronized void learn(List<TickerMatch> matches) {
+        TickerIndex current = index;
+        List<TickerMatch> added = new ArrayList<>();
+        for (TickerMatch match : matches) {
+            if (!current.contains(match.symbol()))
+                added.add(match);
+        }
+        if (added.isEmpty())
+            return;
+        index = current.withAdded(added);
+        append(added);
+    }
+
+    private void append(List<TickerMatch> added) {
+        if (learnedPath == null)
+            return;
+        StringBuilder lines = new StringBuilder();
+        for (TickerMatch match : added)
+            lines.append(line(match)).append('\n');
+        try {
+            Path parent = learnedPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Files.writeString(learnedPath, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Could not record learned tickers in {}: {}", learnedPath, e.getMessage());
+        }
+    }
+
+    // Tabs and line breaks inside a name would split the record
+    private static String line(TickerMatch match) {
+        String name = match.name() == null ? "" : match.name().replaceAll("[\\t\\r\\n]+", " ");
+        return match.symbol().trim() + '\t' + name;
+    }
+
+    private static void read(BufferedReader reader, List<TickerMatch> entries) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#"))
+                continue;
+            int tab = line.indexOf('\t');
+            String symbol = tab < 0 ? line : line.substring(0, tab);
+            String name = tab < 0 ? "" : line.substring(tab + 1);
+            entries.add(new TickerMatch(symbol.trim(), name.trim()));
+        }
+    }
+}
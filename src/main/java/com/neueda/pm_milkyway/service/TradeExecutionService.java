@@ -0,0 +1,206 @@
+package com.neueda.pm_milkyway.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import com.neueda.pm_milkyway.dto.TradeOrder;
+import com.neueda.pm_milkyway.dto.TradeResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Entry point for trades that may run concurrently.
+ *
+ * Inside one JVM, trades on the same symbol are serialized by a striped lock;
+ * trades on different symbols do not wait for each other here. Every trade
+ * also updates the one account balance row, so trades on different symbols
+ * overlap while they read and write their holdings and queue only for the
+ * last step: the purse update, the ledger insert and the commit, which give
+ * each ledger row its running purse in id order. Across JVMs the
+ * {@code @Version} columns on holdings and the account balance detect
+ * conflicting writes; each attempt runs in its own transaction (the
+ * {@link TransactionsService} methods are @Transactional) and is retried a
+ * bounded number of times with a short randomized backoff.
+ *
+ * Every trade request is timed in {@code trades.latency} (tagged with the
+ * operation and whether it went through, published as a percentile
+ * histogram), and each trade is counted in {@code trades.executed} or
+ * {@code trades.rejected}; a batch counts each of its orders.
+ */
+@Service
+public class TradeExecutionService {
+
+    static final int MAX_BATCH_ORDERS = 500;
+
+    private static final String[] OPERATIONS = { "buy", "sell", "adjust", "batch" };
+
+    private final TransactionsService transactionsService;
+    private final ReentrantLock[] stripes;
+    private final int maxAttempts;
+    // Registered up front, keyed by operation (and outcome for timers), so a trade does no meter lookup
+    private final Map<String, Timer> executedTimers = new HashMap<>();
+    private final Map<String, Timer> rejectedTimers = new HashMap<>();
+    private final Map<String, Counter> executed = new HashMap<>();
+    private final Map<String, Counter> rejected = new HashMap<>();
+
+    @Autowired
+    public TradeExecutionService(TransactionsService transactionsService,
+            @Value("${trade.lock-stripes:64}") int lockStripes,
+            @Value("${trade.max-attempts:5}") int maxAttempts,
+            MeterRegistry meterRegistry) {
+        this.transactionsService = transactionsService;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.maxAttempts = maxAttempts;
+        for (String operation : OPERATIONS) {
+            executedTimers.put(operation, latency(meterRegistry, operation, "executed"));
+            rejectedTimers.put(operation, latency(meterRegistry, operation, "rejected"));
+            executed.put(operation, Counter.builder("trades.executed").tag("operation", operation)
+                    .description("Trades that went through").register(meterRegistry));
+            rejected.put(operation, Counter.builder("trades.rejected").tag("operation", operation)
+                    .description("Trades refused by validation or given up after conflicts").register(meterRegistry));
+        }
+    }
+
+    public void buy(String symbol, int quantity, double price) {
+        measured("buy", () -> execute(symbol, () -> {
+            transactionsService.executePurchase(symbol, quantity, price);
+            return null;
+        }));
+    }
+
+    public void sell(String symbol, int quantity, double price) {
+        measured("sell", () -> execute(symbol, () -> {
+            transactionsService.executeSale(symbol, quantity, price);
+            return null;
+        }));
+    }
+
+    public void adjust(String symbol, String action, double price) {
+        measured("adjust", () -> execute(symbol, () -> {
+            transactionsService.handleAdjustment(symbol, action, price);
+            return null;
+        }));
+    }
+
+    public List<TradeResult> batch(List<TradeOrder> orders) {
+        return measured("batch", () -> {
+            if (orders == null || orders.isEmpty())
+                throw new RuntimeException("No orders supplied");
+            if (orders.size() > MAX_BATCH_ORDERS)
+                throw new RuntimeException("A batch may contain at most " + MAX_BATCH_ORDERS + " orders");
+            List<String> symbols = orders.stream().map(TradeOrder::getSymbol).toList();
+            return execute(symbols, () -> transactionsService.executeBatch(orders));
+        });
+    }
+
+    /** Times the request, lock wait and retries included, and counts its trades by outcome. */
+    private <T> T measured(String operation, Supplier<T> trade) {
+        long started = System.nanoTime();
+        T result;
+        try {
+            result = trade.get();
+        } catch (RuntimeException e) {
+            rejectedTimers.get(operation).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            // A refused batch counts once: its orders were never looked at
+            rejected.get(operation).increment();
+            throw e;
+        }
+        executedTimers.get(operation).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (result instanceof List<?> results) {
+            long filled = results.stream()
+                    .filter(r -> r instanceof TradeResult t && TradeResult.FILLED.equals(t.getStatus()))
+                    .count();
+            executed.get(operation).increment(filled);
+            rejected.get(operation).increment(results.size() - filled);
+        } else {
+            executed.get(operation).increment();
+        }
+        return result;
+    }
+
+    private static Timer latency(MeterRegistry meterRegistry, String operation, String outcome) {
+        return Timer.builder("trades.latency")
+                .description("Trade requests from arrival to commit or refusal")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a unit of work for the given symbol under its stripe lock,
+     * retrying on optimistic or lock-acquisition conflicts.
+     */
+    public <T> T execute(String symbol, Supplier<T> work) {
+        return execute(List.of(symbol), work);
+    }
+
+    /**
+     * Multi-symbol variant used by batches. Stripes are always taken in
+     * index order so two batches sharing symbols cannot deadlock.
+     */
+    public <T> T execute(Collection<String> symbols, Supplier<T> work) {
+        List<ReentrantLock> locks = symbols.stream()
+                .filter(Objects::nonNull)
+                .map(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .map(index -> stripes[index])
+                .toList();
+        locks.forEach(ReentrantLock::lock);
+        try {
+            for (int attempt = 1;; attempt++) {
+                try {
+                    return work.get();
+                } catch (ConcurrencyFailureException e) {
+                    if (attempt >= maxAttempts) {
+                        throw new RuntimeException("Trade could not be completed due to concurrent updates, please retry");
+                    }
+                    backoff(attempt);
+                }
+            }
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    ReentrantLock stripeFor(String symbol) {
+        return stripes[stripeIndex(symbol)];
+    }
+
+    private int stripeIndex(String symbol) {
+        int hash = symbol.toUpperCase(Locale.ROOT).hashCode();
+        // Spread the hash so symbols sharing low bits do not pile onto one stripe
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, stripes.length);
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 1L << Math.min(attempt, 6)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying trade");
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.neueda.pm_milkyway.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.dto.TransactionFilter;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+
+/**
+ * Writes the filtered ledger, newest first, straight from a database cursor to
+ * an output stream. Rows are encoded one at a time and never collected, so
+ * memory use does not depend on how many rows are exported.
+ *
+ * Besides CSV and NDJSON, rows can be written as a CBOR sequence (RFC 8742)
+ * or a Smile stream: the same objects as the JSON output, concatenated
+ * without separators, with the same field names and ISO dates.
+ */
+@Service
+public class TransactionExportService {
+
+    static final String CSV_HEADER = "id,date,symbol,type,quantity,price,transaction_value,purse_value,status";
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson"),
+        CBOR("application/cbor-seq", "cbor"),
+        SMILE("application/x-jackson-smile", "sml");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private final TransactionsRepo transactionsRepo;
+    private final ObjectMapper objectMapper;
+    // Copies of the JSON mapper, so modules and features match the JSON output
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+
+    @Autowired
+    public TransactionExportService(TransactionsRepo transactionsRepo, ObjectMapper objectMapper) {
+        this.transactionsRepo = transactionsRepo;
+        this.objectMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+    }
+
+    /**
+     * Runs in its own read-only transaction because the cursor has to stay
+     * open while the response is written, which happens on an async thread.
+     */
+    @Transactional(readOnly = true)
+    public long export(TransactionFilter filter, Format format, OutputStream out) throws IOException {
+        try (Stream<TransactionEntity> rows = transactionsRepo.streamAll(
+                TransactionHistoryService.matching(filter, null), TransactionHistoryService.NEWEST_FIRST)) {
+            return switch (format) {
+                case CSV, NDJSON -> writeText(format, rows.iterator(), out);
+                case CBOR -> writeBinary(cborMapper, rows.iterator(), out);
+                case SMILE -> writeBinary(smileMapper, rows.iterator(), out);
+            };
+        }
+    }
+
+    private long writeText(Format format, Iterator<TransactionEntity> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = format == Format.CSV ? writeCsv(rows, writer) : writeNdjson(rows, writer);
+        writer.flush();
+        return count;
+    }
+
+    private static long writeCsv(Iterator<TransactionEntity> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+        while (rows.hasNext()) {
+            TransactionEntity t = rows.next();
+            writer.write(String.valueOf(t.getId()));
+            writer.write(',');
+            writer.write(t.getDate() == null ? "" : t.getDate().toString());
+            writer.write(',');
+            writer.write(csvField(t.getSymbol()));
+            writer.write(',');
+            writer.write(csvField(t.getType()));
+            writer.write(',');
+            writer.write(t.getQuantity() == null ? "" : t.getQuantity().toString());
+            writer.write(',');
+            writer.write(plain(t.getPrice()));
+            writer.write(',');
+            writer.write(plain(t.getTransactionValue()));
+            writer.write(',');
+            writer.write(plain(t.getPurseValue()));
+            writer.write(',');
+            writer.write(t.getStatus() == null ? "" : t.getStatus().toString());
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private long writeNdjson(Iterator<TransactionEntity> rows, Writer writer) throws IOException {
+        long count = 0;
+        // SequenceWriter reuses one generator for every row; the writer itself is flushed and closed by the caller
+        SequenceWriter sequence = objectMapper.writerFor(TransactionEntity.class)
+                .withRootValueSeparator("\n")
+                .writeValues(writer);
+        while (rows.hasNext()) {
+            sequence.write(rows.next());
+            count++;
+        }
+        sequence.flush();
+        if (count > 0) {
+            writer.write('\n');
+        }
+        return count;
+    }
+
+    // Binary generators buffer internally, so they write to the response stream directly
+    private static long writeBinary(ObjectMapper mapper, Iterator<TransactionEntity> rows, OutputStream out)
+            throws IOException {
+        long count = 0;
+        SequenceWriter sequence = mapper.writerFor(TransactionEntity.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(out);
+        while (rows.hasNext()) {
+            sequence.write(rows.next());
+            count++;
+        }
+        // Closing ends the sequence (and the Smile stream) but, without AUTO_CLOSE_TARGET, leaves out open
+        sequence.close();
+        return count;
+    }
+
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    private static String plain(Money value) {
+        return value == null ? "" : value.toString();
+    }
+}
@@ -1,5 +1,101 @@
 package com.neueda.pm_milkyway.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import com.neueda.pm_milkyway.dto.TransactionFilter;
+import com.neueda.pm_milkyway.dto.TransactionPage;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Keyset-paginated reads of the transactions ledger, newest first.
+ *
+ * Pages are ordered by (date, id) descending and continue from an opaque
+ * cursor holding the last row's (date, id), so every page is an index range
+ * scan of at most limit + 1 rows no matter how deep the caller has paged.
+ */
+@Service
 public class TransactionHistoryService {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id"));
+
+    private final TransactionsRepo transactionsRepo;
+
+    @Autowired
+    public TransactionHistoryService(TransactionsRepo transactionsRepo) {
+        this.transactionsRepo = transactionsRepo;
+    }
+
+    public TransactionPage getPage(TransactionFilter filter, String cursor, Integer limit) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Specification<TransactionEntity> spec = matching(filter, cursor == null ? null : decodeCursor(cursor));
+
+        // Fetch one extra row to learn whether another page exists without a count query
+        List<TransactionEntity> rows = transactionsRepo.findBy(spec,
+                query -> query.sortBy(NEWEST_FIRST).limit(size + 1).all());
+        if (rows.size() <= size) {
+            return new TransactionPage(rows, null);
+        }
+        List<TransactionEntity> items = rows.subList(0, size);
+        return new TransactionPage(items, encodeCursor(items.get(size - 1)));
+    }
+
+    /**
+     * Filter predicates plus the keyset condition
+     * {@code date < :date or (date = :date and id < :id)}.
+     */
+    static Specification<TransactionEntity> matching(TransactionFilter filter, Keyset after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter != null) {
+                if (filter.getSymbol() != null && !filter.getSymbol().isBlank())
+                    predicates.add(cb.equal(root.get("symbol"), filter.getSymbol()));
+                if (filter.getType() != null && !filter.getType().isBlank())
+                    predicates.add(cb.equal(root.get("type"), filter.getType()));
+                if (filter.getStatus() != null)
+                    predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+                if (filter.getFrom() != null)
+                    predicates.add(cb.greaterThanOrEqualTo(root.get("date"), filter.getFrom()));
+                if (filter.getTo() != null)
+                    predicates.add(cb.lessThanOrEqualTo(root.get("date"), filter.getTo()));
+            }
+            if (after != null) {
+                predicates.add(cb.or(
+                        cb.lessThan(root.get("date"), after.date()),
+                        cb.and(cb.equal(root.get("date"), after.date()), cb.lessThan(root.get("id"), after.id()))));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    static String encodeCursor(TransactionEntity last) {
+        String raw = last.getDate() + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Keyset decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(':');
+            return new Keyset(LocalDate.parse(raw.substring(0, split)), Integer.valueOf(raw.substring(split + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    record Keyset(LocalDate date, Integer id) {
+    }
 }
@@ -1,70 +1,153 @@
 package com.neueda.pm_milkyway.service;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.neueda.pm_milkyway.dto.Holding;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.dto.PositionValuation;
+import com.neueda.pm_milkyway.dto.TradeOrder;
+import com.neueda.pm_milkyway.dto.TradeResult;
+import com.neueda.pm_milkyway.entity.AccountBalanceEntity;
 import com.neueda.pm_milkyway.entity.HoldingsEntity;
 import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.AccountBalanceRepo;
 import com.neueda.pm_milkyway.repo.HoldingsRepo;
 import com.neueda.pm_milkyway.repo.TransactionsRepo;
 
+import io.micrometer.core.annotation.Timed;
+
+/**
+ * Applies trades and purse changes to the holdings, the account balance and
+ * the transactions ledger.
+ *
+ * Every path that writes holdings or the balance takes its row locks in one
+ * order, so no two of them can deadlock: existing holdings rows first, in id
+ * order, then the account balance row, held until commit. A single trade
+ * locks its one holdings row when it flushes its write. New holdings rows
+ * may be inserted at any point, since no other transaction can lock a row it
+ * cannot see yet. Trades, batches and {@link LedgerReplayService} all follow
+ * this order.
+ *
+ * Ledger rows are persisted only once the balance row is locked. Persisting
+ * is when Hibernate hands out the row's id, the next value of an in-memory
+ * pooled-lo block, so within one instance ids are handed out in the order
+ * transactions take the balance lock and commit in that order too. Fetching
+ * a block can happen earlier and does not matter; handing out a value from
+ * it does. A second instance has its own block, so the order holds only for
+ * one instance per database.
+ */
 @Service
+@Timed("service.calls")
 public class TransactionsService {
 
+    static final Integer PURSE_ID = 1;
+    static final Money STARTING_PURSE = Money.ofCents(10_000_000);
+
     private final TransactionsRepo transactionsRepo;
     private final HoldingsRepo holdingsRepo;
+    private final AccountBalanceRepo accountBalanceRepo;
+    private final PortfolioReadModel portfolioReadModel;
+    private final DataVersions dataVersions;
+    // Ledger rows are dated in the market zone, the zone NAV snapshots and price history count days in
+    private final Clock clock;
 
     @Autowired
-    public TransactionsService(TransactionsRepo transactionsRepo, HoldingsRepo holdingsRepo) {
+    public TransactionsService(TransactionsRepo transactionsRepo, HoldingsRepo holdingsRepo,
+            AccountBalanceRepo accountBalanceRepo, PortfolioReadModel portfolioReadModel,
+            DataVersions dataVersions, @Value("${market.history.zone:America/New_York}") String zone) {
+        this(transactionsRepo, holdingsRepo, accountBalanceRepo, portfolioReadModel, dataVersions,
+                Clock.system(ZoneId.of(zone)));
+    }
+
+    TransactionsService(TransactionsRepo transactionsRepo, HoldingsRepo holdingsRepo,
+            AccountBalanceRepo accountBalanceRepo, PortfolioReadModel portfolioReadModel,
+            DataVersions dataVersions, Clock clock) {
         this.transactionsRepo = transactionsRepo;
         this.holdingsRepo = holdingsRepo;
+        this.accountBalanceRepo = accountBalanceRepo;
+        this.portfolioReadModel = portfolioReadModel;
+        this.dataVersions = dataVersions;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the current purse value from the account balance record.
+     * Databases created before the record existed fall back to the newest
+     * transaction (a primary key lookup), and an empty ledger returns the
+     * default starting value (e.g., 100000.0).
+     */
+    public Double getPurseValue() {
+        return Money.toDouble(purseCents());
     }
 
-    public List<TransactionEntity> getAllTransactions() {
-        return transactionsRepo.findAll();
+    /** The purse in cents, read the same way as {@link #getPurseValue()}. */
+    private long purseCents() {
+        return accountBalanceRepo.findById(PURSE_ID)
+                .map(AccountBalanceEntity::getPurseValue)
+                .or(() -> transactionsRepo.findTopByOrderByIdDesc().map(TransactionEntity::getPurseValue))
+                .orElse(STARTING_PURSE) // Starting capital if DB is empty
+                .cents();
     }
 
     /**
-     * Gets the latest purse value from the transactions table.
-     * If no transactions exist, returns a default starting value (e.g., 100000.0).
+     * Applies a signed change, in cents, to the purse and returns the
+     * resulting balance in cents. The update is a single conditional
+     * statement that also bumps the row version, so concurrent trades on
+     * different symbols can never overwrite each other's balance and the purse
+     * can never go negative. Callers are @Transactional, so the balance
+     * commits or rolls back together with the ledger row that produced it.
+     *
+     * The update locks the balance row until commit, and every trade needs
+     * it, so callers write their holdings first and call this last, leaving
+     * only the purse read, the ledger insert and the commit under the lock,
+     * in the lock order described on this class.
      */
-    public Double getPurseValue() {
-        return transactionsRepo.findAll().stream()
-                .sorted((a, b) -> b.getId().compareTo(a.getId()))
-                .findFirst()
-                .map(tx -> tx.getPurseValue().doubleValue())
-                .orElse(100000.0); // Starting capital if DB is empty
+    private long applyPurseDelta(long deltaCents, String insufficientMessage) {
+        if (accountBalanceRepo.applyDelta(PURSE_ID, Money.ofCents(deltaCents)) == 0) {
+            if (accountBalanceRepo.existsById(PURSE_ID)) {
+                throw new RuntimeException(insufficientMessage);
+            }
+            // First write on a database created before account_balance existed
+            long newPurse = purseCents() + deltaCents;
+            if (newPurse < 0) {
+                throw new RuntimeException(insufficientMessage);
+            }
+            AccountBalanceEntity created = new AccountBalanceEntity();
+            created.setId(PURSE_ID);
+            created.setPurseValue(Money.ofCents(newPurse));
+            accountBalanceRepo.save(created);
+            return newPurse;
+        }
+        return accountBalanceRepo.findPurseValue(PURSE_ID).cents();
     }
 
     @Transactional
     public void executePurchase(String symbol, int quantity, double price) {
-        double totalCost = quantity * price;
-        double currentPurse = getPurseValue();
+        long totalCost = Money.costCents(quantity, price);
+        long currentPurse = purseCents();
 
         if (currentPurse < totalCost) {
             throw new RuntimeException("Insufficient Purse Value!");
         }
 
-        // 1. Update Transactions Table
-        TransactionEntity tx = new TransactionEntity();
-        tx.setDate(LocalDate.now());
-        tx.setType("BUY");
-        tx.setSymbol(symbol);
-        tx.setQuantity(quantity);
-        tx.setPrice(BigDecimal.valueOf(price));
-        tx.setTransactionValue(BigDecimal.valueOf(totalCost));
-        tx.setPurseValue(BigDecimal.valueOf(currentPurse - totalCost));
-        tx.setStatus(true);
-        transactionsRepo.save(tx);
-
-        // 2. Update Holdings Table
+        // 1. Update Holdings Table
         // Check if we already own this stock
         List<HoldingsEntity> existing = holdingsRepo.findByStock(symbol);
         HoldingsEntity holding;
@@ -72,15 +155,31 @@ public class TransactionsService {
         if (!existing.isEmpty()) {
             holding = existing.get(0);
             holding.setQuantity(holding.getQuantity() + quantity);
-            holding.setTotal_invested(holding.getTotal_invested() + totalCost);
+            holding.setTotal_invested(holding.getTotal_invested().plus(Money.ofCents(totalCost)));
         } else {
             holding = new HoldingsEntity();
             holding.setStock(symbol);
             holding.setQuantity(quantity);
-            holding.setTotal_invested(totalCost);
+            holding.setTotal_invested(Money.ofCents(totalCost));
         }
 
+        // Written before the purse so the balance row is locked only for the ledger row and the commit
         holdingsRepo.save(holding);
+        holdingsRepo.flush();
+        long newPurse = applyPurseDelta(-totalCost, "Insufficient Purse Value!");
+
+        // 2. Update Transactions Table
+        TransactionEntity tx = new TransactionEntity();
+        tx.setDate(LocalDate.now(clock));
+        tx.setType("BUY");
+        tx.setSymbol(symbol);
+        tx.setQuantity(quantity);
+        tx.setPrice(BigDecimal.valueOf(price));
+        tx.setTransactionValue(Money.ofCents(totalCost));
+        tx.setPurseValue(Money.ofCents(newPurse));
+        tx.setStatus(true);
+        transactionsRepo.save(tx);
+        recordCommit(tx.getId(), newPurse, List.of(holding));
     }
 
     @Transactional
@@ -95,43 +194,37 @@ public class TransactionsService {
             throw new RuntimeException("Insufficient shares! You only have " + holding.getQuantity());
         }
 
-        double totalSaleValue = quantity * price;
-        double currentPurse = getPurseValue();
+        long totalSaleValue = Money.costCents(quantity, price);
 
         // 1. Update Holdings
-        // Calculate average cost to reduce total_invested proportionally
-        double avgCostPerShare = holding.getTotal_invested() / holding.getQuantity();
-        double costOfSoldShares = avgCostPerShare * quantity;
+        // Reduce total_invested by the sold shares' share of it; selling everything takes all of it
+        long invested = holding.getTotal_invested().cents();
+        long costOfSoldShares = Money.proportionCents(invested, quantity, holding.getQuantity());
 
         holding.setQuantity(holding.getQuantity() - quantity);
-        holding.setTotal_invested(holding.getTotal_invested() - costOfSoldShares);
+        holding.setTotal_invested(Money.ofCents(invested - costOfSoldShares));
 
-        // If quantity is 0, we can either remove it or keep it.
-        // Keeping it with 0 allows for history, but clean up is often better.
-        // For now, we save (logic similar to adjustments).
-        // But deleting is cleaner for the dashboard.
+        // A fully sold position is removed so the dashboard does not list it
         if (holding.getQuantity() == 0) {
-            holding.setTotal_invested(0.0); // Ensure no floating point dust
-            holdingsRepo.delete(holding); // Remove if 0? Or just save?
-            // Previous code in Adjust didn't delete. But for proper cleanup let's delete if
-            // 0.
-            // Actually, let's just save for now to be safe with existing logic patterns,
-            // unless user asked for cleanup.
+            holdingsRepo.delete(holding);
         } else {
             holdingsRepo.save(holding);
         }
+        holdingsRepo.flush();
 
         // 2. Record Transaction
+        long newPurse = applyPurseDelta(totalSaleValue, "Insufficient purse balance");
         TransactionEntity tx = new TransactionEntity();
-        tx.setDate(LocalDate.now());
+        tx.setDate(LocalDate.now(clock));
         tx.setType("SELL");
         tx.setSymbol(symbol);
         tx.setQuantity(quantity);
         tx.setPrice(BigDecimal.valueOf(price));
-        tx.setTransactionValue(BigDecimal.valueOf(totalSaleValue));
-        tx.setPurseValue(BigDecimal.valueOf(currentPurse + totalSaleValue)); // Add to purse
+        tx.setTransactionValue(Money.ofCents(totalSaleValue));
+        tx.setPurseValue(Money.ofCents(newPurse)); // Add to purse
         tx.setStatus(true);
         transactionsRepo.save(tx);
+        recordCommit(tx.getId(), newPurse, List.of(holding));
     }
 
     @Transactional
@@ -141,66 +234,224 @@ public class TransactionsService {
             return;
 
         HoldingsEntity holding = holdings.get(0);
-        double purse = getPurseValue();
+        long purse = purseCents();
+        long price = Money.toCents(currentPrice);
 
         if (action.equals("PLUS")) {
-            if (purse < currentPrice)
+            if (purse < price)
                 throw new RuntimeException("Insufficient Funds");
             holding.setQuantity(holding.getQuantity() + 1);
-            holding.setTotal_invested(holding.getTotal_invested() + currentPrice);
-            saveTx(symbol, "BUY", currentPrice, purse - currentPrice);
+            holding.setTotal_invested(holding.getTotal_invested().plus(Money.ofCents(price)));
             holdingsRepo.save(holding);
+            holdingsRepo.flush();
+            long newPurse = applyPurseDelta(-price, "Insufficient Funds");
+            TransactionEntity tx = saveTx(symbol, "BUY", currentPrice, price, newPurse);
+            recordCommit(tx.getId(), newPurse, List.of(holding));
         } else if (action.equals("MINUS")) {
             if (holding.getQuantity() <= 0)
                 return;
-            // Use the new logic pattern for consistency or keep simple?
-            // "adjustment" is usually just a simple +/- 1.
-            // Let's keep existing logic but fix the saveTx call in my previous view it was
-            // separate.
-
+            // Sell one share at the average cost
+            long invested = holding.getTotal_invested().cents();
+            long avgCost = Money.proportionCents(invested, 1, holding.getQuantity());
             holding.setQuantity(holding.getQuantity() - 1);
-            double avgCost = holding.getTotal_invested() / (holding.getQuantity() + 1); // +1 because we just
-                                                                                        // decremented
-            holding.setTotal_invested(holding.getTotal_invested() - avgCost);
+            holding.setTotal_invested(Money.ofCents(invested - avgCost));
 
             if (holding.getQuantity() == 0) {
                 holdingsRepo.delete(holding);
             } else {
                 holdingsRepo.save(holding);
             }
-            saveTx(symbol, "SELL", currentPrice, purse + currentPrice);
+            holdingsRepo.flush();
+            long newPurse = applyPurseDelta(price, "Insufficient Funds");
+            TransactionEntity tx = saveTx(symbol, "SELL", currentPrice, price, newPurse);
+            recordCommit(tx.getId(), newPurse, List.of(holding));
         }
     }
 
-    private void saveTx(String symbol, String type, double price, double newPurse) {
+    private TransactionEntity saveTx(String symbol, String type, double price, long valueCents, long newPurse) {
         TransactionEntity tx = new TransactionEntity();
-        tx.setDate(LocalDate.now());
+        tx.setDate(LocalDate.now(clock));
         tx.setType(type); // BUY or SELL
         tx.setSymbol(symbol);
         tx.setQuantity(1); // Adjustments are usually single unit or we'd need to change signature
         tx.setPrice(BigDecimal.valueOf(price));
-        tx.setTransactionValue(BigDecimal.valueOf(price));
-        tx.setPurseValue(BigDecimal.valueOf(newPurse));
+        tx.setTransactionValue(Money.ofCents(valueCents));
+        tx.setPurseValue(Money.ofCents(newPurse));
         tx.setStatus(true);
         transactionsRepo.save(tx);
+        return tx;
     }
 
-    // Inside TransactionsService.java
-    public Map<String, Object> getPortfolioStats(List<HoldingsEntity> holdings, Map<String, Double> currentPrices) {
-        double totalInvested = holdings.stream().mapToDouble(HoldingsEntity::getTotal_invested).sum();
-        double totalMarketValue = holdings.stream()
-                .mapToDouble(h -> h.getQuantity() * currentPrices.getOrDefault(h.getStock(), 0.0))
-                .sum();
+    // The read model applies the change first, so a reader seeing the new ledger version also sees the change
+    private void recordCommit(Integer ledgerId, long purseAfter, Collection<HoldingsEntity> holdings) {
+        portfolioReadModel.recordCommit(ledgerId, purseAfter, holdings);
+        dataVersions.ledgerChanged();
+    }
+
+    /**
+     * Executes a list of buy/sell orders in one database transaction.
+     * Orders are applied in request order against in-memory holdings and
+     * purse, so an order that fails validation is reported as REJECTED
+     * without affecting the others. Ledger rows and holdings are written with
+     * saveAll so Hibernate sends them as JDBC batches, and the purse is
+     * changed once with the net amount. Running totals are kept in cents.
+     */
+    @Transactional
+    public List<TradeResult> executeBatch(List<TradeOrder> orders) {
+        Set<String> symbols = orders.stream()
+                .map(TradeOrder::getSymbol)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, HoldingsEntity> holdingsBySymbol = new HashMap<>();
+        for (HoldingsEntity holding : holdingsRepo.findByStockIn(symbols)) {
+            holdingsBySymbol.putIfAbsent(holding.getStock(), holding);
+        }
+
+        // The balance row comes after the holdings locked above (see the lock order on this class).
+        // Locking it here keeps the running purse on each ledger row exact
+        long startPurse = accountBalanceRepo.findForUpdate(PURSE_ID)
+                .map(balance -> balance.getPurseValue().cents())
+                .orElseGet(this::purseCents);
+        long purse = startPurse;
+
+        LocalDate today = LocalDate.now(clock);
+        List<TradeResult> results = new ArrayList<>(orders.size());
+        List<TransactionEntity> ledger = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            TradeOrder order = orders.get(i);
+            String error = validateOrder(order);
+            if (error != null) {
+                results.add(TradeResult.rejected(i, order, error));
+                continue;
+            }
+
+            String side = order.getSide().toUpperCase(Locale.ROOT);
+            String symbol = order.getSymbol();
+            int quantity = order.getQuantity();
+            long value = Money.costCents(quantity, order.getPrice());
+            HoldingsEntity holding = holdingsBySymbol.get(symbol);
+
+            if (side.equals("BUY")) {
+                if (purse < value) {
+                    results.add(TradeResult.rejected(i, order, "Insufficient Purse Value!"));
+                    continue;
+                }
+                if (holding == null) {
+                    holding = new HoldingsEntity();
+                    holding.setStock(symbol);
+                    holding.setQuantity(0);
+                    holding.setTotal_invested(Money.ZERO);
+                    holdingsBySymbol.put(symbol, holding);
+                }
+                holding.setQuantity(holding.getQuantity() + quantity);
+                holding.setTotal_invested(holding.getTotal_invested().plus(Money.ofCents(value)));
+                purse -= value;
+            } else {
+                if (holding == null) {
+                    results.add(TradeResult.rejected(i, order, "You do not own this stock!"));
+                    continue;
+                }
+                if (holding.getQuantity() < quantity) {
+                    results.add(TradeResult.rejected(i, order,
+                            "Insufficient shares! You only have " + holding.getQuantity()));
+                    continue;
+                }
+                long invested = holding.getTotal_invested().cents();
+                long costOfSold = Money.proportionCents(invested, quantity, holding.getQuantity());
+                holding.setQuantity(holding.getQuantity() - quantity);
+                holding.setTotal_invested(Money.ofCents(invested - costOfSold));
+                purse += value;
+            }
+
+            TransactionEntity tx = new TransactionEntity();
+            tx.setDate(today);
+            tx.setType(side);
+            tx.setSymbol(symbol);
+            tx.setQuantity(quantity);
+            tx.setPrice(BigDecimal.valueOf(order.getPrice()));
+            tx.setTransactionValue(Money.ofCents(value));
+            tx.setPurseValue(Money.ofCents(purse));
+            tx.setStatus(true);
+            ledger.add(tx);
+            results.add(TradeResult.filled(i, order, tx.getPurseValue()));
+        }
+
+        if (ledger.isEmpty()) {
+            return results;
+        }
+
+        transactionsRepo.saveAll(ledger);
+        List<HoldingsEntity> emptied = new ArrayList<>();
+        List<HoldingsEntity> remaining = new ArrayList<>();
+        for (HoldingsEntity holding : holdingsBySymbol.values()) {
+            if (holding.getQuantity() > 0) {
+                remaining.add(holding);
+            } else if (holding.getId() != null) {
+                emptied.add(holding);
+            }
+        }
+        holdingsRepo.saveAll(remaining);
+        holdingsRepo.deleteAll(emptied);
+        long newPurse = applyPurseDelta(purse - startPurse, "Insufficient purse balance");
+        recordCommit(ledger.get(ledger.size() - 1).getId(), newPurse, holdingsBySymbol.values());
+        return results;
+    }
+
+    private static String validateOrder(TradeOrder order) {
+        if (order.getSymbol() == null || order.getSymbol().isBlank())
+            return "Symbol is required";
+        if (order.getSide() == null
+                || !(order.getSide().equalsIgnoreCase("BUY") || order.getSide().equalsIgnoreCase("SELL")))
+            return "Side must be BUY or SELL";
+        if (order.getQuantity() <= 0)
+            return "Quantity must be positive";
+        if (order.getPrice() <= 0)
+            return "Price must be positive";
+        return null;
+    }
+
+    /**
+     * Values every holding at its current price in one pass. Holdings with no
+     * price are listed under "unpriced" and left out of the totals rather than
+     * being counted as worthless.
+     */
+    public Map<String, Object> getPortfolioStats(List<? extends Holding> holdings, Map<String, Double> currentPrices) {
+        return getPortfolioStats(holdings, currentPrices, getPurseValue());
+    }
+
+    /** Same as above with the purse supplied by the caller, e.g. from the portfolio read model. */
+    public Map<String, Object> getPortfolioStats(List<? extends Holding> holdings, Map<String, Double> currentPrices,
+            double purse) {
+        List<PositionValuation> positions = new ArrayList<>(holdings.size());
+        List<String> unpriced = new ArrayList<>();
+        double totalInvested = 0;
+        double totalMarketValue = 0;
+        for (Holding holding : holdings) {
+            double invested = holding.getTotal_invested() == null ? 0 : holding.getTotal_invested().doubleValue();
+            int quantity = holding.getQuantity() == null ? 0 : holding.getQuantity();
+            Double price = currentPrices.get(holding.getStock());
+            PositionValuation position = new PositionValuation(holding.getStock(), quantity, invested, price);
+            positions.add(position);
+            if (price == null) {
+                unpriced.add(holding.getStock());
+            } else {
+                totalInvested += invested;
+                totalMarketValue += position.getMarketValue();
+            }
+        }
 
-        double purse = getPurseValue(); // Fetch from your Transaction/Purse table
         double profitLoss = totalMarketValue - totalInvested;
         double percentageChange = totalInvested == 0 ? 0 : (profitLoss / totalInvested) * 100;
 
         Map<String, Object> stats = new HashMap<>();
         stats.put("purse", purse);
         stats.put("portfolioValue", totalMarketValue + purse); // Total wealth
+        stats.put("marketValue", totalMarketValue);
+        stats.put("totalInvested", totalInvested);
         stats.put("profitLoss", profitLoss);
         stats.put("changePercent", percentageChange);
+        stats.put("positions", positions);
+        stats.put("unpriced", unpriced);
         return stats;
     }
 
@@ -208,33 +459,35 @@ public class TransactionsService {
     public void addToPurse(double amount) {
         if (amount <= 0)
             throw new RuntimeException("Amount must be positive");
-        double currentPurse = getPurseValue();
-        double newPurse = currentPurse + amount;
+        long amountCents = Money.toCents(amount);
+        long newPurse = applyPurseDelta(amountCents, "Insufficient purse balance");
 
         TransactionEntity tx = new TransactionEntity();
-        tx.setDate(LocalDate.now());
+        tx.setDate(LocalDate.now(clock));
         tx.setType("PURSE ADD");
-        tx.setTransactionValue(java.math.BigDecimal.valueOf(amount));
-        tx.setPurseValue(java.math.BigDecimal.valueOf(newPurse));
+        tx.setTransactionValue(Money.ofCents(amountCents));
+        tx.setPurseValue(Money.ofCents(newPurse));
         tx.setStatus(true);
         transactionsRepo.save(tx);
+        recordCommit(tx.getId(), newPurse, List.of());
     }
 
     @Transactional
     public void deductFromPurse(double amount) {
         if (amount <= 0)
             throw new RuntimeException("Amount must be positive");
-        double currentPurse = getPurseValue();
-        if (currentPurse < amount)
+        long amountCents = Money.toCents(amount);
+        if (purseCents() < amountCents)
             throw new RuntimeException("Insufficient purse balance");
-        double newPurse = currentPurse - amount;
+        long newPurse = applyPurseDelta(-amountCents, "Insufficient purse balance");
 
         TransactionEntity tx = new TransactionEntity();
-        tx.setDate(LocalDate.now());
+        tx.setDate(LocalDate.now(clock));
         tx.setType("PURSE DEDUCT");
-        tx.setTransactionValue(java.math.BigDecimal.valueOf(amount));
-        tx.setPurseValue(java.math.BigDecimal.valueOf(newPurse));
+        tx.setTransactionValue(Money.ofCents(amountCents));
+        tx.setPurseValue(Money.ofCents(newPurse));
         tx.setStatus(true);
         transactionsRepo.save(tx);
+        recordCommit(tx.getId(), newPurse, List.of());
     }
 }
\ No newline at end of file
@@ -1,34 +1,188 @@
 package com.neueda.pm_milkyway.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.neueda.pm_milkyway.entity.WatchlistEntity;
 import com.neueda.pm_milkyway.repo.WatchListRepo;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * The watchlist, read from an in-memory copy.
+ *
+ * Symbols are stored trimmed and upper-cased, once each (unique index on
+ * {@code watchlist.stock}), so adds and removes look them up by equality on
+ * that index. Reads return an immutable list that is loaded once and shared
+ * until the next change; every change drops it after its transaction
+ * commits, and a load that raced with a change is not published, so a
+ * reader never keeps a list older than the last committed change. Reads
+ * served from the copy and reads that had to load it are counted as
+ * {@code cache.gets} hits and misses, like the Caffeine caches.
+ */
 @Service
-public class WatchlistService {
-    
+@Timed("service.calls")
+public class WatchlistService implements MeterBinder {
+
+    /** Longest symbol the {@code stock} column holds. */
+    static final int MAX_SYMBOL_LENGTH = 200;
+
     private final WatchListRepo watchListRepo;
+    private final TransactionOperations transactions;
+    private final DataVersions dataVersions;
+
+    // Bumped by every change, so a load that overlapped one is not cached
+    private long generation;
+    private volatile List<String> items;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     @Autowired
-    public WatchlistService(WatchListRepo watchListRepo) {
+    public WatchlistService(WatchListRepo watchListRepo, PlatformTransactionManager transactionManager,
+            DataVersions dataVersions) {
+        this(watchListRepo, new TransactionTemplate(transactionManager), dataVersions);
+    }
+
+    WatchlistService(WatchListRepo watchListRepo, TransactionOperations transactions, DataVersions dataVersions) {
         this.watchListRepo = watchListRepo;
+        this.transactions = transactions;
+        this.dataVersions = dataVersions;
     }
 
+    /** Watchlist symbols in the order they were added. The list is unmodifiable. */
     public List<String> getWatchlistItems() {
-        return watchListRepo.findAll().stream().map(item -> item.getStock()).toList();
+        List<String> current = items;
+        if (current != null) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        long loading;
+        synchronized (this) {
+            if (items != null)
+                return items;
+            loading = generation;
+        }
+        List<String> loaded = List.copyOf(watchListRepo.findAllStocks());
+        synchronized (this) {
+            if (generation == loading)
+                items = loaded;
+        }
+        return loaded;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", "watchlist", "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", "watchlist", "result", "miss")
+                .register(registry);
     }
 
-    public void addToWatchList(String stock){
-        watchListRepo.saveNewStock(stock);
+    public void addToWatchList(String stock) {
+        addAll(Collections.singletonList(stock));
     }
 
     public void removeFromWatchlist(String stock) {
-        var item = watchListRepo.findAll().stream()
-            .filter(watchlistItem -> watchlistItem.getStock().equalsIgnoreCase(stock))
-            .findFirst();
-        item.ifPresent(watchListRepo::delete);
+        removeAll(Collections.singletonList(stock));
+    }
+
+    /**
+     * Adds every symbol not already on the watchlist with one indexed lookup
+     * and one batched insert. Returns how many were added.
+     */
+    public int addAll(Collection<String> stocks) {
+        Set<String> symbols = normalizeAll(stocks);
+        if (symbols.isEmpty())
+            return 0;
+        try {
+            return insertMissing(symbols);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent add got some of them in first; they now show up as existing
+            return insertMissing(symbols);
+        }
+    }
+
+    /** Removes the symbols with one indexed delete. Returns how many were on the watchlist. */
+    public int removeAll(Collection<String> stocks) {
+        Set<String> symbols = normalizeAll(stocks);
+        if (symbols.isEmpty())
+            return 0;
+        try {
+            Integer removed = transactions.execute(status -> watchListRepo.deleteByStockIn(symbols));
+            return removed == null ? 0 : removed;
+        } finally {
+            invalidate();
+        }
+    }
+
+    private int insertMissing(Set<String> symbols) {
+        try {
+            Integer added = transactions.execute(status -> {
+                Set<String> missing = new LinkedHashSet<>(symbols);
+                missing.removeAll(new HashSet<>(watchListRepo.findStocksIn(symbols)));
+                if (missing.isEmpty())
+                    return 0;
+                List<WatchlistEntity> rows = new ArrayList<>(missing.size());
+                for (String symbol : missing) {
+                    WatchlistEntity row = new WatchlistEntity();
+                    row.setStock(symbol);
+                    rows.add(row);
+                }
+                watchListRepo.saveAll(rows);
+                return rows.size();
+            });
+            return added == null ? 0 : added;
+        } finally {
+            invalidate();
+        }
+    }
+
+    // Runs once the transaction has committed (or rolled back), so the next read sees the change
+    private synchronized void invalidate() {
+        generation++;
+        items = null;
+        dataVersions.watchlistChanged();
+    }
+
+    private static Set<String> normalizeAll(Collection<String> stocks) {
+        if (stocks == null)
+            throw new IllegalArgumentException("Symbols are required");
+        if (stocks.size() > MarketLookupService.MAX_BATCH_SYMBOLS)
+            throw new IllegalArgumentException("At most " + MarketLookupService.MAX_BATCH_SYMBOLS
+                    + " symbols per request");
+        Set<String> symbols = new LinkedHashSet<>();
+        for (String stock : stocks)
+            symbols.add(normalize(stock));
+        return symbols;
+    }
+
+    /** Trimmed and upper-cased, the form symbols are stored in. */
+    static String normalize(String stock) {
+        String symbol = stock == null ? "" : stock.trim().toUpperCase(Locale.ROOT);
+        if (symbol.isEmpty())
+            throw new IllegalArgumentException("Symbol is required");
+        if (symbol.length() > MAX_SYMBOL_LENGTH)
+            throw new IllegalArgumentException("Symbol is too long: " + symbol.substring(0, 20) + "...");
+        return symbol;
     }
 }
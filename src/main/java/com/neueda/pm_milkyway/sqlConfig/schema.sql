@@ -4,7 +4,8 @@ use milkyway_pm;
 
 create table if not exists watchlist(
     id int auto_increment primary key,
-    stock varchar(200) not null
+    stock varchar(200) not null,
+    unique index idx_watchlist_stock (stock)
 );
 
 create table if not exists transactions(
@@ -13,14 +14,61 @@ create table if not exists transactions(
     type varchar(50) not null,
     transaction_value decimal(15,2) not null,
     purse_value decimal(15,2) not null,
-    status boolean not null
+    status boolean not null,
+    index idx_transactions_date_id (date, id),
+    index idx_transactions_type_date_id (type, date, id)
+);
+
+create table if not exists account_balance(
+    id int primary key,
+    purse_value decimal(15,2) not null,
+    version bigint not null default 0
 );
 
 create table if not exists holdings(
     id int auto_increment primary key,
     stock varchar(200) not null,
     quantity int not null,
-    total_invested decimal(15,2) not null
+    total_invested decimal(15,2) not null,
+    version bigint not null default 0
+);
+
+create table if not exists nav_snapshot(
+    id int primary key,
+    snapshot_date date not null unique,
+    purse decimal(15,2) not null,
+    market_value decimal(15,2) not null,
+    cost_basis decimal(15,2) not null,
+    nav decimal(15,2) not null
+);
+
+create table if not exists nav_position(
+    id int primary key,
+    snapshot_date date not null,
+    symbol varchar(200) not null,
+    quantity int not null,
+    cost_basis decimal(15,2) not null,
+    price decimal(19,6) not null,
+    market_value decimal(15,2) not null,
+    unique index idx_nav_position_date_symbol (snapshot_date, symbol)
+);
+
+create table if not exists ledger_checkpoint(
+    id int primary key,
+    through_transaction_id int not null unique,
+    purse decimal(15,2) not null,
+    rows_folded bigint not null,
+    created_at datetime not null
+);
+
+create table if not exists ledger_checkpoint_position(
+    id int primary key,
+    checkpoint_id int not null,
+    symbol varchar(200) not null,
+    quantity int not null,
+    total_invested decimal(15,2) not null,
+    replayable boolean not null,
+    index idx_ledger_checkpoint_position_checkpoint (checkpoint_id)
 );
 
 insert into watchlist (stock) values ('AAPL'), ('GOOGL'), ('MSFT');
@@ -31,6 +79,58 @@ insert into transactions (date, type, transaction_value, purse_value, status) va
 ('2026-02-03', 'BUY GOOGL', 3400, 3900, true),
 ('2026-02-03', 'BUY MSFT', 4100, 3900, false);
 
+insert into account_balance (id, purse_value) values (1, 3900);
+
 insert into holdings (stock, quantity, total_invested) values
 ('AAPL', 10, 2700),
-('GOOGL', 10, 3400);
\ No newline at end of file
+('GOOGL', 10, 3400);
+
+-- Hibernate sequence tables (MySQL emulates sequences with a table). Ids are
+-- allocated in blocks of 50 with the pooled-lo optimizer, so next_val must
+-- start after any rows that already exist. The application also does this on
+-- every start (IdSequenceInitializer), for databases not created from here.
+-- Each table holds a single row, so the inserts only run while it is empty.
+create table if not exists transactions_seq(
+    next_val bigint
+);
+
+create table if not exists watchlist_seq(
+    next_val bigint
+);
+
+create table if not exists holdings_seq(
+    next_val bigint
+);
+
+create table if not exists nav_snapshot_seq(
+    next_val bigint
+);
+
+create table if not exists nav_position_seq(
+    next_val bigint
+);
+
+insert into transactions_seq (next_val)
+select next_val from (select coalesce(max(id), 0) + 1 as next_val from transactions) seed
+where not exists (select 1 from transactions_seq);
+insert into holdings_seq (next_val)
+select next_val from (select coalesce(max(id), 0) + 1 as next_val from holdings) seed
+where not exists (select 1 from holdings_seq);
+insert into watchlist_seq (next_val)
+select next_val from (select coalesce(max(id), 0) + 1 as next_val from watchlist) seed
+where not exists (select 1 from watchlist_seq);
+
+-- Watchlists created before idx_watchlist_stock are normalized on startup by
+-- WatchlistMigration, before Hibernate adds the index.
+create table if not exists ledger_checkpoint_seq(
+    next_val bigint
+);
+
+create table if not exists ledger_checkpoint_position_seq(
+    next_val bigint
+);
+
+insert into nav_snapshot_seq (next_val) select 1 from dual where not exists (select 1 from nav_snapshot_seq);
+insert into nav_position_seq (next_val) select 1 from dual where not exists (select 1 from nav_position_seq);
+insert into ledger_checkpoint_seq (next_val) select 1 from dual where not exists (select 1 from ledger_checkpoint_seq);
+insert into ledger_checkpoint_position_seq (next_val) select 1 from dual where not exists (select 1 from ledger_checkpoint_position_seq);
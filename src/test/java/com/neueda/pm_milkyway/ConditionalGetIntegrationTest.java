@@ -0,0 +1,117 @@
+package com.neueda.pm_milkyway;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETags and If-None-Match on the read endpoints, through the real MVC stack
+ * and an H2 ledger.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-get;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class ConditionalGetIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void ledgerEndpoints_shouldReturn304_untilTheLedgerChanges() throws Exception {
+        // Given: A first response and its tag
+        String etag = mockMvc.perform(get("/api/dashboard/stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When & Then: The same tag is not modified on every ledger-backed endpoint
+        for (String path : new String[] { "/api/dashboard/stats", "/api/purse-value", "/api/transactions" }) {
+            mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+        }
+
+        // When: The purse changes
+        mockMvc.perform(post("/api/purse/add").param("amount", "25")).andExpect(status().isOk());
+
+        // Then: The old tag gets the full, updated body under a new tag
+        String newEtag = mockMvc.perform(get("/api/purse-value").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+        mockMvc.perform(get("/api/purse-value").header(HttpHeaders.IF_NONE_MATCH, newEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void watchlist_shouldReturn304_untilTheWatchlistChanges() throws Exception {
+        // Given
+        String etag = mockMvc.perform(get("/api/watchlist"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/watchlist").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // When
+        mockMvc.perform(post("/api/watchlist/add/aapl")).andExpect(status().isOk());
+
+        // Then
+        mockMvc.perform(get("/api/watchlist").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[\"AAPL\"]"));
+    }
+
+    @Test
+    void tags_shouldDifferPerEncoding_andVaryOnAccept() throws Exception {
+        // Given: The tag of the JSON representation
+        MockHttpServletResponse json = mockMvc.perform(get("/api/watchlist").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertVariesOnAccept(json);
+        String jsonEtag = json.getHeader(HttpHeaders.ETAG);
+
+        // When: It is sent back asking for CBOR
+        String cborEtag = mockMvc.perform(get("/api/watchlist").accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                // Then: The CBOR body is sent in full, under its own tag
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(jsonEtag, cborEtag);
+
+        // And: Each tag still validates its own encoding, and the 304 varies on Accept too
+        assertVariesOnAccept(mockMvc.perform(get("/api/watchlist").accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, cborEtag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse());
+        mockMvc.perform(get("/api/watchlist").accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    private static void assertVariesOnAccept(MockHttpServletResponse response) {
+        String vary = String.join(",", response.getHeaders(HttpHeaders.VARY));
+        assertTrue(List.of(vary.split("\\s*,\\s*")).contains(HttpHeaders.ACCEPT), "Vary: " + vary);
+    }
+}
@@ -0,0 +1,87 @@
+package com.neueda.pm_milkyway;
+
+import java.util.Comparator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * JSON, CBOR and Smile responses chosen by the Accept header, through the
+ * real MVC stack and an H2 ledger.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:content-negotiation;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class ContentNegotiationIntegrationTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    // Binary formats keep amounts as decimals where JSON text reads back as doubles
+    private static final Comparator<JsonNode> SAME_NUMBER = (a, b) -> a.isNumber() && b.isNumber()
+            ? Double.compare(a.doubleValue(), b.doubleValue())
+            : a.equals(b) ? 0 : 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void transactions_shouldStayJson_whenClientAcceptsAnything() throws Exception {
+        // Given: One ledger row
+        mockMvc.perform(post("/api/purse/add").param("amount", "100")).andExpect(status().isOk());
+
+        // When & Then: No Accept header and */* both get JSON
+        mockMvc.perform(get("/api/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/transactions").header(HttpHeaders.ACCEPT, "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void transactions_shouldEncodeTheSamePage_asCborAndSmile() throws Exception {
+        // Given: One ledger row and its JSON page
+        mockMvc.perform(post("/api/purse/add").param("amount", "250")).andExpect(status().isOk());
+        byte[] json = mockMvc.perform(get("/api/transactions").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // When: Asking for the binary encodings
+        byte[] cbor = mockMvc.perform(get("/api/transactions").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(get("/api/transactions").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then: Both decode to the JSON document, dates included, in fewer bytes
+        JsonNode expected = new ObjectMapper().readTree(json);
+        assertTrue(expected.equals(SAME_NUMBER, new ObjectMapper(new CBORFactory()).readTree(cbor)));
+        assertTrue(expected.equals(SAME_NUMBER, new ObjectMapper(new SmileFactory()).readTree(smile)));
+        assertTrue(expected.at("/items/0/date").isTextual());
+        assertTrue(cbor.length < json.length && smile.length < json.length);
+    }
+}
@@ -0,0 +1,111 @@
+package com.neueda.pm_milkyway;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.NestedTestConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import com.neueda.pm_milkyway.service.TradeExecutionService;
+import com.neueda.pm_milkyway.service.WatchlistService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the application on a database laid out and filled the way the
+ * application left it before ids came from sequences ({@code legacy-schema.sql}),
+ * with {@code ddl-auto=update} as in production, and checks that new rows do
+ * not collide with the old ones and that the watchlist gets its unique index.
+ * The nested class does the same for the first watchlist layout, keyed by
+ * {@code stock} with no {@code id} column ({@code legacy-stock-key-schema.sql}).
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:legacy-upgrade;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:legacy-schema.sql",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.jpa.show-sql=false"
+})
+class LegacySchemaUpgradeIntegrationTest {
+
+    @Autowired
+    private TradeExecutionService tradeExecutionService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void trade_shouldGetFreshIds_whenTablesPredateTheSequences() {
+        // Given: Four ledger rows and two holdings with AUTO_INCREMENT ids
+
+        // When: A new position is opened
+        tradeExecutionService.buy("NVDA", 1, 10.0);
+
+        // Then
+        List<Integer> ledgerIds = jdbcTemplate.queryForList("select id from transactions order by id", Integer.class);
+        assertEquals(5, ledgerIds.size());
+        assertTrue(ledgerIds.get(4) > 4, "new ledger id " + ledgerIds.get(4));
+        Integer holdingId = jdbcTemplate.queryForObject("select id from holdings where stock = 'NVDA'", Integer.class);
+        assertTrue(holdingId > 2, "new holding id " + holdingId);
+    }
+
+    @Test
+    void watchlist_shouldBeNormalizedAndUnique_whenTablePredatesTheIndex() {
+        // Given: AAPL, GOOGL, MSFT, ' aapl', MSFT and 'tsla ' before the upgrade
+
+        // Then: The oldest row of each symbol is kept, upper-cased and trimmed
+        assertEquals(List.of("AAPL", "GOOGL", "MSFT", "TSLA"),
+                jdbcTemplate.queryForList("select stock from watchlist order by id", String.class));
+        assertEquals(List.of(1, 2, 3, 6), jdbcTemplate.queryForList("select id from watchlist order by id", Integer.class));
+
+        // And: The unique index is in place
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("insert into watchlist (id, stock) values (100, 'AAPL')"));
+    }
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:legacy-stock-key;DB_CLOSE_DELAY=-1",
+            "spring.datasource.driver-class-name=org.h2.Driver",
+            "spring.sql.init.mode=always",
+            "spring.sql.init.schema-locations=classpath:legacy-stock-key-schema.sql",
+            "spring.jpa.hibernate.ddl-auto=update",
+            "spring.jpa.show-sql=false"
+    })
+    class WatchlistKeyedByStock {
+
+        @Autowired
+        private WatchlistService watchlistService;
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        void watchlist_shouldGainAnIdKey_whenTablePredatesIt() {
+            // Given: MSFT, AAPL, ' aapl', 'tsla ' and GOOGL keyed by symbol, no id column
+
+            // Then: One row per symbol is kept, normalized and numbered in symbol order
+            assertEquals(List.of("AAPL", "GOOGL", "MSFT", "TSLA"),
+                    jdbcTemplate.queryForList("select stock from watchlist order by id", String.class));
+            assertEquals(List.of(1, 2, 3, 4),
+                    jdbcTemplate.queryForList("select id from watchlist order by id", Integer.class));
+
+            // And: New symbols get fresh ids and repeats hit the unique index
+            watchlistService.addToWatchList("NVDA");
+            Integer nvdaId = jdbcTemplate.queryForObject("select id from watchlist where stock = 'NVDA'",
+                    Integer.class);
+            assertTrue(nvdaId > 4, "new watchlist id " + nvdaId);
+            assertThrows(DataIntegrityViolationException.class,
+                    () -> jdbcTemplate.update("insert into watchlist (id, stock) values (100, 'AAPL')"));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.neueda.pm_milkyway;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Trade, service, repository and cache meters on the Prometheus endpoint,
+ * through the real MVC stack and an H2 ledger.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheus_shouldExposeTradeServiceRepositoryAndCacheMeters() throws Exception {
+        // Given: One executed and one rejected trade, and a watchlist read
+        mockMvc.perform(post("/api/purse/add").param("amount", "1000")).andExpect(status().isOk());
+        mockMvc.perform(post("/api/transactions/buy").param("symbol", "AAPL").param("quantity", "1")
+                .param("price", "100")).andExpect(status().isOk());
+        mockMvc.perform(post("/api/transactions/sell").param("symbol", "NONE").param("quantity", "1")
+                .param("price", "100")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/watchlist")).andExpect(status().isOk());
+
+        // When
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertTrue(scrape.contains("trades_executed_total{operation=\"buy\"} 1.0"), scrape);
+        assertTrue(scrape.contains("trades_rejected_total{operation=\"sell\"} 1.0"));
+        assertTrue(scrape.contains("trades_latency_seconds_bucket{operation=\"buy\",outcome=\"executed\",le="));
+        assertTrue(scrape.contains("service_calls_seconds_count{class=\"com.neueda.pm_milkyway.service.TransactionsService\""
+                + ",exception=\"none\",method=\"executePurchase\"}"));
+        assertTrue(scrape.contains("method=\"getWatchlistItems\""));
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_count{"));
+        assertTrue(scrape.contains("cache_gets_total{cache=\"watchlist\""));
+        assertTrue(scrape.contains("cache_gets_total{cache=\"quotes\""));
+        assertTrue(scrape.contains("cache_gets_total{cache=\"ticker-search\""));
+    }
+}
@@ -0,0 +1,169 @@
+package com.neueda.pm_milkyway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.neueda.pm_milkyway.dto.TradeOrder;
+import com.neueda.pm_milkyway.service.TradeExecutionService;
+import com.neueda.pm_milkyway.service.TransactionsService;
+import com.neueda.pm_milkyway.service.WatchlistService;
+import com.neueda.pm_milkyway.support.QueryCounter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement and row budgets for service and controller flows, run
+ * against an H2 database that already holds many holdings and watchlist
+ * symbols. A flow that starts reading a whole table or issuing a query per
+ * row blows its budget here, where the mocked service tests would not
+ * notice.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Import(QueryCounter.Config.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class QueryBudgetIntegrationTest {
+
+    private static final int HOLDINGS = 60;
+    private static final int WATCHLIST = 40;
+    // Watchlist symbols the tests themselves add, in whatever order they run
+    private static final int ADDED_BY_TESTS = 4;
+
+    // Purse read, purse update, new balance, holding lookup, ledger insert, holding write
+    private static final int TRADE_STATEMENTS = 6;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TransactionsService transactionsService;
+    @Autowired
+    private TradeExecutionService tradeExecutionService;
+    @Autowired
+    private WatchlistService watchlistService;
+    @Autowired
+    private QueryCounter queries;
+
+    @BeforeAll
+    void seed() {
+        transactionsService.addToPurse(1_000_000);
+        for (int i = 0; i < HOLDINGS; i++)
+            tradeExecutionService.buy(symbol(i), 10, 10.0);
+        List<String> watched = new ArrayList<>();
+        for (int i = 0; i < WATCHLIST; i++)
+            watched.add(symbol(i));
+        watchlistService.addAll(watched);
+    }
+
+    @Test
+    void trades_shouldStayWithinBudget_whateverTheNumberOfHoldings() throws Exception {
+        queries.measure(() -> tradeExecutionService.buy(symbol(1), 1, 10.0))
+                .assertWithin("buy of a held symbol", TRADE_STATEMENTS, 3);
+        queries.measure(() -> tradeExecutionService.buy("QNEW", 1, 10.0))
+                .assertWithin("buy of a new symbol", TRADE_STATEMENTS, 2);
+        queries.measure(() -> tradeExecutionService.sell(symbol(2), 1, 10.0))
+                .assertWithin("sell", TRADE_STATEMENTS, 2);
+        queries.measure(() -> tradeExecutionService.adjust(symbol(3), "PLUS", 10.0))
+                .assertWithin("adjust", TRADE_STATEMENTS, 3);
+        queries.measure(() -> transactionsService.getPurseValue())
+                .assertWithin("purse value", 1, 1);
+    }
+
+    @Test
+    void batch_shouldUseTheSameStatements_forTwoOrTwentyOrders() throws Exception {
+        // Given
+        List<TradeOrder> two = orders(10, 2);
+        List<TradeOrder> twenty = orders(20, 20);
+
+        // When
+        QueryCounter.Count small = queries.measure(() -> tradeExecutionService.batch(two));
+        QueryCounter.Count large = queries.measure(() -> tradeExecutionService.batch(twenty));
+
+        // Then: One lookup of all the symbols and JDBC batches for the writes
+        small.assertWithin("batch of 2", TRADE_STATEMENTS, two.size() + 2);
+        large.assertWithin("batch of 20", TRADE_STATEMENTS, twenty.size() + 2);
+        assertEquals(small.statements(), large.statements());
+    }
+
+    @Test
+    void watchlist_shouldReadOnce_andWriteWithoutReadingTheTable() throws Exception {
+        queries.measure(() -> watchlistService.addToWatchList("WNEW"))
+                .assertWithin("watchlist add", 2, 0);
+        queries.measure(() -> watchlistService.addAll(List.of("WNEW2", "WNEW3", symbol(0))))
+                .assertWithin("watchlist add of three", 2, 1);
+        queries.measure(() -> watchlistService.removeFromWatchlist("WNEW"))
+                .assertWithin("watchlist remove", 1, 0);
+        queries.measure(() -> watchlistService.getWatchlistItems())
+                .assertWithin("watchlist load", 1, WATCHLIST + ADDED_BY_TESTS);
+        queries.measure(() -> watchlistService.getWatchlistItems())
+                .assertWithin("cached watchlist", 0, 0);
+    }
+
+    @Test
+    void readEndpoints_shouldAnswerFromMemory_orOnePagedQuery() throws Exception {
+        queries.measure(() -> mockMvc.perform(get("/api/dashboard/stats")).andExpect(status().isOk()))
+                .assertWithin("GET /api/dashboard/stats", 0, 0);
+        queries.measure(() -> mockMvc.perform(get("/api/purse-value")).andExpect(status().isOk()))
+                .assertWithin("GET /api/purse-value", 0, 0);
+        // Keyset pages read one row past the limit to know whether there is a next page
+        queries.measure(() -> mockMvc.perform(get("/api/transactions").param("limit", "10"))
+                .andExpect(status().isOk()))
+                .assertWithin("GET /api/transactions?limit=10", 1, 11);
+    }
+
+    @Test
+    void writeEndpoints_shouldStayWithinBudget() throws Exception {
+        queries.measure(() -> mockMvc.perform(post("/api/transactions/buy").param("symbol", symbol(5))
+                .param("quantity", "1").param("price", "10")).andExpect(status().isOk()))
+                .assertWithin("POST /api/transactions/buy", TRADE_STATEMENTS, 3);
+        queries.measure(() -> mockMvc.perform(post("/api/transactions/sell").param("symbol", "NONE")
+                .param("quantity", "1").param("price", "10")).andExpect(status().isBadRequest()))
+                .assertWithin("rejected POST /api/transactions/sell", 1, 0);
+        queries.measure(() -> mockMvc.perform(post("/api/purse/add").param("amount", "10"))
+                .andExpect(status().isOk()))
+                .assertWithin("POST /api/purse/add", 3, 1);
+        queries.measure(() -> mockMvc.perform(post("/api/watchlist/add").contentType(MediaType.APPLICATION_JSON)
+                .content("[\"WPOST1\",\"WPOST2\"]")).andExpect(status().isOk()))
+                // Neither symbol exists; the rows are the watchlist reloaded for the response
+                .assertWithin("POST /api/watchlist/add", 3, WATCHLIST + ADDED_BY_TESTS);
+    }
+
+    @Test
+    void ledgerVerify_shouldStreamTheLedger_inAFixedNumberOfStatements() throws Exception {
+        // The replay reads every ledger row by design; what must not grow is the statement count
+        queries.measure(() -> mockMvc.perform(get("/api/ledger/verify")).andExpect(status().isOk()))
+                .assertWithin("GET /api/ledger/verify", 5, Long.MAX_VALUE);
+    }
+
+    private static List<TradeOrder> orders(int first, int count) {
+        List<TradeOrder> orders = new ArrayList<>();
+        for (int i = first; i < first + count; i++)
+            orders.add(new TradeOrder(symbol(i), i % 2 == 0 ? "BUY" : "SELL", 1, 10.0));
+        return orders;
+    }
+
+    private static String symbol(int i) {
+        return String.format(Locale.ROOT, "Q%03d", i);
+    }
+}
@@ -0,0 +1,135 @@
+package com.neueda.pm_milkyway;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.neueda.pm_milkyway.service.TradeExecutionService;
+import com.neueda.pm_milkyway.service.TransactionsService;
+import com.neueda.pm_milkyway.support.StatementGates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives concurrent buy/sell cycles through {@link TradeExecutionService}
+ * against H2 and checks that the purse and the ledger end up exactly where
+ * the arithmetic says they should, with every position closed, and that a
+ * trade holding the balance row does not stop another symbol's trade from
+ * writing its holdings.
+ */
+@SpringBootTest
+@Import(StatementGates.Config.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:trade-stress;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class TradeExecutionStressTest {
+
+    private static final int CYCLES_PER_THREAD = 50;
+    private static final double BUY_PRICE = 10.0;
+    private static final double SELL_PRICE = 12.5;
+
+    private static final Duration GATE_TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private TradeExecutionService tradeExecutionService;
+    @Autowired
+    private TransactionsService transactionsService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StatementGates statementGates;
+
+    @Test
+    void concurrentTrades_shouldKeepPurseExact() throws Exception {
+        transactionsService.addToPurse(1_000_000.0);
+        double expectedPurse = transactionsService.getPurseValue();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : new int[] { 1, 2, 4, Math.max(cores, 8) }) {
+            // Distinct symbol per thread plus a shared symbol to exercise same-stripe contention
+            runCycles(threads, t -> t % 4 == 3 ? "SHARED" : "SYM" + t);
+            expectedPurse += threads * CYCLES_PER_THREAD * (SELL_PRICE - BUY_PRICE);
+        }
+
+        assertEquals(0, BigDecimal.valueOf(expectedPurse)
+                .compareTo(BigDecimal.valueOf(transactionsService.getPurseValue())));
+        BigDecimal lastLedgerPurse = jdbcTemplate.queryForObject(
+                "select purse_value from transactions order by id desc limit 1", BigDecimal.class);
+        assertEquals(0, BigDecimal.valueOf(expectedPurse).compareTo(lastLedgerPurse));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from holdings", Integer.class));
+    }
+
+    @Test
+    void tradeOnAnotherSymbol_shouldWriteItsHolding_whileTheBalanceRowIsLocked() throws Exception {
+        transactionsService.addToPurse(1_000_000.0);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        // Held just after its purse update, so it keeps the balance row locked until released
+        StatementGates.Gate balanceLocked = statementGates.holdAfter("update account_balance");
+        StatementGates.Gate holdingWritten = null;
+        try {
+            Future<?> first = pool.submit(() -> tradeExecutionService.buy("GATE1", 1, BUY_PRICE));
+            assertTrue(balanceLocked.awaitReached(GATE_TIMEOUT));
+            // Armed only now so the first trade's own holding insert, which came before, is not caught
+            holdingWritten = statementGates.holdAfter("insert into holdings");
+            Future<?> second = pool.submit(() -> tradeExecutionService.buy("GATE2", 1, BUY_PRICE));
+            assertTrue(holdingWritten.awaitReached(GATE_TIMEOUT),
+                    "A trade on another symbol could not write its holding while the balance row was locked");
+
+            balanceLocked.open();
+            holdingWritten.open();
+            first.get();
+            second.get();
+        } finally {
+            balanceLocked.open();
+            if (holdingWritten != null)
+                holdingWritten.open();
+            pool.shutdownNow();
+        }
+
+        tradeExecutionService.sell("GATE1", 1, SELL_PRICE);
+        tradeExecutionService.sell("GATE2", 1, SELL_PRICE);
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from holdings", Integer.class));
+    }
+
+    private void runCycles(int threads, IntFunction<String> symbolForThread) throws Exception {
+        runCycles(threads, CYCLES_PER_THREAD, symbolForThread);
+    }
+
+    private void runCycles(int threads, int cycles, IntFunction<String> symbolForThread)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String symbol = symbolForThread.apply(t);
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < cycles; i++) {
+                        tradeExecutionService.buy(symbol, 1, BUY_PRICE);
+                        tradeExecutionService.sell(symbol, 1, SELL_PRICE);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.neueda.pm_milkyway.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a JMH JSON result file with a baseline from an earlier release
+ * and fails when any benchmark got slower by more than the tolerance.
+ *
+ * Results are matched by benchmark name, mode and parameters. A score
+ * counts as a regression only when it is worse than the baseline by more
+ * than {@code tolerance} percent and by more than both scores' error
+ * margins combined, so noisy runs do not fail the build. Benchmarks present
+ * in only one file are listed and ignored. Run by the {@code benchmark}
+ * profile after the suites when {@code -Djmh.baseline=<file>} is given:
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark test -Djmh.baseline=benchmarks/1.2.0.json [-Djmh.tolerance=10]
+ * </pre>
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 2)
+                options.put(arg.substring(2, eq), arg.substring(eq + 1).trim());
+        }
+        String baseline = options.getOrDefault("baseline", "");
+        if (baseline.isEmpty()) {
+            System.out.println("No benchmark baseline given (-Djmh.baseline); skipping comparison");
+            return;
+        }
+        double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "10"));
+        List<String> regressions = compare(read(Path.of(baseline)),
+                read(Path.of(options.getOrDefault("current", "target/jmh-result.json"))), tolerance);
+        if (!regressions.isEmpty()) {
+            System.err.println(regressions.size() + " benchmark(s) regressed by more than " + tolerance + "%:");
+            regressions.forEach(line -> System.err.println("  " + line));
+            System.exit(1);
+        }
+    }
+
+    /** Prints every matched result and returns a line for each regression. */
+    static List<String> compare(Map<String, Result> baseline, Map<String, Result> current, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-80s %12.3f %s (new)%n", entry.getKey(), after.score(), after.unit());
+                continue;
+            }
+            // Positive when worse: higher times, or lower throughput
+            double change = (after.score() - before.score()) / before.score() * 100;
+            double worse = after.higherIsBetter() ? -change : change;
+            double worseBy = after.higherIsBetter() ? before.score() - after.score() : after.score() - before.score();
+            boolean regressed = worse > tolerance && worseBy > before.error() + after.error();
+            String line = String.format("%-80s %12.3f -> %12.3f %s (%+.1f%%)%s", entry.getKey(), before.score(),
+                    after.score(), after.unit(), change, regressed ? " REGRESSION" : "");
+            System.out.println(line);
+            if (regressed)
+                regressions.add(line);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key))
+                System.out.printf("%-80s (not run)%n", key);
+        }
+        return regressions;
+    }
+
+    /** Results of one JMH JSON file keyed by benchmark, mode and sorted parameters. */
+    static Map<String, Result> read(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(Files.readAllBytes(file))) {
+            Map<String, String> params = new TreeMap<>();
+            for (Map.Entry<String, JsonNode> param : run.path("params").properties())
+                params.put(param.getKey(), param.getValue().asText());
+            String key = run.path("benchmark").asText() + " [" + run.path("mode").asText() + "]"
+                    + (params.isEmpty() ? "" : " " + params);
+            JsonNode metric = run.path("primaryMetric");
+            double error = metric.path("scoreError").asDouble(0);
+            results.put(key, new Result(metric.path("score").asDouble(), Double.isNaN(error) ? 0 : error,
+                    metric.path("scoreUnit").asText(), "thrpt".equals(run.path("mode").asText())));
+        }
+        return results;
+    }
+
+    record Result(double score, double error, String unit, boolean higherIsBetter) {
+    }
+}
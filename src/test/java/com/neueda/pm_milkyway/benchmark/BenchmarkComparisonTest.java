@@ -0,0 +1,60 @@
+package com.neueda.pm_milkyway.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BenchmarkComparisonTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compare_shouldFlagOnlySlowdownsBeyondToleranceAndError() throws Exception {
+        // Given: A baseline and a run where one benchmark got 50% slower and one 5% slower
+        Map<String, BenchmarkComparison.Result> baseline = BenchmarkComparison.read(write("baseline.json",
+                run("a.Bench.slow", "avgt", 100, 2) + "," + run("a.Bench.noisy", "avgt", 100, 2)));
+        Map<String, BenchmarkComparison.Result> current = BenchmarkComparison.read(write("current.json",
+                run("a.Bench.slow", "avgt", 150, 2) + "," + run("a.Bench.noisy", "avgt", 105, 2)));
+
+        // When
+        List<String> regressions = BenchmarkComparison.compare(baseline, current, 10);
+
+        // Then
+        assertEquals(1, regressions.size());
+        assertTrue(regressions.get(0).startsWith("a.Bench.slow [avgt] {size=10}"));
+    }
+
+    @Test
+    void compare_shouldTreatLowerThroughputAsARegression_andSkipUnmatchedRuns() throws Exception {
+        // Given: Throughput halved, plus a benchmark the baseline does not have
+        Map<String, BenchmarkComparison.Result> baseline = BenchmarkComparison.read(write("baseline.json",
+                run("a.Bench.ops", "thrpt", 1000, 10)));
+        Map<String, BenchmarkComparison.Result> current = BenchmarkComparison.read(write("current.json",
+                run("a.Bench.ops", "thrpt", 500, 10) + "," + run("a.Bench.added", "avgt", 1, 0)));
+
+        // When
+        List<String> regressions = BenchmarkComparison.compare(baseline, current, 10);
+
+        // Then
+        assertEquals(1, regressions.size());
+        assertTrue(regressions.get(0).contains("-50.0%"));
+    }
+
+    private Path write(String name, String runs) throws Exception {
+        return Files.writeString(dir.resolve(name), "[" + runs + "]");
+    }
+
+    private static String run(String benchmark, String mode, double score, double error) {
+        return "{\"benchmark\":\"" + benchmark + "\",\"mode\":\"" + mode + "\",\"params\":{\"size\":\"10\"},"
+                + "\"primaryMetric\":{\"score\":" + score + ",\"scoreError\":" + error
+                + ",\"scoreUnit\":\"us/op\"}}";
+    }
+}
@@ -0,0 +1,163 @@
+package com.neueda.pm_milkyway.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.neueda.pm_milkyway.dto.Money;
+
+/**
+ * The purse and cost-basis arithmetic of a run of trades, done the three
+ * ways the code base has used: doubles converted with
+ * {@code BigDecimal.valueOf} for every stored amount (the previous trade
+ * path), BigDecimal throughout (the previous ledger replay), and cents in a
+ * {@code long} with one {@link Money} per stored amount (the current path).
+ * Every variant hands each stored amount to the blackhole, as a trade hands
+ * them to its entities. Add {@code -prof gc} when running through
+ * {@code org.openjdk.jmh.Main} to see the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final double OPENING_PURSE = 1_000_000_000.0;
+
+    @Param({ "1000" })
+    public int trades;
+
+    // Positive quantities are buys, negative ones sells
+    private int[] quantities;
+    private double[] prices;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        quantities = new int[trades];
+        prices = new double[trades];
+        int held = 0;
+        for (int i = 0; i < trades; i++) {
+            int quantity = 1 + random.nextInt(50);
+            if (held > 0 && random.nextBoolean()) {
+                quantity = -Math.min(quantity, held);
+            }
+            held += quantity;
+            quantities[i] = quantity;
+            // Quotes carry up to four decimals
+            prices[i] = 50 + random.nextInt(2_000_000) / 10_000.0;
+        }
+    }
+
+    @Benchmark
+    public double doubleWithValueOf(Blackhole blackhole) {
+        double purse = OPENING_PURSE;
+        double invested = 0;
+        int held = 0;
+        for (int i = 0; i < trades; i++) {
+            int quantity = quantities[i];
+            double value = Math.abs(quantity) * prices[i];
+            if (quantity > 0) {
+                purse -= value;
+                invested += value;
+            } else {
+                double averageCost = invested / held;
+                purse += value;
+                invested = held + quantity == 0 ? 0.0 : invested + averageCost * quantity;
+            }
+            held += quantity;
+            blackhole.consume(BigDecimal.valueOf(value));
+            blackhole.consume(BigDecimal.valueOf(purse));
+            blackhole.consume(invested);
+        }
+        return purse + invested;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal(Blackhole blackhole) {
+        BigDecimal purse = BigDecimal.valueOf(OPENING_PURSE);
+        BigDecimal invested = BigDecimal.ZERO;
+        int held = 0;
+        for (int i = 0; i < trades; i++) {
+            int quantity = quantities[i];
+            BigDecimal value = BigDecimal.valueOf(prices[i]).multiply(BigDecimal.valueOf(Math.abs(quantity)))
+                    .setScale(Money.SCALE, RoundingMode.HALF_UP);
+            if (quantity > 0) {
+                purse = purse.subtract(value);
+                invested = invested.add(value);
+            } else {
+                purse = purse.add(value);
+                invested = invested.subtract(invested.multiply(BigDecimal.valueOf(-quantity))
+                        .divide(BigDecimal.valueOf(held), Money.SCALE, RoundingMode.HALF_UP));
+            }
+            held += quantity;
+            blackhole.consume(value);
+            blackhole.consume(purse);
+            blackhole.consume(invested);
+        }
+        return purse.add(invested);
+    }
+
+    @Benchmark
+    public long moneyCents(Blackhole blackhole) {
+        long purse = Money.toCents(OPENING_PURSE);
+        long invested = 0;
+        int held = 0;
+        for (int i = 0; i < trades; i++) {
+            int quantity = quantities[i];
+            long value = Money.costCents(Math.abs(quantity), prices[i]);
+            if (quantity > 0) {
+                purse -= value;
+                invested += value;
+            } else {
+                purse += value;
+                invested -= Money.proportionCents(invested, -quantity, held);
+            }
+            held += quantity;
+            blackhole.consume(Money.ofCents(value));
+            blackhole.consume(Money.ofCents(purse));
+            blackhole.consume(Money.ofCents(invested));
+        }
+        return purse + invested;
+    }
+
+    /** The cents path without wrapping, i.e. the arithmetic alone. */
+    @Benchmark
+    public long moneyCentsUnwrapped(Blackhole blackhole) {
+        long purse = Money.toCents(OPENING_PURSE);
+        long invested = 0;
+        int held = 0;
+        for (int i = 0; i < trades; i++) {
+            int quantity = quantities[i];
+            long value = Money.costCents(Math.abs(quantity), prices[i]);
+            if (quantity > 0) {
+                purse -= value;
+                invested += value;
+            } else {
+                purse += value;
+                invested -= Money.proportionCents(invested, -quantity, held);
+            }
+            held += quantity;
+            blackhole.consume(value);
+            blackhole.consume(purse);
+            blackhole.consume(invested);
+        }
+        return purse + invested;
+    }
+}
@@ -0,0 +1,87 @@
+package com.neueda.pm_milkyway.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.QuoteBatch;
+import com.neueda.pm_milkyway.service.MarketDataClient;
+import com.neueda.pm_milkyway.service.MarketLookupService;
+
+/**
+ * Batch quote latency with many concurrent callers and a slow upstream.
+ * Every call asks for {@code symbols} symbols nobody has asked for before,
+ * and each fetch answers after {@code upstreamLatencyMs} without holding a
+ * thread, as {@link MarketDataClient#fetchQuoteAsync} does. At most
+ * {@code maxFetches} are in flight across all callers, as with the default
+ * quote lane, so the score shows how long a batch waits for its turn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(32)
+@Fork(1)
+public class QuoteFanOutBenchmark {
+
+    @Param({ "20" })
+    public int upstreamLatencyMs;
+
+    @Param({ "10" })
+    public int symbols;
+
+    @Param({ "16" })
+    public int maxFetches;
+
+    private final AtomicLong nextSymbol = new AtomicLong();
+    private MarketLookupService marketLookupService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MarketDataClient slowUpstream = Mockito.mock(MarketDataClient.class, Mockito.withSettings().stubOnly());
+        Executor upstream = CompletableFuture.delayedExecutor(upstreamLatencyMs, TimeUnit.MILLISECONDS);
+        Mockito.when(slowUpstream.fetchQuoteAsync(ArgumentMatchers.anyString())).thenAnswer(
+                invocation -> CompletableFuture.supplyAsync(() -> {
+                    Quote quote = new Quote();
+                    quote.setPrice(100.0);
+                    return quote;
+                }, upstream));
+        // Zero TTL so every lookup goes upstream
+        marketLookupService = new MarketLookupService(slowUpstream, new ObjectMapper(), Duration.ZERO, 10_000, "",
+                Duration.ofMinutes(1), maxFetches);
+    }
+
+    @Benchmark
+    public QuoteBatch batchLookup() {
+        List<String> fresh = new ArrayList<>(symbols);
+        for (int i = 0; i < symbols; i++)
+            fresh.add("F" + nextSymbol.incrementAndGet());
+        QuoteBatch batch = marketLookupService.getQuotes(fresh);
+        if (!batch.getErrors().isEmpty())
+            throw new IllegalStateException("Lookups failed: " + batch.getErrors());
+        return batch;
+    }
+}
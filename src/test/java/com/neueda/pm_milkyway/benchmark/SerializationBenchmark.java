@@ -0,0 +1,149 @@
+package com.neueda.pm_milkyway.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+
+/**
+ * A page of ledger rows encoded as JSON, CBOR and Smile by mappers built the
+ * way the web layer builds them. {@code serialize} and {@code deserialize}
+ * handle the rows as one array, as {@code /api/transactions} does;
+ * {@code serializeStream} writes them one at a time through a
+ * {@link SequenceWriter}, as the export does. The encoded size of the array
+ * is printed once per fork.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final String[] SYMBOLS = { "AAPL", "MSFT", "GOOGL", "AMZN", "NVDA", "TSLA", "META", "BRK.B" };
+
+    @Param({ "json", "cbor", "smile" })
+    public String format;
+
+    @Param({ "1000" })
+    public int rows;
+
+    private List<TransactionEntity> ledger;
+    private ObjectWriter arrayWriter;
+    private ObjectWriter rowWriter;
+    private ObjectReader arrayReader;
+    private byte[] encoded;
+    private ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        ledger = ledger(rows);
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .factory(factory(format))
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        arrayWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class,
+                TransactionEntity.class));
+        rowWriter = mapper.writerFor(TransactionEntity.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if ("json".equals(format))
+            rowWriter = rowWriter.withRootValueSeparator("\n");
+        arrayReader = mapper.readerForListOf(TransactionEntity.class);
+        encoded = arrayWriter.writeValueAsBytes(ledger);
+        buffer = new ByteArrayOutputStream(encoded.length * 2);
+        System.out.printf("%n%s: %d rows in %d bytes (%.1f bytes/row)%n", format, rows, encoded.length,
+                (double) encoded.length / rows);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return arrayWriter.writeValueAsBytes(ledger);
+    }
+
+    @Benchmark
+    public int serializeStream() throws IOException {
+        buffer.reset();
+        try (SequenceWriter sequence = rowWriter.writeValues(buffer)) {
+            for (TransactionEntity row : ledger)
+                sequence.write(row);
+        }
+        return buffer.size();
+    }
+
+    @Benchmark
+    public List<TransactionEntity> deserialize() throws IOException {
+        return arrayReader.readValue(encoded);
+    }
+
+    private static JsonFactory factory(String format) {
+        return switch (format) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+
+    // Buys and sells of a few symbols at four-decimal quotes, with a purse top-up every 50 rows
+    private static List<TransactionEntity> ledger(int rows) {
+        Random random = new Random(42);
+        List<TransactionEntity> ledger = new ArrayList<>(rows);
+        LocalDate date = LocalDate.of(2024, 1, 2);
+        long purseCents = 100_000_000_00L;
+        for (int i = 0; i < rows; i++) {
+            TransactionEntity t = new TransactionEntity();
+            t.setId(rows - i);
+            t.setDate(date.plusDays(i / 4));
+            t.setStatus(true);
+            long valueCents;
+            if (i % 50 == 0) {
+                t.setType("PURSE ADD");
+                valueCents = 10_000_00L;
+                purseCents += valueCents;
+            } else {
+                boolean buy = random.nextBoolean();
+                int quantity = 1 + random.nextInt(100);
+                BigDecimal price = BigDecimal.valueOf(500_000 + random.nextInt(5_000_000), 4);
+                t.setType(buy ? "BUY" : "SELL");
+                t.setSymbol(SYMBOLS[random.nextInt(SYMBOLS.length)]);
+                t.setQuantity(quantity);
+                t.setPrice(price);
+                valueCents = price.movePointRight(2).longValue() * quantity;
+                purseCents += buy ? -valueCents : valueCents;
+            }
+            t.setTransactionValue(Money.ofCents(valueCents));
+            t.setPurseValue(Money.ofCents(purseCents));
+            ledger.add(t);
+        }
+        return ledger;
+    }
+}
@@ -0,0 +1,156 @@
+package com.neueda.pm_milkyway.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neueda.pm_milkyway.PmMilkywayApplication;
+import com.neueda.pm_milkyway.dto.HoldingView;
+import com.neueda.pm_milkyway.entity.HoldingsEntity;
+import com.neueda.pm_milkyway.repo.HoldingsRepo;
+import com.neueda.pm_milkyway.service.PortfolioReadModel;
+import com.neueda.pm_milkyway.service.TransactionsService;
+import com.neueda.pm_milkyway.service.WatchlistService;
+
+/**
+ * The service calls behind the dashboard and the watchlist, against an
+ * embedded H2 database holding {@code holdings} positions and as many
+ * watchlist symbols (capped at one batch for the lookup). Trade latency over
+ * a growing ledger is in {@link TradeLatencyBenchmark}, and encoding of
+ * ledger pages in {@link SerializationBenchmark}; together they cover the
+ * calls a release should not slow down. Results go to the JSON file the
+ * {@code benchmark} profile writes and can be checked against a baseline
+ * with {@link BenchmarkComparison}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceLayerBenchmark {
+
+    @Param({ "100", "10000" })
+    public int holdings;
+
+    private ConfigurableApplicationContext context;
+    private TransactionsService transactionsService;
+    private WatchlistService watchlistService;
+    private PortfolioReadModel portfolioReadModel;
+    private HoldingsRepo holdingsRepo;
+    private ObjectMapper objectMapper;
+    private Map<String, Double> prices;
+    private List<String> watched;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(PmMilkywayApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:service-layer;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        transactionsService = context.getBean(TransactionsService.class);
+        watchlistService = context.getBean(WatchlistService.class);
+        portfolioReadModel = context.getBean(PortfolioReadModel.class);
+        holdingsRepo = context.getBean(HoldingsRepo.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        prices = seedHoldings(jdbc, holdings);
+        // Seeded behind the services' backs, so the read model is reloaded from the tables
+        portfolioReadModel.reloadAfterCommit();
+        watched = new ArrayList<>(prices.keySet()).subList(0, Math.min(holdings, 100));
+        watchlistService.addAll(watched);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public double purseValue() {
+        return transactionsService.getPurseValue();
+    }
+
+    /** Valuation of every position from the read model, as the dashboard does once quotes are in. */
+    @Benchmark
+    public Map<String, Object> portfolioStats() {
+        PortfolioReadModel.Snapshot snapshot = portfolioReadModel.snapshot();
+        return transactionsService.getPortfolioStats(snapshot.holdings(), prices, snapshot.purse().doubleValue());
+    }
+
+    /** The same valuation over holdings loaded from the table. */
+    @Benchmark
+    public Map<String, Object> portfolioStatsFromRepository() {
+        return transactionsService.getPortfolioStats(holdingsRepo.findAll(), prices);
+    }
+
+    @Benchmark
+    public List<String> watchlistItems() {
+        return watchlistService.getWatchlistItems();
+    }
+
+    /** Adding symbols that are all present: one indexed lookup, no insert. */
+    @Benchmark
+    public int watchlistAddExisting() {
+        return watchlistService.addAll(watched);
+    }
+
+    @Benchmark
+    public byte[] holdingsJson() throws JsonProcessingException {
+        List<HoldingView> views = portfolioReadModel.snapshot().holdings();
+        return objectMapper.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public byte[] holdingEntitiesJson() throws JsonProcessingException {
+        List<HoldingsEntity> entities = holdingsRepo.findAll();
+        return objectMapper.writeValueAsBytes(entities);
+    }
+
+    // One position per symbol, each priced 10% above its average cost
+    private static Map<String, Double> seedHoldings(JdbcTemplate jdbc, int count) {
+        String sql = "insert into holdings (id, stock, quantity, total_invested, version) "
+                + "values (next value for holdings_seq, ?, ?, ?, 0)";
+        Map<String, Double> prices = new LinkedHashMap<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String symbol = "S" + i;
+            int quantity = 1 + i % 500;
+            BigDecimal invested = BigDecimal.valueOf(quantity * (1000L + i % 9000), 2);
+            prices.put(symbol, invested.doubleValue() / quantity * 1.1);
+            batch.add(new Object[] { symbol, quantity, invested });
+            if (batch.size() == 5000 || i == count - 1) {
+                jdbc.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,85 @@
+package com.neueda.pm_milkyway.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import com.neueda.pm_milkyway.dto.TickerMatch;
+import com.neueda.pm_milkyway.service.MarketDataClient;
+import com.neueda.pm_milkyway.service.TickerSearchService;
+
+/**
+ * Typeahead latency of {@link TickerSearchService} on the bundled listing
+ * plus {@code listingSize} synthetic symbols. Queries are one to four character
+ * prefixes of listed symbols and names, so every one is answered locally and
+ * the upstream client is never called.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickerSearchBenchmark {
+
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    /** Synthetic symbols added to the roughly 140 bundled ones. */
+    @Param({ "0", "10000" })
+    public int listingSize;
+
+    private TickerSearchService tickerSearchService;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Extra symbols go in through the learned file, ranked after the bundled listing
+        Random random = new Random(42);
+        Path learned = Files.createTempFile("tickers-learned", ".tsv");
+        learned.toFile().deleteOnExit();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < listingSize; i++) {
+            StringBuilder symbol = new StringBuilder();
+            for (int c = 0, length = 2 + random.nextInt(4); c < length; c++)
+                symbol.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            lines.append(symbol).append('\t').append(symbol).append(" Holdings Corporation\n");
+        }
+        Files.writeString(learned, lines);
+
+        // Never called: every query below has local matches
+        MarketDataClient unreachable = Mockito.mock(MarketDataClient.class, Mockito.withSettings().stubOnly());
+        tickerSearchService = new TickerSearchService(unreachable, new ClassPathResource("tickers.tsv"),
+                learned.toString(), Duration.ofMinutes(10));
+        tickerSearchService.loadIndex();
+
+        String[] seeds = { "A", "AA", "APP", "MICR", "M", "GOOG", "BANK", "HOLD", "T", "NV", "JP", "AMER" };
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++)
+            queries[i] = seeds[random.nextInt(seeds.length)];
+    }
+
+    @Benchmark
+    public List<TickerMatch> search() {
+        String query = queries[next++ & (queries.length - 1)];
+        return tickerSearchService.search(query, 10);
+    }
+}
@@ -0,0 +1,91 @@
+package com.neueda.pm_milkyway.benchmark;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.neueda.pm_milkyway.PmMilkywayApplication;
+import com.neueda.pm_milkyway.service.TransactionsService;
+
+/**
+ * Trade latency against an embedded H2 ledger of increasing size. With the
+ * purse read from the account balance record the scores should stay flat
+ * across every ledgerSize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TradeLatencyBenchmark {
+
+    @Param({ "1000", "100000", "500000" })
+    public int ledgerSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionsService transactionsService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(PmMilkywayApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:trade-latency;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        transactionsService = context.getBean(TransactionsService.class);
+        seedLedger(context.getBean(JdbcTemplate.class), ledgerSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public double purseValue() {
+        return transactionsService.getPurseValue();
+    }
+
+    @Benchmark
+    public void buyThenSell() {
+        transactionsService.executePurchase("AAPL", 1, 10.0);
+        transactionsService.executeSale("AAPL", 1, 10.0);
+    }
+
+    private static void seedLedger(JdbcTemplate jdbc, int rows) {
+        String sql = "insert into transactions (id, date, type, transaction_value, purse_value, status) "
+                + "values (next value for transactions_seq, ?, ?, ?, ?, ?)";
+        Date date = Date.valueOf(LocalDate.now());
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[] { date, "PURSE ADD", 10, 1_000_000_000L + 10L * i, true });
+            if (batch.size() == 5000 || i == rows) {
+                jdbc.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+    }
+}
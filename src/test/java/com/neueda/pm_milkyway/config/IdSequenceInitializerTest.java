@@ -0,0 +1,81 @@
+package com.neueda.pm_milkyway.config;
+
+import java.util.List;
+
+import org.hibernate.dialect.H2Dialect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.neueda.pm_milkyway.config.IdSequenceInitializer.IdSequence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdSequenceInitializerTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:id-sequences-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("create table ledger (id int primary key)");
+        jdbcTemplate.execute("insert into ledger (id) select x from system_range(1, 120)");
+    }
+
+    @Test
+    void seedSequences_shouldMoveTableSequencePastExistingIds_whenCreatedAtOne() {
+        // Given: How MySQL emulates a sequence, as ddl-auto=update leaves it
+        jdbcTemplate.execute("create table ledger_seq (next_val bigint)");
+        jdbcTemplate.update("insert into ledger_seq (next_val) values (1)");
+
+        // When
+        initializer(false).seedSequences();
+
+        // Then
+        assertEquals(121L, jdbcTemplate.queryForObject("select next_val from ledger_seq", Long.class));
+    }
+
+    @Test
+    void seedSequences_shouldLeaveTableSequence_whenAlreadyPastExistingIds() {
+        // Given: Another instance has already handed out ids up to 500
+        jdbcTemplate.execute("create table ledger_seq (next_val bigint)");
+        jdbcTemplate.update("insert into ledger_seq (next_val) values (500)");
+
+        // When
+        initializer(false).seedSequences();
+
+        // Then
+        assertEquals(500L, jdbcTemplate.queryForObject("select next_val from ledger_seq", Long.class));
+    }
+
+    @Test
+    void seedSequences_shouldAddTheRow_whenTableSequenceIsEmpty() {
+        // Given
+        jdbcTemplate.execute("create table ledger_seq (next_val bigint)");
+
+        // When
+        initializer(false).seedSequences();
+
+        // Then
+        assertEquals(List.of(121L), jdbcTemplate.queryForList("select next_val from ledger_seq", Long.class));
+    }
+
+    @Test
+    void seedSequences_shouldRestartDatabaseSequencePastExistingIds() {
+        // Given
+        jdbcTemplate.execute("create sequence ledger_seq start with 1 increment by 50");
+
+        // When
+        initializer(true).seedSequences();
+
+        // Then
+        assertEquals(121L, jdbcTemplate.queryForObject("select next value for ledger_seq", Long.class));
+    }
+
+    private IdSequenceInitializer initializer(boolean physical) {
+        return new IdSequenceInitializer(jdbcTemplate, new H2Dialect(),
+                List.of(new IdSequence("ledger_seq", physical, "ledger", "id", 0)));
+    }
+}
@@ -0,0 +1,63 @@
+package com.neueda.pm_milkyway.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void of_shouldRoundHalfUp_toTheCent() {
+        // When & Then
+        assertEquals(12346, Money.of(123.455).cents());
+        assertEquals(-12346, Money.of(-123.455).cents());
+        assertEquals(12346, Money.of(new BigDecimal("123.455")).cents());
+        assertSame(Money.ZERO, Money.of(0.004));
+    }
+
+    @Test
+    void proportionCents_shouldTakeEverything_whenAllUnitsAreSold() {
+        // Given: 100.00 over 3 shares, which doubles cannot split evenly
+        long invested = 10_000;
+
+        // When: Selling one share, then the remaining two
+        long first = Money.proportionCents(invested, 1, 3);
+        long rest = Money.proportionCents(invested - first, 2, 2);
+
+        // Then: The parts add back to the whole and nothing is left
+        assertEquals(3333, first);
+        assertEquals(6667, rest);
+        assertEquals(0, invested - first - rest);
+    }
+
+    @Test
+    void proportionCents_shouldRoundHalfUp_andSurviveOverflow() {
+        // When & Then
+        assertEquals(5, Money.proportionCents(9, 1, 2));
+        assertEquals(-5, Money.proportionCents(-9, 1, 2));
+        assertEquals(Long.MAX_VALUE / 4 + 1, Money.proportionCents(Long.MAX_VALUE / 2, 3, 6));
+    }
+
+    @Test
+    void toCents_shouldReject_amountsThatLosePrecision() {
+        // When & Then
+        assertThrows(ArithmeticException.class, () -> Money.toCents(Double.NaN));
+        assertThrows(ArithmeticException.class, () -> Money.toCents(1e17));
+    }
+
+    @Test
+    void serialization_shouldUsePlainNumbers() throws Exception {
+        // Given
+        ObjectMapper mapper = new ObjectMapper();
+
+        // When & Then
+        assertEquals("1500.50", mapper.writeValueAsString(Money.ofCents(150_050)));
+        assertEquals(Money.ofCents(150_050), mapper.readValue("1500.5", Money.class));
+        assertEquals("-0.07", Money.ofCents(-7).toString());
+    }
+}
@@ -0,0 +1,63 @@
+package com.neueda.pm_milkyway.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of one endpoint, kept exactly so percentiles are not
+ * approximated. Each load worker records into its own instance; they are
+ * merged once the run is over.
+ */
+final class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private long rejected;
+    private long errors;
+
+    /** A response; 4xx answers are counted as rejected, 5xx as errors. */
+    void record(long elapsedNanos, int status) {
+        if (count == nanos.length)
+            nanos = Arrays.copyOf(nanos, count * 2);
+        nanos[count++] = elapsedNanos;
+        if (status >= 500)
+            errors++;
+        else if (status >= 400)
+            rejected++;
+    }
+
+    /** A request that got no response at all. */
+    void recordFailure() {
+        errors++;
+    }
+
+    void merge(LatencyRecorder other) {
+        if (count + other.count > nanos.length)
+            nanos = Arrays.copyOf(nanos, count + other.count);
+        System.arraycopy(other.nanos, 0, nanos, count, other.count);
+        count += other.count;
+        rejected += other.rejected;
+        errors += other.errors;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long rejected() {
+        return rejected;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /** Nearest-rank percentile in nanoseconds, {@code p} in (0, 1]; 0 when nothing was recorded. */
+    long percentile(double p) {
+        if (count == 0)
+            return 0;
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p * count);
+        return sorted[Math.max(0, Math.min(count, rank) - 1)];
+    }
+}
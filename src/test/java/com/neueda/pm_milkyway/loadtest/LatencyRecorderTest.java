@@ -0,0 +1,32 @@
+package com.neueda.pm_milkyway.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyRecorderTest {
+
+    @Test
+    void percentile_shouldUseNearestRank_acrossMergedWorkers() {
+        // Given: Two workers recording 1..1000 ns between them, one rejected and one failed request
+        LatencyRecorder first = new LatencyRecorder();
+        LatencyRecorder second = new LatencyRecorder();
+        for (int i = 1; i <= 1000; i++)
+            (i % 2 == 0 ? first : second).record(i, i == 500 ? 409 : 200);
+        second.recordFailure();
+
+        // When
+        LatencyRecorder merged = new LatencyRecorder();
+        merged.merge(first);
+        merged.merge(second);
+
+        // Then
+        assertEquals(1000, merged.count());
+        assertEquals(500, merged.percentile(0.50));
+        assertEquals(990, merged.percentile(0.99));
+        assertEquals(999, merged.percentile(0.999));
+        assertEquals(1000, merged.percentile(1.0));
+        assertEquals(1, merged.rejected());
+        assertEquals(1, merged.errors());
+    }
+}
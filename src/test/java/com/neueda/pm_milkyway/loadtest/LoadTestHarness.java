@@ -0,0 +1,366 @@
+package com.neueda.pm_milkyway.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neueda.pm_milkyway.PmMilkywayApplication;
+import com.neueda.pm_milkyway.service.PortfolioReadModel;
+
+/**
+ * End-to-end load test: starts the application on a random port, seeds it
+ * with {@link SyntheticLedgerGenerator}, then has {@code threads} workers
+ * send a weighted mix of reads, trades, adjustments and watchlist changes
+ * over HTTP to {@code StockActionController} and {@code MainController},
+ * each worker waiting for one response before sending the next request.
+ *
+ * Every worker draws its requests from a random generator seeded from
+ * {@code loadtest.seed}, so two runs with the same settings send the same
+ * requests. A warm-up pass is run and discarded first. Throughput and
+ * p50/p99/p99.9 latency per endpoint are printed and written as JSON to
+ * {@code loadtest.result} for comparing builds. Endpoints that call the
+ * market data proxy are left out, so results do not depend on it.
+ *
+ * With {@code loadtest.upstream-latency-ms} set, the harness instead starts
+ * an {@link UpstreamStub} that answers quotes after that delay, points the
+ * application at it and sends only {@code GET /api/quote/{symbol}}, each for
+ * a symbol not asked for before, so every request waits on the upstream in a
+ * request thread. {@code loadtest.virtual-threads} runs the application with
+ * {@code spring.threads.virtual.enabled} off ({@code false}), on
+ * ({@code true}) or once each ({@code both}), so the two can be compared at
+ * the same concurrency. The quote lane is widened to the worker count, so
+ * only the request threads limit how many requests wait at once.
+ *
+ * Settings are system properties ({@code -Dloadtest.threads=32}); see
+ * {@link Config}. Runs on in-memory H2 unless {@code loadtest.datasource}
+ * names another JDBC URL, which then uses the credentials from
+ * application.properties or {@code loadtest.username}/{@code loadtest.password}.
+ */
+public final class LoadTestHarness {
+
+    private static final double[] PERCENTILES = { 0.50, 0.99, 0.999 };
+
+    /** Run settings, read from {@code loadtest.*} system properties. */
+    record Config(long transactions, int holdings, int watchlist, int threads, int requests, int warmup, long seed,
+            boolean reset, String datasource, String username, String password, long upstreamLatencyMs,
+            String virtualThreads, Path result) {
+
+        static Config fromSystemProperties() {
+            return new Config(
+                    Long.getLong("loadtest.transactions", 200_000),
+                    Integer.getInteger("loadtest.holdings", 2_000),
+                    Integer.getInteger("loadtest.watchlist", 500),
+                    Integer.getInteger("loadtest.threads", 16),
+                    Integer.getInteger("loadtest.requests", 50_000),
+                    Integer.getInteger("loadtest.warmup", 5_000),
+                    Long.getLong("loadtest.seed", 42),
+                    Boolean.getBoolean("loadtest.reset"),
+                    System.getProperty("loadtest.datasource",
+                            "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"),
+                    System.getProperty("loadtest.username", ""),
+                    System.getProperty("loadtest.password", ""),
+                    Long.getLong("loadtest.upstream-latency-ms", 0),
+                    System.getProperty("loadtest.virtual-threads", "false"),
+                    Path.of(System.getProperty("loadtest.result", "target/loadtest-result.json")));
+        }
+
+        boolean h2() {
+            return datasource.startsWith("jdbc:h2:");
+        }
+
+        boolean upstream() {
+            return upstreamLatencyMs > 0;
+        }
+
+        /** Whether each run uses virtual threads, platform threads first. */
+        List<Boolean> threadModes() {
+            return switch (virtualThreads.toLowerCase(Locale.ROOT)) {
+                case "false" -> List.of(false);
+                case "true" -> List.of(true);
+                case "both" -> List.of(false, true);
+                default -> throw new IllegalArgumentException(
+                        "loadtest.virtual-threads must be true, false or both, not " + virtualThreads);
+            };
+        }
+
+        /** The result file, told apart by thread mode when more than one is run. */
+        Path result(boolean virtual) {
+            if (threadModes().size() == 1)
+                return result;
+            String name = result.getFileName().toString().replaceFirst("\\.json$", "");
+            return result.resolveSibling(name + (virtual ? "-virtual" : "-platform") + ".json");
+        }
+    }
+
+    /** One kind of request, drawn with probability weight / total weight. */
+    private record Endpoint(String name, int weight, BiFunction<Random, String, HttpRequest> request) {
+    }
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.fromSystemProperties();
+        if (config.threadModes().contains(true) && Runtime.version().feature() < 21)
+            System.out.println("Virtual threads need Java 21; on Java " + Runtime.version().feature()
+                    + " the application serves requests on platform threads either way");
+        // A null resource is skipped on close
+        try (UpstreamStub upstream = config.upstream()
+                ? UpstreamStub.start(Duration.ofMillis(config.upstreamLatencyMs()))
+                : null) {
+            for (boolean virtual : config.threadModes())
+                run(config, virtual, upstream);
+        }
+    }
+
+    private static void run(Config config, boolean virtual, UpstreamStub upstream) throws Exception {
+        try (ConfigurableApplicationContext context = start(config, virtual, upstream)) {
+            List<Endpoint> endpoints;
+            if (upstream != null) {
+                endpoints = quoteEndpoints();
+            } else {
+                long seeding = System.nanoTime();
+                SyntheticLedgerGenerator.Summary seeded = new SyntheticLedgerGenerator(
+                        context.getBean(JdbcTemplate.class))
+                        .seed(config.transactions(), config.holdings(), config.watchlist(), config.seed(),
+                                config.reset());
+                // Written behind the services' backs, so the read model loads them again
+                context.getBean(PortfolioReadModel.class).reloadAfterCommit();
+                System.out.printf("Seeded %d transactions, %d holdings, %d watchlist symbols in %.1f s%n",
+                        seeded.transactions(), seeded.holdings(), seeded.watchlist(),
+                        (System.nanoTime() - seeding) / 1e9);
+                endpoints = endpoints(config);
+            }
+
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            // The warm-up draws from a different seed so it does not replay the measured requests
+            run(client, base, endpoints, config.threads(), config.warmup(), ~config.seed());
+            Instant startedAt = Instant.now();
+            long started = System.nanoTime();
+            Map<String, LatencyRecorder> results = run(client, base, endpoints, config.threads(), config.requests(),
+                    config.seed());
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            Map<String, Object> report = report(config, virtual, startedAt, seconds, results);
+            if (config.threadModes().size() > 1)
+                System.out.printf("%n%s threads", virtual ? "Virtual" : "Platform");
+            print(report);
+            write(report, config.result(virtual));
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Config config, boolean virtual, UpstreamStub upstream) {
+        // DevTools would run the application in a restart class loader; measure it as deployed
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + config.datasource(),
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--spring.threads.virtual.enabled=" + virtual));
+        if (upstream != null) {
+            args.add("--market-data.base-url=" + upstream.baseUrl());
+            args.add("--market-data.quote.max-concurrent=" + Math.max(16, config.threads()));
+        }
+        if (config.h2()) {
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            args.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+        }
+        if (!config.username().isEmpty())
+            args.add("--spring.datasource.username=" + config.username());
+        if (!config.password().isEmpty())
+            args.add("--spring.datasource.password=" + config.password());
+        return new SpringApplicationBuilder(PmMilkywayApplication.class).run(args.toArray(new String[0]));
+    }
+
+    // Trades use held symbols, so most sells succeed; watchlist changes use twice as many symbols as are watched
+    private static List<Endpoint> endpoints(Config config) {
+        int held = Math.max(1, config.holdings());
+        int watched = Math.max(1, config.watchlist() * 2);
+        return List.of(
+                new Endpoint("GET /api/purse-value", 10, (r, base) -> get(base + "/api/purse-value")),
+                new Endpoint("GET /api/dashboard/stats", 10, (r, base) -> get(base + "/api/dashboard/stats")),
+                new Endpoint("GET /api/transactions", 8, (r, base) -> get(base + "/api/transactions?limit=50")),
+                new Endpoint("GET /api/transactions?symbol", 4, (r, base) -> get(base
+                        + "/api/transactions?limit=50&symbol=" + SyntheticLedgerGenerator.symbol(r.nextInt(held)))),
+                new Endpoint("GET /api/watchlist", 8, (r, base) -> get(base + "/api/watchlist")),
+                new Endpoint("GET /", 4, (r, base) -> get(base + "/")),
+                new Endpoint("GET /performance", 2, (r, base) -> get(base + "/performance")),
+                new Endpoint("GET /transaction-history", 2, (r, base) -> get(base + "/transaction-history")),
+                new Endpoint("POST /api/transactions/buy", 15, (r, base) -> post(base + "/api/transactions/buy"
+                        + trade(r, held))),
+                new Endpoint("POST /api/transactions/sell", 12, (r, base) -> post(base + "/api/transactions/sell"
+                        + trade(r, held))),
+                new Endpoint("POST /api/holdings/adjust", 6, (r, base) -> post(base + "/api/holdings/adjust?symbol="
+                        + SyntheticLedgerGenerator.symbol(r.nextInt(held)) + "&action="
+                        + (r.nextBoolean() ? "PLUS" : "MINUS") + "&price=" + price(r))),
+                new Endpoint("POST /api/watchlist/add/{symbol}", 3, (r, base) -> post(base + "/api/watchlist/add/"
+                        + SyntheticLedgerGenerator.symbol(r.nextInt(watched)))),
+                new Endpoint("DELETE /api/watchlist/remove/{symbol}", 3, (r, base) -> HttpRequest.newBuilder(
+                        URI.create(base + "/api/watchlist/remove/" + SyntheticLedgerGenerator.symbol(
+                                r.nextInt(watched))))
+                        .timeout(Duration.ofSeconds(30)).DELETE().build()));
+    }
+
+    // Every lookup is for a new symbol, so it misses the quote cache and waits on the upstream
+    private static List<Endpoint> quoteEndpoints() {
+        return List.of(new Endpoint("GET /api/quote/{symbol}", 1, (r, base) -> get(base + "/api/quote/UP"
+                + Long.toString(r.nextLong() & Long.MAX_VALUE, Character.MAX_RADIX).toUpperCase(Locale.ROOT))));
+    }
+
+    private static Map<String, LatencyRecorder> run(HttpClient client, String base, List<Endpoint> endpoints,
+            int threads, int requests, long seed) throws Exception {
+        int totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Map<String, LatencyRecorder>>> workers = new ArrayList<>(threads);
+            for (int w = 0; w < threads; w++) {
+                int share = requests / threads + (w < requests % threads ? 1 : 0);
+                Random random = new Random(seed * 31 + w);
+                workers.add(pool.submit(() -> {
+                    Map<String, LatencyRecorder> recorded = new LinkedHashMap<>();
+                    for (Endpoint endpoint : endpoints)
+                        recorded.put(endpoint.name(), new LatencyRecorder());
+                    for (int i = 0; i < share; i++) {
+                        Endpoint endpoint = pick(endpoints, random.nextInt(totalWeight));
+                        HttpRequest request = endpoint.request().apply(random, base);
+                        LatencyRecorder recorder = recorded.get(endpoint.name());
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            recorder.record(System.nanoTime() - sent, status);
+                        } catch (IOException e) {
+                            recorder.recordFailure();
+                        }
+                    }
+                    return recorded;
+                }));
+            }
+            Map<String, LatencyRecorder> merged = new LinkedHashMap<>();
+            for (Endpoint endpoint : endpoints)
+                merged.put(endpoint.name(), new LatencyRecorder());
+            for (Future<Map<String, LatencyRecorder>> worker : workers)
+                worker.get().forEach((name, recorder) -> merged.get(name).merge(recorder));
+            return merged;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Endpoint pick(List<Endpoint> endpoints, int draw) {
+        for (Endpoint endpoint : endpoints) {
+            draw -= endpoint.weight();
+            if (draw < 0)
+                return endpoint;
+        }
+        throw new IllegalStateException("Draw out of range");
+    }
+
+    private static Map<String, Object> report(Config config, boolean virtual, Instant startedAt, double seconds,
+            Map<String, LatencyRecorder> results) {
+        LatencyRecorder all = new LatencyRecorder();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<String, LatencyRecorder> entry : results.entrySet()) {
+            rows.add(row(entry.getKey(), entry.getValue(), seconds));
+            all.merge(entry.getValue());
+        }
+        rows.add(row("ALL", all, seconds));
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("transactions", config.transactions());
+        settings.put("holdings", config.holdings());
+        settings.put("watchlist", config.watchlist());
+        settings.put("threads", config.threads());
+        settings.put("requests", config.requests());
+        settings.put("warmup", config.warmup());
+        settings.put("seed", config.seed());
+        settings.put("database", config.h2() ? "h2" : config.datasource().replaceAll("//[^/]*@", "//"));
+        settings.put("upstreamLatencyMs", config.upstreamLatencyMs());
+        // Requested; Boot only switches to virtual threads on Java 21 or later
+        settings.put("virtualThreads", virtual);
+        settings.put("javaVersion", Runtime.version().feature());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("seconds", seconds);
+        report.put("config", settings);
+        report.put("endpoints", rows);
+        return report;
+    }
+
+    private static Map<String, Object> row(String name, LatencyRecorder recorder, double seconds) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("endpoint", name);
+        row.put("requests", recorder.count());
+        row.put("rejected", recorder.rejected());
+        row.put("errors", recorder.errors());
+        row.put("throughput", recorder.count() / seconds);
+        row.put("p50Ms", recorder.percentile(PERCENTILES[0]) / 1e6);
+        row.put("p99Ms", recorder.percentile(PERCENTILES[1]) / 1e6);
+        row.put("p999Ms", recorder.percentile(PERCENTILES[2]) / 1e6);
+        row.put("maxMs", recorder.percentile(1.0) / 1e6);
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> report) {
+        System.out.printf(Locale.ROOT, "%n%-38s %9s %9s %7s %9s %9s %9s %9s %9s%n", "endpoint", "requests",
+                "rejected", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map<String, Object> row : (List<Map<String, Object>>) report.get("endpoints"))
+            System.out.printf(Locale.ROOT, "%-38s %9d %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", row.get("endpoint"),
+                    row.get("requests"), row.get("rejected"), row.get("errors"), row.get("throughput"),
+                    row.get("p50Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"));
+    }
+
+    private static void write(Map<String, Object> report, Path result) throws IOException {
+        Path parent = result.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(result.toFile(), report);
+        System.out.println("Load test result is saved to " + result.toAbsolutePath());
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static HttpRequest post(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private static String trade(Random random, int held) {
+        return "?symbol=" + SyntheticLedgerGenerator.symbol(random.nextInt(held)) + "&quantity="
+                + (1 + random.nextInt(10)) + "&price=" + price(random);
+    }
+
+    private static String price(Random random) {
+        return String.valueOf((100 + random.nextInt(50_000)) / 100.0);
+    }
+}
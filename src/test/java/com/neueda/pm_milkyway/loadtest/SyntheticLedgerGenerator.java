@@ -0,0 +1,167 @@
+package com.neueda.pm_milkyway.loadtest;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.neueda.pm_milkyway.dto.Money;
+
+/**
+ * Fills an empty database with a ledger, holdings, purse and watchlist that
+ * agree with each other, generated from a seed so every run starts from the
+ * same data.
+ *
+ * The ledger opens with a purse deposit and one buy of each holding symbol,
+ * then continues as a random walk of buys and partial sells over those
+ * symbols, using the same rounding as the trade path; a buy the purse cannot
+ * cover becomes a deposit instead. Rows are spread over the days up to today,
+ * a few hundred per day. The final positions and purse are written to
+ * {@code holdings} and {@code account_balance}, so ledger replay finds
+ * nothing to repair. Rows are inserted with JDBC batches and explicit ids,
+ * and the id sequences are moved past them afterwards (native sequences on
+ * H2, the {@code *_seq} tables on MySQL).
+ */
+final class SyntheticLedgerGenerator {
+
+    static final int BATCH_SIZE = 5000;
+    static final int ROWS_PER_DAY = 500;
+
+    // Mirrors TransactionsService.PURSE_ID
+    private static final int PURSE_ID = 1;
+    private static final long DEPOSIT_CENTS = 100_000_000_00L;
+
+    private static final String INSERT_TRANSACTION = "insert into transactions "
+            + "(id, date, type, symbol, quantity, price, transaction_value, purse_value, status) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** What was written. */
+    record Summary(long transactions, int holdings, int watchlist, long purseCents) {
+    }
+
+    private final JdbcTemplate jdbc;
+
+    SyntheticLedgerGenerator(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Symbol of position {@code i}; holdings use the first ones, the watchlist overlaps them. */
+    static String symbol(int i) {
+        return String.format(Locale.ROOT, "L%05d", i);
+    }
+
+    /**
+     * Writes the data set. Unless {@code reset} is set, the ledger must be
+     * empty; with it, every table the data set touches is cleared first.
+     */
+    Summary seed(long transactions, int holdings, int watchlist, long seed, boolean reset) {
+        if (reset)
+            clear();
+        Long existing = jdbc.queryForObject("select count(*) from transactions", Long.class);
+        if (existing != null && existing > 0)
+            throw new IllegalStateException("The ledger already has " + existing
+                    + " rows; seed an empty database or pass -Dloadtest.reset=true");
+
+        Random random = new Random(seed);
+        int positions = (int) Math.max(0, Math.min(holdings, transactions - 1));
+        int[] quantity = new int[positions];
+        long[] invested = new long[positions];
+        long purse = 0;
+        LocalDate firstDay = LocalDate.now().minusDays((transactions - 1) / ROWS_PER_DAY);
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long row = 0; row < transactions; row++) {
+            Date date = Date.valueOf(firstDay.plusDays(row / ROWS_PER_DAY));
+            int id = Math.toIntExact(row + 1);
+            int position = row == 0 ? -1 : row <= positions ? (int) row - 1
+                    : positions == 0 ? -1 : random.nextInt(positions);
+            if (position < 0) {
+                purse += DEPOSIT_CENTS;
+                batch.add(deposit(id, date, purse));
+            } else {
+                double price = (100 + random.nextInt(50_000)) / 100.0;
+                boolean sell = row > positions && quantity[position] > 1 && random.nextInt(100) < 45;
+                if (sell) {
+                    int sold = 1 + random.nextInt(quantity[position] - 1);
+                    long value = Money.costCents(sold, price);
+                    invested[position] -= Money.proportionCents(invested[position], sold, quantity[position]);
+                    quantity[position] -= sold;
+                    purse += value;
+                    batch.add(trade(id, date, "SELL", position, sold, price, value, purse));
+                } else {
+                    int bought = 1 + random.nextInt(100);
+                    long value = Money.costCents(bought, price);
+                    if (value > purse) {
+                        purse += DEPOSIT_CENTS;
+                        batch.add(deposit(id, date, purse));
+                    } else {
+                        quantity[position] += bought;
+                        invested[position] += value;
+                        purse -= value;
+                        batch.add(trade(id, date, "BUY", position, bought, price, value, purse));
+                    }
+                }
+            }
+            if (batch.size() == BATCH_SIZE) {
+                jdbc.batchUpdate(INSERT_TRANSACTION, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty())
+            jdbc.batchUpdate(INSERT_TRANSACTION, batch);
+
+        List<Object[]> holdingRows = new ArrayList<>(positions);
+        for (int i = 0; i < positions; i++)
+            holdingRows.add(new Object[] { i + 1, symbol(i), quantity[i], cents(invested[i]) });
+        jdbc.batchUpdate("insert into holdings (id, stock, quantity, total_invested, version) values (?, ?, ?, ?, 0)",
+                holdingRows);
+
+        List<Object[]> watchRows = new ArrayList<>(watchlist);
+        for (int i = 0; i < watchlist; i++)
+            watchRows.add(new Object[] { i + 1, symbol(i) });
+        jdbc.batchUpdate("insert into watchlist (id, stock) values (?, ?)", watchRows);
+
+        jdbc.update("delete from account_balance where id = ?", PURSE_ID);
+        jdbc.update("insert into account_balance (id, purse_value, version) values (?, ?, 0)", PURSE_ID, cents(purse));
+
+        advanceSequence("transactions_seq", transactions + 1);
+        advanceSequence("holdings_seq", positions + 1L);
+        advanceSequence("watchlist_seq", watchlist + 1L);
+        return new Summary(transactions, positions, watchlist, purse);
+    }
+
+    private void clear() {
+        for (String table : new String[] { "ledger_checkpoint_position", "ledger_checkpoint", "nav_position",
+                "nav_snapshot", "transactions", "holdings", "watchlist", "account_balance" })
+            jdbc.update("delete from " + table);
+    }
+
+    private void advanceSequence(String sequence, long next) {
+        boolean h2 = Boolean.TRUE.equals(jdbc.execute((ConnectionCallback<Boolean>) connection -> connection
+                .getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("h2")));
+        if (h2)
+            jdbc.execute("alter sequence " + sequence + " restart with " + next);
+        else
+            jdbc.update("update " + sequence + " set next_val = ?", next);
+    }
+
+    private static Object[] deposit(int id, Date date, long purse) {
+        return new Object[] { id, date, "PURSE ADD", null, null, null, cents(DEPOSIT_CENTS), cents(purse), true };
+    }
+
+    private static Object[] trade(int id, Date date, String type, int position, int quantity, double price,
+            long value, long purse) {
+        return new Object[] { id, date, type, symbol(position), quantity, BigDecimal.valueOf(price), cents(value),
+                cents(purse), true };
+    }
+
+    private static BigDecimal cents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,77 @@
+package com.neueda.pm_milkyway.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.neueda.pm_milkyway.dto.LedgerReplayReport;
+import com.neueda.pm_milkyway.service.LedgerReplayService;
+import com.neueda.pm_milkyway.service.PortfolioReadModel;
+import com.neueda.pm_milkyway.service.TransactionsService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:synthetic-ledger;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class SyntheticLedgerGeneratorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private LedgerReplayService ledgerReplayService;
+    @Autowired
+    private PortfolioReadModel portfolioReadModel;
+    @Autowired
+    private TransactionsService transactionsService;
+
+    @Test
+    void seed_shouldWriteALedgerThatReplaysToTheHoldingsAndPurse_andLeaveIdsFree() {
+        // Given
+        SyntheticLedgerGenerator generator = new SyntheticLedgerGenerator(jdbcTemplate);
+
+        // When: Seeding a ledger that spans several batches
+        SyntheticLedgerGenerator.Summary summary = generator.seed(12_000, 300, 50, 7, true);
+        portfolioReadModel.reloadAfterCommit();
+
+        // Then: Replay agrees with the stored positions and purse
+        LedgerReplayReport report = ledgerReplayService.verify();
+        assertTrue(report.isConsistent(), () -> "discrepancies: " + report.getDiscrepancies());
+        assertEquals(12_000, report.getRowsReplayed());
+        assertEquals(300, summary.holdings());
+        assertEquals(300, jdbcTemplate.queryForObject("select count(*) from holdings", Integer.class));
+        assertEquals(50, jdbcTemplate.queryForObject("select count(*) from watchlist", Integer.class));
+        assertEquals(summary.purseCents(), portfolioReadModel.snapshot().purse().cents());
+
+        // And: A trade through the service gets an id after the seeded rows
+        transactionsService.executePurchase(SyntheticLedgerGenerator.symbol(0), 1, 10.0);
+        assertEquals(12_001, jdbcTemplate.queryForObject("select max(id) from transactions", Integer.class));
+    }
+
+    @Test
+    void seed_shouldRepeatTheSameLedger_forTheSameSeed_andRefuseANonEmptyLedger() {
+        // Given
+        SyntheticLedgerGenerator generator = new SyntheticLedgerGenerator(jdbcTemplate);
+        String rows = "select type, symbol, quantity, price, purse_value from transactions order by id";
+
+        // When: Seeding twice with one seed
+        generator.seed(500, 20, 5, 99, true);
+        List<Map<String, Object>> first = jdbcTemplate.queryForList(rows);
+        generator.seed(500, 20, 5, 99, true);
+
+        // Then
+        assertEquals(first, jdbcTemplate.queryForList(rows));
+        assertThrows(IllegalStateException.class, () -> generator.seed(10, 1, 1, 99, false));
+    }
+}
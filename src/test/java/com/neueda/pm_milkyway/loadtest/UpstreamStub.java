@@ -0,0 +1,83 @@
+package com.neueda.pm_milkyway.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stand-in for the market data proxy: answers {@code /quote/{symbol}} with a
+ * fixed quote after a set delay and every other path with 404. Answers are
+ * sent from a small scheduler, so a waiting request holds no stub thread and
+ * the stub does not cap the concurrency it is measured with.
+ */
+final class UpstreamStub implements AutoCloseable {
+
+    private static final String QUOTE_PATH = "/quote/";
+
+    private final HttpServer server;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "upstream-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long latencyNanos;
+
+    private UpstreamStub(Duration latency) throws IOException {
+        this.latencyNanos = latency.toNanos();
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    static UpstreamStub start(Duration latency) throws IOException {
+        return new UpstreamStub(latency);
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        if (!path.startsWith(QUOTE_PATH)) {
+            respond(exchange, 404, "{}");
+            return;
+        }
+        String symbol = path.substring(QUOTE_PATH.length());
+        scheduler.schedule(() -> respond(exchange, 200, quote(symbol)), latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String quote(String symbol) {
+        return "{\"symbol\":\"" + symbol + "\",\"price\":100.0,\"high\":101.0,\"low\":99.0,"
+                + "\"prev_close\":100.0,\"change_pct\":0.0,\"sentiment\":\"neutral\"}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // The application gave up on the request; nothing to answer
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+package com.neueda.pm_milkyway.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockingExecutorsTest {
+
+    @Test
+    void perTask_shouldNameThreads_andRunTasks_inEitherMode() throws Exception {
+        for (BlockingExecutors.Mode mode : BlockingExecutors.Mode.values()) {
+            // Given: Virtual mode falls back to platform threads before Java 21
+            ExecutorService executor = BlockingExecutors.perTask("price-send", mode);
+
+            // When
+            String thread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executor)
+                    .get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertTrue(thread.startsWith("price-send-"), thread);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,67 +1,85 @@
 package com.neueda.pm_milkyway.service;
 
-import org.junit.jupiter.api.BeforeEach;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.QuoteBatch;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class DashboardServiceTest {
 
+    @Mock
+    private PortfolioReadModel portfolioReadModel;
+
+    @Mock
+    private TransactionsService transactionsService;
+
+    @Mock
+    private MarketLookupService marketLookupService;
+
     @InjectMocks
     private DashboardService dashboardService;
 
-    @BeforeEach
-    void setUp() {
-        // Setup can be added here if DashboardService gets methods in future
-    }
-
     @Test
-    void serviceInstance_shouldNotBeNull_whenCreated() {
-        // Given & When: Service is injected
-        
-        // Then: Service instance should be created
-        assertNotNull(dashboardService);
-    }
+    @SuppressWarnings("unchecked")
+    void getValuation_shouldPriceAllHoldings_withOneBatchLookup() {
+        // Given: Two holdings and a batch where one symbol failed
+        PortfolioReadModel.Snapshot snapshot = new PortfolioReadModel.Snapshot(3, 9_650_000,
+                new String[] { "AAPL", "msft" }, new int[] { 10, 5 }, new long[] { 150_000, 200_000 });
+        when(portfolioReadModel.snapshot()).thenReturn(snapshot);
+        QuoteBatch batch = new QuoteBatch();
+        batch.addQuote("AAPL", quote(160.0));
+        batch.addError("MSFT", "Quote unavailable for MSFT");
+        when(marketLookupService.getQuotes(List.of("AAPL", "msft"))).thenReturn(batch);
+        when(transactionsService.getPortfolioStats(anyList(), anyMap(), anyDouble())).thenReturn(new HashMap<>());
 
-    @Test
-    void serviceInitialization_shouldComplete_withoutErrors() {
-        // Given: Fresh service instance
-        
-        // When: Service is initialized
-        DashboardService service = new DashboardService();
-        
-        // Then: No exceptions should be thrown
-        assertNotNull(service);
+        // When: Valuing the portfolio
+        Map<String, Object> valuation = dashboardService.getValuation();
+
+        // Then: Prices are passed keyed by the holding's own symbol, with the snapshot's purse, and errors are surfaced
+        ArgumentCaptor<Map<String, Double>> prices = ArgumentCaptor.forClass(Map.class);
+        verify(transactionsService).getPortfolioStats(eq(snapshot.holdings()), prices.capture(), eq(96500.0));
+        assertEquals(Map.of("AAPL", 160.0), prices.getValue());
+        assertEquals(Map.of("MSFT", "Quote unavailable for MSFT"), valuation.get("priceErrors"));
     }
 
     @Test
-    void dashboardService_shouldBeReusable_acrossMultipleCalls() {
-        // Given: Service instance exists
-        
-        // When: Creating multiple instances
-        DashboardService service1 = new DashboardService();
-        DashboardService service2 = new DashboardService();
-        
-        // Then: Both should be valid instances
-        assertNotNull(service1);
-        assertNotNull(service2);
+    void getValuation_shouldSkipQuoteLookup_whenNoHoldings() {
+        // Given: No holdings
+        when(portfolioReadModel.snapshot()).thenReturn(
+                new PortfolioReadModel.Snapshot(1, 10_000_000, new String[0], new int[0], new long[0]));
+        when(transactionsService.getPortfolioStats(anyList(), anyMap(), anyDouble())).thenReturn(new HashMap<>());
+
+        // When: Valuing the portfolio
+        Map<String, Object> valuation = dashboardService.getValuation();
+
+        // Then: No quotes are requested
+        verify(marketLookupService, never()).getQuotes(any());
+        assertTrue(((Map<?, ?>) valuation.get("priceErrors")).isEmpty());
     }
 
-    @Test
-    void dashboardService_shouldHandleConcurrentAccess_safely() {
-        // Given: Service instance
-        
-        // When: Accessing service concurrently (simulated)
-        
-        // Then: Should not throw any exceptions
-        assertDoesNotThrow(() -> {
-            DashboardService service = new DashboardService();
-            assertNotNull(service);
-        });
+    private static Quote quote(double price) {
+        Quote quote = new Quote();
+        quote.setPrice(price);
+        return quote;
     }
 }
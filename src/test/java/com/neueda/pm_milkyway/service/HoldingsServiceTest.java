@@ -1,5 +1,6 @@
 package com.neueda.pm_milkyway.service;
 
+import com.neueda.pm_milkyway.dto.Money;
 import com.neueda.pm_milkyway.entity.HoldingsEntity;
 import com.neueda.pm_milkyway.repo.HoldingsRepo;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,7 +38,7 @@ class HoldingsServiceTest {
         testHolding.setId(1);
         testHolding.setStock("AAPL");
         testHolding.setQuantity(10);
-        testHolding.setTotal_invested(1500.0);
+        testHolding.setTotal_invested(Money.of(1500.0));
     }
 
     @Test
@@ -47,7 +48,7 @@ class HoldingsServiceTest {
         holding2.setId(2);
         holding2.setStock("GOOGL");
         holding2.setQuantity(5);
-        holding2.setTotal_invested(750.0);
+        holding2.setTotal_invested(Money.of(750.0));
         
         when(holdingsRepo.findAll()).thenReturn(Arrays.asList(testHolding, holding2));
 
@@ -113,7 +114,7 @@ class HoldingsServiceTest {
         duplicate.setId(3);
         duplicate.setStock("AAPL");
         duplicate.setQuantity(5);
-        duplicate.setTotal_invested(800.0);
+        duplicate.setTotal_invested(Money.of(800.0));
         
         when(holdingsRepo.findByStock("AAPL")).thenReturn(Arrays.asList(testHolding, duplicate));
 
@@ -133,13 +134,13 @@ class HoldingsServiceTest {
         holding2.setId(2);
         holding2.setStock("MSFT");
         holding2.setQuantity(8);
-        holding2.setTotal_invested(2400.0);
+        holding2.setTotal_invested(Money.of(2400.0));
 
         HoldingsEntity holding3 = new HoldingsEntity();
         holding3.setId(3);
         holding3.setStock("TSLA");
         holding3.setQuantity(3);
-        holding3.setTotal_invested(600.0);
+        holding3.setTotal_invested(Money.of(600.0));
         
         when(holdingsRepo.findAll()).thenReturn(Arrays.asList(testHolding, holding2, holding3));
 
@@ -176,7 +177,7 @@ class HoldingsServiceTest {
             holding.setId(i);
             holding.setStock("STOCK" + i);
             holding.setQuantity(i * 10);
-            holding.setTotal_invested(i * 1000.0);
+            holding.setTotal_invested(Money.of(i * 1000.0));
             largeList.add(holding);
         }
         when(holdingsRepo.findAll()).thenReturn(largeList);
@@ -194,7 +195,7 @@ class HoldingsServiceTest {
     void getStockHoldings_shouldReturnValidData_whenStockHasZeroQuantity() {
         // Given: Holding with zero quantity (edge case)
         testHolding.setQuantity(0);
-        testHolding.setTotal_invested(0.0);
+        testHolding.setTotal_invested(Money.of(0.0));
         when(holdingsRepo.findByStock("AAPL")).thenReturn(Collections.singletonList(testHolding));
 
         // When: Getting holdings
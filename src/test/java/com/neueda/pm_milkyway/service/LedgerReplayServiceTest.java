@@ -0,0 +1,319 @@
+package com.neueda.pm_milkyway.service;
+
+import com.neueda.pm_milkyway.dto.HoldingDiscrepancy;
+import com.neueda.pm_milkyway.dto.LedgerEntry;
+import com.neueda.pm_milkyway.dto.LedgerReplayReport;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.entity.AccountBalanceEntity;
+import com.neueda.pm_milkyway.entity.HoldingsEntity;
+import com.neueda.pm_milkyway.entity.LedgerCheckpointEntity;
+import com.neueda.pm_milkyway.entity.LedgerCheckpointPositionEntity;
+import com.neueda.pm_milkyway.repo.AccountBalanceRepo;
+import com.neueda.pm_milkyway.repo.HoldingsRepo;
+import com.neueda.pm_milkyway.repo.LedgerCheckpointPositionRepo;
+import com.neueda.pm_milkyway.repo.LedgerCheckpointRepo;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerReplayServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 2, 2);
+
+    private final DataVersions dataVersions = new DataVersions("test");
+
+    @Mock
+    private TransactionsRepo transactionsRepo;
+
+    @Mock
+    private HoldingsRepo holdingsRepo;
+
+    @Mock
+    private AccountBalanceRepo accountBalanceRepo;
+
+    @Mock
+    private LedgerCheckpointRepo checkpointRepo;
+
+    @Mock
+    private LedgerCheckpointPositionRepo checkpointPositionRepo;
+
+    @Mock
+    private PortfolioReadModel portfolioReadModel;
+
+    @Captor
+    private ArgumentCaptor<List<HoldingsEntity>> holdingsCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<LedgerCheckpointPositionEntity>> positionCaptor;
+
+    private final List<LedgerEntry> ledger = new ArrayList<>();
+    private ForkJoinPool pool;
+    private LedgerReplayService ledgerReplayService;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(2);
+        ledgerReplayService = new LedgerReplayService(transactionsRepo, holdingsRepo, accountBalanceRepo,
+                checkpointRepo, checkpointPositionRepo, portfolioReadModel, dataVersions,
+                TransactionOperations.withoutTransaction(), pool, 1000);
+        lenient().when(transactionsRepo.streamLedgerAfter(anyInt())).thenAnswer(invocation -> {
+            int afterId = invocation.getArgument(0);
+            return ledger.stream().filter(row -> row.id() > afterId);
+        });
+        lenient().when(checkpointRepo.findTopByOrderByThroughTransactionIdDesc()).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void verify_shouldReportConsistent_whenHoldingsMatchLedger() {
+        // Given: Two buys averaging 110 and a partial sale, on top of a 100000 opening purse
+        ledger.add(trade(1, "BUY", "AAPL", 10, 100, 99000));
+        ledger.add(trade(2, "BUY", "AAPL", 10, 120, 97800));
+        ledger.add(trade(3, "SELL", "AAPL", 5, 130, 98450));
+        when(holdingsRepo.findAllForUpdate()).thenReturn(List.of(holding("AAPL", 15, 1650.0)));
+        when(accountBalanceRepo.findForUpdate(TransactionsService.PURSE_ID)).thenReturn(Optional.of(balance(98450)));
+
+        // When
+        LedgerReplayReport report = ledgerReplayService.verify();
+
+        // Then
+        assertTrue(report.isConsistent());
+        assertEquals(3, report.getRowsReplayed());
+        assertEquals(3, report.getThroughTransactionId());
+        assertEquals(Money.of(98450.0), report.getExpectedPurse());
+        assertTrue(report.getDiscrepancies().isEmpty());
+        assertFalse(report.isCheckpointWritten());
+    }
+
+    @Test
+    void verify_shouldReportDrift_withoutWritingAnything() {
+        // Given: The stored AAPL holding is one share short and MSFT has no ledger rows at all
+        ledger.add(trade(1, "BUY", "AAPL", 10, 100, 99000));
+        when(holdingsRepo.findAllForUpdate()).thenReturn(List.of(holding("AAPL", 9, 1000.0), holding("MSFT", 2, 500.0)));
+        when(accountBalanceRepo.findForUpdate(TransactionsService.PURSE_ID)).thenReturn(Optional.of(balance(98000)));
+
+        // When
+        LedgerReplayReport report = ledgerReplayService.verify();
+
+        // Then
+        assertFalse(report.isConsistent());
+        assertEquals(List.of(
+                new HoldingDiscrepancy("AAPL", 10, 9, Money.of(1000.0), Money.of(1000.0)),
+                new HoldingDiscrepancy("MSFT", 0, 2, Money.of(0.0), Money.of(500.0))), report.getDiscrepancies());
+        assertEquals(Money.of(98000.0), report.getActualPurse());
+        assertEquals(Money.of(99000.0), report.getExpectedPurse());
+        verify(holdingsRepo, never()).saveAll(anyCollection());
+        verify(accountBalanceRepo, never()).save(any());
+    }
+
+    @Test
+    void rebuild_shouldRewriteDriftedHoldings_andPurse() {
+        // Given: AAPL drifted, a duplicate GOOGL row, a stray MSFT row and a wrong purse
+        ledger.add(trade(1, "BUY", "AAPL", 10, 100, 99000));
+        ledger.add(trade(2, "BUY", "GOOGL", 2, 50, 98900));
+        HoldingsEntity aapl = holding("AAPL", 9, 900.0);
+        HoldingsEntity googl = holding("GOOGL", 1, 50.0);
+        HoldingsEntity googlDuplicate = holding("GOOGL", 1, 50.0);
+        HoldingsEntity msft = holding("MSFT", 2, 500.0);
+        AccountBalanceEntity balance = balance(50000);
+        when(holdingsRepo.findAllForUpdate()).thenReturn(List.of(aapl, googl, googlDuplicate, msft));
+        when(accountBalanceRepo.findForUpdate(TransactionsService.PURSE_ID)).thenReturn(Optional.of(balance));
+
+        // When
+        LedgerReplayReport report = ledgerReplayService.rebuild();
+
+        // Then: The first row per symbol is kept and corrected, everything else is deleted
+        assertTrue(report.isRepaired());
+        verify(holdingsRepo).saveAll(holdingsCaptor.capture());
+        assertEquals(List.of(aapl, googl), holdingsCaptor.getValue());
+        assertEquals(10, aapl.getQuantity());
+        assertEquals(Money.of(1000.0), aapl.getTotal_invested());
+        assertEquals(2, googl.getQuantity());
+        verify(holdingsRepo).deleteAll(holdingsCaptor.capture());
+        assertEquals(List.of(googlDuplicate, msft), holdingsCaptor.getValue());
+        verify(accountBalanceRepo).save(balance);
+        assertEquals(Money.of(98900.0), balance.getPurseValue());
+        assertEquals(1, dataVersions.ledgerVersion());
+    }
+
+    @Test
+    void rebuild_shouldLeaveConsistentState_untouched() {
+        // Given
+        ledger.add(trade(1, "BUY", "AAPL", 3, 10, 99970));
+        when(holdingsRepo.findAllForUpdate()).thenReturn(List.of(holding("AAPL", 3, 30.0)));
+        when(accountBalanceRepo.findForUpdate(TransactionsService.PURSE_ID)).thenReturn(Optional.of(balance(99970)));
+
+        // When
+        LedgerReplayReport report = ledgerReplayService.rebuild();
+
+        // Then
+        assertTrue(report.isConsistent());
+        assertFalse(report.isRepaired());
+        verify(holdingsRepo, never()).saveAll(anyCollection());
+        assertEquals(0, dataVersions.ledgerVersion());
+    }
+
+    @Test
+    void verify_shouldReplayOnlyTheTail_afterLatestCheckpoint() {
+        // Given: A checkpoint through id 100 holding 10 AAPL, and one sale after it
+        LedgerCheckpointEntity checkpoint = checkpoint(7, 100, 99000);
+        when(checkpointRepo.findTopByOrderByThroughTransactionIdDesc()).thenReturn(Optional.of(checkpoint));
+        when(checkpointPositionRepo.findByCheckpointId(7)).thenReturn(List.of(position("AAPL", 10, 1000.0)));
+        ledger.add(trade(50, "BUY", "AAPL", 10, 100, 99000));
+        ledger.add(trade(101, "SELL", "AAPL", 4, 150, 99600));
+        when(holdingsRepo.findAllForUpdate()).thenReturn(List.of(holding("AAPL", 6, 600.0)));
+        when(accountBalanceRepo.findForUpdate(TransactionsService.PURSE_ID)).thenReturn(Optional.of(balance(99600)));
+
+        // When
+        LedgerReplayReport report = ledgerReplayService.verify();
+
+        // Then: Row 50 is covered by the checkpoint and not folded again
+        assertTrue(report.isConsistent());
+        assertEquals(1, report.getRowsReplayed());
+        assertEquals(100, report.getCheckpointThroughId());
+        verify(transactionsRepo).streamLedgerAfter(100);
+    }
+
+    @Test
+    void checkpoint_shouldRecordFoldedState_andDropSupersededCheckpoints() {
+        // Given
+        ledger.add(trade(1, "BUY", "AAPL", 10, 100, 99000));
+        ledger.add(trade(2, "BUY", "MSFT", 5, 20, 98900));
+        ledger.add(trade(3, "SELL", "MSFT", 5, 25, 99025));
+        when(holdingsRepo.findAllForUpdate()).thenReturn(List.of(holding("AAPL", 10, 1000.0)));
+        when(accountBalanceRepo.findForUpdate(TransactionsService.PURSE_ID)).thenReturn(Optional.of(balance(99025)));
+        when(checkpointRepo.save(any(LedgerCheckpointEntity.class))).thenAnswer(invocation -> {
+            LedgerCheckpointEntity saved = invocation.getArgument(0);
+            saved.setId(8);
+            return saved;
+        });
+        LedgerCheckpointEntity older = checkpoint(3, 0, 100000);
+        when(checkpointRepo.findByThroughTransactionIdLessThan(3)).thenReturn(List.of(older));
+
+        // When
+        LedgerReplayReport report = ledgerReplayService.checkpoint();
+
+        // Then: The closed MSFT position is not carried into the checkpoint
+        assertTrue(report.isCheckpointWritten());
+        verify(checkpointPositionRepo).saveAll(positionCaptor.capture());
+        List<LedgerCheckpointPositionEntity> positions = positionCaptor.getValue();
+        assertEquals(1, positions.size());
+        assertEquals("AAPL", positions.get(0).getSymbol());
+        assertEquals(8, positions.get(0).getCheckpointId());
+        assertEquals(10, positions.get(0).getQuantity());
+        verify(checkpointPositionRepo).deleteByCheckpointIds(List.of(3));
+        verify(checkpointRepo).deleteAllInBatch(List.of(older));
+    }
+
+    @Test
+    void verify_shouldSetAsideSymbols_withRowsMissingQuantities() {
+        // Given: Older rows carry the symbol in the type and no quantity, and the purse opened at zero
+        ledger.add(new LedgerEntry(1, DAY, "PURSE ADD", null, null, null, Money.of(10000.0), Money.of(10000.0)));
+        ledger.add(new LedgerEntry(2, DAY, "BUY AAPL", null, null, null, Money.of(2700.0), Money.of(7300.0)));
+        when(holdingsRepo.findAllForUpdate()).thenReturn(List.of(holding("AAPL", 10, 2700.0)));
+        when(accountBalanceRepo.findForUpdate(TransactionsService.PURSE_ID)).thenReturn(Optional.of(balance(7300)));
+
+        // When
+        LedgerReplayReport report = ledgerReplayService.verify();
+
+        // Then
+        assertTrue(report.isConsistent());
+        assertEquals(List.of("AAPL"), report.getUnreplayableSymbols());
+        assertEquals(Money.of(7300.0), report.getExpectedPurse());
+    }
+
+    @Test
+    void verify_shouldFoldManySymbols_acrossForkJoinTasks() {
+        // Given: More symbols than one leaf task folds
+        List<HoldingsEntity> stored = new ArrayList<>();
+        double purse = 100000;
+        int id = 1;
+        for (int s = 0; s < LedgerReplayService.SYMBOLS_PER_TASK * 5; s++) {
+            purse -= 4 * 10.0;
+            ledger.add(trade(id++, "BUY", "S" + s, 4, 10, purse));
+            purse += 25.0;
+            ledger.add(trade(id++, "SELL", "S" + s, 1, 25, purse));
+            stored.add(holding("S" + s, 3, 30.0));
+        }
+        when(holdingsRepo.findAllForUpdate()).thenReturn(stored);
+        when(accountBalanceRepo.findForUpdate(TransactionsService.PURSE_ID)).thenReturn(Optional.of(balance(purse)));
+
+        // When
+        LedgerReplayReport report = ledgerReplayService.verify();
+
+        // Then
+        assertTrue(report.isConsistent());
+        assertEquals(LedgerReplayService.SYMBOLS_PER_TASK * 5, report.getSymbols());
+        assertNull(report.getCheckpointThroughId());
+    }
+
+    private static LedgerEntry trade(int id, String type, String symbol, int quantity, double price,
+            double purseAfter) {
+        return new LedgerEntry(id, DAY, type, symbol, quantity, BigDecimal.valueOf(price),
+                Money.of(quantity * price), Money.of(purseAfter));
+    }
+
+    private static HoldingsEntity holding(String stock, int quantity, double invested) {
+        HoldingsEntity holding = new HoldingsEntity();
+        holding.setStock(stock);
+        holding.setQuantity(quantity);
+        holding.setTotal_invested(Money.of(invested));
+        return holding;
+    }
+
+    private static AccountBalanceEntity balance(double purse) {
+        AccountBalanceEntity balance = new AccountBalanceEntity();
+        balance.setId(TransactionsService.PURSE_ID);
+        balance.setPurseValue(Money.of(purse));
+        return balance;
+    }
+
+    private static LedgerCheckpointEntity checkpoint(int id, int throughId, double purse) {
+        LedgerCheckpointEntity checkpoint = new LedgerCheckpointEntity();
+        checkpoint.setId(id);
+        checkpoint.setThroughTransactionId(throughId);
+        checkpoint.setPurse(Money.of(purse));
+        checkpoint.setRowsFolded(1L);
+        return checkpoint;
+    }
+
+    private static LedgerCheckpointPositionEntity position(String symbol, int quantity, double invested) {
+        LedgerCheckpointPositionEntity position = new LedgerCheckpointPositionEntity();
+        position.setSymbol(symbol);
+        position.setQuantity(quantity);
+        position.setTotalInvested(Money.of(invested));
+        position.setReplayable(true);
+        return position;
+    }
+}
@@ -0,0 +1,261 @@
+package com.neueda.pm_milkyway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neueda.pm_milkyway.dto.PriceHistory;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarketDataClientTest {
+
+    private static final String QUOTE = "{\"symbol\":\"AAPL\",\"price\":190.5,\"prev_close\":188.0,\"change_pct\":1.3}";
+    private static final Duration OPEN_FOR = Duration.ofSeconds(30);
+
+    /** What the fake proxy answers; {@code hit} counts requests to the path so far, from 1. */
+    @FunctionalInterface
+    private interface Upstream {
+        void answer(HttpExchange exchange, int hit) throws Exception;
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nowMillis = new AtomicLong(1_700_000_000_000L);
+    private final AtomicInteger hits = new AtomicInteger();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile Upstream upstream;
+    private HttpServer server;
+    private ExecutorService serverThreads;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            try {
+                upstream.answer(exchange, hits.incrementAndGet());
+            } catch (Exception e) {
+                // The client gave up on this exchange
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        released.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void fetchQuote_shouldReadTheProxyQuote() {
+        // Given
+        upstream = (exchange, hit) -> respond(exchange, 200, QUOTE);
+
+        // When
+        Quote quote = client(Duration.ofSeconds(2), 4, Duration.ZERO).fetchQuote("AAPL");
+
+        // Then
+        assertEquals(190.5, quote.getPrice());
+        assertEquals(188.0, quote.getPrevClose());
+        assertEquals(1, meterRegistry.get("market.data.requests").tags("traffic", "quote", "outcome", "success")
+                .timer().count());
+    }
+
+    @Test
+    void fetchHistory_shouldDropDaysWithoutAClose() {
+        // Given
+        upstream = (exchange, hit) -> respond(exchange, 200,
+                "{\"labels\":[\"2026-01-02\",\"2026-01-03\",\"2026-01-04\"],\"prices\":[10.0,null,12.0]}");
+
+        // When
+        PriceHistory history = client(Duration.ofSeconds(2), 4, Duration.ZERO).fetchHistory("AAPL");
+
+        // Then
+        assertEquals(List.of("2026-01-02", "2026-01-04"), history.getLabels());
+    }
+
+    @Test
+    void fetchQuote_shouldFailAtTheDeadline_whenUpstreamHangs() {
+        // Given: A proxy that never answers
+        upstream = (exchange, hit) -> released.await();
+        MarketDataClient client = client(Duration.ofMillis(200), 4, Duration.ZERO);
+
+        // When
+        long start = System.nanoTime();
+        RuntimeException error = assertThrows(RuntimeException.class, () -> client.fetchQuote("AAPL"));
+
+        // Then: The caller is released at the deadline
+        assertEquals("Quote unavailable for AAPL: timed out after 200 ms", error.getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    void circuit_shouldOpenAfterRepeatedServerErrors_andCloseAfterASuccessfulTrial() {
+        // Given: A failing proxy, then a healthy one
+        AtomicInteger status = new AtomicInteger(500);
+        upstream = (exchange, hit) -> respond(exchange, status.get(), status.get() == 200 ? QUOTE : "{}");
+        MarketDataClient client = client(Duration.ofSeconds(2), 4, Duration.ZERO);
+
+        // When: Three failures open the quote circuit
+        for (int i = 0; i < 3; i++) {
+            RuntimeException error = assertThrows(RuntimeException.class, () -> client.fetchQuote("AAPL"));
+            assertEquals("Quote unavailable for AAPL: HTTP 500", error.getMessage());
+        }
+        RuntimeException paused = assertThrows(RuntimeException.class, () -> client.fetchQuote("AAPL"));
+
+        // Then: Further calls fail without reaching the proxy, until the trial after openFor
+        assertTrue(paused.getMessage().contains("paused after repeated failures"), paused.getMessage());
+        assertEquals(3, hits.get());
+        assertEquals(CircuitBreaker.State.OPEN, client.circuitState(MarketDataClient.Traffic.QUOTE));
+        assertEquals(CircuitBreaker.State.CLOSED, client.circuitState(MarketDataClient.Traffic.HISTORY));
+
+        status.set(200);
+        nowMillis.addAndGet(OPEN_FOR.toMillis());
+        assertEquals(190.5, client.fetchQuote("AAPL").getPrice());
+        assertEquals(CircuitBreaker.State.CLOSED, client.circuitState(MarketDataClient.Traffic.QUOTE));
+    }
+
+    @Test
+    void circuit_shouldStayClosed_whenUpstreamAnswersWithoutData() {
+        // Given: Unknown symbols answered with 404 and quotes without a price
+        upstream = (exchange, hit) -> respond(exchange, hit % 2 == 0 ? 404 : 200, "{\"symbol\":\"NOPE\"}");
+        MarketDataClient client = client(Duration.ofSeconds(2), 4, Duration.ZERO);
+
+        // When
+        for (int i = 0; i < 6; i++)
+            assertThrows(RuntimeException.class, () -> client.fetchQuote("NOPE"));
+
+        // Then: The proxy is healthy, so every call still reaches it
+        assertEquals(6, hits.get());
+        assertEquals(CircuitBreaker.State.CLOSED, client.circuitState(MarketDataClient.Traffic.QUOTE));
+    }
+
+    @Test
+    void searchFailures_shouldOpenTheSearchCircuit_withoutPausingQuotes() {
+        // Given: A proxy whose search fails while quotes work
+        upstream = (exchange, hit) -> {
+            boolean search = exchange.getRequestURI().getPath().startsWith("/search");
+            respond(exchange, search ? 500 : 200, search ? "{}" : QUOTE);
+        };
+        MarketDataClient client = client(Duration.ofSeconds(2), 4, Duration.ZERO);
+
+        // When: Enough searches fail to open a circuit
+        for (int i = 0; i < 3; i++)
+            assertThrows(RuntimeException.class, () -> client.searchTickers("APP"));
+
+        // Then: Only search is paused; quotes still reach the proxy
+        assertEquals(CircuitBreaker.State.OPEN, client.circuitState(MarketDataClient.Traffic.SEARCH));
+        assertEquals(CircuitBreaker.State.CLOSED, client.circuitState(MarketDataClient.Traffic.QUOTE));
+        assertEquals(190.5, client.fetchQuote("AAPL").getPrice());
+    }
+
+    @Test
+    void bulkhead_shouldRejectExtraQuotes_withoutStarvingHistory() throws Exception {
+        // Given: The only quote slot is held by a hanging request
+        upstream = (exchange, hit) -> {
+            if (exchange.getRequestURI().getPath().startsWith("/quote"))
+                released.await();
+            respond(exchange, 200, "{\"labels\":[\"2026-01-02\"],\"prices\":[10.0]}");
+        };
+        MarketDataClient client = client(Duration.ofSeconds(5), 1, Duration.ZERO);
+        CompletableFuture<Quote> hanging = client.fetchQuoteAsync("AAPL");
+
+        // When
+        RuntimeException rejected = assertThrows(RuntimeException.class, () -> client.fetchQuote("MSFT"));
+        PriceHistory history = client.fetchHistory("MSFT");
+
+        // Then
+        assertEquals("Quote unavailable for MSFT: too many quote requests in flight, please retry",
+                rejected.getMessage());
+        assertEquals(1, history.getLabels().size());
+        assertTrue(!hanging.isDone());
+    }
+
+    @Test
+    void hedge_shouldAnswerFromTheSecondRequest_whenTheFirstIsSlow() {
+        // Given: The first request stalls, a repeat answers at once
+        upstream = (exchange, hit) -> {
+            if (hit == 1)
+                released.await();
+            respond(exchange, 200, QUOTE);
+        };
+        MarketDataClient client = client(Duration.ofSeconds(5), 4, Duration.ofMillis(50));
+
+        // When
+        long start = System.nanoTime();
+        Quote quote = client.fetchQuote("AAPL");
+
+        // Then
+        assertEquals(190.5, quote.getPrice());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(2, hits.get());
+        assertEquals(1, meterRegistry.get("market.data.hedges").tag("traffic", "quote").counter().count());
+    }
+
+    private MarketDataClient client(Duration deadline, int maxConcurrent, Duration hedgeAfter) {
+        MarketDataClient.Limits limits = new MarketDataClient.Limits(deadline, maxConcurrent);
+        return new MarketDataClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort()), objectMapper,
+                Map.of(MarketDataClient.Traffic.QUOTE, limits, MarketDataClient.Traffic.SEARCH, limits,
+                        MarketDataClient.Traffic.HISTORY, limits, MarketDataClient.Traffic.COMPANY, limits),
+                3, OPEN_FOR, hedgeAfter, meterRegistry, clock());
+    }
+
+    private Clock clock() {
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(nowMillis.get());
+            }
+        };
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
@@ -1,62 +1,399 @@
 package com.neueda.pm_milkyway.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.QuoteBatch;
+import com.neueda.pm_milkyway.dto.QuoteCacheStats;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class MarketLookupServiceTest {
 
-    @InjectMocks
+    private static final Duration TTL = Duration.ofSeconds(30);
+    private static final Duration DEADLINE = Duration.ofMillis(500);
+
+    @Mock
+    private MarketDataClient marketDataClient;
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong nowMillis = new AtomicLong(1_700_000_000_000L);
     private MarketLookupService marketLookupService;
 
     @BeforeEach
     void setUp() {
-        // Setup can be added here when MarketLookupService has methods
+        marketLookupService = newService(tempDir.resolve("quotes.json"));
+    }
+
+    @Test
+    void getQuote_shouldFetchOnce_andServeRepeatsFromCache() {
+        // Given: Upstream returns a price
+        when(marketDataClient.fetchQuoteAsync("AAPL")).thenAnswer(invocation -> completed(189.5));
+
+        // When: The symbol is requested three times in different cases
+        Quote first = marketLookupService.getQuote("aapl");
+        marketLookupService.getQuote("AAPL");
+        marketLookupService.getQuote(" AAPL ");
+
+        // Then: Upstream is called once and the counters reflect one miss and two hits
+        assertEquals(189.5, first.getPrice());
+        assertEquals("AAPL", first.getSymbol());
+        assertEquals(nowMillis.get(), first.getFetchedAt());
+        verify(marketDataClient, times(1)).fetchQuoteAsync("AAPL");
+        QuoteCacheStats stats = marketLookupService.getStats();
+        assertEquals(1, stats.getMisses());
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void getQuote_shouldRefetch_whenTtlHasElapsed() {
+        // Given: A cached quote
+        when(marketDataClient.fetchQuoteAsync("MSFT"))
+                .thenAnswer(invocation -> completed(410.0))
+                .thenAnswer(invocation -> completed(415.0));
+        marketLookupService.getQuote("MSFT");
+
+        // When: Time moves past the TTL
+        advance(TTL.plusMillis(1));
+        Quote refreshed = marketLookupService.getQuote("MSFT");
+
+        // Then: A fresh quote is fetched
+        assertEquals(415.0, refreshed.getPrice());
+        verify(marketDataClient, times(2)).fetchQuoteAsync("MSFT");
+    }
+
+    @Test
+    void getQuote_shouldShareOneUpstreamCall_whenMissesAreConcurrent() throws Exception {
+        // Given: Upstream does not answer until every caller has asked
+        int callers = 8;
+        CompletableFuture<Quote> upstream = new CompletableFuture<>();
+        when(marketDataClient.fetchQuoteAsync("TSLA")).thenReturn(upstream);
+
+        // When: Several threads miss on the same symbol at once
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Quote>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> marketLookupService.getQuote("TSLA")));
+            }
+            while (marketLookupService.getStats().getHits() + marketLookupService.getStats().getMisses() < callers) {
+                Thread.sleep(5);
+            }
+            upstream.complete(quote(250.0));
+
+            // Then: All of them get the same quote from a single fetch
+            for (Future<Quote> result : results) {
+                assertEquals(250.0, result.get(5, TimeUnit.SECONDS).getPrice());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(marketDataClient, times(1)).fetchQuoteAsync("TSLA");
+        assertEquals(1, marketLookupService.getStats().getMisses());
+    }
+
+    @Test
+    void getQuote_shouldNotCacheFailures() {
+        // Given: Upstream fails once and then recovers
+        when(marketDataClient.fetchQuoteAsync("NVDA"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Quote unavailable for NVDA")))
+                .thenAnswer(invocation -> completed(120.0));
+
+        // When & Then: First call surfaces the error, second call retries upstream
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> marketLookupService.getQuote("NVDA"));
+        assertEquals("Quote unavailable for NVDA", exception.getMessage());
+        assertEquals(120.0, marketLookupService.getQuote("NVDA").getPrice());
+        assertEquals(1, marketLookupService.getStats().getLoadFailures());
+    }
+
+    @Test
+    void getQuote_shouldThrow_whenSymbolIsBlank() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> marketLookupService.getQuote(" "));
+        verify(marketDataClient, never()).fetchQuoteAsync(anyString());
+    }
+
+    @Test
+    void snapshot_shouldRestoreFreshQuotes_onRestart() {
+        // Given: Two quotes cached ten seconds apart
+        when(marketDataClient.fetchQuoteAsync("AAPL")).thenAnswer(invocation -> completed(189.5));
+        when(marketDataClient.fetchQuoteAsync("GOOGL")).thenAnswer(invocation -> completed(140.0));
+        marketLookupService.getQuote("AAPL");
+        advance(Duration.ofSeconds(10));
+        marketLookupService.getQuote("GOOGL");
+
+        // When: The service shuts down and a new one starts 25 seconds after the first fetch
+        marketLookupService.saveSnapshot();
+        advance(Duration.ofSeconds(15));
+        MarketLookupService restarted = newService(tempDir.resolve("quotes.json"));
+        restarted.loadSnapshot();
+
+        // Then: Both are served without upstream calls and keep their original age
+        assertEquals(189.5, restarted.getQuote("AAPL").getPrice());
+        assertEquals(140.0, restarted.getQuote("GOOGL").getPrice());
+        verify(marketDataClient, times(1)).fetchQuoteAsync("AAPL");
+        verify(marketDataClient, times(1)).fetchQuoteAsync("GOOGL");
+        assertEquals(2, restarted.getStats().getHits());
+
+        // And: AAPL expires 30 seconds after its original fetch while GOOGL is still fresh
+        advance(Duration.ofSeconds(6));
+        restarted.getQuote("AAPL");
+        restarted.getQuote("GOOGL");
+        verify(marketDataClient, times(2)).fetchQuoteAsync("AAPL");
+        verify(marketDataClient, times(1)).fetchQuoteAsync("GOOGL");
+    }
+
+    @Test
+    void snapshot_shouldSkipQuotes_thatExpiredWhileDown() {
+        // Given: A saved quote
+        when(marketDataClient.fetchQuoteAsync("AAPL"))
+                .thenAnswer(invocation -> completed(189.5))
+                .thenAnswer(invocation -> completed(191.0));
+        marketLookupService.getQuote("AAPL");
+        marketLookupService.saveSnapshot();
+
+        // When: The restart happens after the TTL
+        advance(TTL.plusSeconds(1));
+        MarketLookupService restarted = newService(tempDir.resolve("quotes.json"));
+        restarted.loadSnapshot();
+
+        // Then: The stale quote is not restored
+        assertEquals(0, restarted.getStats().getSize());
+        assertEquals(191.0, restarted.getQuote("AAPL").getPrice());
+    }
+
+    @Test
+    void snapshot_shouldBeIgnored_whenUnreadable() throws Exception {
+        // Given: A corrupt snapshot file
+        Path snapshot = tempDir.resolve("quotes.json");
+        Files.writeString(snapshot, "{not json");
+
+        // When: The service starts
+        MarketLookupService restarted = newService(snapshot);
+        restarted.loadSnapshot();
+
+        // Then: It starts empty instead of failing
+        assertEquals(0, restarted.getStats().getSize());
+    }
+
+    @Test
+    void saveSnapshot_shouldSkipWriting_whenCacheIsEmpty() {
+        // When: Nothing was cached
+        marketLookupService.saveSnapshot();
+
+        // Then: No file is created
+        assertFalse(Files.exists(tempDir.resolve("quotes.json")));
+        assertTrue(Files.isDirectory(tempDir));
+    }
+
+    @Test
+    void getQuotes_shouldFetchMissesConcurrently_fromTheCallingThread() {
+        // Given: Upstream answers only once all four fetches are in flight
+        List<CompletableFuture<Quote>> inFlight = new ArrayList<>();
+        List<String> callingThreads = new ArrayList<>();
+        when(marketDataClient.fetchQuoteAsync(anyString())).thenAnswer(invocation -> {
+            CompletableFuture<Quote> call = new CompletableFuture<>();
+            inFlight.add(call);
+            callingThreads.add(Thread.currentThread().getName());
+            if (inFlight.size() == 4)
+                inFlight.forEach(pending -> pending.complete(quote(100.0)));
+            return call;
+        });
+
+        // When: Four symbols are requested in one batch
+        QuoteBatch batch = marketLookupService.getQuotes(List.of("AAPL", "MSFT", "GOOGL", "TSLA"));
+
+        // Then: All four arrive, in request order
+        assertEquals(List.of("AAPL", "MSFT", "GOOGL", "TSLA"), List.copyOf(batch.getQuotes().keySet()));
+        batch.getQuotes().values().forEach(quote -> assertEquals(100.0, quote.getPrice()));
+        assertTrue(batch.getErrors().isEmpty());
+
+        // And: No fetch was handed to another thread
+        assertEquals(List.of(Thread.currentThread().getName()), callingThreads.stream().distinct().toList());
     }
 
     @Test
-    void serviceInstance_shouldNotBeNull_whenCreated() {
-        // Given & When: Service is injected
-        
-        // Then: Service instance should be created
-        assertNotNull(marketLookupService);
+    void getQuotes_shouldReturnPartialResults_withPerSymbolErrors() {
+        // Given: One symbol is cached, one loads and one fails upstream
+        when(marketDataClient.fetchQuoteAsync("AAPL")).thenAnswer(invocation -> completed(189.5));
+        when(marketDataClient.fetchQuoteAsync("MSFT")).thenAnswer(invocation -> completed(410.0));
+        when(marketDataClient.fetchQuoteAsync("BOGUS"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Quote unavailable for BOGUS")));
+        marketLookupService.getQuote("AAPL");
+
+        // When: They are requested together, with duplicates and mixed case
+        QuoteBatch batch = marketLookupService.getQuotes(Arrays.asList("aapl", "MSFT", "bogus", "AAPL", " ", null));
+
+        // Then: Successes and failures are split per symbol and the cached one is not refetched
+        assertEquals(2, batch.getQuotes().size());
+        assertEquals(189.5, batch.getQuotes().get("AAPL").getPrice());
+        assertEquals(410.0, batch.getQuotes().get("MSFT").getPrice());
+        assertEquals("Quote unavailable for BOGUS", batch.getErrors().get("BOGUS"));
+        verify(marketDataClient, times(1)).fetchQuoteAsync("AAPL");
     }
 
     @Test
-    void serviceInitialization_shouldComplete_withoutErrors() {
-        // Given: Fresh service instance
-        
-        // When: Service is initialized
-        MarketLookupService service = new MarketLookupService();
-        
-        // Then: No exceptions should be thrown
-        assertNotNull(service);
+    void getQuotes_shouldReportTimeout_andKeepLoadingInBackground() throws Exception {
+        // Given: One upstream call hangs past the deadline
+        CompletableFuture<Quote> slow = new CompletableFuture<>();
+        when(marketDataClient.fetchQuoteAsync("AAPL")).thenAnswer(invocation -> completed(189.5));
+        when(marketDataClient.fetchQuoteAsync("SLOW")).thenReturn(slow);
+
+        // When: The batch is requested
+        long started = System.nanoTime();
+        QuoteBatch batch = marketLookupService.getQuotes(List.of("AAPL", "SLOW"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        // Then: The response returns at the deadline with the fast quote and a timeout for the slow one
+        assertEquals(189.5, batch.getQuotes().get("AAPL").getPrice());
+        assertEquals("Timed out after 500 ms", batch.getErrors().get("SLOW"));
+        assertTrue(elapsedMillis < 5_000);
+
+        // And: Once upstream answers, the late quote is cached for the next request
+        slow.complete(quote(42.0));
+        assertEquals(42.0, marketLookupService.getQuote("SLOW").getPrice());
+        verify(marketDataClient, times(1)).fetchQuoteAsync("SLOW");
     }
 
     @Test
-    void marketLookupService_shouldBeThreadSafe_whenAccessed() {
-        // Given: Service instance
-        
-        // When: Multiple accesses
-        MarketLookupService service1 = new MarketLookupService();
-        MarketLookupService service2 = new MarketLookupService();
-        
-        // Then: Both instances should be valid
-        assertNotNull(service1);
-        assertNotNull(service2);
+    void getQuotes_shouldResolveEverySymbol_whenMissesOutnumberTheInFlightLimit() {
+        // Given: A cold cache, room for 16 fetches at once, and an upstream that refuses a 17th like the bulkhead does
+        MarketLookupService limited = newService(null, 16);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger mostInFlight = new AtomicInteger();
+        Executor upstream = CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS);
+        when(marketDataClient.fetchQuoteAsync(anyString())).thenAnswer(invocation -> {
+            int running = inFlight.incrementAndGet();
+            mostInFlight.accumulateAndGet(running, Math::max);
+            if (running > 16) {
+                inFlight.decrementAndGet();
+                return CompletableFuture.failedFuture(new RuntimeException("too many quote requests in flight"));
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                return quote(100.0);
+            }, upstream);
+        });
+        List<String> symbols = IntStream.range(0, 40).mapToObj(i -> "S" + i).collect(Collectors.toList());
+
+        // When: All 40 are requested in one batch
+        QuoteBatch batch = limited.getQuotes(symbols);
+
+        // Then: Every symbol resolves and the limit was never exceeded
+        assertTrue(batch.getErrors().isEmpty(), batch.getErrors().toString());
+        assertEquals(40, batch.getQuotes().size());
+        assertTrue(mostInFlight.get() <= 16, "in flight: " + mostInFlight.get());
     }
 
     @Test
-    void marketLookupService_shouldNotThrowException_duringInstantiation() {
-        // Given & When: Creating service
-        
-        // Then: Should not throw any exceptions
-        assertDoesNotThrow(() -> new MarketLookupService());
+    void getQuotes_shouldGiveUpOnQueuedFetches_thatFindNoSlotBeforeTheDeadline() {
+        // Given: Room for one fetch, taken by a call that hangs
+        MarketLookupService limited = newService(null, 1);
+        CompletableFuture<Quote> hanging = new CompletableFuture<>();
+        when(marketDataClient.fetchQuoteAsync("FIRST")).thenReturn(hanging);
+
+        // When: A second symbol queues behind it and the deadline passes
+        QuoteBatch batch = limited.getQuotes(List.of("FIRST", "SECOND"));
+        hanging.complete(quote(1.0));
+
+        // Then: Both were reported as timed out, and the queued one never went upstream
+        assertEquals("Timed out after " + DEADLINE.toMillis() + " ms", batch.getErrors().get("FIRST"));
+        assertEquals("Timed out after " + DEADLINE.toMillis() + " ms", batch.getErrors().get("SECOND"));
+        verify(marketDataClient, never()).fetchQuoteAsync("SECOND");
+        assertEquals(1, limited.getStats().getLoadFailures());
+
+        // And: The call that was in flight still lands in the cache
+        assertEquals(1.0, limited.getQuote("FIRST").getPrice());
+    }
+
+    @Test
+    void getQuotes_shouldReject_emptyOrOversizedRequests() {
+        // Given: More symbols than one batch may carry
+        List<String> tooMany = IntStream.rangeClosed(0, MarketLookupService.MAX_BATCH_SYMBOLS)
+                .mapToObj(i -> "S" + i).collect(Collectors.toList());
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> marketLookupService.getQuotes(List.of(" ")));
+        assertThrows(IllegalArgumentException.class, () -> marketLookupService.getQuotes(null));
+        assertThrows(IllegalArgumentException.class, () -> marketLookupService.getQuotes(tooMany));
+        verify(marketDataClient, never()).fetchQuoteAsync(anyString());
+    }
+
+    private MarketLookupService newService(Path snapshot) {
+        return newService(snapshot, 16);
+    }
+
+    private MarketLookupService newService(Path snapshot, int maxFetches) {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(nowMillis.get());
+            }
+        };
+        return new MarketLookupService(marketDataClient, objectMapper, TTL, 100, snapshot, DEADLINE, maxFetches,
+                () -> TimeUnit.MILLISECONDS.toNanos(nowMillis.get()), clock);
+    }
+
+    private void advance(Duration duration) {
+        nowMillis.addAndGet(duration.toMillis());
+    }
+
+    private static CompletableFuture<Quote> completed(double price) {
+        return CompletableFuture.completedFuture(quote(price));
+    }
+
+    private static Quote quote(double price) {
+        Quote quote = new Quote();
+        quote.setPrice(price);
+        return quote;
     }
 }
@@ -0,0 +1,259 @@
+package com.neueda.pm_milkyway.service;
+
+import com.neueda.pm_milkyway.dto.LedgerEntry;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.QuoteBatch;
+import com.neueda.pm_milkyway.entity.NavPositionEntity;
+import com.neueda.pm_milkyway.entity.NavSnapshotEntity;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.NavPositionRepo;
+import com.neueda.pm_milkyway.repo.NavSnapshotRepo;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NavSnapshotServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    @Mock
+    private NavSnapshotRepo navSnapshotRepo;
+
+    @Mock
+    private NavPositionRepo navPositionRepo;
+
+    @Mock
+    private TransactionsRepo transactionsRepo;
+
+    @Mock
+    private PriceHistoryService priceHistoryService;
+
+    @Mock
+    private PriceHistoryStore priceHistoryStore;
+
+    @Mock
+    private MarketLookupService marketLookupService;
+
+    @Captor
+    private ArgumentCaptor<List<NavSnapshotEntity>> snapshotCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<NavPositionEntity>> positionCaptor;
+
+    private NavSnapshotService navSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        navSnapshotService = new NavSnapshotService(navSnapshotRepo, navPositionRepo, transactionsRepo,
+                priceHistoryService, priceHistoryStore, marketLookupService, TransactionOperations.withoutTransaction(),
+                clock);
+        lenient().when(priceHistoryStore.read(anyString())).thenReturn(PriceHistoryStore.Series.EMPTY);
+    }
+
+    @Test
+    void materializeThrough_shouldSnapshotStartingPurse_whenLedgerIsEmpty() {
+        // Given
+        when(navSnapshotRepo.findTopByOrderBySnapshotDateDesc()).thenReturn(Optional.empty());
+        when(transactionsRepo.findFirstByStatusTrueOrderByDateAscIdAsc()).thenReturn(Optional.empty());
+        when(transactionsRepo.findLedgerBetween(TODAY, TODAY)).thenReturn(List.of());
+
+        // When
+        int written = navSnapshotService.materializeThrough(TODAY, false);
+
+        // Then
+        assertEquals(1, written);
+        verify(navSnapshotRepo).saveAll(snapshotCaptor.capture());
+        NavSnapshotEntity snapshot = snapshotCaptor.getValue().get(0);
+        assertEquals(TODAY, snapshot.getSnapshotDate());
+        assertEquals(Money.of(100000.00), snapshot.getNav());
+    }
+
+    @Test
+    void materializeThrough_shouldBackfillEveryDay_fromFirstTransaction() {
+        // Given: A purchase three days ago and a stored close for the day after it
+        LocalDate first = TODAY.minusDays(3);
+        when(navSnapshotRepo.findTopByOrderBySnapshotDateDesc()).thenReturn(Optional.empty());
+        when(transactionsRepo.findFirstByStatusTrueOrderByDateAscIdAsc()).thenReturn(Optional.of(transaction(first)));
+        when(transactionsRepo.findLedgerBetween(first, TODAY.minusDays(1))).thenReturn(List.of(
+                row(1, first, "BUY", "AAPL", 10, 100, 99000)));
+        when(priceHistoryStore.read("AAPL")).thenReturn(series(first.plusDays(1), 110.0));
+
+        // When
+        int written = navSnapshotService.materializeThrough(TODAY.minusDays(1), false);
+
+        // Then: Day one at the trade price, later days at the latest stored close
+        assertEquals(3, written);
+        verify(navSnapshotRepo).saveAll(snapshotCaptor.capture());
+        List<NavSnapshotEntity> snapshots = snapshotCaptor.getValue();
+        assertEquals(Money.of(100000.00), snapshots.get(0).getNav());
+        assertEquals(Money.of(100100.00), snapshots.get(1).getNav());
+        assertEquals(Money.of(100100.00), snapshots.get(2).getNav());
+        assertEquals(Money.of(1000.00), snapshots.get(2).getCostBasis());
+        verify(priceHistoryService).getHistory("AAPL", first, TODAY.minusDays(1));
+    }
+
+    @Test
+    void materializeThrough_shouldResumeFromLatestSnapshot_andReplayOnlyNewRows() {
+        // Given: Yesterday's snapshot holds 10 AAPL; today sells 4 at 120
+        LocalDate yesterday = TODAY.minusDays(1);
+        when(navSnapshotRepo.findTopByOrderBySnapshotDateDesc()).thenReturn(Optional.of(snapshot(yesterday, 99000)));
+        when(navPositionRepo.findBySnapshotDate(yesterday)).thenReturn(List.of(position(yesterday, "AAPL", 10, 1000, 110)));
+        when(transactionsRepo.findLedgerBetween(TODAY, TODAY)).thenReturn(List.of(
+                row(7, TODAY, "SELL", "AAPL", 4, 120, 99480)));
+        when(marketLookupService.getQuotes(anyCollection())).thenReturn(quotes("AAPL", 125.0));
+
+        // When
+        int written = navSnapshotService.materializeThrough(TODAY, true);
+
+        // Then: Today's position is marked at the current quote
+        assertEquals(1, written);
+        verify(navPositionRepo).saveAll(positionCaptor.capture());
+        NavPositionEntity position = positionCaptor.getValue().get(0);
+        assertEquals(6, position.getQuantity());
+        assertEquals(Money.of(600.00), position.getCostBasis());
+        assertEquals(Money.of(750.00), position.getMarketValue());
+        verify(navSnapshotRepo).saveAll(snapshotCaptor.capture());
+        assertEquals(Money.of(100230.00), snapshotCaptor.getValue().get(0).getNav());
+        verify(transactionsRepo, never()).findFirstByStatusTrueOrderByDateAscIdAsc();
+    }
+
+    @Test
+    void materializeThrough_shouldProcessLongGaps_inChunks() {
+        // Given: 70 missing days
+        LocalDate last = TODAY.minusDays(71);
+        when(navSnapshotRepo.findTopByOrderBySnapshotDateDesc()).thenReturn(Optional.of(snapshot(last, 100000)));
+        when(navPositionRepo.findBySnapshotDate(last)).thenReturn(List.of());
+        when(transactionsRepo.findLedgerBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of());
+
+        // When
+        int written = navSnapshotService.materializeThrough(TODAY.minusDays(1), false);
+
+        // Then: 31 + 31 + 8 days, each chunk read and saved separately
+        assertEquals(70, written);
+        verify(transactionsRepo, times(3)).findLedgerBetween(any(LocalDate.class), any(LocalDate.class));
+        verify(transactionsRepo).findLedgerBetween(last.plusDays(63), TODAY.minusDays(1));
+        verify(navSnapshotRepo, times(3)).saveAll(anyCollection());
+    }
+
+    @Test
+    void materializeThrough_shouldDoNothing_whenAlreadyUpToDate() {
+        // Given
+        when(navSnapshotRepo.findTopByOrderBySnapshotDateDesc()).thenReturn(Optional.of(snapshot(TODAY, 100000)));
+        when(navPositionRepo.findBySnapshotDate(TODAY)).thenReturn(List.of());
+
+        // When
+        int written = navSnapshotService.materializeThrough(TODAY, true);
+
+        // Then
+        assertEquals(0, written);
+        verify(navSnapshotRepo, never()).saveAll(anyCollection());
+    }
+
+    @Test
+    void snapshotEndOfDay_shouldWaitForTheDayToEnd_soLateTradesAreIncluded() {
+        // Given: Yesterday's snapshot holds 10 AAPL
+        LocalDate yesterday = TODAY.minusDays(1);
+        when(navSnapshotRepo.findTopByOrderBySnapshotDateDesc()).thenReturn(Optional.of(snapshot(yesterday, 99000)));
+        when(navPositionRepo.findBySnapshotDate(yesterday)).thenReturn(List.of(position(yesterday, "AAPL", 10, 1000, 110)));
+
+        // When: A run late in the evening, then a sale booked on the same date, then the run after midnight
+        serviceAt(TODAY.atTime(23, 30)).snapshotEndOfDay();
+        verify(navSnapshotRepo, never()).saveAll(anyCollection());
+        when(transactionsRepo.findLedgerBetween(TODAY, TODAY)).thenReturn(List.of(
+                row(7, TODAY, "SELL", "AAPL", 4, 120, 99480)));
+        when(marketLookupService.getQuotes(anyCollection())).thenReturn(quotes("AAPL", 125.0));
+        serviceAt(TODAY.plusDays(1).atTime(0, 5)).snapshotEndOfDay();
+
+        // Then: Today's snapshot includes the late sale
+        verify(navSnapshotRepo).saveAll(snapshotCaptor.capture());
+        NavSnapshotEntity snapshot = snapshotCaptor.getValue().get(0);
+        assertEquals(TODAY, snapshot.getSnapshotDate());
+        assertEquals(Money.of(99480.00), snapshot.getPurse());
+        verify(navPositionRepo).saveAll(positionCaptor.capture());
+        assertEquals(6, positionCaptor.getValue().get(0).getQuantity());
+    }
+
+    @Test
+    void getSeries_shouldReject_invertedRange() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> navSnapshotService.getSeries(TODAY, TODAY.minusDays(1)));
+    }
+
+    private NavSnapshotService serviceAt(LocalDateTime now) {
+        return new NavSnapshotService(navSnapshotRepo, navPositionRepo, transactionsRepo, priceHistoryService,
+                priceHistoryStore, marketLookupService, TransactionOperations.withoutTransaction(),
+                Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private static TransactionEntity transaction(LocalDate date) {
+        TransactionEntity tx = new TransactionEntity();
+        tx.setDate(date);
+        return tx;
+    }
+
+    private static LedgerEntry row(int id, LocalDate date, String type, String symbol, int quantity, double price,
+            double purseAfter) {
+        return new LedgerEntry(id, date, type, symbol, quantity, BigDecimal.valueOf(price),
+                Money.of(quantity * price), Money.of(purseAfter));
+    }
+
+    private static NavSnapshotEntity snapshot(LocalDate date, double purse) {
+        NavSnapshotEntity snapshot = new NavSnapshotEntity();
+        snapshot.setSnapshotDate(date);
+        snapshot.setPurse(Money.of(purse));
+        return snapshot;
+    }
+
+    private static NavPositionEntity position(LocalDate date, String symbol, int quantity, double cost, double price) {
+        NavPositionEntity position = new NavPositionEntity();
+        position.setSnapshotDate(date);
+        position.setSymbol(symbol);
+        position.setQuantity(quantity);
+        position.setCostBasis(Money.of(cost));
+        position.setPrice(BigDecimal.valueOf(price));
+        return position;
+    }
+
+    private static QuoteBatch quotes(String symbol, double price) {
+        Quote quote = new Quote();
+        quote.setPrice(price);
+        QuoteBatch batch = new QuoteBatch();
+        batch.addQuote(symbol, quote);
+        return batch;
+    }
+
+    private static PriceHistoryStore.Series series(LocalDate day, double close) {
+        return new PriceHistoryStore.Series(IntBuffer.wrap(new int[] { (int) day.toEpochDay() }),
+                DoubleBuffer.wrap(new double[] { close }), 1, (int) day.toEpochDay(), (int) day.toEpochDay());
+    }
+}
@@ -1,62 +1,214 @@
 package com.neueda.pm_milkyway.service;
 
+import com.neueda.pm_milkyway.dto.LedgerEntry;
+import com.neueda.pm_milkyway.dto.PerformanceMetrics;
+import com.neueda.pm_milkyway.dto.Quote;
+import com.neueda.pm_milkyway.dto.QuoteBatch;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import java.math.BigDecimal;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class PerformanceServiceTest {
 
-    @InjectMocks
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 1);
+    private static final double DELTA = 1e-6;
+
+    @Mock
+    private TransactionsRepo transactionsRepo;
+
+    @Mock
+    private PriceHistoryStore priceHistoryStore;
+
+    @Mock
+    private MarketLookupService marketLookupService;
+
     private PerformanceService performanceService;
 
     @BeforeEach
     void setUp() {
-        // Setup can be added here when PerformanceService has methods
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        performanceService = new PerformanceService(transactionsRepo, priceHistoryStore, marketLookupService, clock);
+        lenient().when(priceHistoryStore.read(anyString())).thenReturn(PriceHistoryStore.Series.EMPTY);
+    }
+
+    @Test
+    void getMetrics_shouldReturnEmptyMetrics_whenNoTrades() {
+        // Given
+        when(transactionsRepo.findTradesAfter(anyInt(), any(Pageable.class))).thenReturn(List.of());
+
+        // When
+        PerformanceMetrics metrics = performanceService.getMetrics();
+
+        // Then
+        assertEquals(0, metrics.getTradesProcessed());
+        assertEquals(0.0, metrics.getMarketValue());
+        assertNull(metrics.getTimeWeightedReturn());
+        assertNull(metrics.getMoneyWeightedReturn());
+        assertEquals(TODAY, metrics.getAsOf());
+    }
+
+    @Test
+    void getMetrics_shouldSplitRealizedAndUnrealized_usingAverageCost() {
+        // Given: Two buys averaging 110 and a partial sale at 130
+        LocalDate day = TODAY.minusDays(10);
+        when(transactionsRepo.findTradesAfter(anyInt(), any(Pageable.class))).thenReturn(List.of(
+                trade(1, day, "BUY", "AAPL", 10, 100),
+                trade(2, day, "BUY", "AAPL", 10, 120),
+                trade(3, day, "SELL", "AAPL", 5, 130)));
+        stubQuotes("AAPL", 130);
+
+        // When
+        PerformanceMetrics metrics = performanceService.getMetrics();
+
+        // Then
+        assertEquals(100.0, metrics.getRealizedProfitLoss(), DELTA);
+        assertEquals(1650.0, metrics.getCostBasis(), DELTA);
+        assertEquals(1950.0, metrics.getMarketValue(), DELTA);
+        assertEquals(300.0, metrics.getUnrealizedProfitLoss(), DELTA);
+        assertEquals(400.0, metrics.getTotalProfitLoss(), DELTA);
+        assertEquals(3, metrics.getTradesProcessed());
+    }
+
+    @Test
+    void getMetrics_shouldNotLetDepositSizeDistortTimeWeightedReturn() {
+        // Given: +10% on a small position, then a ten times larger buy that gains another 10%
+        when(transactionsRepo.findTradesAfter(anyInt(), any(Pageable.class))).thenReturn(List.of(
+                trade(1, TODAY.minusDays(20), "BUY", "AAPL", 10, 100),
+                trade(2, TODAY.minusDays(10), "BUY", "AAPL", 100, 110)));
+        stubQuotes("AAPL", 121);
+
+        // When
+        PerformanceMetrics metrics = performanceService.getMetrics();
+
+        // Then: The two periods link to 1.1 * 1.1
+        assertEquals(21.0, metrics.getTimeWeightedReturn(), DELTA);
+        assertEquals(TODAY.minusDays(20), metrics.getSince());
     }
 
     @Test
-    void serviceInstance_shouldNotBeNull_whenCreated() {
-        // Given & When: Service is injected
-        
-        // Then: Service instance should be created
-        assertNotNull(performanceService);
+    void getMetrics_shouldMarkOpenPositions_atStoredClose_whenDaysPass() {
+        // Given: AAPL closes at 120 the day before an MSFT purchase
+        LocalDate first = TODAY.minusDays(3);
+        LocalDate close = TODAY.minusDays(2);
+        when(priceHistoryStore.read("AAPL")).thenReturn(series(close, 120.0));
+        when(transactionsRepo.findTradesAfter(anyInt(), any(Pageable.class))).thenReturn(List.of(
+                trade(1, first, "BUY", "AAPL", 10, 100),
+                trade(2, TODAY.minusDays(1), "BUY", "MSFT", 10, 50)));
+        when(marketLookupService.getQuotes(anyCollection())).thenReturn(batch("AAPL", 120, "MSFT", 50));
+
+        // When
+        PerformanceMetrics metrics = performanceService.getMetrics();
+
+        // Then: The AAPL move is credited to the period before the MSFT flow
+        assertEquals(20.0, metrics.getTimeWeightedReturn(), DELTA);
+    }
+
+    @Test
+    void getMetrics_shouldAnnualizeMoneyWeightedReturn() {
+        // Given: 1000 invested exactly a year ago, worth 1100 today
+        when(transactionsRepo.findTradesAfter(anyInt(), any(Pageable.class))).thenReturn(List.of(
+                trade(1, TODAY.minusDays(365), "BUY", "AAPL", 10, 100)));
+        stubQuotes("AAPL", 110);
+
+        // When
+        PerformanceMetrics metrics = performanceService.getMetrics();
+
+        // Then
+        assertEquals(10.0, metrics.getMoneyWeightedReturn(), 1e-6);
+        assertEquals(10.0, metrics.getTimeWeightedReturn(), DELTA);
     }
 
     @Test
-    void serviceInitialization_shouldComplete_withoutErrors() {
-        // Given: Fresh service instance
-        
-        // When: Service is initialized
-        PerformanceService service = new PerformanceService();
-        
-        // Then: No exceptions should be thrown
-        assertNotNull(service);
+    void getMetrics_shouldFoldInOnlyNewTrades_onLaterCalls() {
+        // Given
+        when(transactionsRepo.findTradesAfter(eq(0), any(Pageable.class))).thenReturn(List.of(
+                trade(1, TODAY.minusDays(5), "BUY", "AAPL", 10, 100)));
+        when(transactionsRepo.findTradesAfter(eq(1), any(Pageable.class))).thenReturn(List.of(
+                trade(2, TODAY, "BUY", "AAPL", 5, 100)));
+        when(marketLookupService.getQuotes(anyCollection())).thenReturn(batch("AAPL", 100));
+
+        // When
+        performanceService.getMetrics();
+        PerformanceMetrics metrics = performanceService.getMetrics();
+
+        // Then: The second call reads on from the last id it saw
+        verify(transactionsRepo).findTradesAfter(eq(1), any(Pageable.class));
+        assertEquals(2, metrics.getTradesProcessed());
+        assertEquals(1500.0, metrics.getMarketValue(), DELTA);
+        assertEquals(1500.0, metrics.getCostBasis(), DELTA);
     }
 
     @Test
-    void performanceService_shouldBeReusable_acrossRequests() {
-        // Given: Service instances
-        
-        // When: Creating multiple service instances
-        PerformanceService service1 = new PerformanceService();
-        PerformanceService service2 = new PerformanceService();
-        
-        // Then: All should be valid
-        assertNotNull(service1);
-        assertNotNull(service2);
+    void getMetrics_shouldKeepLastTradePrice_whenQuoteUnavailable() {
+        // Given
+        when(transactionsRepo.findTradesAfter(anyInt(), any(Pageable.class))).thenReturn(List.of(
+                trade(1, TODAY.minusDays(5), "BUY", "AAPL", 10, 100)));
+        QuoteBatch failed = new QuoteBatch();
+        failed.addError("AAPL", "Quote unavailable for AAPL");
+        when(marketLookupService.getQuotes(anyCollection())).thenReturn(failed);
+
+        // When
+        PerformanceMetrics metrics = performanceService.getMetrics();
+
+        // Then
+        assertEquals(1000.0, metrics.getMarketValue(), DELTA);
+        assertEquals("Quote unavailable for AAPL", metrics.getPriceErrors().get("AAPL"));
     }
 
     @Test
-    void performanceService_shouldHandleInstantiation_withoutError() {
-        // Given & When: Instantiating service
-        
-        // Then: Should not throw exceptions
-        assertDoesNotThrow(() -> new PerformanceService());
+    void xirr_shouldReturnNull_whenAllFlowsAreOnOneDay() {
+        // Given
+        PerformanceService.CashFlows flows = new PerformanceService.CashFlows();
+        flows.add(100, -1000);
+
+        // When & Then
+        assertNull(flows.xirr(100, 1100));
+    }
+
+    private void stubQuotes(String symbol, double price) {
+        when(marketLookupService.getQuotes(anyCollection())).thenReturn(batch(symbol, price));
+    }
+
+    private static QuoteBatch batch(Object... symbolsAndPrices) {
+        QuoteBatch batch = new QuoteBatch();
+        for (int i = 0; i < symbolsAndPrices.length; i += 2) {
+            Quote quote = new Quote();
+            quote.setPrice(((Number) symbolsAndPrices[i + 1]).doubleValue());
+            batch.addQuote((String) symbolsAndPrices[i], quote);
+        }
+        return batch;
+    }
+
+    private static PriceHistoryStore.Series series(LocalDate day, double close) {
+        return new PriceHistoryStore.Series(IntBuffer.wrap(new int[] { (int) day.toEpochDay() }),
+                DoubleBuffer.wrap(new double[] { close }), 1, (int) day.toEpochDay(), (int) day.toEpochDay());
+    }
+
+    private static LedgerEntry trade(int id, LocalDate date, String type, String symbol, int quantity, double price) {
+        return new LedgerEntry(id, date, type, symbol, quantity, BigDecimal.valueOf(price), null, null);
     }
 }
@@ -0,0 +1,164 @@
+package com.neueda.pm_milkyway.service;
+
+import com.neueda.pm_milkyway.dto.HoldingView;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.entity.AccountBalanceEntity;
+import com.neueda.pm_milkyway.entity.HoldingsEntity;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.AccountBalanceRepo;
+import com.neueda.pm_milkyway.repo.HoldingsRepo;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioReadModelTest {
+
+    @Mock
+    private HoldingsRepo holdingsRepo;
+
+    @Mock
+    private AccountBalanceRepo accountBalanceRepo;
+
+    @Mock
+    private TransactionsRepo transactionsRepo;
+
+    @InjectMocks
+    private PortfolioReadModel portfolioReadModel;
+
+    @BeforeEach
+    void setUp() {
+        // Given: Ledger row 10 is the last one; AAPL is held twice, the second row being a stale duplicate
+        when(transactionsRepo.findTopByOrderByIdDesc()).thenReturn(Optional.of(transaction(10)));
+        when(holdingsRepo.findAll()).thenReturn(List.of(holding("AAPL", 10, 1500.0), holding("MSFT", 5, 2000.0),
+                holding("AAPL", 99, 1.0)));
+        AccountBalanceEntity balance = new AccountBalanceEntity();
+        balance.setPurseValue(Money.of(96500.0));
+        when(accountBalanceRepo.findById(TransactionsService.PURSE_ID)).thenReturn(Optional.of(balance));
+    }
+
+    @Test
+    void snapshot_shouldLoadOnce_fromHoldingsAndBalance() {
+        // When
+        PortfolioReadModel.Snapshot first = portfolioReadModel.snapshot();
+        PortfolioReadModel.Snapshot second = portfolioReadModel.snapshot();
+
+        // Then: The first row per symbol is mirrored and later reads hit no repository
+        assertSame(first, second);
+        assertEquals(Money.of(96500.0), first.purse());
+        assertEquals(List.of(new HoldingView("AAPL", 10, Money.of(1500.0)),
+                new HoldingView("MSFT", 5, Money.of(2000.0))), first.holdings());
+        verify(holdingsRepo, times(1)).findAll();
+    }
+
+    @Test
+    void recordCommit_shouldPublishNewVersion_withAbsoluteValues() {
+        // Given
+        PortfolioReadModel.Snapshot before = portfolioReadModel.snapshot();
+
+        // When: Ledger row 11 buys more AAPL and opens GOOGL
+        portfolioReadModel.recordCommit(11, 9_000_000,
+                List.of(holding("AAPL", 12, 1800.0), holding("GOOGL", 3, 450.0)));
+
+        // Then: The old snapshot is unchanged and the new one carries the trade
+        PortfolioReadModel.Snapshot after = portfolioReadModel.snapshot();
+        assertTrue(after.version() > before.version());
+        assertEquals(Money.of(96500.0), before.purse());
+        assertEquals(10, before.holdings().get(0).getQuantity());
+        assertEquals(Money.of(90000.0), after.purse());
+        assertEquals(List.of(new HoldingView("AAPL", 12, Money.of(1800.0)),
+                new HoldingView("MSFT", 5, Money.of(2000.0)), new HoldingView("GOOGL", 3, Money.of(450.0))),
+                after.holdings());
+        assertEquals(after.holdings(), after.stats().get("holdings"));
+        assertEquals(Money.of(90000.0), after.stats().get("purse"));
+    }
+
+    @Test
+    void recordCommit_shouldIgnoreChanges_olderThanAppliedState() {
+        // Given: Row 12 has already been applied
+        portfolioReadModel.snapshot();
+        portfolioReadModel.recordCommit(12, 9_500_000, List.of(holding("MSFT", 4, 1600.0)));
+        long version = portfolioReadModel.snapshot().version();
+
+        // When: Row 11 arrives late, and a change predating the load replays
+        portfolioReadModel.recordCommit(11, 9_700_000, List.of(holding("MSFT", 6, 2400.0)));
+        portfolioReadModel.recordCommit(9, 9_800_000, List.of(holding("AAPL", 1, 150.0)));
+
+        // Then
+        PortfolioReadModel.Snapshot snapshot = portfolioReadModel.snapshot();
+        assertEquals(version, snapshot.version());
+        assertEquals(Money.of(95000.0), snapshot.purse());
+        assertEquals(List.of(new HoldingView("AAPL", 10, Money.of(1500.0)),
+                new HoldingView("MSFT", 4, Money.of(1600.0))), snapshot.holdings());
+    }
+
+    @Test
+    void recordCommit_shouldDropClosedPositions_butKeepTheirSymbolId() {
+        // Given
+        portfolioReadModel.snapshot();
+
+        // When: AAPL is sold out
+        portfolioReadModel.recordCommit(11, 9_800_000, List.of(holding("AAPL", 0, 1500.0)));
+
+        // Then
+        PortfolioReadModel.Snapshot snapshot = portfolioReadModel.snapshot();
+        assertEquals(List.of(new HoldingView("MSFT", 5, Money.of(2000.0))), snapshot.holdings());
+        assertEquals(2, snapshot.symbolCount());
+        assertEquals("AAPL", snapshot.symbol(0));
+        assertEquals(0, snapshot.quantity(0));
+        assertEquals(0, snapshot.totalInvestedCents(0));
+    }
+
+    @Test
+    void reloadAfterCommit_shouldReadRepositoriesAgain() {
+        // Given
+        portfolioReadModel.snapshot();
+        when(holdingsRepo.findAll()).thenReturn(List.of(holding("MSFT", 5, 2000.0)));
+
+        // When
+        portfolioReadModel.reloadAfterCommit();
+
+        // Then
+        assertEquals(List.of(new HoldingView("MSFT", 5, Money.of(2000.0))),
+                portfolioReadModel.snapshot().holdings());
+    }
+
+    @Test
+    void snapshot_shouldExposeUnmodifiableViews() {
+        // When
+        PortfolioReadModel.Snapshot snapshot = portfolioReadModel.snapshot();
+
+        // Then
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.holdings().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.stats().put("purse", 0.0));
+    }
+
+    private static HoldingsEntity holding(String stock, int quantity, double invested) {
+        HoldingsEntity holding = new HoldingsEntity();
+        holding.setStock(stock);
+        holding.setQuantity(quantity);
+        holding.setTotal_invested(Money.of(invested));
+        return holding;
+    }
+
+    private static TransactionEntity transaction(int id) {
+        TransactionEntity tx = new TransactionEntity();
+        tx.setId(id);
+        return tx;
+    }
+}
@@ -0,0 +1,174 @@
+package com.neueda.pm_milkyway.service;
+
+import com.neueda.pm_milkyway.dto.PriceHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PriceHistoryServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    @Mock
+    private MarketDataClient marketDataClient;
+
+    @TempDir
+    Path directory;
+
+    private PriceHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new PriceHistoryStore(directory);
+    }
+
+    @Test
+    void getHistory_shouldFetchOnce_andServeRepeatViewsLocally() {
+        // Given
+        PriceHistoryService service = serviceOn(MONDAY);
+        when(marketDataClient.fetchHistory("AAPL"))
+                .thenReturn(history("2026-02-26", 10.0, "2026-02-27", 11.0, "2026-03-02", 12.0));
+
+        // When: The same chart is viewed three times, once with a lower-case symbol
+        PriceHistory first = service.getHistory("AAPL", null, null);
+        service.getHistory("aapl", null, null);
+        PriceHistory third = service.getHistory("AAPL", null, null);
+
+        // Then
+        verify(marketDataClient, times(1)).fetchHistory("AAPL");
+        assertEquals(List.of("2026-02-26", "2026-02-27", "2026-03-02"), third.getLabels());
+        assertArrayEquals(new double[] { 10.0, 11.0, 12.0 }, third.getPrices());
+        assertEquals(first.getLabels(), third.getLabels());
+    }
+
+    @Test
+    void getHistory_shouldSurviveRestart_withoutUpstreamCall() {
+        // Given: Yesterday's process stored the window
+        when(marketDataClient.fetchHistory("AAPL")).thenReturn(history("2026-02-27", 11.0, "2026-03-02", 12.0));
+        serviceOn(MONDAY).getHistory("AAPL", null, null);
+
+        // When: A new store and service read the same directory on the same day
+        PriceHistory history = new PriceHistoryService(marketDataClient, new PriceHistoryStore(directory),
+                clockAt(MONDAY)).getHistory("AAPL", null, null);
+
+        // Then
+        verify(marketDataClient, times(1)).fetchHistory("AAPL");
+        assertArrayEquals(new double[] { 11.0, 12.0 }, history.getPrices());
+    }
+
+    @Test
+    void getHistory_shouldMergeNextDay_withUpstreamWinningOnOverlap() {
+        // Given: Monday's fetch stored a mid-session close for Monday
+        when(marketDataClient.fetchHistory("AAPL"))
+                .thenReturn(history("2026-02-27", 11.0, "2026-03-02", 12.0))
+                .thenReturn(history("2026-03-02", 12.5, "2026-03-03", 13.0));
+        serviceOn(MONDAY).getHistory("AAPL", null, null);
+
+        // When: Tuesday's view refetches
+        PriceHistory history = serviceOn(MONDAY.plusDays(1)).getHistory("AAPL", null, null);
+
+        // Then: Older stored days are kept, Monday is corrected and Tuesday appended
+        assertEquals(List.of("2026-02-27", "2026-03-02", "2026-03-03"), history.getLabels());
+        assertArrayEquals(new double[] { 11.0, 12.5, 13.0 }, history.getPrices());
+        verify(marketDataClient, times(2)).fetchHistory("AAPL");
+    }
+
+    @Test
+    void getHistory_shouldServeStoredRange_withoutFetching_whenRangeIsCovered() {
+        // Given
+        PriceHistoryService service = serviceOn(MONDAY);
+        when(marketDataClient.fetchHistory("AAPL"))
+                .thenReturn(history("2026-02-25", 9.0, "2026-02-26", 10.0, "2026-02-27", 11.0, "2026-03-02", 12.0));
+        service.getHistory("AAPL", null, null);
+
+        // When
+        PriceHistory history = service.getHistory("AAPL", LocalDate.of(2026, 2, 26), LocalDate.of(2026, 2, 27));
+
+        // Then
+        assertEquals(List.of("2026-02-26", "2026-02-27"), history.getLabels());
+        assertArrayEquals(new double[] { 10.0, 11.0 }, history.getPrices());
+        verify(marketDataClient, times(1)).fetchHistory("AAPL");
+    }
+
+    @Test
+    void getHistory_shouldNotFetch_forRangeUpstreamCannotSupply() {
+        // When: The whole range is older than the proxy's window
+        PriceHistory history = serviceOn(MONDAY).getHistory("AAPL", LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 1, 31));
+
+        // Then
+        verifyNoInteractions(marketDataClient);
+        assertEquals(0, history.getLabels().size());
+    }
+
+    @Test
+    void getHistory_shouldServeStoredData_whenRefreshFails() {
+        // Given: Data from Monday, upstream down on Tuesday
+        when(marketDataClient.fetchHistory("AAPL"))
+                .thenReturn(history("2026-03-02", 12.0))
+                .thenThrow(new RuntimeException("History unavailable for AAPL"));
+        serviceOn(MONDAY).getHistory("AAPL", null, null);
+
+        // When
+        PriceHistory history = serviceOn(MONDAY.plusDays(1)).getHistory("AAPL", null, null);
+
+        // Then
+        assertArrayEquals(new double[] { 12.0 }, history.getPrices());
+    }
+
+    @Test
+    void getHistory_shouldPropagateFailure_whenNothingStored() {
+        // Given
+        when(marketDataClient.fetchHistory("AAPL")).thenThrow(new RuntimeException("History unavailable for AAPL"));
+        PriceHistoryService service = serviceOn(MONDAY);
+
+        // When & Then
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.getHistory("AAPL", null, null));
+        assertEquals("History unavailable for AAPL", e.getMessage());
+    }
+
+    @Test
+    void getHistory_shouldReject_invertedRange() {
+        // When & Then
+        PriceHistoryService service = serviceOn(MONDAY);
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getHistory("AAPL", MONDAY, MONDAY.minusDays(1)));
+    }
+
+    private PriceHistoryService serviceOn(LocalDate today) {
+        return new PriceHistoryService(marketDataClient, store, clockAt(today));
+    }
+
+    private static Clock clockAt(LocalDate today) {
+        return Clock.fixed(today.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+
+    private static PriceHistory history(Object... labelsAndPrices) {
+        int rows = labelsAndPrices.length / 2;
+        String[] labels = new String[rows];
+        double[] prices = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            labels[i] = (String) labelsAndPrices[2 * i];
+            prices[i] = (Double) labelsAndPrices[2 * i + 1];
+        }
+        return new PriceHistory("AAPL", List.of(labels), prices);
+    }
+}
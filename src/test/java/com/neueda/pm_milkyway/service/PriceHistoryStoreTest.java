@@ -0,0 +1,94 @@
+package com.neueda.pm_milkyway.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PriceHistoryStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void read_shouldReturnEmptySeries_whenNothingStored() {
+        // When
+        PriceHistoryStore.Series series = new PriceHistoryStore(directory).read("AAPL");
+
+        // Then
+        assertEquals(0, series.size());
+        assertEquals(Integer.MAX_VALUE, series.coveredFrom());
+        assertEquals(Integer.MIN_VALUE, series.coveredThrough());
+    }
+
+    @Test
+    void write_shouldPersistColumns_readableByNewStore() {
+        // Given: Three rows written with an odd count so the close column needs padding
+        new PriceHistoryStore(directory).write("AAPL", new int[] { 100, 101, 104, 0 },
+                new double[] { 1.5, 2.5, 3.5, 0 }, 3, 90, 104);
+
+        // When: A fresh store maps the file
+        PriceHistoryStore.Series series = new PriceHistoryStore(directory).read("AAPL");
+
+        // Then
+        assertEquals(3, series.size());
+        assertEquals(104, series.day(2));
+        assertEquals(2.5, series.close(1));
+        assertEquals(90, series.coveredFrom());
+        assertEquals(104, series.coveredThrough());
+        assertArrayEquals(new double[] { 2.5, 3.5 }, series.closes(1, 3));
+    }
+
+    @Test
+    void lowerBound_shouldFindFirstRowOnOrAfterDay() {
+        // Given
+        PriceHistoryStore.Series series = new PriceHistoryStore(directory).write("AAPL",
+                new int[] { 100, 101, 104 }, new double[] { 1, 2, 3 }, 3, 100, 104);
+
+        // When & Then
+        assertEquals(0, series.lowerBound(50));
+        assertEquals(1, series.lowerBound(101));
+        assertEquals(2, series.lowerBound(102));
+        assertEquals(3, series.lowerBound(105));
+    }
+
+    @Test
+    void write_shouldReplaceMappedSeries() {
+        // Given
+        PriceHistoryStore store = new PriceHistoryStore(directory);
+        store.write("AAPL", new int[] { 100 }, new double[] { 1 }, 1, 100, 100);
+        store.read("AAPL");
+
+        // When
+        store.write("AAPL", new int[] { 100, 101 }, new double[] { 1.25, 2 }, 2, 100, 101);
+
+        // Then: Later reads see the new file without reopening the store
+        PriceHistoryStore.Series series = store.read("AAPL");
+        assertEquals(2, series.size());
+        assertEquals(1.25, series.close(0));
+    }
+
+    @Test
+    void read_shouldTreatCorruptFileAsEmpty() throws Exception {
+        // Given
+        Files.write(directory.resolve("AAPL.hist"), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17 });
+
+        // When
+        PriceHistoryStore.Series series = new PriceHistoryStore(directory).read("AAPL");
+
+        // Then
+        assertEquals(0, series.size());
+    }
+
+    @Test
+    void read_shouldRejectSymbolsThatAreNotFileSafe() {
+        // When & Then
+        PriceHistoryStore store = new PriceHistoryStore(directory);
+        assertThrows(IllegalArgumentException.class, () -> store.read("../AAPL"));
+    }
+}
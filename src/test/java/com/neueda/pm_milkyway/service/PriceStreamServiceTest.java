@@ -0,0 +1,386 @@
+package com.neueda.pm_milkyway.service;
+
+import com.neueda.pm_milkyway.dto.Quote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PriceStreamServiceTest {
+
+    @Mock
+    private MarketLookupService marketLookupService;
+
+    @Mock
+    private ScheduledExecutorService pollers;
+
+    @Mock
+    private ScheduledFuture<Object> pollerHandle;
+
+    private PriceStreamService priceStreamService;
+
+    @BeforeEach
+    void setUp() {
+        // Ticks are delivered on the calling thread so each test sees them immediately
+        priceStreamService = new PriceStreamService(marketLookupService, pollers, Runnable::run,
+                Duration.ofSeconds(5), 3, 0, Duration.ZERO, Clock.systemUTC());
+    }
+
+    @Test
+    void register_shouldStartOnePollerPerSymbol_regardlessOfSubscriberCount() {
+        // Given: Poller scheduling succeeds
+        stubScheduling();
+
+        // When: Three clients subscribe to overlapping symbols
+        priceStreamService.register(Set.of("AAPL"), tick -> { });
+        priceStreamService.register(Set.of("AAPL", "MSFT"), tick -> { });
+        priceStreamService.register(Set.of("MSFT"), tick -> { });
+
+        // Then: Exactly one poller per distinct symbol is running
+        verify(pollers, times(2)).scheduleWithFixedDelay(any(Runnable.class), eq(0L), eq(5000L), eq(TimeUnit.MILLISECONDS));
+        assertEquals(2, priceStreamService.activeFeeds());
+        assertEquals(2, priceStreamService.subscriberCount("AAPL"));
+        assertEquals(2, priceStreamService.subscriberCount("MSFT"));
+    }
+
+    @Test
+    void poll_shouldFanOutEachTick_toEverySubscriber() {
+        // Given: Two subscribers on one symbol
+        stubScheduling();
+        List<PriceStreamService.PriceTick> first = new ArrayList<>();
+        List<PriceStreamService.PriceTick> second = new ArrayList<>();
+        priceStreamService.register(Set.of("AAPL"), first::add);
+        priceStreamService.register(Set.of("AAPL"), second::add);
+        when(marketLookupService.refreshQuote("AAPL")).thenReturn(quote(189.5), quote(189.5), quote(190.0));
+
+        // When: Three polls happen, the second with an unchanged price
+        priceStreamService.poll("AAPL");
+        priceStreamService.poll("AAPL");
+        priceStreamService.poll("AAPL");
+
+        // Then: Both see the two distinct prices from one upstream poll each
+        assertEquals(List.of(189.5, 190.0), first.stream().map(tick -> tick.quote().getPrice()).toList());
+        assertEquals(List.of(189.5, 190.0), second.stream().map(tick -> tick.quote().getPrice()).toList());
+        verify(marketLookupService, times(3)).refreshQuote("AAPL");
+    }
+
+    @Test
+    void register_shouldDeliverFirstTick_whenThePollerRunsBeforeTheFeedIsStored() {
+        // Given: A scheduler that runs the first poll at once, inside the registration
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return pollerHandle;
+        }).when(pollers).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+        when(marketLookupService.refreshQuote("AAPL")).thenReturn(quote(189.5));
+
+        // When: The first client subscribes
+        List<PriceStreamService.PriceTick> ticks = new ArrayList<>();
+        priceStreamService.register(Set.of("AAPL"), ticks::add);
+
+        // Then: It has the price without waiting a poll interval for the next run
+        assertEquals(1, ticks.size());
+        assertEquals(189.5, ticks.get(0).quote().getPrice());
+    }
+
+    @Test
+    void register_shouldSendLastKnownPrice_toLateSubscriber() {
+        // Given: A feed that has already polled once
+        stubScheduling();
+        priceStreamService.register(Set.of("AAPL"), tick -> { });
+        when(marketLookupService.refreshQuote("AAPL")).thenReturn(quote(189.5));
+        priceStreamService.poll("AAPL");
+
+        // When: Another client joins
+        List<PriceStreamService.PriceTick> late = new ArrayList<>();
+        priceStreamService.register(Set.of("AAPL"), late::add);
+
+        // Then: It gets the current price without another upstream call
+        assertEquals(1, late.size());
+        assertEquals(189.5, late.get(0).quote().getPrice());
+        verify(marketLookupService, times(1)).refreshQuote("AAPL");
+    }
+
+    @Test
+    void poll_shouldPublishErrorTick_whenUpstreamFails() {
+        // Given: A subscriber and a failing upstream
+        stubScheduling();
+        List<PriceStreamService.PriceTick> ticks = new ArrayList<>();
+        priceStreamService.register(Set.of("BOGUS"), ticks::add);
+        when(marketLookupService.refreshQuote("BOGUS")).thenThrow(new RuntimeException("Quote unavailable for BOGUS"));
+
+        // When: The poller runs
+        priceStreamService.poll("BOGUS");
+
+        // Then: The subscriber is told which symbol failed
+        assertEquals(1, ticks.size());
+        assertEquals("BOGUS", ticks.get(0).symbol());
+        assertEquals("Quote unavailable for BOGUS", ticks.get(0).error());
+    }
+
+    @Test
+    void unregister_shouldStopPoller_whenLastSubscriberLeaves() {
+        // Given: Two subscribers on one symbol
+        stubScheduling();
+        PriceStreamService.Subscriber first = priceStreamService.register(Set.of("AAPL"), tick -> { });
+        PriceStreamService.Subscriber second = priceStreamService.register(Set.of("AAPL"), tick -> { });
+
+        // When & Then: The poller keeps running until both have left
+        priceStreamService.unregister(first);
+        verify(pollerHandle, never()).cancel(false);
+        assertEquals(1, priceStreamService.activeFeeds());
+
+        priceStreamService.unregister(second);
+        verify(pollerHandle).cancel(false);
+        assertEquals(0, priceStreamService.activeFeeds());
+    }
+
+    @Test
+    void send_shouldUnsubscribe_whenClientHasGone() {
+        // Given: A subscriber whose connection is closed
+        stubScheduling();
+        priceStreamService.register(Set.of("AAPL"), tick -> {
+            throw new IOException("Broken pipe");
+        });
+        when(marketLookupService.refreshQuote("AAPL")).thenReturn(quote(189.5));
+
+        // When: A tick is delivered
+        priceStreamService.poll("AAPL");
+
+        // Then: Its feed is torn down
+        assertEquals(0, priceStreamService.activeFeeds());
+        verify(pollerHandle).cancel(false);
+    }
+
+    @Test
+    void send_shouldCloseTheResponse_whenClientHasGone() {
+        // Given: A subscriber whose connection is closed
+        stubScheduling();
+        AtomicInteger closed = new AtomicInteger();
+        priceStreamService.register(Set.of("AAPL"), tick -> {
+            throw new IOException("Broken pipe");
+        }, closed::incrementAndGet);
+        when(marketLookupService.refreshQuote("AAPL")).thenReturn(quote(189.5));
+
+        // When: A tick is delivered
+        priceStreamService.poll("AAPL");
+
+        // Then: Its response is completed once
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void slowSubscriber_shouldDropOldestTicks_withoutDelayingOthers() throws Exception {
+        // Given: A real sender pool, one fast subscriber and one that blocks on its first tick
+        stubScheduling();
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        PriceStreamService service = new PriceStreamService(marketLookupService, pollers, senders,
+                Duration.ofSeconds(5), 3, 0, Duration.ZERO, Clock.systemUTC());
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Double> slowSeen = Collections.synchronizedList(new ArrayList<>());
+        BlockingQueue<Double> fastSeen = new LinkedBlockingQueue<>();
+        PriceStreamService.Subscriber slow = service.register(Set.of("AAPL"), tick -> {
+            slowStarted.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowSeen.add(tick.quote().getPrice());
+        });
+        service.register(Set.of("AAPL"), tick -> fastSeen.add(tick.quote().getPrice()));
+        when(marketLookupService.refreshQuote("AAPL")).thenReturn(quote(1), quote(2), quote(3), quote(4),
+                quote(5), quote(6), quote(7), quote(8), quote(9), quote(10));
+
+        try {
+            // When: Ten distinct ticks are polled while the slow client is stuck on the first
+            service.poll("AAPL");
+            assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+            assertEquals(1.0, fastSeen.poll(5, TimeUnit.SECONDS));
+
+            // Then: The fast client receives every later tick while the slow one is still blocked
+            for (int i = 2; i <= 10; i++) {
+                service.poll("AAPL");
+                assertEquals((double) i, fastSeen.poll(5, TimeUnit.SECONDS));
+            }
+
+            // And: The slow client keeps the tick in flight plus the newest three, having dropped the rest
+            release.countDown();
+            senders.shutdown();
+            assertTrue(senders.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(List.of(1.0, 8.0, 9.0, 10.0), slowSeen);
+            assertEquals(6, slow.dropped());
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+
+    @Test
+    void blockedSubscribers_shouldNotDelayOthers_howeverManyAreBlocked() throws Exception {
+        // Given: The production sender executor, eight clients stuck on their socket and one healthy one
+        stubScheduling();
+        ExecutorService senders = BlockingExecutors.perTask("price-send", BlockingExecutors.Mode.PLATFORM);
+        PriceStreamService service = new PriceStreamService(marketLookupService, pollers, senders,
+                Duration.ofSeconds(5), 3, 0, Duration.ZERO, Clock.systemUTC());
+        int blockedClients = 8;
+        CountDownLatch blocked = new CountDownLatch(blockedClients);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < blockedClients; i++) {
+            service.register(Set.of("AAPL"), tick -> {
+                blocked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        BlockingQueue<Double> healthySeen = new LinkedBlockingQueue<>();
+        service.register(Set.of("AAPL"), tick -> healthySeen.add(tick.quote().getPrice()));
+        when(marketLookupService.refreshQuote("AAPL")).thenReturn(quote(1), quote(2));
+
+        try {
+            // When: Every blocked client is stuck on the first tick
+            service.poll("AAPL");
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            service.poll("AAPL");
+
+            // Then: The healthy client still gets both
+            assertEquals(1.0, healthySeen.poll(5, TimeUnit.SECONDS));
+            assertEquals(2.0, healthySeen.poll(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            senders.shutdownNow();
+        }
+    }
+
+    @Test
+    void stalledSubscriber_shouldBeDropped_whenItsSendOutlastsTheTimeout() throws Exception {
+        // Given: A client stuck on its first tick, next to a healthy one on the same symbol
+        stubScheduling();
+        AtomicLong nowMillis = new AtomicLong(1_000_000);
+        ExecutorService senders = Executors.newCachedThreadPool();
+        PriceStreamService service = new PriceStreamService(marketLookupService, pollers, senders,
+                Duration.ofSeconds(5), 3, 0, Duration.ofSeconds(10), clock(nowMillis));
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        PriceStreamService.Subscriber stalled = service.register(Set.of("AAPL"), tick -> {
+            stuck.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, closed::countDown);
+        PriceStreamService.Subscriber healthy = service.register(Set.of("AAPL"), tick -> { });
+        when(marketLookupService.refreshQuote("AAPL")).thenReturn(quote(1), quote(2), quote(3));
+
+        try {
+            service.poll("AAPL");
+            assertTrue(stuck.await(5, TimeUnit.SECONDS));
+
+            // When: A tick arrives before the timeout, then one after it
+            nowMillis.addAndGet(9_999);
+            service.poll("AAPL");
+            assertEquals(2, service.subscriberCount("AAPL"));
+            nowMillis.addAndGet(1);
+            service.poll("AAPL");
+
+            // Then: Only the stalled client is gone, its response completed while its write is still stuck
+            assertTrue(stalled.isClosed());
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            assertTrue(!healthy.isClosed());
+            assertEquals(1, service.subscriberCount("AAPL"));
+            verify(pollerHandle, never()).cancel(false);
+        } finally {
+            release.countDown();
+            senders.shutdownNow();
+        }
+    }
+
+    @Test
+    void subscribe_shouldReject_emptySymbolList() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> priceStreamService.subscribe(List.of(" ")));
+        verify(pollers, never()).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void subscribe_shouldReject_tooManySymbols() {
+        // Given
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i <= PriceStreamService.MAX_SYMBOLS_PER_SUBSCRIPTION; i++) {
+            symbols.add("S" + i);
+        }
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> priceStreamService.subscribe(symbols));
+    }
+
+    private void stubScheduling() {
+        doReturn(pollerHandle).when(pollers)
+                .scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+    }
+
+    private static Clock clock(AtomicLong nowMillis) {
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(nowMillis.get());
+            }
+        };
+    }
+
+    private static Quote quote(double price) {
+        Quote quote = new Quote();
+        quote.setPrice(price);
+        return quote;
+    }
+}
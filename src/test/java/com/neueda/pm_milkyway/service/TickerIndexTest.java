@@ -0,0 +1,89 @@
+package com.neueda.pm_milkyway.service;
+
+import com.neueda.pm_milkyway.dto.TickerMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickerIndexTest {
+
+    private static final TickerIndex INDEX = TickerIndex.build(List.of(
+            new TickerMatch("AAPL", "Apple Inc."),
+            new TickerMatch("MSFT", "Microsoft Corporation"),
+            new TickerMatch("AMZN", "Amazon.com, Inc."),
+            new TickerMatch("A", "Agilent Technologies, Inc."),
+            new TickerMatch("AAL", "American Airlines Group Inc."),
+            new TickerMatch("aapl", "Duplicate of Apple")));
+
+    @Test
+    void search_shouldRankExactSymbolFirst_thenSymbolPrefixesByListingOrder() {
+        // When
+        List<String> symbols = symbols(INDEX.search("a", 10));
+
+        // Then: Name hits for the same entries are not repeated
+        assertEquals(List.of("A", "AAPL", "AMZN", "AAL"), symbols);
+    }
+
+    @Test
+    void search_shouldMatchNameWords_andMultiWordNames() {
+        // When & Then
+        assertEquals(List.of("MSFT"), symbols(INDEX.search("micro", 10)));
+        assertEquals(List.of("AAL"), symbols(INDEX.search("airlines", 10)));
+        assertEquals(List.of("AAL"), symbols(INDEX.search("  american   air ", 10)));
+        assertEquals(List.of("AMZN"), symbols(INDEX.search("amazon.com", 10)));
+        assertTrue(INDEX.search("zzz", 10).isEmpty());
+        assertTrue(INDEX.search(" ", 10).isEmpty());
+    }
+
+    @Test
+    void search_shouldKeepFirstListing_whenSymbolRepeats() {
+        // When
+        List<TickerMatch> matches = INDEX.search("AAPL", 10);
+
+        // Then
+        assertEquals(1, matches.size());
+        assertEquals(new TickerMatch("AAPL", "Apple Inc."), matches.get(0));
+        assertEquals(5, INDEX.size());
+    }
+
+    @Test
+    void search_shouldCapResults_atLimitAndTopK() {
+        // Given: More entries under one prefix than a node keeps
+        List<TickerMatch> entries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            entries.add(new TickerMatch("S" + i, "Stock " + i));
+        }
+        TickerIndex index = TickerIndex.build(entries);
+
+        // When
+        List<TickerMatch> limited = index.search("S", 3);
+        List<TickerMatch> all = index.search("S", 100);
+
+        // Then: The best-ranked entries come back in listing order
+        assertEquals(List.of("S0", "S1", "S2"), symbols(limited));
+        assertEquals(TickerIndex.TOP_K, all.size());
+        assertEquals("S19", all.get(TickerIndex.TOP_K - 1).symbol());
+    }
+
+    @Test
+    void withAdded_shouldRankNewSymbolsLast_andLeaveOriginalUnchanged() {
+        // When
+        TickerIndex grown = INDEX.withAdded(List.of(new TickerMatch("AAPL", "Ignored"),
+                new TickerMatch("ABNB", "Airbnb, Inc.")));
+
+        // Then
+        assertEquals(List.of("A", "AAPL", "AMZN", "AAL", "ABNB"), symbols(grown.search("A", 10)));
+        assertTrue(grown.contains("abnb"));
+        assertFalse(INDEX.contains("ABNB"));
+        assertEquals(6, grown.size());
+    }
+
+    private static List<String> symbols(List<TickerMatch> matches) {
+        return matches.stream().map(TickerMatch::symbol).toList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.neueda.pm_milkyway.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.neueda.pm_milkyway.dto.TickerMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TickerSearchServiceTest {
+
+    private static final String LISTING = "# symbol<tab>name\n"
+            + "AAPL\tApple Inc.\n"
+            + "MSFT\tMicrosoft Corporation\n"
+            + "\n"
+            + "AMZN\tAmazon.com, Inc.\n";
+
+    @Mock
+    private MarketDataClient marketDataClient;
+
+    @TempDir
+    Path tempDir;
+
+    private Path learnedPath;
+    private TickerSearchService tickerSearchService;
+
+    @BeforeEach
+    void setUp() {
+        learnedPath = tempDir.resolve("learned").resolve("tickers.tsv");
+        tickerSearchService = newService();
+    }
+
+    @Test
+    void search_shouldAnswerFromListing_withoutCallingUpstream() {
+        // When
+        List<TickerMatch> matches = tickerSearchService.search("a", 10);
+
+        // Then
+        assertEquals(List.of(new TickerMatch("AAPL", "Apple Inc."), new TickerMatch("AMZN", "Amazon.com, Inc.")),
+                matches);
+        verify(marketDataClient, never()).searchTickers(anyString());
+    }
+
+    @Test
+    void search_shouldFallBackUpstream_andLearnNewSymbols() throws Exception {
+        // Given: Nothing local matches "reddit"
+        when(marketDataClient.searchTickers("REDDIT")).thenReturn(List.of(new TickerMatch("RDDT", "Reddit, Inc."),
+                new TickerMatch("AAPL", "Apple Inc.")));
+
+        // When
+        List<TickerMatch> fetched = tickerSearchService.search("Reddit", 10);
+
+        // Then: Upstream's answer is served, and the new symbol is indexed and recorded
+        assertEquals("RDDT", fetched.get(0).symbol());
+        assertEquals(List.of(new TickerMatch("RDDT", "Reddit, Inc.")), tickerSearchService.search("rdd", 10));
+        assertEquals(List.of("RDDT\tReddit, Inc."), Files.readAllLines(learnedPath, StandardCharsets.UTF_8));
+        assertEquals(List.of(new TickerMatch("RDDT", "Reddit, Inc.")), newService().search("reddit", 10));
+        verify(marketDataClient, times(1)).searchTickers(anyString());
+    }
+
+    @Test
+    void search_shouldCacheUpstreamAnswers_includingEmptyOnes() {
+        // Given
+        when(marketDataClient.searchTickers("QZXQ")).thenReturn(List.of());
+
+        // When
+        List<TickerMatch> first = tickerSearchService.search("qzxq", 10);
+        List<TickerMatch> second = tickerSearchService.search("QZXQ ", 10);
+
+        // Then
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(marketDataClient, times(1)).searchTickers("QZXQ");
+    }
+
+    @Test
+    void search_shouldNotCache_upstreamFailures() {
+        // Given
+        when(marketDataClient.searchTickers("QZXQ")).thenThrow(new RuntimeException("Search unavailable"))
+                .thenReturn(List.of(new TickerMatch("QZXQ", "")));
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> tickerSearchService.search("QZXQ", 10));
+        assertEquals("QZXQ", tickerSearchService.search("QZXQ", 10).get(0).symbol());
+        verify(marketDataClient, times(2)).searchTickers("QZXQ");
+    }
+
+    @Test
+    void search_shouldReject_blankQueryOrBadLimit() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> tickerSearchService.search("  ", 10));
+        assertThrows(IllegalArgumentException.class, () -> tickerSearchService.search("A", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> tickerSearchService.search("A", TickerIndex.TOP_K + 1));
+    }
+
+    private TickerSearchService newService() {
+        Resource listing = new ByteArrayResource(LISTING.getBytes(StandardCharsets.UTF_8));
+        TickerSearchService service = new TickerSearchService(marketDataClient, listing, learnedPath,
+                Duration.ofMinutes(10), Ticker.systemTicker());
+        service.loadIndex();
+        return service;
+    }
+}
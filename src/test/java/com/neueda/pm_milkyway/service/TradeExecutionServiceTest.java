@@ -0,0 +1,203 @@
+package com.neueda.pm_milkyway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.neueda.pm_milkyway.dto.TradeOrder;
+import com.neueda.pm_milkyway.dto.TradeResult;
+import com.neueda.pm_milkyway.entity.HoldingsEntity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TradeExecutionServiceTest {
+
+    @Mock
+    private TransactionsService transactionsService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TradeExecutionService tradeExecutionService;
+
+    @BeforeEach
+    void setUp() {
+        tradeExecutionService = new TradeExecutionService(transactionsService, 16, 3, meterRegistry);
+    }
+
+    @Test
+    void buy_shouldDelegateToTransactionsService_whenNoConflict() {
+        // When: Buying a stock
+        tradeExecutionService.buy("AAPL", 5, 150.0);
+
+        // Then: Purchase should run exactly once
+        verify(transactionsService, times(1)).executePurchase("AAPL", 5, 150.0);
+    }
+
+    @Test
+    void sell_shouldRetry_whenOptimisticLockFails() {
+        // Given: First attempt loses a version race, second succeeds
+        doThrow(new ObjectOptimisticLockingFailureException(HoldingsEntity.class, 1))
+                .doNothing()
+                .when(transactionsService).executeSale("AAPL", 2, 160.0);
+
+        // When: Selling
+        tradeExecutionService.sell("AAPL", 2, 160.0);
+
+        // Then: Sale should be attempted twice
+        verify(transactionsService, times(2)).executeSale("AAPL", 2, 160.0);
+    }
+
+    @Test
+    void adjust_shouldRetry_whenRowLockTimesOut() {
+        // Given: Lock acquisition fails once
+        doThrow(new CannotAcquireLockException("lock timeout"))
+                .doNothing()
+                .when(transactionsService).handleAdjustment("MSFT", "PLUS", 300.0);
+
+        // When: Adjusting
+        tradeExecutionService.adjust("MSFT", "PLUS", 300.0);
+
+        // Then: Adjustment should be retried
+        verify(transactionsService, times(2)).handleAdjustment("MSFT", "PLUS", 300.0);
+    }
+
+    @Test
+    void buy_shouldGiveUp_whenConflictsExceedMaxAttempts() {
+        // Given: Every attempt conflicts
+        doThrow(new ObjectOptimisticLockingFailureException(HoldingsEntity.class, 1))
+                .when(transactionsService).executePurchase("AAPL", 1, 100.0);
+
+        // When & Then: Should fail after the configured number of attempts
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            tradeExecutionService.buy("AAPL", 1, 100.0);
+        });
+
+        assertTrue(exception.getMessage().contains("concurrent updates"));
+        verify(transactionsService, times(3)).executePurchase("AAPL", 1, 100.0);
+    }
+
+    @Test
+    void buy_shouldNotRetry_whenBusinessRuleFails() {
+        // Given: Purchase rejected for insufficient funds
+        doThrow(new RuntimeException("Insufficient Purse Value!"))
+                .when(transactionsService).executePurchase("AAPL", 1000, 100.0);
+
+        // When & Then: Error should surface immediately
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            tradeExecutionService.buy("AAPL", 1000, 100.0);
+        });
+
+        assertEquals("Insufficient Purse Value!", exception.getMessage());
+        verify(transactionsService, times(1)).executePurchase("AAPL", 1000, 100.0);
+    }
+
+    @Test
+    void stripeFor_shouldIgnoreSymbolCase_andSpreadSymbols() {
+        // Then: Same symbol maps to one stripe regardless of case
+        assertSame(tradeExecutionService.stripeFor("AAPL"), tradeExecutionService.stripeFor("aapl"));
+        assertNotSame(tradeExecutionService.stripeFor("AAPL"), tradeExecutionService.stripeFor("MSFT"));
+    }
+
+    @Test
+    void execute_shouldReleaseLock_whenWorkThrows() {
+        // Given: Work that fails
+        doThrow(new RuntimeException("boom")).when(transactionsService).executeSale("TSLA", 1, 10.0);
+        assertThrows(RuntimeException.class, () -> tradeExecutionService.sell("TSLA", 1, 10.0));
+
+        // Then: The stripe should be free for the next trade
+        assertTrue(tradeExecutionService.stripeFor("TSLA").tryLock());
+        tradeExecutionService.stripeFor("TSLA").unlock();
+        doNothing().when(transactionsService).executeSale("TSLA", 1, 10.0);
+        tradeExecutionService.sell("TSLA", 1, 10.0);
+    }
+
+    @Test
+    void batch_shouldRunAllOrdersInOneCall_whenSymbolsDiffer() {
+        // Given: Orders on several symbols
+        List<TradeOrder> orders = Arrays.asList(
+                new TradeOrder("AAPL", "BUY", 1, 150.0),
+                new TradeOrder("MSFT", "SELL", 1, 300.0),
+                new TradeOrder("AAPL", "SELL", 1, 151.0));
+        List<TradeResult> expected = Collections.singletonList(new TradeResult());
+        when(transactionsService.executeBatch(orders)).thenReturn(expected);
+
+        // When: Executing the batch
+        List<TradeResult> results = tradeExecutionService.batch(orders);
+
+        // Then: The whole batch runs once and the stripes are released
+        assertSame(expected, results);
+        verify(transactionsService, times(1)).executeBatch(orders);
+        assertTrue(tradeExecutionService.stripeFor("AAPL").tryLock());
+        tradeExecutionService.stripeFor("AAPL").unlock();
+    }
+
+    @Test
+    void buy_shouldCountAndTimeTrades_byOutcome() {
+        // Given: The second purchase is refused
+        doNothing().doThrow(new RuntimeException("Insufficient Purse Value!"))
+                .when(transactionsService).executePurchase("AAPL", 1, 100.0);
+
+        // When
+        tradeExecutionService.buy("AAPL", 1, 100.0);
+        assertThrows(RuntimeException.class, () -> tradeExecutionService.buy("AAPL", 1, 100.0));
+
+        // Then: One of each, with a latency sample per outcome
+        assertEquals(1, meterRegistry.get("trades.executed").tag("operation", "buy").counter().count());
+        assertEquals(1, meterRegistry.get("trades.rejected").tag("operation", "buy").counter().count());
+        assertEquals(1, meterRegistry.get("trades.latency").tags("operation", "buy", "outcome", "executed")
+                .timer().count());
+        assertEquals(1, meterRegistry.get("trades.latency").tags("operation", "buy", "outcome", "rejected")
+                .timer().count());
+    }
+
+    @Test
+    void batch_shouldCountEachOrder_byItsResult() {
+        // Given: A batch where one of three orders is rejected
+        List<TradeOrder> orders = Arrays.asList(
+                new TradeOrder("AAPL", "BUY", 1, 150.0),
+                new TradeOrder("MSFT", "SELL", 1, 300.0),
+                new TradeOrder("TSLA", "BUY", 1, 200.0));
+        when(transactionsService.executeBatch(orders)).thenReturn(List.of(
+                TradeResult.filled(0, orders.get(0), null),
+                TradeResult.rejected(1, orders.get(1), "You do not own this stock!"),
+                TradeResult.filled(2, orders.get(2), null)));
+
+        // When
+        tradeExecutionService.batch(orders);
+
+        // Then
+        assertEquals(2, meterRegistry.get("trades.executed").tag("operation", "batch").counter().count());
+        assertEquals(1, meterRegistry.get("trades.rejected").tag("operation", "batch").counter().count());
+    }
+
+    @Test
+    void batch_shouldReject_whenEmptyOrTooLarge() {
+        // When & Then: Empty and oversized batches are refused before any work
+        assertThrows(RuntimeException.class, () -> tradeExecutionService.batch(Collections.emptyList()));
+        List<TradeOrder> tooMany = Collections.nCopies(TradeExecutionService.MAX_BATCH_ORDERS + 1,
+                new TradeOrder("AAPL", "BUY", 1, 1.0));
+        assertThrows(RuntimeException.class, () -> tradeExecutionService.batch(tooMany));
+        verifyNoInteractions(transactionsService);
+    }
+}
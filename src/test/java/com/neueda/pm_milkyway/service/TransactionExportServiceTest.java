@@ -0,0 +1,192 @@
+package com.neueda.pm_milkyway.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.dto.TransactionFilter;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+
+    @Mock
+    private TransactionsRepo transactionsRepo;
+
+    private TransactionExportService transactionExportService;
+
+    private TransactionEntity buy;
+    private TransactionEntity purseAdd;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        transactionExportService = new TransactionExportService(transactionsRepo, objectMapper);
+
+        buy = new TransactionEntity();
+        buy.setId(2);
+        buy.setDate(LocalDate.of(2026, 2, 2));
+        buy.setSymbol("AAPL");
+        buy.setType("BUY");
+        buy.setQuantity(10);
+        buy.setPrice(new BigDecimal("270.00"));
+        buy.setTransactionValue(Money.of(new BigDecimal("2700.00")));
+        buy.setPurseValue(Money.of(new BigDecimal("7300.00")));
+        buy.setStatus(true);
+
+        purseAdd = new TransactionEntity();
+        purseAdd.setId(1);
+        purseAdd.setDate(LocalDate.of(2026, 1, 30));
+        purseAdd.setType("PURSE ADD");
+        purseAdd.setTransactionValue(Money.of(new BigDecimal("10000")));
+        purseAdd.setPurseValue(Money.of(new BigDecimal("10000")));
+        purseAdd.setStatus(true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_shouldWriteCsvRows_andCloseStream() throws Exception {
+        // Given: Repository streams two rows
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transactionsRepo.streamAll(any(Specification.class), eq(TransactionHistoryService.NEWEST_FIRST)))
+                .thenReturn(Stream.of(buy, purseAdd).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When: Exporting as CSV
+        long count = transactionExportService.export(new TransactionFilter(), TransactionExportService.Format.CSV, out);
+
+        // Then: Header plus one line per row, nulls left empty, and the cursor is closed
+        assertEquals(2, count);
+        assertEquals(TransactionExportService.CSV_HEADER + "\n"
+                + "2,2026-02-02,AAPL,BUY,10,270.00,2700.00,7300.00,true\n"
+                + "1,2026-01-30,,PURSE ADD,,,10000.00,10000.00,true\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_shouldWriteOneJsonObjectPerLine_whenNdjson() throws Exception {
+        // Given: Repository streams two rows
+        when(transactionsRepo.streamAll(any(Specification.class), eq(TransactionHistoryService.NEWEST_FIRST)))
+                .thenReturn(Stream.of(buy, purseAdd));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When: Exporting as NDJSON
+        long count = transactionExportService.export(null, TransactionExportService.Format.NDJSON, out);
+
+        // Then: Each line is a standalone JSON object
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"symbol\":\"AAPL\""));
+        assertTrue(lines[0].contains("\"date\":\"2026-02-02\""));
+        assertTrue(lines[1].contains("\"type\":\"PURSE ADD\""));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_shouldWriteHeaderOnly_whenNoRowsMatch() throws Exception {
+        // Given: Nothing matches the filter
+        when(transactionsRepo.streamAll(any(Specification.class), any())).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When: Exporting as CSV
+        long count = transactionExportService.export(new TransactionFilter(), TransactionExportService.Format.CSV, out);
+
+        // Then: Only the header is written
+        assertEquals(0, count);
+        assertEquals(TransactionExportService.CSV_HEADER + "\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_shouldWriteCborSequence_thatReadsBackAsTheSameRows() throws Exception {
+        // Given: Repository streams two rows
+        when(transactionsRepo.streamAll(any(Specification.class), eq(TransactionHistoryService.NEWEST_FIRST)))
+                .thenReturn(Stream.of(buy, purseAdd));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When: Exporting as CBOR
+        long count = transactionExportService.export(null, TransactionExportService.Format.CBOR, out);
+
+        // Then: Two concatenated CBOR items decode to the original field values
+        List<TransactionEntity> rows = readAll(new ObjectMapper(new CBORFactory()), out.toByteArray());
+        assertEquals(2, count);
+        assertEquals(2, rows.size());
+        assertEquals("AAPL", rows.get(0).getSymbol());
+        assertEquals(LocalDate.of(2026, 2, 2), rows.get(0).getDate());
+        assertEquals(0, new BigDecimal("270.00").compareTo(rows.get(0).getPrice()));
+        assertEquals(Money.of(new BigDecimal("7300.00")), rows.get(0).getPurseValue());
+        assertEquals("PURSE ADD", rows.get(1).getType());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_shouldWriteSmileStream_smallerThanNdjson() throws Exception {
+        // Given: The same rows exported twice
+        when(transactionsRepo.streamAll(any(Specification.class), eq(TransactionHistoryService.NEWEST_FIRST)))
+                .thenReturn(Stream.of(buy, purseAdd), Stream.of(buy, purseAdd));
+        ByteArrayOutputStream smile = new ByteArrayOutputStream();
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+
+        // When: Exporting as Smile and as NDJSON
+        transactionExportService.export(null, TransactionExportService.Format.SMILE, smile);
+        transactionExportService.export(null, TransactionExportService.Format.NDJSON, ndjson);
+
+        // Then: Smile decodes to the same rows in fewer bytes
+        List<TransactionEntity> rows = readAll(new ObjectMapper(new SmileFactory()), smile.toByteArray());
+        assertEquals(List.of("AAPL", "PURSE ADD"), List.of(rows.get(0).getSymbol(), rows.get(1).getType()));
+        assertTrue(smile.size() < ndjson.size());
+    }
+
+    @Test
+    void csvField_shouldQuote_whenValueHasSeparatorsOrQuotes() {
+        assertEquals("BUY", TransactionExportService.csvField("BUY"));
+        assertEquals("\"a,b\"", TransactionExportService.csvField("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", TransactionExportService.csvField("say \"hi\""));
+        assertEquals("", TransactionExportService.csvField(null));
+    }
+
+    @Test
+    void format_shouldParseCaseInsensitively_andRejectUnknown() {
+        assertEquals(TransactionExportService.Format.NDJSON, TransactionExportService.Format.from("ndjson"));
+        assertEquals(TransactionExportService.Format.CSV, TransactionExportService.Format.from(" CSV "));
+        assertEquals(TransactionExportService.Format.CBOR, TransactionExportService.Format.from("cbor"));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> TransactionExportService.Format.from("xml"));
+        assertEquals("Unsupported export format: xml", exception.getMessage());
+    }
+
+    private static List<TransactionEntity> readAll(ObjectMapper mapper, byte[] bytes) throws Exception {
+        mapper.findAndRegisterModules();
+        try (MappingIterator<TransactionEntity> values = mapper.readerFor(TransactionEntity.class).readValues(bytes)) {
+            return values.readAll();
+        }
+    }
+}
@@ -1,60 +1,153 @@
 package com.neueda.pm_milkyway.service;
 
+import com.neueda.pm_milkyway.dto.TransactionFilter;
+import com.neueda.pm_milkyway.dto.TransactionPage;
+import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.TransactionsRepo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor.SpecificationFluentQuery;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionHistoryServiceTest {
 
+    @Mock
+    private TransactionsRepo transactionsRepo;
+
+    @Mock
+    private SpecificationFluentQuery<TransactionEntity> fluentQuery;
+
     @InjectMocks
     private TransactionHistoryService transactionHistoryService;
 
+    private List<TransactionEntity> ledger;
+
     @BeforeEach
     void setUp() {
-        // Setup can be added here when TransactionHistoryService has methods
+        // 120 rows newest first, two per day
+        ledger = new ArrayList<>();
+        for (int id = 120; id >= 1; id--) {
+            ledger.add(transaction(id, LocalDate.of(2025, 1, 1).plusDays((id - 1) / 2)));
+        }
+    }
+
+    @Test
+    void getPage_shouldReturnNextCursor_whenMoreRowsThanLimit() {
+        // Given: Repository returns limit + 1 rows
+        stubRows(ledger.subList(0, 11));
+
+        // When: First page of ten is requested
+        TransactionPage page = transactionHistoryService.getPage(new TransactionFilter(), null, 10);
+
+        // Then: Ten rows are returned and the cursor points at the last one
+        assertEquals(10, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        TransactionHistoryService.Keyset keyset = TransactionHistoryService.decodeCursor(page.getNextCursor());
+        assertEquals(ledger.get(9).getId(), keyset.id());
+        assertEquals(ledger.get(9).getDate(), keyset.date());
+        verify(fluentQuery).limit(11);
+        verify(fluentQuery).sortBy(TransactionHistoryService.NEWEST_FIRST);
+    }
+
+    @Test
+    void getPage_shouldReturnNullCursor_whenLastPage() {
+        // Given: Fewer rows than the limit remain
+        stubRows(ledger.subList(115, 120));
+
+        // When: Page is requested with a cursor
+        String cursor = TransactionHistoryService.encodeCursor(ledger.get(114));
+        TransactionPage page = transactionHistoryService.getPage(null, cursor, 10);
+
+        // Then: All rows are returned without a next cursor
+        assertEquals(5, page.getItems().size());
+        assertNull(page.getNextCursor());
     }
 
     @Test
-    void serviceInstance_shouldNotBeNull_whenCreated() {
-        // Given & When: Service is injected
-        
-        // Then: Service instance should be created
-        assertNotNull(transactionHistoryService);
+    void getPage_shouldUseDefaultSize_whenLimitNotGiven() {
+        // Given: Repository has more rows than the default page
+        stubRows(ledger.subList(0, TransactionHistoryService.DEFAULT_PAGE_SIZE + 1));
+
+        // When: No limit is supplied
+        TransactionPage page = transactionHistoryService.getPage(new TransactionFilter(), null, null);
+
+        // Then: Default page size is applied
+        assertEquals(TransactionHistoryService.DEFAULT_PAGE_SIZE, page.getItems().size());
+        verify(fluentQuery).limit(TransactionHistoryService.DEFAULT_PAGE_SIZE + 1);
     }
 
     @Test
-    void serviceInitialization_shouldComplete_withoutErrors() {
-        // Given: Fresh service instance
-        
-        // When: Service is initialized
-        TransactionHistoryService service = new TransactionHistoryService();
-        
-        // Then: No exceptions should be thrown
-        assertNotNull(service);
+    void getPage_shouldClampLimit_whenOutOfRange() {
+        // Given: Repository returns everything it has
+        stubRows(ledger);
+
+        // When: Limits above the maximum and below one are requested
+        transactionHistoryService.getPage(new TransactionFilter(), null, 10_000);
+        transactionHistoryService.getPage(new TransactionFilter(), null, 0);
+
+        // Then: Both are clamped into range
+        verify(fluentQuery).limit(TransactionHistoryService.MAX_PAGE_SIZE + 1);
+        verify(fluentQuery).limit(2);
     }
 
     @Test
-    void transactionHistoryService_shouldBeSingleton_whenInjected() {
-        // Given: Service injection
-        
-        // When: Service is created
-        TransactionHistoryService service = new TransactionHistoryService();
-        
-        // Then: Should be a valid instance
-        assertNotNull(service);
+    void getPage_shouldThrow_whenCursorIsInvalid() {
+        // When & Then: Garbage cursor is rejected before the repository is queried
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> transactionHistoryService.getPage(null, "not-a-cursor", 10));
+        assertEquals("Invalid cursor", exception.getMessage());
     }
 
     @Test
-    void transactionHistoryService_shouldNotFail_duringCreation() {
-        // Given & When: Creating service
-        
-        // Then: Should not throw exceptions
-        assertDoesNotThrow(() -> new TransactionHistoryService());
+    void cursor_shouldRoundTrip_whenEncodedAndDecoded() {
+        // Given: A ledger row
+        TransactionEntity row = transaction(4711, LocalDate.of(2024, 12, 31));
+
+        // When: Cursor is encoded and decoded
+        TransactionHistoryService.Keyset keyset =
+                TransactionHistoryService.decodeCursor(TransactionHistoryService.encodeCursor(row));
+
+        // Then: Same keyset comes back
+        assertEquals(new TransactionHistoryService.Keyset(LocalDate.of(2024, 12, 31), 4711), keyset);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubRows(List<TransactionEntity> rows) {
+        when(fluentQuery.sortBy(any())).thenReturn(fluentQuery);
+        when(fluentQuery.limit(anyInt())).thenReturn(fluentQuery);
+        when(fluentQuery.all()).thenReturn(rows);
+        when(transactionsRepo.findBy(any(Specification.class), any())).thenAnswer(invocation -> {
+            Function<SpecificationFluentQuery<TransactionEntity>, List<TransactionEntity>> queryFunction =
+                    invocation.getArgument(1);
+            return queryFunction.apply(fluentQuery);
+        });
+    }
+
+    private static TransactionEntity transaction(int id, LocalDate date) {
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setId(id);
+        transaction.setDate(date);
+        transaction.setType("BUY");
+        transaction.setStatus(true);
+        return transaction;
     }
 }
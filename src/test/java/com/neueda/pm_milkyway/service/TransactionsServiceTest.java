@@ -1,29 +1,44 @@
 package com.neueda.pm_milkyway.service;
 
+import com.neueda.pm_milkyway.dto.Money;
+import com.neueda.pm_milkyway.dto.PositionValuation;
+import com.neueda.pm_milkyway.dto.TradeOrder;
+import com.neueda.pm_milkyway.dto.TradeResult;
+import com.neueda.pm_milkyway.entity.AccountBalanceEntity;
 import com.neueda.pm_milkyway.entity.HoldingsEntity;
 import com.neueda.pm_milkyway.entity.TransactionEntity;
+import com.neueda.pm_milkyway.repo.AccountBalanceRepo;
 import com.neueda.pm_milkyway.repo.HoldingsRepo;
 import com.neueda.pm_milkyway.repo.TransactionsRepo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.times;
@@ -38,52 +53,65 @@ class TransactionsServiceTest {
     @Mock
     private HoldingsRepo holdingsRepo;
 
-    @InjectMocks
+    @Mock
+    private AccountBalanceRepo accountBalanceRepo;
+
+    @Mock
+    private PortfolioReadModel portfolioReadModel;
+
+    @Mock
+    private DataVersions dataVersions;
+
+    @Captor
+    private ArgumentCaptor<List<TransactionEntity>> ledger;
+
     private TransactionsService transactionsService;
 
     private TransactionEntity testTransaction;
     private HoldingsEntity testHolding;
+    private AccountBalanceEntity testBalance;
 
     @BeforeEach
     void setUp() {
+        // 10pm on 10 March in New York, already 11 March in UTC
+        Clock clock = Clock.fixed(Instant.parse("2026-03-11T02:00:00Z"), ZoneId.of("America/New_York"));
+        transactionsService = new TransactionsService(transactionsRepo, holdingsRepo, accountBalanceRepo,
+                portfolioReadModel, dataVersions, clock);
+
         testTransaction = new TransactionEntity();
         testTransaction.setId(1);
         testTransaction.setDate(LocalDate.now());
         testTransaction.setType("BUY AAPL");
-        testTransaction.setTransactionValue(BigDecimal.valueOf(1500.0));
-        testTransaction.setPurseValue(BigDecimal.valueOf(98500.0));
+        testTransaction.setTransactionValue(Money.of(1500.0));
+        testTransaction.setPurseValue(Money.of(98500.0));
         testTransaction.setStatus(true);
 
         testHolding = new HoldingsEntity();
         testHolding.setId(1);
         testHolding.setStock("AAPL");
         testHolding.setQuantity(10);
-        testHolding.setTotal_invested(1500.0);
-    }
+        testHolding.setTotal_invested(Money.of(1500.0));
 
-    @Test
-    void getAllTransactions_shouldReturnAllTransactions_whenTransactionsExist() {
-        // Given: Multiple transactions in repository
-        TransactionEntity transaction2 = new TransactionEntity();
-        transaction2.setId(2);
-        transaction2.setType("SELL GOOGL");
-        transaction2.setPurseValue(BigDecimal.valueOf(99000.0));
-        
-        when(transactionsRepo.findAll()).thenReturn(Arrays.asList(testTransaction, transaction2));
+        testBalance = balanceOf(98500.0);
+    }
 
-        // When: Getting all transactions
-        List<TransactionEntity> result = transactionsService.getAllTransactions();
+    private void stubBalanceUpdate(double newPurse) {
+        when(accountBalanceRepo.applyDelta(eq(1), any(Money.class))).thenReturn(1);
+        when(accountBalanceRepo.findPurseValue(1)).thenReturn(Money.of(newPurse));
+    }
 
-        // Then: Should return all transactions
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(transactionsRepo).findAll();
+    private static AccountBalanceEntity balanceOf(double purse) {
+        AccountBalanceEntity balance = new AccountBalanceEntity();
+        balance.setId(1);
+        balance.setPurseValue(Money.of(purse));
+        return balance;
     }
 
     @Test
     void getPurseValue_shouldReturnDefaultValue_whenNoTransactionsExist() {
-        // Given: Empty transaction repository
-        when(transactionsRepo.findAll()).thenReturn(Collections.emptyList());
+        // Given: No balance record and an empty transaction repository
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.empty());
+        when(transactionsRepo.findTopByOrderByIdDesc()).thenReturn(Optional.empty());
 
         // When: Getting purse value
         Double result = transactionsService.getPurseValue();
@@ -91,13 +119,27 @@ class TransactionsServiceTest {
         // Then: Should return default starting capital
         assertNotNull(result);
         assertEquals(100000.0, result);
-        verify(transactionsRepo).findAll();
+        verify(transactionsRepo).findTopByOrderByIdDesc();
+    }
+
+    @Test
+    void getPurseValue_shouldFallBackToLatestTransaction_whenBalanceRecordMissing() {
+        // Given: Ledger rows written before the balance record existed
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.empty());
+        when(transactionsRepo.findTopByOrderByIdDesc()).thenReturn(Optional.of(testTransaction));
+
+        // When: Getting purse value
+        Double result = transactionsService.getPurseValue();
+
+        // Then: Should use the newest transaction without scanning the ledger
+        assertEquals(98500.0, result);
+        verify(transactionsRepo, never()).findAll();
     }
 
     @Test
     void getPurseValue_shouldReturnLatestPurseValue_whenTransactionsExist() {
         // Given: Transactions exist with latest purse value
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
 
         // When: Getting purse value
         Double result = transactionsService.getPurseValue();
@@ -105,16 +147,14 @@ class TransactionsServiceTest {
         // Then: Should return the latest purse value
         assertNotNull(result);
         assertEquals(98500.0, result);
-        verify(transactionsRepo).findAll();
+        verify(accountBalanceRepo).findById(1);
+        verify(transactionsRepo, never()).findAll();
     }
 
     @Test
     void executePurchase_shouldThrowException_whenInsufficientFunds() {
         // Given: Low purse balance
-        TransactionEntity lowBalanceTransaction = new TransactionEntity();
-        lowBalanceTransaction.setId(1);
-        lowBalanceTransaction.setPurseValue(BigDecimal.valueOf(500.0));
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(lowBalanceTransaction));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(balanceOf(500.0)));
 
         // When & Then: Attempting to purchase should throw exception
         assertThrows(RuntimeException.class, () -> {
@@ -139,23 +179,21 @@ class TransactionsServiceTest {
     @Test
     void addToPurse_shouldCreateTransaction_whenAmountIsValid() {
         // Given: Valid purse add amount and current balance
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        stubBalanceUpdate(103500.0);
         when(transactionsRepo.save(any(TransactionEntity.class))).thenReturn(new TransactionEntity());
 
         // When: Adding to purse
         transactionsService.addToPurse(5000.0);
 
-        // Then: Should save new transaction
-        verify(transactionsRepo).findAll(); // Called once for getPurseValue
+        // Then: Should save new transaction and the updated balance
         verify(transactionsRepo).save(any(TransactionEntity.class));
+        verify(accountBalanceRepo).applyDelta(1, Money.of(5000.0));
     }
 
     @Test
     void deductFromPurse_shouldThrowException_whenInsufficientBalance() {
         // Given: Low purse balance
-        TransactionEntity lowBalance = new TransactionEntity();
-        lowBalance.setPurseValue(BigDecimal.valueOf(100.0));
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(lowBalance));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(balanceOf(100.0)));
 
         // When & Then: Attempting to deduct more than available should throw exception
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -168,7 +206,8 @@ class TransactionsServiceTest {
     @Test
     void executePurchase_shouldUpdateHoldings_whenNewStockPurchased() {
         // Given: Sufficient funds and no existing holdings
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
+        stubBalanceUpdate(97500.0);
         when(holdingsRepo.findByStock("TSLA")).thenReturn(Collections.emptyList());
         when(holdingsRepo.save(any(HoldingsEntity.class))).thenReturn(new HoldingsEntity());
         when(transactionsRepo.save(any(TransactionEntity.class))).thenReturn(new TransactionEntity());
@@ -176,16 +215,55 @@ class TransactionsServiceTest {
         // When: Executing purchase
         transactionsService.executePurchase("TSLA", 5, 200.0);
 
-        // Then: Should save new holding and transaction
+        // Then: Should save new holding and transaction, then publish a new ledger version
         verify(holdingsRepo).findByStock("TSLA");
         verify(holdingsRepo).save(any(HoldingsEntity.class));
         verify(transactionsRepo).save(any(TransactionEntity.class));
+        verify(dataVersions).ledgerChanged();
+    }
+
+    @Test
+    void executePurchase_shouldWriteTheHolding_beforeLockingTheBalance() {
+        // Given
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
+        stubBalanceUpdate(97500.0);
+        when(holdingsRepo.findByStock("TSLA")).thenReturn(Collections.emptyList());
+        when(transactionsRepo.save(any(TransactionEntity.class))).thenReturn(new TransactionEntity());
+
+        // When
+        transactionsService.executePurchase("TSLA", 5, 200.0);
+
+        // Then: Only the ledger row is written while the balance row is locked
+        InOrder order = inOrder(holdingsRepo, accountBalanceRepo, transactionsRepo);
+        order.verify(holdingsRepo).save(any(HoldingsEntity.class));
+        order.verify(holdingsRepo).flush();
+        order.verify(accountBalanceRepo).applyDelta(eq(1), any(Money.class));
+        order.verify(transactionsRepo).save(any(TransactionEntity.class));
+    }
+
+    @Test
+    void executePurchase_shouldDateTheTrade_inTheMarketZone() {
+        // Given
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
+        stubBalanceUpdate(97500.0);
+        when(holdingsRepo.findByStock("TSLA")).thenReturn(Collections.emptyList());
+        when(holdingsRepo.save(any(HoldingsEntity.class))).thenReturn(new HoldingsEntity());
+        when(transactionsRepo.save(any(TransactionEntity.class))).thenReturn(new TransactionEntity());
+
+        // When
+        transactionsService.executePurchase("TSLA", 5, 200.0);
+
+        // Then: The New York date, not the UTC one
+        ArgumentCaptor<TransactionEntity> saved = ArgumentCaptor.forClass(TransactionEntity.class);
+        verify(transactionsRepo).save(saved.capture());
+        assertEquals(LocalDate.of(2026, 3, 10), saved.getValue().getDate());
     }
 
     @Test
     void executePurchase_shouldIncreaseQuantity_whenStockAlreadyOwned() {
         // Given: Existing holdings for stock
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
+        stubBalanceUpdate(97500.0);
         when(holdingsRepo.findByStock("AAPL")).thenReturn(Collections.singletonList(testHolding));
         when(holdingsRepo.save(any(HoldingsEntity.class))).thenReturn(testHolding);
         when(transactionsRepo.save(any(TransactionEntity.class))).thenReturn(new TransactionEntity());
@@ -204,7 +282,7 @@ class TransactionsServiceTest {
         // Given: Holdings with sufficient quantity
         testHolding.setQuantity(10);
         when(holdingsRepo.findByStock("AAPL")).thenReturn(Collections.singletonList(testHolding));
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        stubBalanceUpdate(99300.0);
         when(holdingsRepo.save(any(HoldingsEntity.class))).thenReturn(testHolding);
         when(transactionsRepo.save(any(TransactionEntity.class))).thenReturn(new TransactionEntity());
 
@@ -215,6 +293,7 @@ class TransactionsServiceTest {
         verify(holdingsRepo).findByStock("AAPL");
         verify(holdingsRepo).save(any(HoldingsEntity.class));
         verify(transactionsRepo).save(any(TransactionEntity.class));
+        verify(accountBalanceRepo).applyDelta(1, Money.of(800.0));
     }
 
     @Test
@@ -235,7 +314,8 @@ class TransactionsServiceTest {
     void handleAdjustment_shouldIncreaseQuantityByOne_whenActionIsPlus() {
         // Given: Existing holding and sufficient purse
         when(holdingsRepo.findByStock("AAPL")).thenReturn(Collections.singletonList(testHolding));
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
+        stubBalanceUpdate(97500.0);
         when(holdingsRepo.save(any(HoldingsEntity.class))).thenReturn(testHolding);
         when(transactionsRepo.save(any(TransactionEntity.class))).thenReturn(new TransactionEntity());
 
@@ -253,7 +333,8 @@ class TransactionsServiceTest {
         // Given: Existing holding with quantity > 1
         testHolding.setQuantity(5);
         when(holdingsRepo.findByStock("AAPL")).thenReturn(Collections.singletonList(testHolding));
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
+        stubBalanceUpdate(97500.0);
         when(holdingsRepo.save(any(HoldingsEntity.class))).thenReturn(testHolding);
         when(transactionsRepo.save(any(TransactionEntity.class))).thenReturn(new TransactionEntity());
 
@@ -268,10 +349,8 @@ class TransactionsServiceTest {
     @Test
     void handleAdjustment_shouldThrowException_whenInsufficientFundsForPlus() {
         // Given: Low purse balance
-        TransactionEntity lowBalance = new TransactionEntity();
-        lowBalance.setPurseValue(BigDecimal.valueOf(50.0));
         when(holdingsRepo.findByStock("AAPL")).thenReturn(Collections.singletonList(testHolding));
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(lowBalance));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(balanceOf(50.0)));
 
         // When & Then: Attempting to add with insufficient funds
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -301,7 +380,7 @@ class TransactionsServiceTest {
         List<HoldingsEntity> holdings = Arrays.asList(testHolding);
         Map<String, Double> prices = new HashMap<>();
         prices.put("AAPL", 160.0);
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
 
         // When: Getting portfolio stats
         Map<String, Object> stats = transactionsService.getPortfolioStats(holdings, prices);
@@ -314,12 +393,44 @@ class TransactionsServiceTest {
         assertTrue(stats.containsKey("changePercent"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void getPortfolioStats_shouldValuePositions_andLeaveUnpricedOutOfTotals() {
+        // Given: Two holdings, only one of which has a price
+        HoldingsEntity msft = new HoldingsEntity();
+        msft.setStock("MSFT");
+        msft.setQuantity(5);
+        msft.setTotal_invested(Money.of(2000.0));
+        Map<String, Double> prices = new HashMap<>();
+        prices.put("AAPL", 160.0);
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
+
+        // When: Getting portfolio stats
+        Map<String, Object> stats = transactionsService.getPortfolioStats(Arrays.asList(testHolding, msft), prices);
+
+        // Then: Totals cover AAPL only and MSFT is reported as unpriced
+        assertEquals(1600.0, stats.get("marketValue"));
+        assertEquals(1500.0, stats.get("totalInvested"));
+        assertEquals(100.0, (Double) stats.get("profitLoss"), 1e-9);
+        assertEquals(100.0 * 100 / 1500, (Double) stats.get("changePercent"), 1e-9);
+        assertEquals(98500.0 + 1600.0, stats.get("portfolioValue"));
+        assertEquals(List.of("MSFT"), stats.get("unpriced"));
+
+        List<PositionValuation> positions = (List<PositionValuation>) stats.get("positions");
+        assertEquals(2, positions.size());
+        assertEquals("AAPL", positions.get(0).getSymbol());
+        assertEquals(1600.0, positions.get(0).getMarketValue());
+        assertEquals(100.0, positions.get(0).getProfitLoss(), 1e-9);
+        assertEquals(null, positions.get(1).getPrice());
+        assertEquals(null, positions.get(1).getMarketValue());
+    }
+
     @Test
     void getPortfolioStats_shouldHandleEmptyHoldings_correctly() {
         // Given: No holdings
         List<HoldingsEntity> emptyHoldings = Collections.emptyList();
         Map<String, Double> prices = new HashMap<>();
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
 
         // When: Getting stats with no holdings
         Map<String, Object> stats = transactionsService.getPortfolioStats(emptyHoldings, prices);
@@ -381,14 +492,130 @@ class TransactionsServiceTest {
     @Test
     void deductFromPurse_shouldCreateTransaction_whenSufficientBalance() {
         // Given: Sufficient balance
-        when(transactionsRepo.findAll()).thenReturn(Collections.singletonList(testTransaction));
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
+        stubBalanceUpdate(97500.0);
         when(transactionsRepo.save(any(TransactionEntity.class))).thenReturn(new TransactionEntity());
 
         // When: Deducting valid amount
         transactionsService.deductFromPurse(1000.0);
 
-        // Then: Should save transaction
-        verify(transactionsRepo).findAll();
+        // Then: Should save transaction and the reduced balance
         verify(transactionsRepo).save(any(TransactionEntity.class));
+        verify(accountBalanceRepo).applyDelta(1, Money.of(-1000.0));
+    }
+
+    @Test
+    void executePurchase_shouldCreateBalanceRecord_whenMissing() {
+        // Given: Legacy ledger without a balance record
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.empty());
+        when(transactionsRepo.findTopByOrderByIdDesc()).thenReturn(Optional.of(testTransaction));
+        when(holdingsRepo.findByStock("TSLA")).thenReturn(Collections.emptyList());
+
+        // When: Executing purchase
+        transactionsService.executePurchase("TSLA", 5, 200.0);
+
+        // Then: Should persist the balance record seeded from the ledger
+        ArgumentCaptor<AccountBalanceEntity> captor = ArgumentCaptor.forClass(AccountBalanceEntity.class);
+        verify(accountBalanceRepo).save(captor.capture());
+        assertEquals(1, captor.getValue().getId());
+        assertEquals(Money.of(97500.0), captor.getValue().getPurseValue());
+    }
+
+    @Test
+    void deductFromPurse_shouldThrowException_whenConcurrentTradeDrainedPurse() {
+        // Given: Balance looked sufficient but a concurrent trade spent it first
+        when(accountBalanceRepo.findById(1)).thenReturn(Optional.of(testBalance));
+        when(accountBalanceRepo.applyDelta(eq(1), any(Money.class))).thenReturn(0);
+        when(accountBalanceRepo.existsById(1)).thenReturn(true);
+
+        // When & Then: The conditional update rejects the deduction
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            transactionsService.deductFromPurse(1000.0);
+        });
+
+        assertEquals("Insufficient purse balance", exception.getMessage());
+        verify(transactionsRepo, never()).save(any());
+    }
+
+    @Test
+    void executeBatch_shouldFillValidOrders_andRejectInvalidOnes() {
+        // Given: Existing AAPL holding and a mixed batch
+        when(holdingsRepo.findByStockIn(anyCollection())).thenReturn(Collections.singletonList(testHolding));
+        when(accountBalanceRepo.findForUpdate(1)).thenReturn(Optional.of(testBalance));
+        stubBalanceUpdate(98700.0);
+        List<TradeOrder> orders = Arrays.asList(
+                new TradeOrder("TSLA", "BUY", 2, 200.0),
+                new TradeOrder("AAPL", "sell", 4, 150.0),
+                new TradeOrder("MSFT", "SELL", 1, 300.0),
+                new TradeOrder("AAPL", "HOLD", 1, 150.0));
+
+        // When: Executing the batch
+        List<TradeResult> results = transactionsService.executeBatch(orders);
+
+        // Then: Each order should get a result in request order
+        assertEquals(4, results.size());
+        assertEquals(TradeResult.FILLED, results.get(0).getStatus());
+        assertEquals(Money.of(98100.0), results.get(0).getPurseValue());
+        assertEquals(TradeResult.FILLED, results.get(1).getStatus());
+        assertEquals(Money.of(98700.0), results.get(1).getPurseValue());
+        assertEquals("You do not own this stock!", results.get(2).getMessage());
+        assertEquals("Side must be BUY or SELL", results.get(3).getMessage());
+        assertEquals(6, testHolding.getQuantity());
+        assertEquals(Money.of(900.0), testHolding.getTotal_invested());
+
+        // And: Ledger rows are saved together and the purse moves once by the net amount
+        verify(transactionsRepo).saveAll(ledger.capture());
+        assertEquals(2, ledger.getValue().size());
+        verify(accountBalanceRepo).applyDelta(1, Money.of(200.0));
+        verify(transactionsRepo, never()).save(any());
+    }
+
+    @Test
+    void executeBatch_shouldDeleteHolding_whenBatchSellsEverything() {
+        // Given: Batch that sells the whole AAPL position
+        when(holdingsRepo.findByStockIn(anyCollection())).thenReturn(Collections.singletonList(testHolding));
+        when(accountBalanceRepo.findForUpdate(1)).thenReturn(Optional.of(testBalance));
+        stubBalanceUpdate(100100.0);
+
+        // When: Executing the batch
+        transactionsService.executeBatch(Collections.singletonList(new TradeOrder("AAPL", "SELL", 10, 160.0)));
+
+        // Then: The emptied holding should be deleted
+        verify(holdingsRepo).deleteAll(Collections.singletonList(testHolding));
+        assertEquals(Money.of(0.0), testHolding.getTotal_invested());
+    }
+
+    @Test
+    void executeBatch_shouldRejectBuy_whenRunningPurseIsExhausted() {
+        // Given: Purse covers only the first order
+        when(holdingsRepo.findByStockIn(anyCollection())).thenReturn(Collections.emptyList());
+        when(accountBalanceRepo.findForUpdate(1)).thenReturn(Optional.of(balanceOf(1000.0)));
+        stubBalanceUpdate(200.0);
+
+        // When: Executing two buys
+        List<TradeResult> results = transactionsService.executeBatch(Arrays.asList(
+                new TradeOrder("TSLA", "BUY", 4, 200.0),
+                new TradeOrder("TSLA", "BUY", 4, 200.0)));
+
+        // Then: Second order should be rejected
+        assertEquals(TradeResult.FILLED, results.get(0).getStatus());
+        assertEquals(TradeResult.REJECTED, results.get(1).getStatus());
+        assertEquals("Insufficient Purse Value!", results.get(1).getMessage());
+    }
+
+    @Test
+    void executeBatch_shouldWriteNothing_whenAllOrdersRejected() {
+        // Given: Only invalid orders
+        when(holdingsRepo.findByStockIn(anyCollection())).thenReturn(Collections.emptyList());
+        when(accountBalanceRepo.findForUpdate(1)).thenReturn(Optional.of(testBalance));
+
+        // When: Executing the batch
+        List<TradeResult> results = transactionsService.executeBatch(Collections.singletonList(
+                new TradeOrder("AAPL", "BUY", 0, 150.0)));
+
+        // Then: Nothing is persisted
+        assertEquals("Quantity must be positive", results.get(0).getMessage());
+        verify(transactionsRepo, never()).saveAll(anyList());
+        verify(accountBalanceRepo, never()).applyDelta(any(), any());
     }
 }
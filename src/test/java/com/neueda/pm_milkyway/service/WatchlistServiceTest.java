@@ -5,23 +5,33 @@ import com.neueda.pm_milkyway.repo.WatchListRepo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class WatchlistServiceTest {
@@ -29,40 +39,39 @@ class WatchlistServiceTest {
     @Mock
     private WatchListRepo watchListRepo;
 
-    @InjectMocks
-    private WatchlistService watchlistService;
+    @Captor
+    private ArgumentCaptor<List<WatchlistEntity>> rowsCaptor;
 
-    private WatchlistEntity testWatchlistItem;
+    @Captor
+    private ArgumentCaptor<Collection<String>> symbolsCaptor;
+
+    private final DataVersions dataVersions = new DataVersions("test");
+
+    private WatchlistService watchlistService;
 
     @BeforeEach
     void setUp() {
-        testWatchlistItem = new WatchlistEntity();
-        testWatchlistItem.setStock("AAPL");
+        watchlistService = new WatchlistService(watchListRepo, TransactionOperations.withoutTransaction(), dataVersions);
     }
 
     @Test
     void getWatchlistItems_shouldReturnAllStocks_whenWatchlistHasItems() {
         // Given: Watchlist has multiple items
-        WatchlistEntity item2 = new WatchlistEntity();
-        item2.setStock("GOOGL");
-        
-        when(watchListRepo.findAll()).thenReturn(Arrays.asList(testWatchlistItem, item2));
+        when(watchListRepo.findAllStocks()).thenReturn(List.of("AAPL", "GOOGL"));
 
         // When: Getting watchlist items
         List<String> result = watchlistService.getWatchlistItems();
 
-        // Then: Should return all stock symbols
+        // Then: Should return all stock symbols in insertion order
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertTrue(result.contains("AAPL"));
-        assertTrue(result.contains("GOOGL"));
-        verify(watchListRepo).findAll();
+        assertEquals(List.of("AAPL", "GOOGL"), result);
+        verify(watchListRepo).findAllStocks();
     }
 
     @Test
     void getWatchlistItems_shouldReturnEmptyList_whenWatchlistIsEmpty() {
         // Given: Empty watchlist
-        when(watchListRepo.findAll()).thenReturn(Collections.emptyList());
+        when(watchListRepo.findAllStocks()).thenReturn(Collections.emptyList());
 
         // When: Getting watchlist items
         List<String> result = watchlistService.getWatchlistItems();
@@ -70,167 +79,201 @@ class WatchlistServiceTest {
         // Then: Should return empty list
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(watchListRepo).findAll();
     }
 
     @Test
-    void addToWatchList_shouldCallRepository_whenAddingNewStock() {
-        // Given: A stock symbol to add
-        String stockSymbol = "TSLA";
+    void getWatchlistItems_shouldQueryOnce_untilWatchlistChanges() {
+        // Given: A large watchlist
+        List<String> stocks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            stocks.add("STOCK" + i);
+        }
+        when(watchListRepo.findAllStocks()).thenReturn(stocks);
 
-        // When: Adding stock to watchlist
-        watchlistService.addToWatchList(stockSymbol);
+        // When: Reading it repeatedly
+        List<String> first = watchlistService.getWatchlistItems();
+        List<String> second = watchlistService.getWatchlistItems();
 
-        // Then: Should call repository to save
-        verify(watchListRepo).saveNewStock(stockSymbol);
+        // Then: The same immutable copy is shared and the table is read once
+        assertSame(first, second);
+        assertEquals(50, first.size());
+        assertThrows(UnsupportedOperationException.class, () -> first.add("TSLA"));
+        verify(watchListRepo, times(1)).findAllStocks();
     }
 
     @Test
-    void removeFromWatchlist_shouldDeleteStock_whenStockExists() {
-        // Given: Stock exists in watchlist
-        when(watchListRepo.findAll()).thenReturn(Collections.singletonList(testWatchlistItem));
-
-        // When: Removing stock from watchlist
-        watchlistService.removeFromWatchlist("AAPL");
-
-        // Then: Should delete the item
-        verify(watchListRepo).findAll();
-        verify(watchListRepo).delete(testWatchlistItem);
+    void getWatchlistItems_shouldCountCacheHitsAndMisses() {
+        // Given: The service's meters are bound
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        watchlistService.bindTo(registry);
+        when(watchListRepo.findAllStocks()).thenReturn(List.of("AAPL"));
+
+        // When: One load and two reads of the copy
+        watchlistService.getWatchlistItems();
+        watchlistService.getWatchlistItems();
+        watchlistService.getWatchlistItems();
+
+        // Then
+        assertEquals(2, registry.get("cache.gets").tags("cache", "watchlist", "result", "hit").functionCounter()
+                .count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "watchlist", "result", "miss").functionCounter()
+                .count());
     }
 
     @Test
-    void removeFromWatchlist_shouldNotDelete_whenStockDoesNotExist() {
-        // Given: Stock doesn't exist in watchlist
-        when(watchListRepo.findAll()).thenReturn(Collections.emptyList());
-
-        // When: Attempting to remove non-existent stock
-        watchlistService.removeFromWatchlist("TSLA");
+    void getWatchlistItems_shouldReload_afterAChange() {
+        // Given: A cached watchlist
+        when(watchListRepo.findAllStocks()).thenReturn(List.of("AAPL")).thenReturn(List.of("AAPL", "TSLA"));
+        watchlistService.getWatchlistItems();
+
+        // When: A symbol is added
+        watchlistService.addToWatchList("TSLA");
+
+        // Then: The next read sees it under a new version
+        assertEquals(List.of("AAPL", "TSLA"), watchlistService.getWatchlistItems());
+        verify(watchListRepo, times(2)).findAllStocks();
+        assertEquals(1, dataVersions.watchlistVersion());
+    }
 
-        // Then: Should not call delete
-        verify(watchListRepo).findAll();
-        verify(watchListRepo, never()).delete(any());
+    @Test
+    void getWatchlistItems_shouldNotCache_aLoadThatOverlappedAChange() {
+        // Given: A removal commits while the first read is still loading
+        when(watchListRepo.findAllStocks()).thenAnswer(invocation -> {
+            watchlistService.removeFromWatchlist("AAPL");
+            return List.of("AAPL");
+        }).thenReturn(List.of());
+
+        // When
+        List<String> raced = watchlistService.getWatchlistItems();
+        List<String> next = watchlistService.getWatchlistItems();
+
+        // Then: The overlapping read is served but the next one loads again
+        assertEquals(List.of("AAPL"), raced);
+        assertTrue(next.isEmpty());
+        verify(watchListRepo, times(2)).findAllStocks();
     }
 
     @Test
-    void getWatchlistItems_shouldHandleLargeWatchlist_efficiently() {
-        // Given: Large watchlist
-        List<WatchlistEntity> largeList = new ArrayList<>();
-        for (int i = 0; i < 50; i++) {
-            WatchlistEntity item = new WatchlistEntity();
-            item.setStock("STOCK" + i);
-            largeList.add(item);
-        }
-        when(watchListRepo.findAll()).thenReturn(largeList);
+    void addToWatchList_shouldInsertNormalizedSymbol_whenNotOnWatchlist() {
+        // Given: A padded lower-case symbol that is not on the watchlist
+        when(watchListRepo.findStocksIn(anyCollection())).thenReturn(List.of());
 
-        // When: Getting watchlist items
-        List<String> result = watchlistService.getWatchlistItems();
+        // When: Adding it
+        watchlistService.addToWatchList("  tsla ");
 
-        // Then: Should return all stock symbols
-        assertNotNull(result);
-        assertEquals(50, result.size());
-        verify(watchListRepo).findAll();
+        // Then: It is stored trimmed and upper-cased
+        verify(watchListRepo).saveAll(rowsCaptor.capture());
+        assertEquals(1, rowsCaptor.getValue().size());
+        assertEquals("TSLA", rowsCaptor.getValue().get(0).getStock());
     }
 
     @Test
-    void removeFromWatchlist_shouldBeCaseInsensitive_whenMatching() {
-        // Given: Stock exists with uppercase
-        testWatchlistItem.setStock("AAPL");
-        when(watchListRepo.findAll()).thenReturn(Collections.singletonList(testWatchlistItem));
+    void addToWatchList_shouldNotInsert_whenAlreadyOnWatchlist() {
+        // Given: The symbol exists
+        when(watchListRepo.findStocksIn(anyCollection())).thenReturn(List.of("NFLX"));
 
-        // When: Removing with lowercase
-        watchlistService.removeFromWatchlist("aapl");
+        // When: Adding it again in another case
+        watchlistService.addToWatchList("nflx");
 
-        // Then: Should match and delete
-        verify(watchListRepo).findAll();
-        verify(watchListRepo).delete(testWatchlistItem);
+        // Then: Nothing is inserted
+        verify(watchListRepo, never()).saveAll(any());
     }
 
     @Test
-    void addToWatchList_shouldCallRepository_withCorrectParameter() {
-        // Given: A new stock symbol
-        String stock = "NFLX";
+    void addToWatchList_shouldHandleSpecialCharacters_inStockSymbol() {
+        // Given: Stock with special characters (edge case)
+        when(watchListRepo.findStocksIn(anyCollection())).thenReturn(List.of());
 
-        // When: Adding to watchlist
-        watchlistService.addToWatchList(stock);
+        // When: Adding stock
+        watchlistService.addToWatchList("brk.b");
 
-        // Then: Repository should be called with exact parameter
-        verify(watchListRepo).saveNewStock(stock);
+        // Then: Should store it as is, upper-cased
+        verify(watchListRepo).saveAll(rowsCaptor.capture());
+        assertEquals("BRK.B", rowsCaptor.getValue().get(0).getStock());
     }
 
     @Test
-    void getWatchlistItems_shouldReturnDistinctStocks_whenCalled() {
-        // Given: Watchlist with multiple items
-        WatchlistEntity item2 = new WatchlistEntity();
-        item2.setStock("MSFT");
-        WatchlistEntity item3 = new WatchlistEntity();
-        item3.setStock("GOOGL");
-        
-        when(watchListRepo.findAll()).thenReturn(Arrays.asList(testWatchlistItem, item2, item3));
-
-        // When: Getting items
-        List<String> result = watchlistService.getWatchlistItems();
-
-        // Then: Should return distinct stocks
-        assertNotNull(result);
-        assertEquals(3, result.size());
-        assertTrue(result.contains("AAPL"));
-        assertTrue(result.contains("MSFT"));
-        assertTrue(result.contains("GOOGL"));
+    void addAll_shouldInsertOnlyMissingSymbols_inOneBatch() {
+        // Given: MSFT is already on the watchlist
+        when(watchListRepo.findStocksIn(anyCollection())).thenReturn(List.of("MSFT"));
+
+        // When: Adding a list with case variants and repeats
+        int added = watchlistService.addAll(List.of("aapl", "MSFT", "AAPL ", "googl"));
+
+        // Then: One lookup of the distinct symbols and one insert of the missing ones
+        assertEquals(2, added);
+        verify(watchListRepo).findStocksIn(symbolsCaptor.capture());
+        assertEquals(Set.of("AAPL", "MSFT", "GOOGL"), Set.copyOf(symbolsCaptor.getValue()));
+        verify(watchListRepo).saveAll(rowsCaptor.capture());
+        assertEquals(List.of("AAPL", "GOOGL"), rowsCaptor.getValue().stream().map(WatchlistEntity::getStock).toList());
     }
 
     @Test
-    void removeFromWatchlist_shouldHandleMultipleMatches_correctly() {
-        // Given: Single matching item
-        when(watchListRepo.findAll()).thenReturn(Collections.singletonList(testWatchlistItem));
+    void addAll_shouldLookUpAgain_whenAConcurrentAddWinsTheUniqueIndex() {
+        // Given: Another request inserts AAPL between the lookup and the insert
+        when(watchListRepo.findStocksIn(anyCollection())).thenReturn(List.of()).thenReturn(List.of("AAPL"));
+        when(watchListRepo.saveAll(any())).thenThrow(new DataIntegrityViolationException("idx_watchlist_stock"))
+                .thenReturn(List.of());
+
+        // When
+        int added = watchlistService.addAll(List.of("AAPL", "AMZN"));
+
+        // Then: The retry inserts only the symbol still missing
+        assertEquals(1, added);
+        verify(watchListRepo, times(2)).saveAll(rowsCaptor.capture());
+        assertEquals(List.of("AMZN"), rowsCaptor.getValue().stream().map(WatchlistEntity::getStock).toList());
+    }
 
-        // When: Removing stock
-        watchlistService.removeFromWatchlist("AAPL");
+    @Test
+    void addAll_shouldReject_blankOrTooManySymbols() {
+        // Given: More symbols than one request may carry
+        List<String> tooMany = new ArrayList<>();
+        for (int i = 0; i <= MarketLookupService.MAX_BATCH_SYMBOLS; i++) {
+            tooMany.add("S" + i);
+        }
 
-        // Then: Should delete only once
-        verify(watchListRepo, times(1)).delete(testWatchlistItem);
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> watchlistService.addAll(List.of("AAPL", " ")));
+        assertThrows(IllegalArgumentException.class, () -> watchlistService.addAll(tooMany));
+        assertThrows(IllegalArgumentException.class, () -> watchlistService.addToWatchList(null));
+        verifyNoInteractions(watchListRepo);
     }
 
     @Test
-    void addToWatchList_shouldHandleSpecialCharacters_inStockSymbol() {
-        // Given: Stock with special characters (edge case)
-        String specialStock = "BRK.B";
+    void removeFromWatchlist_shouldDeleteByNormalizedSymbol_whenCaseDiffers() {
+        // Given: Stock exists with uppercase
+        when(watchListRepo.deleteByStockIn(anyCollection())).thenReturn(1);
 
-        // When: Adding stock
-        watchlistService.addToWatchList(specialStock);
+        // When: Removing with lowercase
+        watchlistService.removeFromWatchlist("aapl");
 
-        // Then: Should call repository correctly
-        verify(watchListRepo).saveNewStock(specialStock);
+        // Then: One indexed delete on the stored form, without reading the table
+        verify(watchListRepo).deleteByStockIn(symbolsCaptor.capture());
+        assertEquals(List.of("AAPL"), List.copyOf(symbolsCaptor.getValue()));
+        verify(watchListRepo, never()).findAll();
     }
 
     @Test
-    void getWatchlistItems_shouldMapCorrectly_fromEntityToString() {
-        // Given: Multiple watchlist entities
-        List<WatchlistEntity> entities = Arrays.asList(testWatchlistItem);
-        when(watchListRepo.findAll()).thenReturn(entities);
+    void removeAll_shouldDeleteAllSymbols_inOneStatement() {
+        // Given: Two of the three symbols are on the watchlist
+        when(watchListRepo.deleteByStockIn(anyCollection())).thenReturn(2);
 
-        // When: Getting watchlist items
-        List<String> result = watchlistService.getWatchlistItems();
+        // When
+        int removed = watchlistService.removeAll(List.of("TSLA", "msft", "NONE"));
 
-        // Then: Should convert entities to strings correctly
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("AAPL", result.get(0));
-        assertTrue(result.get(0) instanceof String);
+        // Then
+        assertEquals(2, removed);
+        verify(watchListRepo, times(1)).deleteByStockIn(symbolsCaptor.capture());
+        assertEquals(List.of("TSLA", "MSFT", "NONE"), List.copyOf(symbolsCaptor.getValue()));
     }
 
     @Test
-    void removeFromWatchlist_shouldMatchExactly_whenCaseDiffers() {
-        // Given: Stock exists with uppercase
-        testWatchlistItem.setStock("TSLA");
-        WatchlistEntity lowerCase = new WatchlistEntity();
-        lowerCase.setStock("tsla");
-        when(watchListRepo.findAll()).thenReturn(Arrays.asList(testWatchlistItem, lowerCase));
-
-        // When: Removing with specific case
-        watchlistService.removeFromWatchlist("TSLA");
+    void removeAll_shouldDoNothing_whenListIsEmpty() {
+        // When
+        int removed = watchlistService.removeAll(List.of());
 
-        // Then: Should match case-insensitively and remove first match
-        verify(watchListRepo).findAll();
-        verify(watchListRepo).delete(any(WatchlistEntity.class));
+        // Then
+        assertEquals(0, removed);
+        verifyNoInteractions(watchListRepo);
     }
 }
@@ -0,0 +1,73 @@
+package com.neueda.pm_milkyway.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Reports every statement executed through this data source, with its SQL,
+ * on the executing thread once the database has run it. Connections and
+ * statements are wrapped in JDK proxies; a prepared statement remembers the
+ * SQL it was prepared with.
+ */
+final class GatedDataSource extends DelegatingDataSource {
+
+    /** Called after each successful execute; may block the executing thread. */
+    @FunctionalInterface
+    interface Listener {
+        void executed(String sql) throws InterruptedException;
+    }
+
+    private final Listener listener;
+
+    GatedDataSource(DataSource target, Listener listener) {
+        super(target);
+        this.listener = listener;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(Connection.class, super.getConnection(), null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(Connection.class, super.getConnection(username, password), null);
+    }
+
+    private <T> T wrap(Class<T> type, T target, String preparedSql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return intercept(method, args, result, preparedSql);
+        };
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object intercept(Method method, Object[] args, Object result, String preparedSql)
+            throws InterruptedException {
+        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+        if (Statement.class.isAssignableFrom(method.getDeclaringClass()) && method.getName().startsWith("execute")) {
+            if (sql != null)
+                listener.executed(sql);
+            return result;
+        }
+        Class<?> returned = method.getReturnType();
+        if (result != null && Statement.class.isAssignableFrom(returned))
+            return wrap((Class<Object>) returned, result, sql);
+        return result;
+    }
+}
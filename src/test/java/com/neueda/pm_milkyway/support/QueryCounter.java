@@ -0,0 +1,89 @@
+package com.neueda.pm_milkyway.support;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the SQL an operation sends to the database, so tests can hold a
+ * flow to a statement and row budget instead of trusting mocked
+ * repositories. Import {@link Config} into a {@code @SpringBootTest} running
+ * with {@code spring.jpa.properties.hibernate.generate_statistics=true} and
+ * autowire the counter.
+ *
+ * Statements are the JDBC statements Hibernate prepared, from its
+ * statistics: queries, inserts, updates, deletes and sequence calls, with a
+ * JDBC batch counting once. Rows are counted on the data source, one per
+ * row read from any result set. Both counts are global to the context, so
+ * measured operations must not overlap.
+ */
+public final class QueryCounter {
+
+    /** Wraps the application's data source and registers the counter. */
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class Config {
+
+        @Bean
+        static BeanPostProcessor rowCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof RowCountingDataSource)
+                            ? new RowCountingDataSource(dataSource, ROWS)
+                            : bean;
+                }
+            };
+        }
+
+        @Bean
+        QueryCounter queryCounter(EntityManagerFactory entityManagerFactory) {
+            return new QueryCounter(entityManagerFactory);
+        }
+    }
+
+    /** An operation to measure; MockMvc calls throw checked exceptions. */
+    @FunctionalInterface
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    /** What one measured operation cost. */
+    public record Count(long statements, long rows) {
+
+        /** Fails with the measured counts when either budget is exceeded. */
+        public Count assertWithin(String operation, long maxStatements, long maxRows) {
+            assertTrue(statements <= maxStatements, operation + " ran " + statements
+                    + " SQL statements, budget " + maxStatements);
+            assertTrue(rows <= maxRows, operation + " fetched " + rows + " rows, budget " + maxRows);
+            return this;
+        }
+    }
+
+    // Shared with the data source wrapper, which is created before any counter
+    private static final LongAdder ROWS = new LongAdder();
+
+    private final Statistics statistics;
+
+    QueryCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled())
+            throw new IllegalStateException("Set spring.jpa.properties.hibernate.generate_statistics=true");
+    }
+
+    public Count measure(Operation operation) throws Exception {
+        statistics.clear();
+        long rowsBefore = ROWS.sum();
+        operation.run();
+        return new Count(statistics.getPrepareStatementCount(), ROWS.sum() - rowsBefore);
+    }
+}
@@ -0,0 +1,69 @@
+package com.neueda.pm_milkyway.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Counts every row read through a {@link ResultSet} of this data source.
+ * Connections, statements and result sets are wrapped in JDK proxies that
+ * pass each call through; only a successful {@code next()} is counted.
+ */
+final class RowCountingDataSource extends DelegatingDataSource {
+
+    private final LongAdder rows;
+
+    RowCountingDataSource(DataSource target, LongAdder rows) {
+        super(target);
+        this.rows = rows;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(Connection.class, super.getConnection(username, password));
+    }
+
+    private <T> T wrap(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return intercept(method, result);
+        };
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object intercept(Method method, Object result) {
+        Class<?> returned = method.getReturnType();
+        if (result == null)
+            return null;
+        if (ResultSet.class.isAssignableFrom(method.getDeclaringClass()) && method.getName().equals("next")) {
+            if ((Boolean) result)
+                rows.increment();
+            return result;
+        }
+        // Statements and result sets come back as their declared interface
+        if (Statement.class.isAssignableFrom(returned) || returned == ResultSet.class)
+            return wrap((Class<Object>) returned, result);
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package com.neueda.pm_milkyway.support;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Stops a thread right after it runs a chosen SQL statement, still inside its
+ * transaction, so a test can check what other transactions can do while that
+ * one holds its locks. Import {@link Config} into a {@code @SpringBootTest}
+ * and autowire this.
+ *
+ * Gates are global to the context: whichever thread first runs a matching
+ * statement is the one held.
+ */
+public final class StatementGates {
+
+    /** Wraps the application's data source and registers the gates. */
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class Config {
+
+        @Bean
+        static BeanPostProcessor gatedDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof GatedDataSource)
+                            ? new GatedDataSource(dataSource, StatementGates::executed)
+                            : bean;
+                }
+            };
+        }
+
+        @Bean
+        StatementGates statementGates() {
+            return new StatementGates();
+        }
+    }
+
+    /** Holds the first statement that starts with a given prefix, until opened. */
+    public static final class Gate {
+        // Bounds how long a forgotten gate can hold a thread
+        private static final long MAX_HOLD_SECONDS = 30;
+
+        private final String sqlPrefix;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch reached = new CountDownLatch(1);
+        private final CountDownLatch opened = new CountDownLatch(1);
+
+        private Gate(String sqlPrefix) {
+            this.sqlPrefix = sqlPrefix;
+        }
+
+        /** Waits until a thread is held here; false if none arrives in time. */
+        public boolean awaitReached(Duration timeout) throws InterruptedException {
+            return reached.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        /** Lets the held thread go on; a gate nobody reached is withdrawn. */
+        public void open() {
+            GATES.remove(this);
+            opened.countDown();
+        }
+
+        private boolean claim(String sql) {
+            return sql.trim().toLowerCase(Locale.ROOT).startsWith(sqlPrefix) && claimed.compareAndSet(false, true);
+        }
+
+        private void hold() throws InterruptedException {
+            reached.countDown();
+            opened.await(MAX_HOLD_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    // Shared with the data source wrapper, which is created before this bean
+    private static final List<Gate> GATES = new CopyOnWriteArrayList<>();
+
+    private StatementGates() {
+    }
+
+    /** Holds the next thread to run a statement starting with {@code sqlPrefix} (any case). */
+    public Gate holdAfter(String sqlPrefix) {
+        Gate gate = new Gate(sqlPrefix.toLowerCase(Locale.ROOT));
+        GATES.add(gate);
+        return gate;
+    }
+
+    private static void executed(String sql) throws InterruptedException {
+        for (Gate gate : GATES) {
+            if (gate.claim(sql)) {
+                GATES.remove(gate);
+                gate.hold();
+                return;
+            }
+        }
+    }
+}
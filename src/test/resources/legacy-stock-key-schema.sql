@@ -0,0 +1,8 @@
+-- The watchlist as the first WatchlistEntity created it: keyed by the symbol
+-- itself, with no id column, holding unnormalized symbols
+create table watchlist(
+    stock varchar(255) not null,
+    primary key (stock)
+);
+
+insert into watchlist (stock) values ('MSFT'), ('AAPL'), (' aapl'), ('tsla '), ('GOOGL');